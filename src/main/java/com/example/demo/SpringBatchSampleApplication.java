@@ -8,17 +8,43 @@ import java.security.CodeSource;
 import java.security.ProtectionDomain;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.batch.core.launch.NoSuchJobException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.config.JobLaunchProperties;
+import com.example.demo.launch.JobLaunchFailedException;
+import com.example.demo.launch.JobLaunchQueue;
+import com.example.demo.launch.JobLaunchQueue.Submission;
+import com.example.demo.launch.JobLaunchRejectedException;
+import com.example.demo.launch.SingleJobLauncher;
+import com.example.demo.throttle.StepThrottle;
+import com.example.demo.throttle.StepThrottleRepository;
+
 @SpringBootApplication
 @RestController
 public class SpringBatchSampleApplication {
 
+	@Autowired
+	private JobLaunchQueue jobLaunchQueue;
+
+	@Autowired
+	private JobLaunchProperties jobLaunchProperties;
+
+	@Autowired
+	private StepThrottleRepository stepThrottleRepository;
+
 	// C:\pleiades\java\11\bin\java -Xdebug -Xrunjdwp:transport=dt_socket,server=y,address=8000,suspend=n -jar "target/SpringBatchSample-0.0.1-SNAPSHOT.jar"
 	//
 	// どんなJavaアプリやjarライブラリでもデバックする方法(eclipseによるリモート・アタッチ)
@@ -27,8 +53,86 @@ public class SpringBatchSampleApplication {
 		SpringApplication.run(SpringBatchSampleApplication.class, args);
 	}
 
+    /**
+     * ジョブを別プロセスで起動する
+     *
+     * 起動待ちキュー（JobLaunchQueue）を経由し、同時実行数の上限（batch.launch.*）を超える場合は起動を待たせる。
+     * 　　200 : 起動した
+     * 　　202 : 起動待ちのキューに入れた（実行中のジョブが終了した時に優先度順に起動する）
+     * 　　404 : 登録されていないジョブ名
+     * 　　429 : 起動待ちのキューが上限に達しているため受け付けない（Retry-Afterの秒数後に再要求すること）
+     * 　　500 : プロセスの起動に失敗した
+     *
+     * @param jobname ジョブ名
+     * @param priority 優先度（未指定の場合はbatch.launch.jobs[ジョブ名].priority）
+     */
     @RequestMapping("/runjob_ProcessBuilder/{jobname}")
-    String requestJob_ProcessBuilder(@PathVariable("jobname") String jobname) throws URISyntaxException {
+    ResponseEntity<String> requestJob_ProcessBuilder(@PathVariable("jobname") String jobname,
+    		@RequestParam(name = "priority", required = false) Integer priority) {
+
+    	Submission submission;
+    	try {
+    		submission = jobLaunchQueue.submit(jobname, priority != null ? priority : jobLaunchProperties.priorityOf(jobname),
+    				() -> startProcess(jobname).onExit());
+    	} catch (NoSuchJobException e) {
+    		return ResponseEntity.status(HttpStatus.NOT_FOUND).body("no such job " + jobname);
+    	} catch (JobLaunchRejectedException e) {
+    		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+    				.header(HttpHeaders.RETRY_AFTER, String.valueOf(jobLaunchProperties.getRetryAfter().getSeconds()))
+    				.body("rejected " + jobname);
+    	} catch (JobLaunchFailedException e) {
+    		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("failed " + jobname);
+    	}
+
+    	if(submission.isStarted()) {
+    		return ResponseEntity.ok("run " + jobname);
+    	}
+    	return ResponseEntity.accepted().body("queued " + jobname + " (position: " + submission.getPosition() + ")");
+    }
+
+    /**
+     * 実行中・起動待ちのジョブの状況を返す
+     */
+    @RequestMapping("/runjob_queue")
+    Map<String, Object> requestJobQueue() {
+    	return jobLaunchQueue.status();
+    }
+
+    /**
+     * ステップごとの流量の上限（step_throttleテーブル）を返す
+     */
+    @RequestMapping(path = "/throttle", method = RequestMethod.GET)
+    Map<String, StepThrottle> requestThrottles() {
+    	return stepThrottleRepository.findAll();
+    }
+
+    /**
+     * ステップの流量の上限を変更する（実行中のジョブにもbatch.throttle.refresh-interval以内に反映される）
+     *
+     * @param stepname ステップ名（例えばstep02_DB_to_DB）
+     * @param itemsPerSecond 1秒あたりの件数の上限（0以下の場合は制限しない）
+     * @param chunksPerSecond 1秒あたりのチャンク数の上限（0以下の場合は制限しない）
+     */
+    @RequestMapping(path = "/throttle/{stepname}", method = {RequestMethod.PUT, RequestMethod.POST})
+    StepThrottle requestThrottle(@PathVariable("stepname") String stepname,
+    		@RequestParam(name = "itemsPerSecond", defaultValue = "0") double itemsPerSecond,
+    		@RequestParam(name = "chunksPerSecond", defaultValue = "0") double chunksPerSecond) {
+    	StepThrottle throttle = new StepThrottle(itemsPerSecond, chunksPerSecond);
+    	stepThrottleRepository.save(stepname, throttle);
+    	return throttle;
+    }
+
+    /**
+     * ステップの流量の上限を削除する（プロパティの上限に戻る）
+     *
+     * @param stepname ステップ名
+     */
+    @RequestMapping(path = "/throttle/{stepname}", method = RequestMethod.DELETE)
+    ResponseEntity<Void> requestThrottleDelete(@PathVariable("stepname") String stepname) {
+    	return stepThrottleRepository.delete(stepname) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    private Process startProcess(String jobname) throws URISyntaxException, IOException {
 
     	List<String> command = new ArrayList<>();
 
@@ -37,6 +141,7 @@ public class SpringBatchSampleApplication {
 
     	// java起動時オプション
     	command.add("-Dfile.encoding=UTF-8");
+    	command.addAll(jobLaunchProperties.getJvmOptions());
 
     	// データベース初期化はnever（行わない）を設定
     	command.add("-Dspring.datasource.initialization-mode=never");
@@ -51,16 +156,19 @@ public class SpringBatchSampleApplication {
     	command.add("-Dspring.batch.job.enabled=true");
     	command.add("-Dspring.batch.job.names="+jobname);
 
+    	// 指定したジョブのBeanだけを作成する起動クラス（SingleJobLauncher）で起動する
     	if(getApplicationScheme(SpringBatchSampleApplication.class).equals("jar")) {
-    		// Jarを指定
-    		command.add("-jar");
+    		// Jarを指定（Jar内の起動クラスはPropertiesLauncherのloader.mainで指定する）
+    		command.add("-Dloader.main=" + SingleJobLauncher.class.getName());
+    		command.add("-classpath");
     		command.add(System.getProperty("java.class.path"));
+    		command.add("org.springframework.boot.loader.PropertiesLauncher");
     	}
     	else {
     		// classpathを指定
     		command.add("-classpath");
     		command.add(System.getProperty("java.class.path"));
-    		command.add(SpringBatchSampleApplication.class.getName());
+    		command.add(SingleJobLauncher.class.getName());
     	}
 
     	// ジョブパラメータ
@@ -80,13 +188,7 @@ public class SpringBatchSampleApplication {
     	// https://qiita.com/nogitsune413/items/48d69054b75ea9afbe5b
     	builder.inheritIO();
 
-    	try {
-    		builder.start();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-
-    	return "run " + jobname;
+    	return builder.start();
     }
 
 	private static String getApplicationScheme(Class<?> cls) throws URISyntaxException {
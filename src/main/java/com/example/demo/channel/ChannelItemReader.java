@@ -0,0 +1,48 @@
+package com.example.demo.channel;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemReader;
+
+/**
+ * RecordChannelから読み込むItemReader
+ *
+ * ステップの開始時に、同じジョブ実行で書き込み側のステップが作成したチャネルを参照する。
+ * （StepExecutionListenerとして、ステップのreaderに設定すると自動的に登録される）
+ * 読み込んだデータはチャネルから取り除かれるため、このステップは途中から再実行できない。
+ */
+public class ChannelItemReader<T> implements ItemReader<T>, StepExecutionListener {
+
+	private final ChannelRegistry registry;
+
+	private final String channelName;
+
+	private RecordChannel<T> channel;
+
+	/**
+	 * @param registry チャネルの管理
+	 * @param channelName チャネル名
+	 */
+	public ChannelItemReader(ChannelRegistry registry, String channelName) {
+		this.registry = registry;
+		this.channelName = channelName;
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		channel = registry.get(stepExecution.getJobExecutionId(), channelName);
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		channel = null;
+		return null;
+	}
+
+	@Override
+	public T read() throws Exception {
+		return channel.take();
+	}
+
+}
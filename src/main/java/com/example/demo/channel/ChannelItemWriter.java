@@ -0,0 +1,97 @@
+package com.example.demo.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.sort.RecordCodec;
+
+/**
+ * RecordChannelに書き込むItemWriter
+ *
+ * チャンクのデータはトランザクションのコミット後に公開し、ロールバックした場合は破棄する。
+ * 公開待ちのデータはトランザクションごとに保持するため、マルチスレッドのステップから呼び出してもよい。
+ * ステップの開始時にチャネルを作成し、ステップが正常終了した場合は完了を、それ以外は異常終了を通知する。
+ * （StepExecutionListenerとして、ステップのwriterに設定すると自動的に登録される）
+ */
+public class ChannelItemWriter<T> implements ItemWriter<T>, StepExecutionListener {
+
+	private final ChannelRegistry registry;
+
+	private final String channelName;
+
+	private final RecordCodec<T> codec;
+
+	private volatile RecordChannel<T> channel;
+
+	/**
+	 * @param registry チャネルの管理
+	 * @param channelName チャネル名
+	 * @param codec ファイルに書き出す場合の変換
+	 */
+	public ChannelItemWriter(ChannelRegistry registry, String channelName, RecordCodec<T> codec) {
+		this.registry = registry;
+		this.channelName = channelName;
+		this.codec = codec;
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		channel = registry.create(stepExecution.getJobExecutionId(), channelName, codec);
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		if(stepExecution.getStatus() == BatchStatus.COMPLETED) {
+			channel.complete();
+		} else {
+			List<Throwable> failures = stepExecution.getFailureExceptions();
+			channel.fail(failures.isEmpty()
+					? new IllegalStateException("Producer step ended with " + stepExecution.getStatus())
+					: failures.get(0));
+		}
+		channel = null;
+		return null;
+	}
+
+	@Override
+	public void write(List<? extends T> items) throws Exception {
+		RecordChannel<T> target = channel;
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			target.publish(items);
+			return;
+		}
+
+		// 現在のトランザクションの公開待ちのデータ（トランザクションのリソースとして、このWriterをキーに保持する）
+		@SuppressWarnings("unchecked")
+		List<T> pending = (List<T>) TransactionSynchronizationManager.getResource(this);
+		if(pending == null) {
+			List<T> created = new ArrayList<>();
+			TransactionSynchronizationManager.bindResource(this, created);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(ChannelItemWriter.this);
+					try {
+						if(status == STATUS_COMMITTED) {
+							target.publish(created);
+						}
+					} catch(Exception e) {
+						// コミット後のため、次のチャンクまたはステップの終了時に失敗させる
+						target.fail(e);
+					}
+				}
+			});
+			pending = created;
+		}
+		pending.addAll(items);
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.example.demo.channel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+
+import com.example.demo.sort.RecordCodec;
+
+/**
+ * ジョブ実行ごとのRecordChannelを管理する
+ *
+ * チャネルはジョブ実行（JobExecutionのid）と名前で識別し、書き込み側のステップが作成して読み込み側のステップが参照する。
+ * ジョブのリスナーとして登録すると、ジョブの終了時にそのジョブ実行のチャネルを閉じる（書き出したファイルを削除する）。
+ *
+ * チャネルはプロセス内にだけ存在するため、ジョブを再実行した場合は書き込み側のステップから実行し直す必要がある。
+ */
+public class ChannelRegistry implements JobExecutionListener {
+
+	private static final Logger log = LoggerFactory.getLogger(ChannelRegistry.class);
+
+	private final Map<String, RecordChannel<?>> channels = new ConcurrentHashMap<>();
+
+	private int memoryCapacity = 100_000;
+
+	private File spillDirectory = new File(System.getProperty("java.io.tmpdir"));
+
+	/**
+	 * チャネルごとにメモリ上に保持する件数の上限を設定します。デフォルトは100000
+	 *
+	 * @param memoryCapacity 件数
+	 */
+	public void setMemoryCapacity(int memoryCapacity) {
+		this.memoryCapacity = memoryCapacity;
+	}
+
+	public void setSpillDirectory(File spillDirectory) {
+		this.spillDirectory = spillDirectory;
+	}
+
+	/**
+	 * チャネルを作成します（同じジョブ実行に同じ名前のチャネルがある場合は、閉じて作り直す）
+	 *
+	 * @param jobExecutionId ジョブ実行のid
+	 * @param name チャネル名
+	 * @param codec ファイルに書き出す場合の変換
+	 * @return チャネル
+	 */
+	public <T> RecordChannel<T> create(long jobExecutionId, String name, RecordCodec<T> codec) {
+		spillDirectory.mkdirs();
+		RecordChannel<T> channel = new RecordChannel<>(name, codec, memoryCapacity, spillDirectory);
+		RecordChannel<?> previous = channels.put(key(jobExecutionId, name), channel);
+		if(previous != null) {
+			closeQuietly(previous);
+		}
+		return channel;
+	}
+
+	/**
+	 * 作成済みのチャネルを返します
+	 *
+	 * @param jobExecutionId ジョブ実行のid
+	 * @param name チャネル名
+	 * @return チャネル
+	 * @throws IllegalStateException このジョブ実行で書き込み側のステップが実行されていない場合
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> RecordChannel<T> get(long jobExecutionId, String name) {
+		RecordChannel<T> channel = (RecordChannel<T>) channels.get(key(jobExecutionId, name));
+		if(channel == null) {
+			throw new IllegalStateException("Channel is not produced in this job execution. "
+					+ "Restart the job from the producer step. [channel:" + name + ", jobExecutionId:" + jobExecutionId + "]");
+		}
+		return channel;
+	}
+
+	@Override
+	public void beforeJob(JobExecution jobExecution) {
+	}
+
+	@Override
+	public void afterJob(JobExecution jobExecution) {
+		String prefix = jobExecution.getId() + ":";
+		for(Iterator<Map.Entry<String, RecordChannel<?>>> it = channels.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, RecordChannel<?>> entry = it.next();
+			if(entry.getKey().startsWith(prefix)) {
+				it.remove();
+				closeQuietly(entry.getValue());
+			}
+		}
+	}
+
+	private void closeQuietly(RecordChannel<?> channel) {
+		try {
+			channel.close();
+		} catch(IOException e) {
+			log.warn("Failed to close channel. [channel:{}]", channel.getName(), e);
+		}
+	}
+
+	private static String key(long jobExecutionId, String name) {
+		return jobExecutionId + ":" + name;
+	}
+
+}
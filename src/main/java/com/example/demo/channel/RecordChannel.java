@@ -0,0 +1,270 @@
+package com.example.demo.channel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.demo.sort.RecordCodec;
+import com.example.demo.sort.RecordFileReader;
+import com.example.demo.sort.RecordFileWriter;
+
+/**
+ * ステップ間でデータを受け渡すためのチャネル（同一プロセス内）
+ *
+ * 書き込み側がコミットしたデータ（publish）を、読み込み側が書き込まれた順に取り出す（take）。
+ * メモリ上に保持する件数がmemoryCapacityを超える場合は、超えた分をバイナリのファイル（RecordFileWriter）に書き出す。
+ * ファイルは読み込み側が読み終えた時点、またはチャネルを閉じた時点で削除する。
+ *
+ * 書き込み側は複数スレッドから、読み込み側は1スレッドから呼び出すこと。
+ */
+public class RecordChannel<T> implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(RecordChannel.class);
+
+	private final String name;
+
+	private final RecordCodec<T> codec;
+
+	private final int memoryCapacity;
+
+	private final File spillDirectory;
+
+	private final Deque<Segment<T>> segments = new ArrayDeque<>();
+
+	private int memoryCount;
+
+	private boolean completed;
+
+	private Throwable failure;
+
+	private boolean closed;
+
+	private long published;
+
+	private long spilled;
+
+	private int spillFiles;
+
+	// 以下は読み込み側のスレッドだけが使用する
+	private Segment<T> reading;
+
+	private Iterator<T> memoryIterator;
+
+	private RecordFileReader<T> fileReader;
+
+	/**
+	 * @param name チャネル名（ログ出力用）
+	 * @param codec ファイルに書き出す場合の変換
+	 * @param memoryCapacity メモリ上に保持する件数の上限
+	 * @param spillDirectory ファイルの書き出し先
+	 */
+	public RecordChannel(String name, RecordCodec<T> codec, int memoryCapacity, File spillDirectory) {
+		this.name = name;
+		this.codec = codec;
+		this.memoryCapacity = memoryCapacity;
+		this.spillDirectory = spillDirectory;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * コミットしたデータを読み込み側に公開します
+	 *
+	 * @param records データ
+	 */
+	public void publish(List<? extends T> records) throws IOException {
+		if(records.isEmpty()) {
+			return;
+		}
+
+		boolean inMemory;
+		synchronized(this) {
+			checkWritable();
+			inMemory = memoryCount + records.size() <= memoryCapacity;
+			if(inMemory) {
+				memoryCount += records.size();
+				append(new Segment<>(new ArrayList<>(records), null, records.size()));
+				return;
+			}
+		}
+
+		// ファイルへの書き出し中も読み込み側が先行するデータを読み込めるよう、ロックの外で書き出す
+		File file = File.createTempFile("channel-", ".rec", spillDirectory);
+		try(RecordFileWriter<T> writer = new RecordFileWriter<>(file, codec)) {
+			for(T record : records) {
+				writer.write(record);
+			}
+		} catch(IOException | RuntimeException e) {
+			Files.deleteIfExists(file.toPath());
+			throw e;
+		}
+		synchronized(this) {
+			if(closed) {
+				Files.deleteIfExists(file.toPath());
+				checkWritable();
+			}
+			spilled += records.size();
+			spillFiles++;
+			append(new Segment<>(null, file, records.size()));
+		}
+	}
+
+	private void append(Segment<T> segment) {
+		segments.add(segment);
+		published += segment.size;
+		notifyAll();
+	}
+
+	private void checkWritable() {
+		if(closed || completed || failure != null) {
+			throw new IllegalStateException("Channel is no longer writable. [channel:" + name + "]");
+		}
+	}
+
+	/**
+	 * 書き込み側の正常終了を通知します（これ以降、取り出すデータが無くなった場合はtakeがnullを返す）
+	 */
+	public synchronized void complete() {
+		completed = true;
+		notifyAll();
+		log.debug("Channel completed. [channel:{}, published:{}, spilled:{}, spillFiles:{}]", name, published, spilled, spillFiles);
+	}
+
+	/**
+	 * 書き込み側の異常終了を通知します（公開済みのデータをすべて取り出した後、takeは例外をスローする）
+	 *
+	 * @param cause 原因
+	 */
+	public synchronized void fail(Throwable cause) {
+		failure = cause;
+		notifyAll();
+	}
+
+	/**
+	 * 次のデータを取り出します。公開されたデータが無い場合は、公開または終了の通知まで待機する
+	 *
+	 * @return データ（書き込み側が正常終了し、すべて取り出した場合はnull）
+	 */
+	public T take() throws IOException, InterruptedException {
+		while(true) {
+			if(memoryIterator != null && memoryIterator.hasNext()) {
+				return memoryIterator.next();
+			}
+			if(fileReader != null) {
+				T record = fileReader.read();
+				if(record != null) {
+					return record;
+				}
+			}
+			if(!nextSegment()) {
+				return null;
+			}
+		}
+	}
+
+	private boolean nextSegment() throws IOException, InterruptedException {
+		finishReading();
+		Segment<T> segment;
+		synchronized(this) {
+			while(segments.isEmpty() && !completed && failure == null && !closed) {
+				wait();
+			}
+			if(closed) {
+				throw new IllegalStateException("Channel is closed. [channel:" + name + "]");
+			}
+			if(segments.isEmpty()) {
+				// コミット済みのデータをすべて取り出した後に、書き込み側の異常終了を通知する
+				if(failure != null) {
+					throw new IllegalStateException("Upstream of the channel failed. [channel:" + name + "]", failure);
+				}
+				return false;
+			}
+			segment = segments.poll();
+			if(segment.records != null) {
+				memoryCount -= segment.size;
+			}
+		}
+
+		reading = segment;
+		if(segment.records != null) {
+			memoryIterator = segment.records.iterator();
+		} else {
+			fileReader = new RecordFileReader<>(segment.file, codec);
+		}
+		return true;
+	}
+
+	private void finishReading() throws IOException {
+		memoryIterator = null;
+		if(fileReader != null) {
+			fileReader.close();
+			fileReader = null;
+		}
+		if(reading != null && reading.file != null) {
+			Files.deleteIfExists(reading.file.toPath());
+		}
+		reading = null;
+	}
+
+	/**
+	 * チャネルを閉じ、書き出したファイルを削除します
+	 */
+	@Override
+	public void close() throws IOException {
+		List<Segment<T>> remaining;
+		synchronized(this) {
+			if(closed) {
+				return;
+			}
+			closed = true;
+			remaining = new ArrayList<>(segments);
+			segments.clear();
+			memoryCount = 0;
+			notifyAll();
+		}
+		if(reading != null) {
+			remaining.add(reading);
+		}
+		if(fileReader != null) {
+			fileReader.close();
+		}
+		for(Segment<T> segment : remaining) {
+			if(segment.file != null) {
+				Files.deleteIfExists(segment.file.toPath());
+			}
+		}
+		if(spillFiles > 0) {
+			log.info("Channel spilled {} record(s) to {} file(s). [channel:{}, published:{}]", spilled, spillFiles, name, published);
+		}
+	}
+
+	/**
+	 * 1回のpublishで公開したデータ（メモリ上のリスト、またはファイル）
+	 */
+	private static class Segment<T> {
+
+		private final List<T> records;
+
+		private final File file;
+
+		private final int size;
+
+		Segment(List<T> records, File file, int size) {
+			this.records = records;
+			this.file = file;
+			this.size = size;
+		}
+	}
+
+}
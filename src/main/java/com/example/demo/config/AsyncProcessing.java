@@ -0,0 +1,97 @@
+package com.example.demo.config;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.core.task.TaskExecutor;
+
+import com.example.demo.item.processor.ProcessListenerItemProcessor;
+import com.example.demo.item.writer.WriteListenerItemWriter;
+
+/**
+ * 各ステップのItemProcessorを非同期（スレッドプール上）で実行するためのクラス
+ *
+ * 加工はチャンク内の各データごとにスレッドプールへ投入してFutureを返し、
+ * 書き込み時にAsyncItemWriterが読み込み順にFutureの結果を取り出して元のItemWriterへ渡す。
+ * 非同期にする場合は、ステップのチャンクの型を&lt;入力, Future&lt;出力&gt;&gt;とすること。
+ *
+ * 加工でnullを返した（除外した）データもFutureとして書き込みに渡るため、
+ * ステップのFILTER_COUNTには計上されず、WRITE_COUNTに含まれる。（書き込み自体はAsyncItemWriterが除外する）
+ *
+ * ステップに登録したItemProcessListener、ItemWriteListenerにはFutureが渡されるため、
+ * これらのリスナーはprocessor、writerの引数に渡し、ステップには登録しないこと。
+ */
+public class AsyncProcessing {
+
+	private final boolean enabled;
+
+	private final TaskExecutor taskExecutor;
+
+	public AsyncProcessing(boolean enabled, TaskExecutor taskExecutor) {
+		this.enabled = enabled;
+		this.taskExecutor = taskExecutor;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * ItemProcessorを非同期で実行するItemProcessorを返します
+	 *
+	 * @param processor 元のItemProcessor
+	 * @return 非同期で実行するItemProcessor
+	 */
+	public <I, O> ItemProcessor<I, Future<O>> processor(ItemProcessor<I, O> processor) throws Exception {
+		return processor(processor, Collections.emptyList());
+	}
+
+	/**
+	 * ItemProcessorを非同期で実行するItemProcessorを返します
+	 *
+	 * @param processor 元のItemProcessor
+	 * @param listeners 加工を行うスレッド上で呼び出すItemProcessListener（ステップには登録しないこと）
+	 * @return 非同期で実行するItemProcessor
+	 */
+	public <I, O> ItemProcessor<I, Future<O>> processor(ItemProcessor<I, O> processor,
+			List<ItemProcessListener<? super I, ? super O>> listeners) throws Exception {
+		AsyncItemProcessor<I, O> asyncItemProcessor = new AsyncItemProcessor<>();
+		asyncItemProcessor.setDelegate(listeners.isEmpty() ? processor
+				: new ProcessListenerItemProcessor<>(processor, listeners));
+		asyncItemProcessor.setTaskExecutor(taskExecutor);
+		asyncItemProcessor.afterPropertiesSet();
+		return asyncItemProcessor;
+	}
+
+	/**
+	 * 非同期の加工結果（Future）を取り出して元のItemWriterへ渡すItemWriterを返します
+	 *
+	 * @param writer 元のItemWriter
+	 * @return Futureを受け取るItemWriter
+	 */
+	public <T> ItemWriter<Future<T>> writer(ItemWriter<T> writer) throws Exception {
+		return writer(writer, Collections.emptyList());
+	}
+
+	/**
+	 * 非同期の加工結果（Future）を取り出して元のItemWriterへ渡すItemWriterを返します
+	 *
+	 * @param writer 元のItemWriter
+	 * @param listeners Futureから取り出したデータで呼び出すItemWriteListener（ステップには登録しないこと）
+	 * @return Futureを受け取るItemWriter
+	 */
+	public <T> ItemWriter<Future<T>> writer(ItemWriter<T> writer, List<ItemWriteListener<? super T>> listeners) throws Exception {
+		AsyncItemWriter<T> asyncItemWriter = new AsyncItemWriter<>();
+		asyncItemWriter.setDelegate(listeners.isEmpty() ? writer : new WriteListenerItemWriter<>(writer, listeners));
+		asyncItemWriter.afterPropertiesSet();
+		return asyncItemWriter;
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncProcessingConfiguration {
+
+	// ItemProcessorを非同期で実行するかどうか（step02、step06）
+	@Value("${batch.async-processing.enabled:false}")
+	private boolean enabled;
+
+	// 加工を行うスレッド数
+	@Value("${batch.async-processing.pool-size:4}")
+	private int poolSize;
+
+	// スレッドが空くのを待つ加工の件数（超えた分はチャンクのスレッドで加工する）
+	@Value("${batch.async-processing.queue-capacity:100}")
+	private int queueCapacity;
+
+	/**
+	 * ItemProcessorを実行するスレッドプール
+	 *
+	 * キューが一杯の場合は投入したスレッド（チャンクのスレッド）で実行するため（CallerRunsPolicy）、
+	 * 加工が追いつかない場合も読み込みが先行してメモリを使い続けることはない。
+	 * 加工結果は書き込み前に必ず待ち合わせるため、スレッドはデーモンとする（ジョブ終了後にJVMの終了を妨げない）。
+	 *
+	 * @return
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor asyncItemProcessorTaskExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("async-item-");
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.setDaemon(true);
+		return executor;
+	}
+
+	@Bean
+	public AsyncProcessing asyncProcessing(ThreadPoolTaskExecutor asyncItemProcessorTaskExecutor) {
+		return new AsyncProcessing(enabled, asyncItemProcessorTaskExecutor);
+	}
+
+}
@@ -1,16 +1,21 @@
 package com.example.demo.config;
 
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.job.flow.Flow;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.listener.JobExecutionListenerSupport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.example.demo.channel.ChannelRegistry;
 import com.example.demo.listener.JobCompletionNotificationListener;
+import com.example.demo.pipeline.WatermarkRegistry;
+import com.example.demo.step.InputFingerprintStep;
 
 @Configuration
 @EnableBatchProcessing
@@ -42,6 +47,8 @@ public class BatchConfiguration {
 			// ジョブの実行時や終了時などに実行される
 			// （サンプルではジョブ終了時にPersonテーブルの内容をログに出力している）
 			.listener(listener)
+			// step01の入力を再利用する場合は、ジョブの終了時の出力先の状態を保存する
+			.listener(inputFingerprint(step01_CSV_to_DB))
 
 			// ①CSV⇒DBインポート
 			.flow(step01_CSV_to_DB)
@@ -62,6 +69,8 @@ public class BatchConfiguration {
 			// ジョブの実行時や終了時などに実行される
 			// （サンプルではジョブ終了時にPersonテーブルの内容をログに出力している）
 			.listener(listener)
+			// step01の入力を再利用する場合は、ジョブの終了時の出力先の状態を保存する
+			.listener(inputFingerprint(step01_CSV_to_DB))
 
 			// ①CSV⇒DBインポート
 			.flow(step01_CSV_to_DB)
@@ -86,6 +95,8 @@ public class BatchConfiguration {
 			// ジョブの実行時や終了時などに実行される
 			// （サンプルではジョブ終了時にPersonテーブルの内容をログに出力している）
 			.listener(listener)
+			// step01の入力を再利用する場合は、ジョブの終了時の出力先の状態を保存する
+			.listener(inputFingerprint(step01_CSV_to_DB))
 
 			// ①CSV⇒DBインポート
 			.flow(step01_CSV_to_DB)
@@ -113,6 +124,8 @@ public class BatchConfiguration {
 			// ジョブの実行時や終了時などに実行される
 			// （サンプルではジョブ終了時にPersonテーブルの内容をログに出力している）
 			.listener(listener)
+			// step01の入力を再利用する場合は、ジョブの終了時の出力先の状態を保存する
+			.listener(inputFingerprint(step01_CSV_to_DB))
 
 			// ①CSV⇒DBインポート
 			.flow(step01_CSV_to_DB)
@@ -140,6 +153,8 @@ public class BatchConfiguration {
             // ジョブの実行時や終了時などに実行される
             // （サンプルではジョブ終了時にPersonテーブルの内容をログに出力している）
             .listener(listener)
+            // step01の入力を再利用する場合は、ジョブの終了時の出力先の状態を保存する
+            .listener(inputFingerprint(step01_CSV_to_DB))
 
             // ①CSV⇒DBインポート
             .flow(step01_CSV_to_DB)
@@ -167,6 +182,8 @@ public class BatchConfiguration {
 			// ジョブの実行時や終了時などに実行される
 			// （サンプルではジョブ終了時にPersonテーブルの内容をログに出力している）
 			.listener(listener)
+			// step01の入力を再利用する場合は、ジョブの終了時の出力先の状態を保存する
+			.listener(inputFingerprint(step01_CSV_to_DB))
 
 			// ①CSV⇒DBインポート
 			.flow(step01_CSV_to_DB)
@@ -181,4 +198,152 @@ public class BatchConfiguration {
 			.build();
 	}
 
+	/**
+	 * CSVを前回取り込んだ時との差分だけDBに反映するジョブ
+	 *
+	 * 　　①CSVをキー順に並べ替え
+	 * 　　②スナップショット（前回までに書き込んだデータのキーとハッシュ値）をキー順に並べ替え
+	 * 　　③差分（登録・更新・削除）をDBとスナップショットに書き込み
+	 */
+	@Bean
+	public Job job07(
+			JobCompletionNotificationListener listener,
+			Step step07_sort_CSV,
+			Step step07_export_snapshot,
+			Step step07_delta_to_DB) {
+		return jobBuilderFactory.get("job07")
+			.incrementer(new RunIdIncrementer())
+			.listener(listener)
+
+			// ①CSVをキー順に並べ替え
+			.flow(step07_sort_CSV)
+
+			// ②スナップショットをキー順に並べ替え
+			.next(step07_export_snapshot)
+
+			// ③差分をDBとスナップショットに書き込み
+			.next(step07_delta_to_DB)
+
+			.end()
+			.build();
+	}
+
+	/**
+	 * job03と同じ処理を、中間データをDBに書き込まずにチャネルで受け渡して行うジョブ
+	 *
+	 * 　　①CSV⇒チャネル
+	 * 　　②チャネル⇒（変換処理）⇒チャネル
+	 * 　　③チャネル⇒CSVエクスポート
+	 */
+	@Bean
+	public Job job08(
+			JobCompletionNotificationListener listener,
+			ChannelRegistry channelRegistry,
+			Step step08_CSV_to_channel,
+			Step step08_channel_to_channel,
+			Step step08_channel_to_CSV) {
+		return jobBuilderFactory.get("job08")
+			.incrementer(new RunIdIncrementer())
+			.listener(listener)
+
+			// ジョブの終了時にチャネルを閉じる（書き出したファイルを削除する）
+			.listener(channelRegistry)
+
+			// ①CSV⇒チャネル
+			.flow(step08_CSV_to_channel)
+
+			// ②チャネル⇒（変換処理）⇒チャネル
+			.next(step08_channel_to_channel)
+
+			// ③チャネル⇒CSVエクスポート
+			.next(step08_channel_to_CSV)
+
+			.end()
+			.build();
+	}
+
+	/**
+	 * job03と同じ処理を、各ステップを並行して実行するパイプライン方式で行うジョブ
+	 *
+	 * 下流のステップは上流のステップがコミットしたデータを、上流のステップの実行中に読み込む。
+	 */
+	@Bean
+	public Job job09(
+			JobCompletionNotificationListener listener,
+			WatermarkRegistry watermarkRegistry,
+			Flow flow09_pipeline) {
+		return jobBuilderFactory.get("job09")
+			.incrementer(new RunIdIncrementer())
+			.listener(listener)
+
+			// ジョブの終了時にウォーターマークを破棄する
+			.listener(watermarkRegistry)
+
+			// ①CSV⇒DBインポート、②DB⇒（変換処理）⇒DB、③DB⇒CSVエクスポートを並行して実行
+			.start(flow09_pipeline)
+
+			.end()
+			.build();
+	}
+
+	/**
+	 * ヒープに収まらない大きさのCSVを、キー順に並べ替えてからDBに取り込むジョブ
+	 *
+	 * 　　①CSVをキー順に並べ替え（外部ソート）
+	 * 　　②並べ替えたデータをDBに書き込み
+	 */
+	@Bean
+	public Job job10(
+			JobCompletionNotificationListener listener,
+			Step step10_sort_CSV,
+			Step step10_sorted_to_DB) {
+		return jobBuilderFactory.get("job10")
+			.incrementer(new RunIdIncrementer())
+			.listener(listener)
+
+			// ①CSVをキー順に並べ替え
+			.flow(step10_sort_CSV)
+
+			// ②並べ替えたデータをDBに書き込み
+			.next(step10_sorted_to_DB)
+
+			.end()
+			.build();
+	}
+
+	/**
+	 * JobRepositoryのメタデータ（BATCH_*テーブル）を整理するジョブ
+	 *
+	 * 　　①メタデータのテーブルのインデックスを確認
+	 * 　　②保持期間を過ぎたメタデータを削除（またはアーカイブ）
+	 */
+	@Bean
+	public Job job11(
+			JobCompletionNotificationListener listener,
+			Step step11_check_indexes,
+			Step step11_prune_metadata) {
+		return jobBuilderFactory.get("job11")
+			.incrementer(new RunIdIncrementer())
+			.listener(listener)
+
+			// ①インデックスを確認
+			.flow(step11_check_indexes)
+
+			// ②保持期間を過ぎたメタデータを削除
+			.next(step11_prune_metadata)
+
+			.end()
+			.build();
+	}
+
+	/**
+	 * step01がInputFingerprintStep（batch.step01.reuse-unchanged-input=true）の場合は、そのStepをジョブのリスナーとして返します
+	 *
+	 * @param step
+	 * @return
+	 */
+	private static JobExecutionListener inputFingerprint(Step step) {
+		return step instanceof InputFingerprintStep ? (InputFingerprintStep) step : new JobExecutionListenerSupport();
+	}
+
 }
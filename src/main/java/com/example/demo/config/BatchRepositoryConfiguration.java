@@ -0,0 +1,50 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.demo.repository.RepositoryModeBatchConfigurer;
+import com.example.demo.repository.RepositoryModeBatchConfigurer.Mode;
+
+@Configuration
+@EnableConfigurationProperties(BatchProperties.class)
+public class BatchRepositoryConfiguration {
+
+	// JobRepositoryの方式（jdbc、checkpoint、memory）
+	@Value("${batch.repository.mode:jdbc}")
+	private String mode;
+
+	// checkpoint：メタデータを更新するチャンク数の間隔
+	@Value("${batch.repository.checkpoint.interval-chunks:10}")
+	private int intervalChunks;
+
+	// checkpoint：メタデータを更新する時間の間隔
+	@Value("${batch.repository.checkpoint.interval:5s}")
+	private Duration interval;
+
+	/**
+	 * Spring BootのデフォルトのBatchConfigurer（BasicBatchConfigurer）の代わりに使用し、
+	 * batch.repository.modeに応じたJobRepositoryを作成する
+	 *
+	 * @param properties
+	 * @param dataSource
+	 * @param transactionManagerCustomizers
+	 * @return
+	 */
+	@Bean
+	public RepositoryModeBatchConfigurer batchConfigurer(BatchProperties properties, DataSource dataSource,
+			ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+		return new RepositoryModeBatchConfigurer(properties, dataSource, transactionManagerCustomizers.getIfAvailable(),
+				Mode.valueOf(mode.trim().toUpperCase()), intervalChunks, interval.toMillis());
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.example.demo.config;
+
+import java.io.File;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import com.example.demo.channel.ChannelRegistry;
+
+@Configuration
+public class ChannelConfiguration {
+
+	// チャネルごとにメモリ上に保持する件数の上限（超えた分はファイルへ書き出す）
+	@Value("${batch.channel.memory-capacity:100000}")
+	private int memoryCapacity;
+
+	// ファイルの出力先（未指定の場合はjava.io.tmpdir）
+	@Value("${batch.channel.spill-dir:}")
+	private String spillDir;
+
+	/**
+	 * ステップ間でデータを受け渡すチャネルの管理
+	 *
+	 * チャネルを使用するジョブのリスナーとして登録し、ジョブの終了時にチャネルを閉じること。
+	 *
+	 * @return
+	 */
+	@Bean
+	public ChannelRegistry channelRegistry() {
+		ChannelRegistry registry = new ChannelRegistry();
+		registry.setMemoryCapacity(memoryCapacity);
+		if(StringUtils.hasText(spillDir)) {
+			registry.setSpillDirectory(new File(spillDir));
+		}
+		return registry;
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.demo.item.reader.CursorStatementInterceptor;
+
+@Configuration
+@EnableConfigurationProperties(CursorReaderProperties.class)
+public class CursorReaderConfiguration {
+
+	/**
+	 * カーソルの取得条件をステートメントへ反映するMyBatisのプラグイン
+	 *
+	 * Interceptor型のBeanはmybatis-spring-boot-starterによってSqlSessionFactoryに自動で登録される。
+	 *
+	 * @return
+	 */
+	@Bean
+	public CursorStatementInterceptor cursorStatementInterceptor() {
+		return new CursorStatementInterceptor();
+	}
+
+}
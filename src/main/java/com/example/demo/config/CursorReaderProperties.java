@@ -0,0 +1,90 @@
+package com.example.demo.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.demo.item.reader.ConfigurableMyBatisCursorItemReader;
+
+/**
+ * カーソル読み込み（ConfigurableMyBatisCursorItemReader）の取得条件
+ *
+ * 　　batch.cursor-reader.defaults.*              全リーダー共通のデフォルト
+ * 　　batch.cursor-reader.readers[Bean名].*       リーダーごとの設定（未指定の項目はデフォルトを使用）
+ */
+@ConfigurationProperties(prefix = "batch.cursor-reader")
+public class CursorReaderProperties {
+
+	private final Options defaults = new Options();
+
+	private final Map<String, Options> readers = new HashMap<>();
+
+	public Options getDefaults() {
+		return defaults;
+	}
+
+	public Map<String, Options> getReaders() {
+		return readers;
+	}
+
+	/**
+	 * リーダーに取得条件を設定します
+	 *
+	 * @param readerName リーダーのBean名
+	 * @param reader 設定対象のリーダー
+	 * @return 設定したリーダー
+	 */
+	public <T> ConfigurableMyBatisCursorItemReader<T> configure(String readerName, ConfigurableMyBatisCursorItemReader<T> reader) {
+		Options options = readers.getOrDefault(readerName, defaults);
+
+		Integer fetchSize = options.getFetchSize() != null ? options.getFetchSize() : defaults.getFetchSize();
+		Boolean readOnly = options.getReadOnly() != null ? options.getReadOnly() : defaults.getReadOnly();
+		TransactionIsolationLevel isolationLevel =
+				options.getIsolationLevel() != null ? options.getIsolationLevel() : defaults.getIsolationLevel();
+
+		reader.setName(readerName);
+		reader.setFetchSize(fetchSize);
+		reader.setReadOnly(readOnly == null || readOnly);
+		reader.setIsolationLevel(isolationLevel);
+		return reader;
+	}
+
+	public static class Options {
+
+		// 1回の通信で取得する行数（未指定の場合はマッパーXMLのfetchSize）
+		private Integer fetchSize;
+
+		// 読み取り専用のコネクションで読み込むかどうか（未指定の場合はtrue）
+		private Boolean readOnly;
+
+		// トランザクション分離レベル（未指定の場合はデータソースのデフォルト）
+		private TransactionIsolationLevel isolationLevel;
+
+		public Integer getFetchSize() {
+			return fetchSize;
+		}
+
+		public void setFetchSize(Integer fetchSize) {
+			this.fetchSize = fetchSize;
+		}
+
+		public Boolean getReadOnly() {
+			return readOnly;
+		}
+
+		public void setReadOnly(Boolean readOnly) {
+			this.readOnly = readOnly;
+		}
+
+		public TransactionIsolationLevel getIsolationLevel() {
+			return isolationLevel;
+		}
+
+		public void setIsolationLevel(TransactionIsolationLevel isolationLevel) {
+			this.isolationLevel = isolationLevel;
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import java.io.File;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.example.demo.entity.Person;
+import com.example.demo.item.processor.dedup.DeduplicatingItemProcessor;
+
+@Configuration
+public class DeduplicationConfiguration {
+
+	// 重複判定のキー項目（Personのプロパティ名をカンマ区切りで指定）
+	@Value("${batch.dedup.key-fields:firstName,lastName}")
+	private String[] keyFields;
+
+	// メモリ上に保持するフィンガープリントの上限（超えた分はファイルへ書き出す）
+	@Value("${batch.dedup.memory-budget:64MB}")
+	private DataSize memoryBudget;
+
+	// ブルームフィルタの見込み件数（0の場合はブルームフィルタを使用しない）
+	@Value("${batch.dedup.bloom-filter.expected-items:0}")
+	private long bloomFilterExpectedItems;
+
+	// ブルームフィルタの偽陽性率
+	@Value("${batch.dedup.bloom-filter.fpp:0.01}")
+	private double bloomFilterFpp;
+
+	// スピルファイルの出力先（未指定の場合はjava.io.tmpdir）
+	@Value("${batch.dedup.spill-dir:}")
+	private String spillDir;
+
+	/**
+	 * 入力データの重複除外
+	 *
+	 * キー項目が同じデータは最初の1件だけを書き込み、2件目以降はFILTER_COUNTに計上して除外する。
+	 * 判定状態はステップ実行ごとに作り直すため、ステップスコープとする。
+	 *
+	 * @return
+	 */
+	@Bean
+	@StepScope
+	public DeduplicatingItemProcessor<Person> personDeduplicatingItemProcessor() {
+		DeduplicatingItemProcessor<Person> processor = new DeduplicatingItemProcessor<Person>()
+				.addKeyProperties(Person.class, keyFields);
+		processor.setMemoryBudget(memoryBudget.toBytes());
+		processor.setBloomFilterExpectedItems(bloomFilterExpectedItems);
+		processor.setBloomFilterFpp(bloomFilterFpp);
+		if(StringUtils.hasText(spillDir)) {
+			processor.setSpillDirectory(new File(spillDir));
+		}
+		return processor;
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.example.demo.jdbc.JdbcMetricsPostProcessor;
+
+@Configuration
+public class JdbcMetricsConfiguration {
+
+	/**
+	 * JDBCの呼び出し（ステートメント、バッチ、フェッチ、ドライバ内の時間）をステップ・チャンクごとに集計するBeanPostProcessor
+	 *
+	 * batch.jdbc-metrics.enabled=trueの場合だけ、DataSourceを計測用のプロキシで包み、各ステップにリスナーを登録する。
+	 * BeanPostProcessorは他のBeanより先に作成するため、staticメソッドで定義し、設定はEnvironmentから直接取得する。
+	 *
+	 * @param environment
+	 * @return
+	 */
+	@Bean
+	public static JdbcMetricsPostProcessor jdbcMetricsPostProcessor(Environment environment) {
+		return new JdbcMetricsPostProcessor(environment.getProperty("batch.jdbc-metrics.enabled", Boolean.class, false));
+	}
+
+}
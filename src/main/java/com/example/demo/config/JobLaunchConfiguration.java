@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import java.util.stream.Collectors;
+
+import org.springframework.batch.core.Job;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.example.demo.launch.FirstItemTimingPostProcessor;
+import com.example.demo.launch.JobLaunchQueue;
+
+@Configuration
+@EnableConfigurationProperties(JobLaunchProperties.class)
+public class JobLaunchConfiguration {
+
+	/**
+	 * REST経由で起動するジョブの起動待ちキュー
+	 *
+	 * 同時に多数の起動要求を受けた場合も、プロセス数とDBのコネクション数が上限を超えないよう、
+	 * 同時実行数の上限までだけ起動し、残りは優先度順に待たせる。
+	 * 起動できるのは、このアプリケーションにJobのBeanとして登録されたジョブだけとする。
+	 *
+	 * @param properties
+	 * @param jobs
+	 * @return
+	 */
+	@Bean
+	public JobLaunchQueue jobLaunchQueue(JobLaunchProperties properties, ObjectProvider<Job> jobs) {
+		JobLaunchQueue queue = new JobLaunchQueue(properties.getMaxConcurrent(), properties.getQueueCapacity());
+		queue.setJobNames(jobs.orderedStream().map(Job::getName).collect(Collectors.toList()));
+		if(properties.getDefaults().getMaxConcurrent() != null) {
+			queue.setDefaultMaxConcurrentPerJob(properties.getDefaults().getMaxConcurrent());
+		}
+		properties.getJobs().forEach((jobName, options) -> {
+			if(options.getMaxConcurrent() != null) {
+				queue.setMaxConcurrent(jobName, options.getMaxConcurrent());
+			}
+		});
+		return queue;
+	}
+
+	/**
+	 * JVMの起動から最初のデータを処理するまでの時間を記録するBeanPostProcessor
+	 *
+	 * 起動方法（SpringBatchSampleApplication、SingleJobLauncher、AppCDSの有無）による起動時間の違いの確認に使用する。
+	 * batch.first-item-timing.enabled=trueの場合だけ、各ステップにリスナーを登録する。
+	 * BeanPostProcessorは他のBeanより先に作成するため、staticメソッドで定義し、設定はEnvironmentから直接取得する。
+	 *
+	 * @param environment
+	 * @return
+	 */
+	@Bean
+	public static FirstItemTimingPostProcessor firstItemTimingPostProcessor(Environment environment) {
+		return new FirstItemTimingPostProcessor(environment.getProperty("batch.first-item-timing.enabled", Boolean.class, false));
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * REST経由のジョブ起動（/runjob_ProcessBuilder）の同時実行数・優先度
+ *
+ * 　　batch.launch.*                    全体の設定
+ * 　　batch.launch.defaults.*           全ジョブ共通のデフォルト
+ * 　　batch.launch.jobs[ジョブ名].*       ジョブごとの設定（未指定の項目はデフォルトを使用）
+ */
+@ConfigurationProperties(prefix = "batch.launch")
+public class JobLaunchProperties {
+
+	// 全体の同時実行数の上限
+	private int maxConcurrent = 4;
+
+	// 起動待ちの件数の上限（超えた場合は429 Too Many Requestsを返す）
+	private int queueCapacity = 50;
+
+	// 429 Too Many Requestsのレスポンスで再要求までの待ち時間として返す値（Retry-After）
+	private Duration retryAfter = Duration.ofSeconds(60);
+
+	// 起動するプロセスに追加するJVMオプション（例えばAppCDSのアーカイブ「-XX:SharedArchiveFile=...」）
+	private List<String> jvmOptions = new ArrayList<>();
+
+	private final Options defaults = new Options();
+
+	private final Map<String, Options> jobs = new HashMap<>();
+
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	public void setMaxConcurrent(int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+
+	public void setRetryAfter(Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	public List<String> getJvmOptions() {
+		return jvmOptions;
+	}
+
+	public void setJvmOptions(List<String> jvmOptions) {
+		this.jvmOptions = jvmOptions;
+	}
+
+	public Options getDefaults() {
+		return defaults;
+	}
+
+	public Map<String, Options> getJobs() {
+		return jobs;
+	}
+
+	/**
+	 * @param jobName ジョブ名
+	 * @return ジョブの優先度（未指定の場合はデフォルト）
+	 */
+	public int priorityOf(String jobName) {
+		Options options = jobs.get(jobName);
+		if(options != null && options.getPriority() != null) {
+			return options.getPriority();
+		}
+		return defaults.getPriority() != null ? defaults.getPriority() : 0;
+	}
+
+	public static class Options {
+
+		// ジョブ名ごとの同時実行数の上限（未指定の場合は1）
+		private Integer maxConcurrent;
+
+		// 優先度（大きいほど先に起動する。未指定の場合は0）
+		private Integer priority;
+
+		public Integer getMaxConcurrent() {
+			return maxConcurrent;
+		}
+
+		public void setMaxConcurrent(Integer maxConcurrent) {
+			this.maxConcurrent = maxConcurrent;
+		}
+
+		public Integer getPriority() {
+			return priority;
+		}
+
+		public void setPriority(Integer priority) {
+			this.priority = priority;
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
+
+import com.example.demo.retry.SqlStateRetryPolicy;
+
+/**
+ * チャンク指向のステップに、デッドロック・ロックのタイムアウト時のチャンクの再試行を追加するためのクラス
+ *
+ * 書き込みがSQLState（40001、57033等）で失敗した場合、チャンクのトランザクションをロールバックし、
+ * 待機（指数関数的に延ばし、ばらつきを加える）してから同じチャンクだけを再度処理する。
+ * 並行するステップ同士が同じ間隔で再試行して再び競合することを避けるため、待機時間にはばらつきを加える。
+ * 再試行が無効（最大の試行回数が1以下）の場合は、ステップの定義を変更しない。
+ */
+public class LockConflictRetry {
+
+	private final int maxAttempts;
+
+	private final List<String> sqlStates;
+
+	private final Duration initialInterval;
+
+	private final Duration maxInterval;
+
+	public LockConflictRetry(int maxAttempts, List<String> sqlStates, Duration initialInterval, Duration maxInterval) {
+		this.maxAttempts = maxAttempts;
+		this.sqlStates = sqlStates;
+		this.initialInterval = initialInterval;
+		this.maxInterval = maxInterval;
+	}
+
+	/**
+	 * ステップにチャンクの再試行を追加します
+	 *
+	 * @param builder ステップのビルダー（reader、processor、writerの設定後）
+	 * @return 再試行を追加したビルダー（再試行が無効の場合は元のビルダー）
+	 */
+	public <I, O> SimpleStepBuilder<I, O> apply(SimpleStepBuilder<I, O> builder) {
+		if(maxAttempts <= 1) {
+			return builder;
+		}
+		ExponentialRandomBackOffPolicy backOffPolicy = new ExponentialRandomBackOffPolicy();
+		backOffPolicy.setInitialInterval(initialInterval.toMillis());
+		backOffPolicy.setMaxInterval(maxInterval.toMillis());
+		backOffPolicy.setMultiplier(2);
+
+		return builder.faultTolerant()
+				.retryPolicy(new SqlStateRetryPolicy(maxAttempts, sqlStates))
+				.backOffPolicy(backOffPolicy);
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LockConflictRetryConfiguration {
+
+	// 最大の試行回数（初回を含む。1以下の場合は再試行しない）
+	@Value("${batch.lock-retry.max-attempts:1}")
+	private int maxAttempts;
+
+	// 再試行するSQLState（デッドロック・ロックのタイムアウト）
+	@Value("${batch.lock-retry.sql-states:40001,57033}")
+	private List<String> sqlStates;
+
+	// 1回目の再試行までの待機時間（以降は2倍ずつ延ばし、ばらつきを加える）
+	@Value("${batch.lock-retry.initial-interval:100ms}")
+	private Duration initialInterval;
+
+	// 再試行までの待機時間の上限
+	@Value("${batch.lock-retry.max-interval:2s}")
+	private Duration maxInterval;
+
+	/**
+	 * 並行して同じテーブルへ書き込むステップの、デッドロック・ロックのタイムアウト時のチャンクの再試行
+	 *
+	 * @return
+	 */
+	@Bean
+	public LockConflictRetry lockConflictRetry() {
+		return new LockConflictRetry(maxAttempts, sqlStates, initialInterval, maxInterval);
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.demo.entity.Person;
+import com.example.demo.item.lookup.LookupCache;
+import com.example.demo.item.lookup.MyBatisBulkLoader;
+
+@Configuration
+public class LookupCacheConfiguration {
+
+	// キャッシュする最大件数
+	@Value("${batch.lookup-cache.maximum-size:10000}")
+	private int maximumSize;
+
+	// エントリの有効期間
+	@Value("${batch.lookup-cache.time-to-live:10m}")
+	private Duration timeToLive;
+
+	// 1回の検索（IN (...)）で指定するキーの最大数
+	@Value("${batch.lookup-cache.batch-size:500}")
+	private int batchSize;
+
+	/**
+	 * last_nameをキーとした登録済みのPersonのキャッシュ
+	 *
+	 * ステップ実行ごとに作成し、ステップ終了時に破棄する（ジョブ間で参照データを持ち越さない）。
+	 * step01で登録済みのデータを除外する場合（batch.step01.skip-existing=true）に使用する。
+	 *
+	 * @param sqlSessionFactory
+	 * @return
+	 */
+	@Bean
+	@StepScope
+	public LookupCache<String, Person> personByLastNameLookupCache(SqlSessionFactory sqlSessionFactory) {
+		LookupCache<String, Person> cache = new LookupCache<>("personByLastName",
+				new MyBatisBulkLoader<String, Person>(sqlSessionFactory,
+						"com.example.demo.mapper.PersonMapper.findPersonByLastNames", Person::getLastName));
+		cache.setMaximumSize(maximumSize);
+		cache.setTimeToLive(timeToLive);
+		cache.setBatchSize(batchSize);
+		return cache;
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.demo.pipeline.WatermarkRegistry;
+
+@Configuration
+public class PipelineConfiguration {
+
+	/**
+	 * 並行して実行するステップ間のウォーターマークの管理
+	 *
+	 * パイプライン実行するジョブのリスナーとして登録し、ジョブの終了時に破棄すること。
+	 *
+	 * @return
+	 */
+	@Bean
+	public WatermarkRegistry watermarkRegistry() {
+		return new WatermarkRegistry();
+	}
+
+}
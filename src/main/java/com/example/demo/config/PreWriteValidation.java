@@ -0,0 +1,41 @@
+package com.example.demo.config;
+
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo.item.processor.RejectingItemProcessor;
+import com.example.demo.item.validator.TableColumnValidator;
+
+/**
+ * 各ステップのItemProcessorに書き込み前の検証を追加するためのクラス
+ *
+ * 検証が無効の場合は、ItemProcessorをそのまま返す。
+ */
+public class PreWriteValidation<T> {
+
+	private final boolean enabled;
+
+	private final TableColumnValidator<T> validator;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public PreWriteValidation(boolean enabled, TableColumnValidator<T> validator, JdbcTemplate jdbcTemplate) {
+		this.enabled = enabled;
+		this.validator = validator;
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * ItemProcessorの処理結果を書き込み前に検証するItemProcessorを返します
+	 *
+	 * @param processor 元のItemProcessor（無い場合はnull）
+	 * @return 検証を追加したItemProcessor（検証が無効の場合は元のItemProcessor）
+	 */
+	public ItemProcessor<T, T> apply(ItemProcessor<T, T> processor) {
+		if(!enabled) {
+			return processor;
+		}
+		return new RejectingItemProcessor<>(processor, validator, validator.getTableName(), jdbcTemplate);
+	}
+
+}
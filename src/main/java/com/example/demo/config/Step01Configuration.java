@@ -1,21 +1,35 @@
 package com.example.demo.config;
 
+import javax.sql.DataSource;
+
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.batch.builder.MyBatisBatchItemWriterBuilder;
+import org.springframework.batch.core.ItemReadListener;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.file.mapping.FieldSetMapper;
-import org.springframework.batch.item.file.transform.FieldSet;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
 
 import com.example.demo.entity.Person;
+import com.example.demo.item.lookup.LookupCache;
+import com.example.demo.item.lookup.LookupItemProcessor;
+import com.example.demo.item.mapping.GeneratedFieldSetMapper;
+import com.example.demo.item.processor.dedup.DeduplicatingItemProcessor;
 import com.example.demo.item.reader.CsvFileItemReader;
+import com.example.demo.item.writer.MyBatisStagingMergeItemWriter;
+import com.example.demo.step.InputFingerprintStep;
+import com.example.demo.step.TableChecksum;
 
 @Configuration
 @EnableBatchProcessing
@@ -27,6 +41,29 @@ public class Step01Configuration {
 	@Autowired
 	public SqlSessionFactory sqlSessionFactory;
 
+	// 入力CSVファイル（性能測定時などに差し替えられるようプロパティで指定する）
+	@Value("${batch.step01.input-file:classpath:sample-data.csv}")
+	private Resource inputFile;
+
+	// 入力CSVが前回の成功時から変わっていない場合にステップを省略するかどうか
+	@Value("${batch.step01.reuse-unchanged-input:false}")
+	private boolean reuseUnchangedInput;
+
+	@Autowired
+	private Environment environment;
+
+	// 入力データの重複除外を行うかどうか
+	@Value("${batch.dedup.enabled:false}")
+	private boolean dedup;
+
+	// 書き込みをステージングテーブルとMERGEによる登録・更新（UPSERT）で行うかどうか
+	@Value("${batch.writer.upsert:false}")
+	private boolean upsert;
+
+	// last_nameが登録済みのデータを取り込まない（除外する）かどうか
+	@Value("${batch.step01.skip-existing:false}")
+	private boolean skipExisting;
+
 	/**
 	 * CSVをDBにインポートするためのサンプルコード（CSV ⇒ DB）
 	 *
@@ -43,9 +80,25 @@ public class Step01Configuration {
 	@Bean
 	public Step step01_CSV_to_DB(
 			ItemReader<Person> step01ItemReader,
-			ItemWriter<Person> step01ItemWriter) {
-
-		return stepBuilderFactory
+			ItemWriter<Person> step01ItemWriter,
+			DeduplicatingItemProcessor<Person> personDeduplicatingItemProcessor,
+			PreWriteValidation<Person> personPreWriteValidation,
+			LookupCache<String, Person> personByLastNameLookupCache,
+			JobRepository jobRepository,
+			JobExplorer jobExplorer,
+			DataSource dataSource) {
+
+		ItemProcessor<Person, Person> processor = dedup ? personDeduplicatingItemProcessor : null;
+		LookupItemProcessor<Person, String, Person> lookupProcessor = null;
+		if(skipExisting) {
+			// 登録済みのPersonをlast_nameで検索し、見つかったデータは除外する（FILTER_COUNTに計上）
+			// 検索はチャンク内で読み込んだデータのlast_nameをまとめて1回のクエリで行い、結果はステップ実行の間キャッシュする
+			lookupProcessor = new LookupItemProcessor<>(processor, personByLastNameLookupCache, Person::getLastName,
+					(person, existing) -> existing != null ? null : person);
+			processor = lookupProcessor;
+		}
+
+		SimpleStepBuilder<Person, Person> builder = stepBuilderFactory
 			// ステップ名
 			.get("step01_CSV_to_DB")
 
@@ -58,13 +111,42 @@ public class Step01Configuration {
 			.reader(step01ItemReader)
 
 			// データの加工（あれば）
-			//.processor(processor())
+			// 重複除外が有効な場合は、キー項目が同じデータの2件目以降を除外する（FILTER_COUNTに計上）
+			// 書き込み前にPersonテーブルのカラム定義で検証し、不正なデータはitem_rejectテーブルへ振り分ける
+			.processor(personPreWriteValidation.apply(processor))
 
 			// データの出力（DTO ⇒ DB）
 			// DTO「Person」をDBのPersonテーブルに書き込む
-			.writer(step01ItemWriter)
+			.writer(step01ItemWriter);
+
+		if(lookupProcessor != null) {
+			// 読み込んだデータのキーを、チャンクの最初の加工時にまとめて検索するよう登録する
+			builder.listener((ItemReadListener<Person>) lookupProcessor);
+		}
+		Step step = builder.build();
+
+		if(!reuseUnchangedInput) {
+			return step;
+		}
+
+		// 入力CSVと設定がstep01を含むジョブの前回の成功時と同じで、Personテーブルの内容（チェックサム）も前回のジョブの終了時と同じ場合は、
+		// 再度取り込まずにステップを省略する（チェックサムはジョブのリスナーとして終了時に保存する。BatchConfiguration参照）
+		InputFingerprintStep fingerprintStep = new InputFingerprintStep(step, jobRepository, jobExplorer, inputFile, configKey());
+		fingerprintStep.setTargetState(new TableChecksum(dataSource,
+				"SELECT id, first_name, last_name FROM person ORDER BY id", 1000));
+		return fingerprintStep;
+	}
 
-			.build();
+	/**
+	 * 取り込み結果に影響する設定を表す文字列
+	 */
+	private String configKey() {
+		StringBuilder sb = new StringBuilder();
+		for(String key : new String[] {"batch.writer.upsert", "batch.step01.skip-existing", "batch.dedup.enabled", "batch.dedup.key-fields",
+				"batch.validation.enabled", "batch.validation.length-semantics"}) {
+			sb.append(key).append('=').append(environment.getProperty(key, "")).append(',');
+		}
+		return sb.toString();
 	}
 
 	@Bean
@@ -81,7 +163,7 @@ public class Step01Configuration {
 		//reader.setLinesToSkip(1);
 
 		// CSVファイル
-		reader.setResource(new ClassPathResource("sample-data.csv"));
+		reader.setResource(inputFile);
 
 		// 改行コード
 		reader.setLineSeparator("\r\n");
@@ -89,22 +171,27 @@ public class Step01Configuration {
 
 		// DTOとのマッピング
 		// CSVデータの1列目がPerson.firstName、2列目がPerson.lastNameに格納される
+		// （setterは事前に生成した関数で呼び出すため、データごとのリフレクションは行わない）
 		reader.setHeaders(new String[]{"firstName", "lastName"});
-		reader.setFieldSetMapper(new FieldSetMapper<Person>() {
-		    public Person mapFieldSet(FieldSet fs) {
-		        if(fs == null){ return null; }
-		        Person person = new Person();
-		        person.setFirstName(fs.readString("firstName"));
-		        person.setLastName(fs.readString("lastName"));
-		        return person;
-		    }
-		});
+		reader.setFieldSetMapper(new GeneratedFieldSetMapper<>(Person.class, "firstName", "lastName"));
 
 		return reader;
 	}
 
 	@Bean
 	public ItemWriter<Person> step01ItemWriter(){
+		if(upsert) {
+			// ステージングテーブルとMERGEによる登録・更新
+			// last_nameが一致する行は更新するため、同じCSVを再実行しても重複登録されない
+			MyBatisStagingMergeItemWriter<Person> writer = new MyBatisStagingMergeItemWriter<>();
+			writer.setSqlSessionFactory(sqlSessionFactory);
+			writer.setInsertStatementId("com.example.demo.mapper.PersonMapper.insertPersonStage");
+			writer.setMergeStatementId("com.example.demo.mapper.PersonMapper.mergePersonStage");
+			writer.setDeleteStatementId("com.example.demo.mapper.PersonMapper.deletePersonStage");
+			writer.setKeyExtractor(Person::getLastName);
+			return writer;
+		}
+
 	    return new MyBatisBatchItemWriterBuilder<Person>()
                 .sqlSessionFactory(sqlSessionFactory)
                 .statementId("com.example.demo.mapper.PersonMapper.insertPerson")
@@ -1,22 +1,26 @@
 package com.example.demo.config;
 
+import java.util.concurrent.Future;
+
 import org.apache.ibatis.session.SqlSessionFactory;
-import org.mybatis.spring.batch.MyBatisBatchItemWriter;
-import org.mybatis.spring.batch.MyBatisCursorItemReader;
 import org.mybatis.spring.batch.builder.MyBatisBatchItemWriterBuilder;
-import org.mybatis.spring.batch.builder.MyBatisCursorItemReaderBuilder;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.example.demo.entity.Person;
 import com.example.demo.item.processor.PersonItemProcessor;
+import com.example.demo.item.reader.ConfigurableMyBatisCursorItemReader;
+import com.example.demo.item.reader.MyBatisKeysetPagingItemReader;
+import com.example.demo.item.writer.MyBatisStagingMergeItemWriter;
 
 @Configuration
 @EnableBatchProcessing
@@ -28,11 +32,36 @@ public class Step02Configuration {
 	@Autowired
 	public SqlSessionFactory sqlSessionFactory;
 
+	// DB⇒DBステップの読み込み方式（cursor：カーソル、keyset：キーセット方式のページング）
+	@Value("${batch.db-to-db.reader-type:cursor}")
+	private String readerType;
+
+	// キーセット方式の1ページの件数
+	@Value("${batch.db-to-db.page-size:1000}")
+	private int pageSize;
+
+	// 書き込みをステージングテーブルとMERGEによる登録・更新（UPSERT）で行うかどうか
+	@Value("${batch.writer.upsert:false}")
+	private boolean upsert;
+
 	@Bean
 	public Step step02_DB_to_DB(
 			ItemReader<Person> step02ItemReader,
 			ItemProcessor<Person, Person> step02ItemProcessor,
-			ItemWriter<Person> step02ItemWriter) {
+			ItemWriter<Person> step02ItemWriter,
+			PreWriteValidation<Person> personPreWriteValidation,
+			AsyncProcessing asyncProcessing) throws Exception {
+		if(asyncProcessing.isEnabled()) {
+			// データの加工をスレッドプール上で並行して実行する
+			// 加工結果はFutureとして受け渡し、書き込み時に読み込み順に取り出す
+			return stepBuilderFactory.get("step02_DB_to_DB")
+				.<Person, Future<Person>> chunk(4)
+				.reader(step02ItemReader)
+				.processor(asyncProcessing.processor(personPreWriteValidation.apply(step02ItemProcessor)))
+				.writer(asyncProcessing.writer(step02ItemWriter))
+				.build();
+		}
+
 		return stepBuilderFactory.get("step02_DB_to_DB")
 			// チャンクサイズの設定
 			.<Person, Person> chunk(4)
@@ -44,7 +73,8 @@ public class Step02Configuration {
 			// データの加工
 			// ここにビジネスロジックを記述
 			// （サンプルではPerson.firstNameを大文字に変換）
-			.processor(step02ItemProcessor)
+			// 加工後、書き込み前にPersonテーブルのカラム定義で検証し、不正なデータはitem_rejectテーブルへ振り分ける
+			.processor(personPreWriteValidation.apply(step02ItemProcessor))
 
 			// データの出力（DTO ⇒ DB）
 			// DTO「Person」をDBのPersonテーブルに書き込む
@@ -54,11 +84,25 @@ public class Step02Configuration {
 	}
 
 	@Bean
-	public MyBatisCursorItemReader<Person> step02ItemReader() {
-		return new MyBatisCursorItemReaderBuilder<Person>()
-				.sqlSessionFactory(sqlSessionFactory)
-				.queryId("com.example.demo.mapper.PersonMapper.findAllPerson")
-				.build();
+	public ItemStreamReader<Person> step02ItemReader(CursorReaderProperties cursorReaderProperties) {
+		if("keyset".equals(readerType)) {
+			// キーセット方式のページング読み込み
+			// ページごとの短いトランザクションで読み込み、最後に読み込んだidから再実行できる
+			MyBatisKeysetPagingItemReader<Person> reader = new MyBatisKeysetPagingItemReader<>();
+			reader.setName("step02ItemReader");
+			reader.setSqlSessionFactory(sqlSessionFactory);
+			reader.setQueryId("com.example.demo.mapper.PersonMapper.findPersonPage");
+			reader.setPageSize(pageSize);
+			reader.setKeyExtractor(Person::getId);
+			return reader;
+		}
+
+		// カーソル読み込み
+		// fetchSize等の取得条件はapplication.propertiesの「batch.cursor-reader」で指定する
+		ConfigurableMyBatisCursorItemReader<Person> reader = new ConfigurableMyBatisCursorItemReader<>();
+		reader.setSqlSessionFactory(sqlSessionFactory);
+		reader.setQueryId("com.example.demo.mapper.PersonMapper.streamAllPerson");
+		return cursorReaderProperties.configure("step02ItemReader", reader);
 	}
 
 	@Bean
@@ -67,7 +111,19 @@ public class Step02Configuration {
 	}
 
 	@Bean
-	public MyBatisBatchItemWriter<Person> step02ItemWriter() {
+	public ItemWriter<Person> step02ItemWriter() {
+		if(upsert) {
+			// ステージングテーブルとMERGEによる登録・更新
+			// チャンクごとに1回のMERGEで反映するため、件数が多い場合にsavePersonの1件ずつの更新より速い
+			MyBatisStagingMergeItemWriter<Person> writer = new MyBatisStagingMergeItemWriter<>();
+			writer.setSqlSessionFactory(sqlSessionFactory);
+			writer.setInsertStatementId("com.example.demo.mapper.PersonMapper.insertPersonStage");
+			writer.setMergeStatementId("com.example.demo.mapper.PersonMapper.mergePersonStage");
+			writer.setDeleteStatementId("com.example.demo.mapper.PersonMapper.deletePersonStage");
+			writer.setKeyExtractor(Person::getLastName);
+			return writer;
+		}
+
 		return new MyBatisBatchItemWriterBuilder<Person>()
                 .sqlSessionFactory(sqlSessionFactory)
                 .statementId("com.example.demo.mapper.PersonMapper.savePerson")
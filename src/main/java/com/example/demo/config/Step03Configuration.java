@@ -1,20 +1,20 @@
 package com.example.demo.config;
 
 import org.apache.ibatis.session.SqlSessionFactory;
-import org.mybatis.spring.batch.builder.MyBatisCursorItemReaderBuilder;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
 
 import com.example.demo.entity.Person;
+import com.example.demo.item.mapping.GeneratedFieldExtractor;
+import com.example.demo.item.reader.ConfigurableMyBatisCursorItemReader;
+import com.example.demo.item.writer.CsvFileItemWriter;
 import com.example.demo.item.writer.CsvLineAggregator;
 
 @Configuration
@@ -61,43 +61,43 @@ public class Step03Configuration {
 	}
 
 	@Bean
-	public ItemReader<Person> step03ItemReader(){
-	    return new MyBatisCursorItemReaderBuilder<Person>()
-	    		.sqlSessionFactory(sqlSessionFactory)
-	    		.queryId("com.example.demo.mapper.PersonMapper.findAllPerson")
-	    		.build();
+	public ItemReader<Person> step03ItemReader(CursorReaderProperties cursorReaderProperties){
+		// fetchSize等の取得条件はapplication.propertiesの「batch.cursor-reader」で指定する
+		ConfigurableMyBatisCursorItemReader<Person> reader = new ConfigurableMyBatisCursorItemReader<>();
+		reader.setSqlSessionFactory(sqlSessionFactory);
+		reader.setQueryId("com.example.demo.mapper.PersonMapper.streamAllPerson");
+		return cursorReaderProperties.configure("step03ItemReader", reader);
 	}
 
 	@Bean
 	public ItemWriter<Person> step03ItemWriter(){
-	    return new FlatFileItemWriterBuilder<Person>()
-	    		// ItemWriter名
-       			.name("step03ItemWriter")
-
-       			// ヘッダー（必要であれば）
-       			//.headerCallback(writer -> writer.write("firstName,lastName"))
-
-       			// CSVファイル
-       			.resource(new FileSystemResource("bin/test-outputs/output.csv"))
-
-       			// 改行コード
-       			.lineSeparator("\r\n")
-
-       			// SpringBatchで用意されているクラスだと囲み文字の設定が出来ないため、囲み文字に対応した自作クラス「CsvLineAggregator」を使用する。
-       			// 【Spring Batch】テーブルデータをCSVファイルへ出力する
-       			// https://qiita.com/teradatk/items/f860e582d5429dd81720
-       			.lineAggregator(new CsvLineAggregator<Person>() {
-       	            {
-       	                setFieldExtractor(new BeanWrapperFieldExtractor<Person>() {
-       	                    {
-       	                    	// 出力対象のフィールドと順番
-       	                        setNames(new String[] {"firstName", "lastName"});
-       	                    }
-       	                });
-       	            }
-       	        })
-
-       			.build();
+		// 各行をチャンク単位のバッファへ直接追記する自作クラス「CsvFileItemWriter」を使用する。
+		CsvFileItemWriter<Person> writer = new CsvFileItemWriter<>();
+
+		// ItemWriter名
+		writer.setName("step03ItemWriter");
+
+		// ヘッダー（必要であれば）
+		//writer.setHeaderCallback(w -> w.write("firstName,lastName"));
+
+		// CSVファイル
+		writer.setResource(new FileSystemResource("bin/test-outputs/output.csv"));
+
+		// 改行コード
+		writer.setLineSeparator("\r\n");
+
+		// SpringBatchで用意されているクラスだと囲み文字の設定が出来ないため、囲み文字に対応した自作クラス「CsvLineAggregator」を使用する。
+		// 【Spring Batch】テーブルデータをCSVファイルへ出力する
+		// https://qiita.com/teradatk/items/f860e582d5429dd81720
+		writer.setCsvLineAggregator(new CsvLineAggregator<Person>() {
+			{
+				// 出力対象のフィールドと順番
+				// （getterは事前に生成した関数で呼び出すため、BeanWrapperFieldExtractorのようなデータごとのリフレクションは行わない）
+				setFieldExtractor(new GeneratedFieldExtractor<>(Person.class, "firstName", "lastName"));
+			}
+		});
+
+		return writer;
 	}
 
 }
@@ -24,7 +24,8 @@ public class Step04Configuration {
 	public Step step04_DB_to_DB(
 			ItemReader<Person> step02ItemReader,
 			ItemProcessor<Person, Person> step04ItemProcessor,
-			ItemWriter<Person> step02ItemWriter) {
+			ItemWriter<Person> step02ItemWriter,
+			PreWriteValidation<Person> personPreWriteValidation) {
 		return stepBuilderFactory.get("step04_DB_to_DB")
 			// チャンクサイズの設定
 			.<Person, Person> chunk(4)
@@ -36,7 +37,8 @@ public class Step04Configuration {
 			// データの加工
 			// ここにビジネスロジックを記述
 			// （サンプルではPerson.firstNameを大文字に変換）
-			.processor(step04ItemProcessor)
+			// 加工後、書き込み前にPersonテーブルのカラム定義で検証し、不正なデータはitem_rejectテーブルへ振り分ける
+			.processor(personPreWriteValidation.apply(step04ItemProcessor))
 
 			// データの出力（DTO ⇒ DB）
 			// DTO「Person」をDBのPersonテーブルに書き込む
@@ -1,25 +1,34 @@
 package com.example.demo.config;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
+import javax.sql.DataSource;
+
 import org.apache.ibatis.session.SqlSessionFactory;
-import org.mybatis.spring.batch.MyBatisCursorItemReader;
-import org.mybatis.spring.batch.builder.MyBatisCursorItemReaderBuilder;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.FlowBuilder;
 import org.springframework.batch.core.job.flow.Flow;
 import org.springframework.batch.core.job.flow.support.SimpleFlow;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
 import com.example.demo.entity.Person;
+import com.example.demo.item.reader.ConfigurableMyBatisCursorItemReader;
+import com.example.demo.item.reader.MyBatisKeysetPagingItemReader;
+import com.example.demo.item.writer.SortingItemWriter;
+import com.example.demo.partition.KeyRangePartitioner;
 
 @Configuration
 @EnableBatchProcessing
@@ -31,10 +40,46 @@ public class Step05Configuration {
 	@Autowired
 	public SqlSessionFactory sqlSessionFactory;
 
+	// DB⇒DBステップの読み込み方式（cursor：カーソル、keyset：キーセット方式のページング）
+	@Value("${batch.db-to-db.reader-type:cursor}")
+	private String readerType;
+
+	// キーセット方式の1ページの件数
+	@Value("${batch.db-to-db.page-size:1000}")
+	private int pageSize;
+
+	// チャンク内のデータを書き込みのキー（last_name）順に並べ替えてから書き込むかどうか
+	@Value("${batch.flow05.ordered-writes:false}")
+	private boolean orderedWrites;
+
+	// 並行するステップへの振り分け方（name：first_nameのG1・G2、key-range：last_nameの範囲）
+	@Value("${batch.flow05.partitioning:name}")
+	private String partitioning;
+
+	// key-rangeの場合のパーティション数（並行数）
+	@Value("${batch.flow05.grid-size:2}")
+	private int gridSize;
+
+	/**
+	 * DB⇒DBの処理を2つのステップで並行して行うフロー
+	 *
+	 * 　　<振り分け方（batch.flow05.partitioning）>
+	 * 　　・name      : first_nameに"G1"を含むレコードと"G2"を含むレコードを、それぞれのステップで処理する
+	 * 　　　　　　　　　　両方のステップが同じlast_name（書き込みのキー）の行を更新し得るため、行ロックが競合することがある
+	 * 　　・key-range : "G1"または"G2"を含むレコードを、last_nameの範囲で重ならないパーティションに分けて処理する
+	 * 　　　　　　　　　　（KeyRangePartitioner）。ワーカー同士が同じ行を更新しないため、行ロックが競合しない
+	 */
     @Bean
     public Flow flow05_DB_to_DB(
             Step step05_DB_to_DB_01,
-            Step step05_DB_to_DB_02) {
+            Step step05_DB_to_DB_02,
+            Step step05_DB_to_DB_partitioned) {
+        if("key-range".equals(partitioning)) {
+            return new FlowBuilder<SimpleFlow>("splitFlow05_DB_to_DB")
+                    .start(step05_DB_to_DB_partitioned)
+                    .build();
+        }
+
         return new FlowBuilder<SimpleFlow>("splitFlow05_DB_to_DB")
                 // 非同期用のTaskExecutorを設定
                 .split(new SimpleAsyncTaskExecutor("spring_batch"))
@@ -56,69 +101,148 @@ public class Step05Configuration {
 	public Step step05_DB_to_DB_01(
 			ItemReader<Person> step05ItemReader01,
 			ItemProcessor<Person, Person> step02ItemProcessor,
-			ItemWriter<Person> step02ItemWriter) {
-		return stepBuilderFactory.get("step05_DB_to_DB_01")
-			// チャンクサイズの設定
-			.<Person, Person> chunk(4)
-
-			// データの入力（DB ⇒ DTO）
-			// DBのPersonテーブルの各レコードをDTO「Person」に変換
-			.reader(step05ItemReader01)
-
-			// データの加工
-			// ここにビジネスロジックを記述
-			// （サンプルではPerson.firstNameを大文字に変換）
-			.processor(step02ItemProcessor)
+			ItemWriter<Person> step02ItemWriter,
+			PreWriteValidation<Person> personPreWriteValidation,
+			LockConflictRetry lockConflictRetry) {
+		return dbToDbStep("step05_DB_to_DB_01", step05ItemReader01, step02ItemProcessor, step02ItemWriter,
+				personPreWriteValidation, lockConflictRetry);
+	}
 
-			// データの出力（DTO ⇒ DB）
-			// DTO「Person」をDBのPersonテーブルに書き込む
-			.writer(step02ItemWriter)
+	@Bean
+	public Step step05_DB_to_DB_02(
+			ItemReader<Person> step05ItemReader02,
+			ItemProcessor<Person, Person> step02ItemProcessor,
+			ItemWriter<Person> step02ItemWriter,
+			PreWriteValidation<Person> personPreWriteValidation,
+			LockConflictRetry lockConflictRetry) {
+		return dbToDbStep("step05_DB_to_DB_02", step05ItemReader02, step02ItemProcessor, step02ItemWriter,
+				personPreWriteValidation, lockConflictRetry);
+	}
 
+	/**
+	 * last_nameの範囲で分けたパーティションを、ワーカーのステップで並行して処理するステップ
+	 */
+	@Bean
+	public Step step05_DB_to_DB_partitioned(Step step05_DB_to_DB_worker, DataSource dataSource) {
+		KeyRangePartitioner partitioner = new KeyRangePartitioner(dataSource, "person", "last_name");
+		partitioner.setCondition("first_name LIKE '%' || ? || '%' OR first_name LIKE '%' || ? || '%'", "G1", "G2");
+
+		return stepBuilderFactory.get("step05_DB_to_DB_partitioned")
+			.partitioner("step05_DB_to_DB_worker", partitioner)
+			.step(step05_DB_to_DB_worker)
+			.gridSize(gridSize)
+			.taskExecutor(new SimpleAsyncTaskExecutor("spring_batch"))
 			.build();
 	}
 
 	@Bean
-	public Step step05_DB_to_DB_02(
-			ItemReader<Person> step05ItemReader02,
+	public Step step05_DB_to_DB_worker(
+			ItemReader<Person> step05PartitionItemReader,
+			ItemProcessor<Person, Person> step02ItemProcessor,
+			ItemWriter<Person> step02ItemWriter,
+			PreWriteValidation<Person> personPreWriteValidation,
+			LockConflictRetry lockConflictRetry) {
+		return dbToDbStep("step05_DB_to_DB_worker", step05PartitionItemReader, step02ItemProcessor, step02ItemWriter,
+				personPreWriteValidation, lockConflictRetry);
+	}
+
+	private Step dbToDbStep(
+			String name,
+			ItemReader<Person> reader,
 			ItemProcessor<Person, Person> step02ItemProcessor,
-			ItemWriter<Person> step02ItemWriter) {
-		return stepBuilderFactory.get("step05_DB_to_DB_01")
+			ItemWriter<Person> step02ItemWriter,
+			PreWriteValidation<Person> personPreWriteValidation,
+			LockConflictRetry lockConflictRetry) {
+		SimpleStepBuilder<Person, Person> builder = stepBuilderFactory.get(name)
 			// チャンクサイズの設定
 			.<Person, Person> chunk(4)
 
 			// データの入力（DB ⇒ DTO）
 			// DBのPersonテーブルの各レコードをDTO「Person」に変換
-			.reader(step05ItemReader02)
+			.reader(reader)
 
 			// データの加工
 			// ここにビジネスロジックを記述
 			// （サンプルではPerson.firstNameを大文字に変換）
-			.processor(step02ItemProcessor)
+			// 加工後、書き込み前にPersonテーブルのカラム定義で検証し、不正なデータはitem_rejectテーブルへ振り分ける
+			.processor(personPreWriteValidation.apply(step02ItemProcessor))
 
 			// データの出力（DTO ⇒ DB）
 			// DTO「Person」をDBのPersonテーブルに書き込む
-			.writer(step02ItemWriter)
+			// 並行するステップとロックの取得順を揃えるため、必要に応じてlast_name順に並べ替えてから書き込む
+			.writer(orderedWrites ? SortingItemWriter.byKey(step02ItemWriter, Person::getLastName) : step02ItemWriter);
 
-			.build();
+		// デッドロック・ロックのタイムアウト時はチャンクを再試行する（batch.lock-retry.*）
+		return lockConflictRetry.apply(builder).build();
+	}
+
+	@Bean
+	public ItemStreamReader<Person> step05ItemReader01(CursorReaderProperties cursorReaderProperties) {
+		if("keyset".equals(readerType)) {
+			return keysetItemReader("step05ItemReader01", "G1");
+		}
+
+		ConfigurableMyBatisCursorItemReader<Person> reader = new ConfigurableMyBatisCursorItemReader<>();
+		reader.setSqlSessionFactory(sqlSessionFactory);
+		reader.setQueryId("com.example.demo.mapper.PersonMapper.streamPersonByName");
+		reader.setParameterValues(new HashMap<String, Object>() {{put("name", "G1");}});
+		return cursorReaderProperties.configure("step05ItemReader01", reader);
 	}
 
 	@Bean
-	public MyBatisCursorItemReader<Person> step05ItemReader01() {
-		return new MyBatisCursorItemReaderBuilder<Person>()
-				.sqlSessionFactory(sqlSessionFactory)
-				.queryId("com.example.demo.mapper.PersonMapper.findPersonByName")
-				.parameterValues(new HashMap<String, Object>() {{put("name", "G1");}})
-				.build();
+	public ItemStreamReader<Person> step05ItemReader02(CursorReaderProperties cursorReaderProperties) {
+		if("keyset".equals(readerType)) {
+			return keysetItemReader("step05ItemReader02", "G2");
+		}
+
+		ConfigurableMyBatisCursorItemReader<Person> reader = new ConfigurableMyBatisCursorItemReader<>();
+		reader.setSqlSessionFactory(sqlSessionFactory);
+		reader.setQueryId("com.example.demo.mapper.PersonMapper.streamPersonByName");
+		reader.setParameterValues(new HashMap<String, Object>() {{put("name", "G2");}});
+		return cursorReaderProperties.configure("step05ItemReader02", reader);
 	}
 
+	/**
+	 * パーティション（last_nameの範囲）ごとの読み込み
+	 *
+	 * batch.db-to-db.reader-typeがkeysetの場合は、パーティションの範囲内をidのキーセット方式でページングする。
+	 */
 	@Bean
-	public MyBatisCursorItemReader<Person> step05ItemReader02() {
-		return new MyBatisCursorItemReaderBuilder<Person>()
-				.sqlSessionFactory(sqlSessionFactory)
-				.queryId("com.example.demo.mapper.PersonMapper.findPersonByName")
-				.parameterValues(new HashMap<String, Object>() {{put("name", "G2");}})
-				.build();
+	@StepScope
+	public ItemStreamReader<Person> step05PartitionItemReader(
+			@Value("#{stepExecutionContext['minKey']}") String minKey,
+			@Value("#{stepExecutionContext['maxKey']}") String maxKey,
+			CursorReaderProperties cursorReaderProperties) {
+		HashMap<String, Object> parameters = new HashMap<>();
+		parameters.put("minKey", minKey);
+		parameters.put("maxKey", maxKey);
+		parameters.put("names", Arrays.asList("G1", "G2"));
+		if("keyset".equals(readerType)) {
+			return keysetItemReader("step05PartitionItemReader", "com.example.demo.mapper.PersonMapper.findPersonPageByKeyRange", parameters);
+		}
+
+		ConfigurableMyBatisCursorItemReader<Person> reader = new ConfigurableMyBatisCursorItemReader<>();
+		reader.setSqlSessionFactory(sqlSessionFactory);
+		reader.setQueryId("com.example.demo.mapper.PersonMapper.streamPersonByKeyRange");
+		reader.setParameterValues(parameters);
+		return cursorReaderProperties.configure("step05PartitionItemReader", reader);
+	}
+
+	// キーセット方式のページング読み込み
+	private MyBatisKeysetPagingItemReader<Person> keysetItemReader(String name, String firstName) {
+		return keysetItemReader(name, "com.example.demo.mapper.PersonMapper.findPersonPage",
+				new HashMap<String, Object>() {{put("name", firstName);}});
 	}
 
+	private MyBatisKeysetPagingItemReader<Person> keysetItemReader(String name, String queryId, HashMap<String, Object> parameters) {
+		MyBatisKeysetPagingItemReader<Person> reader = new MyBatisKeysetPagingItemReader<>();
+		reader.setName(name);
+		reader.setSqlSessionFactory(sqlSessionFactory);
+		reader.setQueryId(queryId);
+		reader.setParameterValues(parameters);
+		reader.setPageSize(pageSize);
+		reader.setKeyExtractor(Person::getId);
+		return reader;
+	}
 
 }
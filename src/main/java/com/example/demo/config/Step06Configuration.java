@@ -1,5 +1,8 @@
 package com.example.demo.config;
 
+import java.util.Collections;
+import java.util.concurrent.Future;
+
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
@@ -34,7 +37,21 @@ public class Step06Configuration {
 			ItemWriter<Person> step02ItemWriter,
 			CommonItemReadListener commonItemReadListener,
 			CommonItemProcessListener commonItemProcessListener,
-			CommonItemWriteListener commonItemWriteListener) {
+			CommonItemWriteListener commonItemWriteListener,
+			AsyncProcessing asyncProcessing) throws Exception {
+		if(asyncProcessing.isEnabled()) {
+			// データの加工をスレッドプール上で並行して実行する
+			// ItemProcessListenerは加工を行うスレッド上で、ItemWriteListenerはFutureから取り出したデータで呼び出す
+			// （ステップに登録するとFutureが渡されるため）
+			return stepBuilderFactory.get("step06_DB_to_DB")
+				.<Person, Future<Person>> chunk(4)
+				.reader(step02ItemReader)
+				.processor(asyncProcessing.processor(step06ItemProcessor, Collections.singletonList(commonItemProcessListener)))
+				.writer(asyncProcessing.writer(step02ItemWriter, Collections.singletonList(commonItemWriteListener)))
+				.listener(commonItemReadListener)
+				.build();
+		}
+
 		return stepBuilderFactory.get("step06_DB_to_DB")
 			// チャンクサイズの設定
 			.<Person, Person> chunk(4)
@@ -46,6 +63,7 @@ public class Step06Configuration {
 			// データの加工
 			// ここにビジネスロジックを記述
 			// （サンプルではPerson.firstNameを大文字に変換）
+			// （桁数を超えたlastNameでバッチ更新を失敗させるサンプルのため、書き込み前の検証（PreWriteValidation）は行わない）
 			.processor(step06ItemProcessor)
 
 			// データの出力（DTO ⇒ DB）
@@ -0,0 +1,201 @@
+package com.example.demo.config;
+
+import java.io.File;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.batch.builder.MyBatisBatchItemWriterBuilder;
+import org.mybatis.spring.batch.builder.MyBatisCursorItemReaderBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonRecordCodec;
+import com.example.demo.item.delta.Delta;
+import com.example.demo.item.delta.DeltaItemProcessor;
+import com.example.demo.item.delta.DeltaItemReader;
+import com.example.demo.item.delta.DeltaItemWriter;
+import com.example.demo.item.delta.DeltaRecordType;
+import com.example.demo.item.delta.SnapshotEntry;
+import com.example.demo.item.mapping.GeneratedFieldSetMapper;
+import com.example.demo.item.processor.dedup.Fingerprints;
+import com.example.demo.item.reader.CsvFileItemReader;
+import com.example.demo.sort.ExternalSortTasklet;
+import com.example.demo.sort.ExternalSorter;
+
+@Configuration
+@EnableBatchProcessing
+public class Step07Configuration {
+
+	@Autowired
+	public StepBuilderFactory stepBuilderFactory;
+
+	@Autowired
+	public SqlSessionFactory sqlSessionFactory;
+
+	// 差分取り込みの入力CSVファイル（未指定の場合はstep01と同じファイル）
+	@Value("${batch.delta.input-file:${batch.step01.input-file:classpath:sample-data.csv}}")
+	private Resource inputFile;
+
+	// 並べ替えた入力とスナップショットの書き出し先（作業用。スナップショット自体はDBに保存する）
+	@Value("${batch.delta.work-dir:build/delta}")
+	private File workDir;
+
+	// 並べ替え時にメモリ上に保持する件数の上限（超えた分は一時ファイルに書き出してマージする）
+	@Value("${batch.delta.sort.max-records-in-memory:100000}")
+	private int maxRecordsInMemory;
+
+	// 差分の書き込みのチャンクサイズ
+	@Value("${batch.delta.chunk-size:1000}")
+	private int chunkSize;
+
+	/**
+	 * CSVを前回取り込んだ時との差分だけDBに反映するためのサンプルコード（CSV ⇒ 差分 ⇒ DB）
+	 *
+	 * 　　①step07_sort_CSV           : CSVをキー（last_name）順に並べ替えてファイルに書き出す
+	 * 　　②step07_export_snapshot    : スナップショット（person_delta_snapshotテーブルのキーとハッシュ値）をキー順に並べ替えてファイルに書き出す
+	 * 　　③step07_delta_to_DB        : 並べ替えた2つのファイルを突き合わせ、登録・更新・削除の差分だけを書き込む
+	 * 　　                             書き込んだ差分は同じトランザクションでスナップショットにも反映する
+	 *
+	 * 変更の無いデータはDBに書き込まないため、書き込み件数は入力の件数ではなく変更の件数に比例する。
+	 * スナップショットはPersonテーブルと同時に作成・再作成するため（schema-all.sql）、
+	 * 初回やサーバーの再起動でテーブルを再作成した後は、すべて登録となる。
+	 * 検証で除外したデータはスナップショットに反映しないため、次回も差分として読み込まれる。
+	 */
+	@Bean
+	public Step step07_sort_CSV(ItemReader<Person> step07ItemReader, DeltaRecordType<Person> personDeltaRecordType) {
+		ExternalSorter<Person> sorter = new ExternalSorter<>(personDeltaRecordType.getCodec(), personDeltaRecordType.comparator());
+		sorter.setMaxRecordsInMemory(maxRecordsInMemory);
+		sorter.setTempDirectory(workDir);
+
+		return stepBuilderFactory
+			.get("step07_sort_CSV")
+			.tasklet(new ExternalSortTasklet<>(step07ItemReader, sorter, sortedFile()))
+			.build();
+	}
+
+	@Bean
+	public Step step07_export_snapshot(ItemReader<SnapshotEntry> step07SnapshotItemReader) {
+		ExternalSorter<SnapshotEntry> sorter = new ExternalSorter<>(SnapshotEntry.CODEC, SnapshotEntry.KEY_ORDER);
+		sorter.setMaxRecordsInMemory(maxRecordsInMemory);
+		sorter.setTempDirectory(workDir);
+
+		return stepBuilderFactory
+			.get("step07_export_snapshot")
+			.tasklet(new ExternalSortTasklet<>(step07SnapshotItemReader, sorter, snapshotFile()))
+			.build();
+	}
+
+	@Bean
+	public Step step07_delta_to_DB(
+			DeltaItemReader<Person> step07DeltaItemReader,
+			DeltaItemWriter<Person> step07DeltaItemWriter,
+			PreWriteValidation<Person> personPreWriteValidation) {
+
+		// 書き込み前の検証は登録・更新の差分だけに行う
+		ItemProcessor<Person, Person> validation = personPreWriteValidation.apply(null);
+
+		return stepBuilderFactory
+			.get("step07_delta_to_DB")
+			.<Delta<Person>, Delta<Person>> chunk(chunkSize)
+			.reader(step07DeltaItemReader)
+			.processor(validation != null ? new DeltaItemProcessor<>(validation) : null)
+			.writer(step07DeltaItemWriter)
+			.build();
+	}
+
+	/**
+	 * Personの差分取り込みの定義
+	 *
+	 * キーはlast_name（savePersonの更新条件と同じ）、ハッシュ値はfirst_nameとlast_nameから求める。
+	 */
+	@Bean
+	public DeltaRecordType<Person> personDeltaRecordType() {
+		return new DeltaRecordType<>(
+				new PersonRecordCodec(),
+				person -> person.getLastName() != null ? person.getLastName() : "",
+				person -> Fingerprints.of(person.getFirstName(), person.getLastName()),
+				key -> new Person(null, key));
+	}
+
+	@Bean
+	public ItemReader<Person> step07ItemReader() {
+		CsvFileItemReader<Person> reader = new CsvFileItemReader<>();
+		reader.setName("step07ItemReader");
+		reader.setResource(inputFile);
+		reader.setLineSeparator("\r\n");
+
+		// CSVデータの1列目がPerson.firstName、2列目がPerson.lastNameに格納される
+		reader.setHeaders(new String[]{"firstName", "lastName"});
+		reader.setFieldSetMapper(new GeneratedFieldSetMapper<>(Person.class, "firstName", "lastName"));
+
+		return reader;
+	}
+
+	@Bean
+	public ItemReader<SnapshotEntry> step07SnapshotItemReader() {
+		return new MyBatisCursorItemReaderBuilder<SnapshotEntry>()
+				.sqlSessionFactory(sqlSessionFactory)
+				.queryId("com.example.demo.mapper.PersonMapper.streamPersonDeltaSnapshot")
+				.saveState(false)
+				.build();
+	}
+
+	@Bean
+	@StepScope
+	public DeltaItemReader<Person> step07DeltaItemReader(DeltaRecordType<Person> personDeltaRecordType) {
+		DeltaItemReader<Person> reader = new DeltaItemReader<>();
+		reader.setName("step07DeltaItemReader");
+		reader.setRecordType(personDeltaRecordType);
+		reader.setCurrentFile(sortedFile());
+		reader.setSnapshotFile(snapshotFile());
+		return reader;
+	}
+
+	@Bean
+	public DeltaItemWriter<Person> step07DeltaItemWriter() {
+		DeltaItemWriter<Person> writer = new DeltaItemWriter<>();
+		writer.setInsertWriter(new MyBatisBatchItemWriterBuilder<Person>()
+				.sqlSessionFactory(sqlSessionFactory)
+				.statementId("com.example.demo.mapper.PersonMapper.insertPerson")
+				.build());
+		writer.setUpdateWriter(new MyBatisBatchItemWriterBuilder<Person>()
+				.sqlSessionFactory(sqlSessionFactory)
+				.statementId("com.example.demo.mapper.PersonMapper.savePerson")
+				.build());
+		// 削除済みの行の削除は成功とみなす（更新は行が無い場合にPersonテーブルとスナップショットの不一致としてエラーとする）
+		writer.setDeleteWriter(new MyBatisBatchItemWriterBuilder<Person>()
+				.sqlSessionFactory(sqlSessionFactory)
+				.statementId("com.example.demo.mapper.PersonMapper.deletePersonByLastName")
+				.assertUpdates(false)
+				.build());
+		// 書き込んだ差分のキーとハッシュ値をスナップショットに反映する
+		writer.setSnapshotDeleteWriter(new MyBatisBatchItemWriterBuilder<SnapshotEntry>()
+				.sqlSessionFactory(sqlSessionFactory)
+				.statementId("com.example.demo.mapper.PersonMapper.deletePersonDeltaSnapshot")
+				.assertUpdates(false)
+				.build());
+		writer.setSnapshotInsertWriter(new MyBatisBatchItemWriterBuilder<SnapshotEntry>()
+				.sqlSessionFactory(sqlSessionFactory)
+				.statementId("com.example.demo.mapper.PersonMapper.insertPersonDeltaSnapshot")
+				.build());
+		return writer;
+	}
+
+	private File sortedFile() {
+		return new File(workDir, "person.sorted");
+	}
+
+	private File snapshotFile() {
+		return new File(workDir, "person.snapshot");
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.example.demo.config;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+
+import com.example.demo.channel.ChannelItemReader;
+import com.example.demo.channel.ChannelItemWriter;
+import com.example.demo.channel.ChannelRegistry;
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonRecordCodec;
+import com.example.demo.item.mapping.GeneratedFieldExtractor;
+import com.example.demo.item.processor.PersonItemProcessor;
+import com.example.demo.item.processor.dedup.DeduplicatingItemProcessor;
+import com.example.demo.item.writer.CsvFileItemWriter;
+import com.example.demo.item.writer.CsvLineAggregator;
+
+@Configuration
+@EnableBatchProcessing
+public class Step08Configuration {
+
+	// チャネル名（CSVから読み込んだデータ）
+	public static final String IMPORTED_CHANNEL = "person.imported";
+
+	// チャネル名（加工後のデータ）
+	public static final String TRANSFORMED_CHANNEL = "person.transformed";
+
+	@Autowired
+	public StepBuilderFactory stepBuilderFactory;
+
+	@Autowired
+	public ChannelRegistry channelRegistry;
+
+	// 入力データの重複除外を行うかどうか
+	@Value("${batch.dedup.enabled:false}")
+	private boolean dedup;
+
+	/**
+	 * job03（CSV ⇒ DB ⇒（変換処理）⇒ DB ⇒ CSV）と同じ処理を、中間データをDBに書き込まずに行うためのサンプルコード
+	 *
+	 * 　　①step08_CSV_to_channel       : CSVを読み込み、チャネル「person.imported」に書き込む
+	 * 　　②step08_channel_to_channel   : 「person.imported」を加工し、チャネル「person.transformed」に書き込む
+	 * 　　③step08_channel_to_CSV       : 「person.transformed」をCSVに書き込む
+	 *
+	 * チャネルはプロセス内にだけ存在するため、各ステップはCOMPLETEDでも再実行時に実行し直す（allowStartIfComplete）。
+	 */
+	@Bean
+	public Step step08_CSV_to_channel(
+			ItemReader<Person> step01ItemReader,
+			DeduplicatingItemProcessor<Person> personDeduplicatingItemProcessor,
+			PreWriteValidation<Person> personPreWriteValidation) {
+		return stepBuilderFactory.get("step08_CSV_to_channel")
+			.allowStartIfComplete(true)
+			.<Person, Person> chunk(4)
+
+			// データの入力（CSV ⇒ DTO）
+			// step01と同じCSVファイルを読み込む
+			.reader(step01ItemReader)
+
+			// データの加工（step01と同じ）
+			.processor(personPreWriteValidation.apply(dedup ? personDeduplicatingItemProcessor : null))
+
+			// データの出力（DTO ⇒ チャネル）
+			.writer(new ChannelItemWriter<>(channelRegistry, IMPORTED_CHANNEL, new PersonRecordCodec()))
+
+			.build();
+	}
+
+	@Bean
+	public Step step08_channel_to_channel(
+			PersonItemProcessor step02ItemProcessor,
+			PreWriteValidation<Person> personPreWriteValidation) {
+		return stepBuilderFactory.get("step08_channel_to_channel")
+			.allowStartIfComplete(true)
+			.<Person, Person> chunk(4)
+
+			// データの入力（チャネル ⇒ DTO）
+			.reader(new ChannelItemReader<>(channelRegistry, IMPORTED_CHANNEL))
+
+			// データの加工（step02と同じ）
+			.processor(personPreWriteValidation.apply(step02ItemProcessor))
+
+			// データの出力（DTO ⇒ チャネル）
+			.writer(new ChannelItemWriter<>(channelRegistry, TRANSFORMED_CHANNEL, new PersonRecordCodec()))
+
+			.build();
+	}
+
+	@Bean
+	public Step step08_channel_to_CSV(ItemWriter<Person> step08ItemWriter) {
+		return stepBuilderFactory.get("step08_channel_to_CSV")
+			.allowStartIfComplete(true)
+			.<Person, Person> chunk(4)
+
+			// データの入力（チャネル ⇒ DTO）
+			.reader(new ChannelItemReader<>(channelRegistry, TRANSFORMED_CHANNEL))
+
+			// データの出力（DTO ⇒ CSV）
+			.writer(step08ItemWriter)
+
+			.build();
+	}
+
+	@Bean
+	public ItemWriter<Person> step08ItemWriter() {
+		CsvFileItemWriter<Person> writer = new CsvFileItemWriter<>();
+		writer.setName("step08ItemWriter");
+		writer.setResource(new FileSystemResource("bin/test-outputs/output_job08.csv"));
+		writer.setLineSeparator("\r\n");
+
+		// 出力対象のフィールドと順番（step03と同じ）
+		writer.setCsvLineAggregator(new CsvLineAggregator<Person>() {
+			{
+				setFieldExtractor(new GeneratedFieldExtractor<>(Person.class, "firstName", "lastName"));
+			}
+		});
+
+		return writer;
+	}
+
+}
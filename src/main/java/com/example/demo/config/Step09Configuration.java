@@ -0,0 +1,221 @@
+package com.example.demo.config;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.batch.builder.MyBatisBatchItemWriterBuilder;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo.entity.Person;
+import com.example.demo.item.mapping.GeneratedFieldExtractor;
+import com.example.demo.item.processor.PersonItemProcessor;
+import com.example.demo.item.processor.dedup.DeduplicatingItemProcessor;
+import com.example.demo.item.writer.CsvFileItemWriter;
+import com.example.demo.item.writer.CsvLineAggregator;
+import com.example.demo.pipeline.PipelinedKeysetItemReader;
+import com.example.demo.pipeline.Watermark;
+import com.example.demo.pipeline.WatermarkPublisher;
+import com.example.demo.pipeline.WatermarkRegistry;
+
+@Configuration
+@EnableBatchProcessing
+public class Step09Configuration {
+
+	@Autowired
+	public StepBuilderFactory stepBuilderFactory;
+
+	@Autowired
+	public SqlSessionFactory sqlSessionFactory;
+
+	@Autowired
+	public WatermarkRegistry watermarkRegistry;
+
+	@Autowired
+	public JobRepository jobRepository;
+
+	// 入力データの重複除外を行うかどうか
+	@Value("${batch.dedup.enabled:false}")
+	private boolean dedup;
+
+	// 下流のステップの1ページの件数
+	@Value("${batch.pipeline.page-size:1000}")
+	private int pageSize;
+
+	// 下流のステップが上流のステップに追いついた場合の最大の待機時間
+	@Value("${batch.pipeline.poll-interval:1000}")
+	private long pollInterval;
+
+	/**
+	 * job03（CSV ⇒ DB ⇒（変換処理）⇒ DB ⇒ CSV）の各ステップを並行して実行するためのサンプルコード
+	 *
+	 * 　　①step09_CSV_to_DB   : CSVをPersonテーブルに登録する（step01と同じ）
+	 * 　　②step09_DB_to_DB    : ①がコミットしたPersonを加工して更新する（step02と同じ）
+	 * 　　③step09_DB_to_CSV   : ②がコミットしたPersonをCSVに書き込む（step03と同じ）
+	 *
+	 * 上流のステップはコミットごとにコミット済みのidの上限（ウォーターマーク）をExecutionContextに保存して公開し、
+	 * 下流のステップはウォーターマーク以下のidだけを読み込む（上流を追い越さない）。
+	 * ①のidはIDENTITY列のため、コミット順に増加する。
+	 * ①は常に登録だけを行い（batch.writer.upsert=trueでもMERGEによる更新はしない）、既存の行を更新しない。
+	 * 更新すると、ウォーターマーク以下の（②が加工済みの）行を①が書き換えてしまうため。
+	 * これはPersonテーブルに書き込むのが①の1スレッドだけの場合に限られるため、①②にはTaskExecutor（マルチスレッドステップ）を設定せず、
+	 * ジョブの実行中に他のジョブからPersonテーブルに書き込まないこと（WatermarkPublisherは別スレッドでの書き込みを例外とする）。
+	 *
+	 * 全体の処理時間は、各ステップの処理時間の合計ではなく、最も遅いステップの処理時間に近づく。
+	 */
+	@Bean
+	public Flow flow09_pipeline(
+			Step step09_CSV_to_DB,
+			Step step09_DB_to_DB,
+			Step step09_DB_to_CSV) {
+		return new FlowBuilder<SimpleFlow>("splitFlow09_pipeline")
+			// 非同期用のTaskExecutorを設定
+			.split(new SimpleAsyncTaskExecutor("pipeline"))
+
+			// 並行して実行するステップを登録
+			.add(
+					new FlowBuilder<SimpleFlow>("flow09_CSV_to_DB").start(step09_CSV_to_DB).build(),
+					new FlowBuilder<SimpleFlow>("flow09_DB_to_DB").start(step09_DB_to_DB).build(),
+					new FlowBuilder<SimpleFlow>("flow09_DB_to_CSV").start(step09_DB_to_CSV).build()
+				)
+
+			.build();
+	}
+
+	@Bean
+	public Step step09_CSV_to_DB(
+			ItemReader<Person> step01ItemReader,
+			ItemWriter<Person> step09PersonItemWriter,
+			DeduplicatingItemProcessor<Person> personDeduplicatingItemProcessor,
+			PreWriteValidation<Person> personPreWriteValidation,
+			DataSource dataSource) {
+		// 書き込み後（チャンクと同じトランザクション内）に、登録済みのidの上限を求める
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		WatermarkPublisher<Person> publisher = new WatermarkPublisher<>(watermarkRegistry, () -> {
+			Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM person", Long.class);
+			return maxId != null ? maxId : Watermark.NONE;
+		});
+
+		SimpleStepBuilder<Person, Person> builder = stepBuilderFactory.get("step09_CSV_to_DB")
+			.<Person, Person> chunk(4)
+			.reader(step01ItemReader)
+			.processor(personPreWriteValidation.apply(dedup ? personDeduplicatingItemProcessor : null))
+			.writer(step09PersonItemWriter);
+		return publish(builder, publisher);
+	}
+
+	@Bean
+	public Step step09_DB_to_DB(
+			PipelinedKeysetItemReader<Person> step09ItemReader,
+			PersonItemProcessor step02ItemProcessor,
+			ItemWriter<Person> step02ItemWriter,
+			PreWriteValidation<Person> personPreWriteValidation) {
+		// 読み込んだデータはすべてチャンク内で書き込むため、最後に読み込んだidを上限とする
+		WatermarkPublisher<Person> publisher = new WatermarkPublisher<>(watermarkRegistry, step09ItemReader::getLastKey);
+
+		SimpleStepBuilder<Person, Person> builder = stepBuilderFactory.get("step09_DB_to_DB")
+			.<Person, Person> chunk(4)
+
+			// step09_CSV_to_DBのウォーターマーク以下のPersonを読み込む
+			.reader(step09ItemReader)
+			.processor(personPreWriteValidation.apply(step02ItemProcessor))
+			.writer(step02ItemWriter);
+		return publish(builder, publisher);
+	}
+
+	@Bean
+	public Step step09_DB_to_CSV(
+			PipelinedKeysetItemReader<Person> step09CsvItemReader,
+			ItemWriter<Person> step09ItemWriter) {
+		return stepBuilderFactory.get("step09_DB_to_CSV")
+			.<Person, Person> chunk(4)
+
+			// step09_DB_to_DBのウォーターマーク以下のPersonを読み込む
+			.reader(step09CsvItemReader)
+			.writer(step09ItemWriter)
+			.build();
+	}
+
+	/**
+	 * step09_CSV_to_DBの書き込み（登録のみ）
+	 *
+	 * last_nameが同じデータも新しいidの行として登録し、ウォーターマーク以下の行は変更しない。
+	 */
+	@Bean
+	public ItemWriter<Person> step09PersonItemWriter() {
+		return new MyBatisBatchItemWriterBuilder<Person>()
+				.sqlSessionFactory(sqlSessionFactory)
+				.statementId("com.example.demo.mapper.PersonMapper.insertPerson")
+				.build();
+	}
+
+	/**
+	 * 上流のステップにWatermarkPublisherを登録します（ステップはシングルスレッドとすること）
+	 */
+	private Step publish(SimpleStepBuilder<Person, Person> builder, WatermarkPublisher<Person> publisher) {
+		builder.listener((ItemWriteListener<Person>) publisher);
+		builder.listener((ChunkListener) publisher);
+		builder.listener((StepExecutionListener) publisher);
+		return builder.build();
+	}
+
+	@Bean
+	public PipelinedKeysetItemReader<Person> step09ItemReader() {
+		return pipelinedReader("step09ItemReader", "step09_CSV_to_DB");
+	}
+
+	@Bean
+	public PipelinedKeysetItemReader<Person> step09CsvItemReader() {
+		return pipelinedReader("step09CsvItemReader", "step09_DB_to_DB");
+	}
+
+	private PipelinedKeysetItemReader<Person> pipelinedReader(String name, String upstreamStepName) {
+		PipelinedKeysetItemReader<Person> reader = new PipelinedKeysetItemReader<>();
+		reader.setName(name);
+		reader.setSqlSessionFactory(sqlSessionFactory);
+		reader.setQueryId("com.example.demo.mapper.PersonMapper.findPersonPageUpTo");
+		reader.setPageSize(pageSize);
+		reader.setKeyExtractor(Person::getId);
+		reader.setRegistry(watermarkRegistry);
+		reader.setJobRepository(jobRepository);
+		reader.setUpstreamStepName(upstreamStepName);
+		reader.setPollInterval(pollInterval);
+		return reader;
+	}
+
+	@Bean
+	public ItemWriter<Person> step09ItemWriter() {
+		CsvFileItemWriter<Person> writer = new CsvFileItemWriter<>();
+		writer.setName("step09ItemWriter");
+		writer.setResource(new FileSystemResource("bin/test-outputs/output_job09.csv"));
+		writer.setLineSeparator("\r\n");
+
+		// 出力対象のフィールドと順番（step03と同じ）
+		writer.setCsvLineAggregator(new CsvLineAggregator<Person>() {
+			{
+				setFieldExtractor(new GeneratedFieldExtractor<>(Person.class, "firstName", "lastName"));
+			}
+		});
+
+		return writer;
+	}
+
+}
@@ -0,0 +1,163 @@
+package com.example.demo.config;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.CompositeItemProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import com.example.demo.entity.Person;
+import com.example.demo.item.reader.CsvFileItemReader;
+import com.example.demo.sort.ColumnComparator;
+import com.example.demo.sort.ExternalSortTasklet;
+import com.example.demo.sort.ExternalSorter;
+import com.example.demo.sort.RecordFileItemReader;
+import com.example.demo.sort.StringArrayRecordCodec;
+
+@Configuration
+@EnableBatchProcessing
+public class Step10Configuration {
+
+	@Autowired
+	public StepBuilderFactory stepBuilderFactory;
+
+	// 並べ替える入力CSVファイル（未指定の場合はstep01と同じファイル）
+	@Value("${batch.sort.input-file:${batch.step01.input-file:classpath:sample-data.csv}}")
+	private Resource inputFile;
+
+	// 入力CSVの列名（列の数と一致させる）
+	@Value("${batch.sort.columns:firstName,lastName}")
+	private String[] columns;
+
+	// 並べ替えのキー（「列名[:asc|desc|numeric]」のカンマ区切り）
+	@Value("${batch.sort.key-columns:lastName,firstName}")
+	private String keyColumns;
+
+	// 並べ替えた入力と一時ファイル（ラン）の出力先
+	@Value("${batch.sort.work-dir:build/sort}")
+	private File workDir;
+
+	// 並べ替え時にメモリ上に保持する件数の上限
+	@Value("${batch.sort.max-records-in-memory:1000000}")
+	private int maxRecordsInMemory;
+
+	// 並べ替え時にメモリ上に保持するデータの推定サイズの上限
+	@Value("${batch.sort.memory-budget:64MB}")
+	private DataSize memoryBudget;
+
+	// ランの並べ替えと書き出しの並行数（0以下の場合はCPUのコア数）
+	@Value("${batch.sort.parallelism:0}")
+	private int parallelism;
+
+	// 並べ替えたデータの書き込みのチャンクサイズ
+	@Value("${batch.sort.chunk-size:1000}")
+	private int chunkSize;
+
+	/**
+	 * ヒープに収まらない大きさのCSVを、キー順に並べ替えてからDBに取り込むためのサンプルコード（CSV ⇒ 並べ替え ⇒ DB）
+	 *
+	 * 　　①step10_sort_CSV      : CSVをキー（batch.sort.key-columns）順に並べ替えてファイルに書き出す
+	 * 　　　　　　　　　　　　　　　メモリ上限ごとに並べ替えたラン（一時ファイル）を複数スレッドで書き出し、k-wayマージする
+	 * 　　②step10_sorted_to_DB  : 並べ替えたファイルを先頭から読み込み、Personテーブルに書き込む
+	 *
+	 * キー順に書き込むことで、インデックス（ix_person_last_name）の更新やMERGEの検索が近い位置に集まる。
+	 * 書き込みはstep01と同じ（batch.writer.upsert=trueの場合はMERGEによる登録・更新）。
+	 */
+	@Bean
+	public Step step10_sort_CSV(ItemReader<String[]> step10ItemReader) {
+		StringArrayRecordCodec codec = new StringArrayRecordCodec();
+		ExternalSorter<String[]> sorter = new ExternalSorter<>(codec, ColumnComparator.of(columns, keyColumns));
+		sorter.setMaxRecordsInMemory(maxRecordsInMemory);
+		sorter.setMaxBytesInMemory(memoryBudget.toBytes(), StringArrayRecordCodec::estimateSize);
+		sorter.setParallelism(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+		sorter.setTempDirectory(workDir);
+
+		return stepBuilderFactory
+			.get("step10_sort_CSV")
+			.tasklet(new ExternalSortTasklet<>(step10ItemReader, sorter, sortedFile()))
+			.build();
+	}
+
+	@Bean
+	public Step step10_sorted_to_DB(
+			RecordFileItemReader<String[]> step10SortedItemReader,
+			ItemWriter<Person> step01ItemWriter,
+			PreWriteValidation<Person> personPreWriteValidation) {
+
+		List<ItemProcessor<?, ?>> processors = new ArrayList<>();
+		processors.add(personMapping());
+		ItemProcessor<Person, Person> validation = personPreWriteValidation.apply(null);
+		if(validation != null) {
+			processors.add(validation);
+		}
+		CompositeItemProcessor<String[], Person> processor = new CompositeItemProcessor<>();
+		processor.setDelegates(processors);
+
+		return stepBuilderFactory
+			.get("step10_sorted_to_DB")
+			.<String[], Person> chunk(chunkSize)
+			.reader(step10SortedItemReader)
+			.processor(processor)
+			.writer(step01ItemWriter)
+			.build();
+	}
+
+	@Bean
+	public ItemReader<String[]> step10ItemReader() {
+		CsvFileItemReader<String[]> reader = new CsvFileItemReader<>();
+		reader.setName("step10ItemReader");
+		reader.setResource(inputFile);
+		reader.setLineSeparator("\r\n");
+
+		// 並べ替えは列の値のまま行い、Personへの変換は書き込み時に行う
+		reader.setHeaders(columns);
+		reader.setFieldSetMapper(fieldSet -> fieldSet.getValues());
+
+		return reader;
+	}
+
+	@Bean
+	@StepScope
+	public RecordFileItemReader<String[]> step10SortedItemReader() {
+		RecordFileItemReader<String[]> reader = new RecordFileItemReader<>();
+		reader.setName("step10SortedItemReader");
+		reader.setFile(sortedFile());
+		reader.setCodec(new StringArrayRecordCodec());
+		return reader;
+	}
+
+	/**
+	 * 列名がfirstName、lastNameの列をPersonに変換する（前後の空白は除く）
+	 */
+	private ItemProcessor<String[], Person> personMapping() {
+		int firstName = Arrays.asList(columns).indexOf("firstName");
+		int lastName = Arrays.asList(columns).indexOf("lastName");
+		if(firstName < 0 || lastName < 0) {
+			throw new IllegalStateException("batch.sort.columns must contain firstName and lastName: " + Arrays.toString(columns));
+		}
+		return row -> new Person(trim(row[firstName]), trim(row[lastName]));
+	}
+
+	private static String trim(String value) {
+		return value != null ? value.trim() : null;
+	}
+
+	private File sortedFile() {
+		return new File(workDir, "person.sorted");
+	}
+
+}
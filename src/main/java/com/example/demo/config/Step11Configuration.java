@@ -0,0 +1,99 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.repository.dao.AbstractJdbcBatchMetadataDao;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.demo.repository.JobMetadataPruner;
+import com.example.demo.repository.JobMetadataPruningTasklet;
+import com.example.demo.repository.JobRepositoryIndexes;
+
+@Configuration
+@EnableBatchProcessing
+public class Step11Configuration {
+
+	private static final Logger log = LoggerFactory.getLogger(Step11Configuration.class);
+
+	@Autowired
+	public StepBuilderFactory stepBuilderFactory;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private BatchProperties batchProperties;
+
+	// メタデータの保持期間（すべての実行がこの期間より前に終了したジョブインスタンスを削除する）
+	@Value("${batch.housekeeping.retention:90d}")
+	private Duration retention;
+
+	// 1回のトランザクションで削除するジョブインスタンスの件数
+	@Value("${batch.housekeeping.batch-size:100}")
+	private int batchSize;
+
+	// 削除する前にアーカイブ用テーブル（プレフィックス「<テーブルのプレフィックス>ARCHIVE_」）に複写するかどうか
+	@Value("${batch.housekeeping.archive:false}")
+	private boolean archive;
+
+	/**
+	 * JobRepositoryのメタデータ（BATCH_*テーブル）を整理するためのサンプルコード
+	 *
+	 * 　　①step11_check_indexes   : JobRepositoryの検索に必要なインデックスがあるかどうかを確認する
+	 * 　　　　　　　　　　　　　　　　無い場合は警告を出力し、終了コードの説明を「missing-indexes」とする（ステップは失敗させない）
+	 * 　　②step11_prune_metadata  : 保持期間（batch.housekeeping.retention）を過ぎたジョブインスタンスを
+	 * 　　　　　　　　　　　　　　　　batch-size件ずつ別のトランザクションで削除する（archive=trueの場合は複写してから削除）
+	 *
+	 * メタデータの件数が増えると、ジョブの起動時の検索（getLastJobExecution等）が遅くなるため、定期的に実行する。
+	 * 削除の間隔はbatch.throttle.steps[step11_prune_metadata].chunks-per-secondで調整できる。
+	 */
+	@Bean
+	public Step step11_check_indexes() {
+		JobRepositoryIndexes indexes = new JobRepositoryIndexes(dataSource, batchProperties.getTablePrefix());
+		return stepBuilderFactory
+			.get("step11_check_indexes")
+			.tasklet((contribution, chunkContext) -> {
+				List<String> missing = indexes.findMissing();
+				if(!missing.isEmpty()) {
+					log.warn("Job repository tables have no index on {}. Job launches slow down as metadata grows. See schema-all.sql.", missing);
+					contribution.setExitStatus(ExitStatus.COMPLETED.addExitDescription("missing-indexes"));
+				}
+				return RepeatStatus.FINISHED;
+			})
+			.build();
+	}
+
+	@Bean
+	public Step step11_prune_metadata() {
+		JobMetadataPruner pruner = new JobMetadataPruner(dataSource, batchProperties.getTablePrefix());
+		if(archive) {
+			pruner.setArchiveTablePrefix(tablePrefix() + "ARCHIVE_");
+		}
+		JobMetadataPruningTasklet tasklet = new JobMetadataPruningTasklet(pruner, retention);
+		tasklet.setBatchSize(batchSize);
+
+		return stepBuilderFactory
+			.get("step11_prune_metadata")
+			.tasklet(tasklet)
+			.build();
+	}
+
+	private String tablePrefix() {
+		return batchProperties.getTablePrefix() != null ? batchProperties.getTablePrefix() : AbstractJdbcBatchMetadataDao.DEFAULT_TABLE_PREFIX;
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.example.demo.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.example.demo.throttle.StepThrottleListener;
+import com.example.demo.throttle.StepThrottlePostProcessor;
+import com.example.demo.throttle.StepThrottleRepository;
+
+@Configuration
+public class StepThrottleConfiguration {
+
+	/**
+	 * ステップの流量の上限を保存するテーブル（REST経由で変更する）
+	 *
+	 * @param dataSource
+	 * @return
+	 */
+	@Bean
+	public StepThrottleRepository stepThrottleRepository(DataSource dataSource) {
+		return new StepThrottleRepository(dataSource);
+	}
+
+	/**
+	 * すべてのステップに流量の上限を適用するBeanPostProcessor
+	 *
+	 * BeanPostProcessorは他のBeanより先に作成するため、staticメソッドで定義し、設定はEnvironmentから直接バインドする。
+	 * テーブルはステップの実行時に参照する（DataSourceを先に作成しない）。
+	 *
+	 * @param environment
+	 * @param stepThrottleRepository
+	 * @return
+	 */
+	@Bean
+	public static StepThrottlePostProcessor stepThrottlePostProcessor(Environment environment,
+			ObjectProvider<StepThrottleRepository> stepThrottleRepository) {
+		StepThrottleProperties properties = Binder.get(environment)
+				.bind("batch.throttle", StepThrottleProperties.class)
+				.orElseGet(StepThrottleProperties::new);
+		if(!properties.isEnabled()) {
+			return new StepThrottlePostProcessor(null);
+		}
+		return new StepThrottlePostProcessor(new StepThrottleListener(stepThrottleRepository::getObject,
+				properties.getSteps(), properties.getRefreshInterval().toMillis()));
+	}
+
+}
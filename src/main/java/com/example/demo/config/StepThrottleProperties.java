@@ -0,0 +1,45 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.example.demo.throttle.StepThrottle;
+
+/**
+ * ステップの流量の上限
+ *
+ * 　　batch.throttle.*                         全体の設定
+ * 　　batch.throttle.steps[ステップ名].*         ステップごとの上限（step_throttleテーブルに無い場合に使用する）
+ */
+public class StepThrottleProperties {
+
+	// 流量の上限を適用するかどうか（有効にすると、すべてのステップがrefreshIntervalごとにstep_throttleテーブルを参照する）
+	private boolean enabled = false;
+
+	// step_throttleテーブルを読み直す間隔
+	private Duration refreshInterval = Duration.ofSeconds(5);
+
+	private final Map<String, StepThrottle> steps = new HashMap<>();
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getRefreshInterval() {
+		return refreshInterval;
+	}
+
+	public void setRefreshInterval(Duration refreshInterval) {
+		this.refreshInterval = refreshInterval;
+	}
+
+	public Map<String, StepThrottle> getSteps() {
+		return steps;
+	}
+
+}
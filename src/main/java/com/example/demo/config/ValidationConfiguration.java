@@ -0,0 +1,44 @@
+package com.example.demo.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo.entity.Person;
+import com.example.demo.item.validator.TableColumnValidator;
+import com.example.demo.item.validator.TableColumnValidator.LengthSemantics;
+
+@Configuration
+public class ValidationConfiguration {
+
+	// 書き込み前の検証を行うかどうか
+	@Value("${batch.validation.enabled:false}")
+	private boolean enabled;
+
+	// 文字列の桁数の数え方（CHARACTERS：文字数、BYTES：UTF-8のバイト数）
+	@Value("${batch.validation.length-semantics:BYTES}")
+	private LengthSemantics lengthSemantics;
+
+	/**
+	 * Personテーブルへの書き込み前の検証
+	 *
+	 * Personテーブルのカラム定義（桁数・NOT NULL）に違反するデータは書き込まずにitem_rejectテーブルへ登録する。
+	 * これにより、1件の不正データでチャンク全体のバッチ更新が失敗することを防ぐ。
+	 *
+	 * @param dataSource
+	 * @return
+	 */
+	@Bean
+	public PreWriteValidation<Person> personPreWriteValidation(DataSource dataSource) {
+		TableColumnValidator<Person> validator = new TableColumnValidator<Person>(dataSource, "person")
+				.addColumn("first_name", Person::getFirstName)
+				.addColumn("last_name", Person::getLastName);
+		validator.setLengthSemantics(lengthSemantics);
+
+		return new PreWriteValidation<>(enabled, validator, new JdbcTemplate(dataSource));
+	}
+
+}
@@ -2,6 +2,7 @@ package com.example.demo.entity;
 
 public class Person {
 
+	private Long id;
 	private String lastName;
 	private String firstName;
 
@@ -13,6 +14,14 @@ public class Person {
 		this.lastName = lastName;
 	}
 
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
 	public void setFirstName(String firstName) {
 		this.firstName = firstName;
 	}
@@ -0,0 +1,36 @@
+package com.example.demo.entity;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.example.demo.sort.RecordCodec;
+
+/**
+ * Personをバイナリで読み書きするためのRecordCodec（idは対象外）
+ */
+public class PersonRecordCodec implements RecordCodec<Person> {
+
+	@Override
+	public void write(Person record, DataOutput out) throws IOException {
+		writeString(record.getFirstName(), out);
+		writeString(record.getLastName(), out);
+	}
+
+	@Override
+	public Person read(DataInput in) throws IOException {
+		return new Person(readString(in), readString(in));
+	}
+
+	static void writeString(String value, DataOutput out) throws IOException {
+		out.writeBoolean(value != null);
+		if(value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+}
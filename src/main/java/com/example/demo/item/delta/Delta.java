@@ -0,0 +1,55 @@
+package com.example.demo.item.delta;
+
+/**
+ * 1件の差分
+ *
+ * DELETEの場合、itemはキーだけを設定したデータとなる。
+ * hashは入力（加工前）のデータのハッシュ値で、書き込み後にスナップショットへ記録する（DELETEの場合は前回の値）。
+ */
+public class Delta<T> {
+
+	private final DeltaOperation operation;
+
+	private final String key;
+
+	private final long hash;
+
+	private final T item;
+
+	public Delta(DeltaOperation operation, String key, long hash, T item) {
+		this.operation = operation;
+		this.key = key;
+		this.hash = hash;
+		this.item = item;
+	}
+
+	public DeltaOperation getOperation() {
+		return operation;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public long getHash() {
+		return hash;
+	}
+
+	public T getItem() {
+		return item;
+	}
+
+	/**
+	 * @param item 差し替えるデータ
+	 * @return 種類・キー・ハッシュ値が同じで、データを差し替えた差分
+	 */
+	public Delta<T> withItem(T item) {
+		return new Delta<>(operation, key, hash, item);
+	}
+
+	@Override
+	public String toString() {
+		return "Delta [operation=" + operation + ", key=" + key + ", item=" + item + "]";
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.example.demo.item.delta;
+
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * INSERT、UPDATEの差分のデータを委譲先のItemProcessorで加工するItemProcessor
+ *
+ * DELETEの差分はそのまま返す。委譲先がnullを返した場合は差分を除外する。
+ */
+public class DeltaItemProcessor<T> implements ItemProcessor<Delta<T>, Delta<T>> {
+
+	private final ItemProcessor<T, T> delegate;
+
+	public DeltaItemProcessor(ItemProcessor<T, T> delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Delta<T> process(Delta<T> delta) throws Exception {
+		if(delta.getOperation() == DeltaOperation.DELETE) {
+			return delta;
+		}
+		T result = delegate.process(delta.getItem());
+		return result != null ? delta.withItem(result) : null;
+	}
+
+}
@@ -0,0 +1,148 @@
+package com.example.demo.item.delta;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import com.example.demo.sort.RecordFileReader;
+
+/**
+ * キー順に並べ替えた今回の入力と前回までのスナップショットを突き合わせ、差分だけを読み込むItemReader
+ *
+ * 両方のファイルを先頭から1件ずつ読み進めるマージ結合のため、メモリ使用量は件数によらず一定となる。
+ * 　　・スナップショットに無いキー            ⇒ INSERT
+ * 　　・スナップショットにあり、ハッシュ値が異なる ⇒ UPDATE
+ * 　　・今回の入力に無いキー                  ⇒ DELETE
+ * 　　・ハッシュ値が同じ                      ⇒ 読み飛ばす
+ * 今回の入力に同じキーのデータが複数ある場合は、最初の1件だけを対象とする（スナップショットの作成と同じ）。
+ * スナップショットが無い場合（初回）は、すべてINSERTとなる。
+ *
+ * 再実行時は、読み込み済みの件数まで先頭から読み飛ばす（両方のファイルは前回の実行から変わらないこと）。
+ */
+public class DeltaItemReader<T> extends AbstractItemCountingItemStreamItemReader<Delta<T>> {
+
+	private static final Logger log = LoggerFactory.getLogger(DeltaItemReader.class);
+
+	private DeltaRecordType<T> recordType;
+
+	private File currentFile;
+
+	private File snapshotFile;
+
+	private RecordFileReader<T> currentReader;
+
+	private RecordFileReader<SnapshotEntry> snapshotReader;
+
+	private T current;
+
+	private String currentKey;
+
+	private SnapshotEntry previous;
+
+	private long duplicates;
+
+	public DeltaItemReader() {
+		setName(getClass().getSimpleName());
+	}
+
+	public void setRecordType(DeltaRecordType<T> recordType) {
+		this.recordType = recordType;
+	}
+
+	/**
+	 * @param currentFile キー順に並べ替えた今回の入力（ExternalSorterで書き出したファイル）
+	 */
+	public void setCurrentFile(File currentFile) {
+		this.currentFile = currentFile;
+	}
+
+	/**
+	 * @param snapshotFile 前回までに書き込んだデータのスナップショット（キー順に並べ替えたSnapshotEntryのファイル）
+	 */
+	public void setSnapshotFile(File snapshotFile) {
+		this.snapshotFile = snapshotFile;
+	}
+
+	@Override
+	protected void doOpen() throws Exception {
+		currentReader = new RecordFileReader<>(currentFile, recordType.getCodec());
+		if(snapshotFile.exists()) {
+			snapshotReader = new RecordFileReader<>(snapshotFile, SnapshotEntry.CODEC);
+		} else {
+			log.info("No snapshot found. All records are inserted. [snapshot:{}]", snapshotFile);
+		}
+		duplicates = 0;
+		advanceCurrent();
+		advancePrevious();
+	}
+
+	@Override
+	protected Delta<T> doRead() throws Exception {
+		while(current != null || previous != null) {
+			int cmp = current == null ? 1 : previous == null ? -1 : currentKey.compareTo(previous.getKey());
+			if(cmp < 0) {
+				Delta<T> delta = new Delta<>(DeltaOperation.INSERT, currentKey, recordType.hash(current), current);
+				advanceCurrent();
+				return delta;
+			}
+			if(cmp > 0) {
+				Delta<T> delta = new Delta<>(DeltaOperation.DELETE, previous.getKey(), previous.getHash(),
+						recordType.keyOnly(previous.getKey()));
+				advancePrevious();
+				return delta;
+			}
+
+			long hash = recordType.hash(current);
+			Delta<T> delta = hash != previous.getHash()
+					? new Delta<>(DeltaOperation.UPDATE, currentKey, hash, current)
+					: null;
+			advanceCurrent();
+			advancePrevious();
+			if(delta != null) {
+				return delta;
+			}
+		}
+		return null;
+	}
+
+	private void advanceCurrent() throws IOException {
+		String lastKey = currentKey;
+		while((current = currentReader.read()) != null) {
+			currentKey = recordType.key(current);
+			if(!currentKey.equals(lastKey)) {
+				return;
+			}
+			duplicates++;
+		}
+		currentKey = null;
+	}
+
+	private void advancePrevious() throws IOException {
+		previous = snapshotReader != null ? snapshotReader.read() : null;
+	}
+
+	@Override
+	protected void doClose() throws Exception {
+		if(duplicates > 0) {
+			log.info("Skipped {} record(s) with a duplicate key. [input:{}]", duplicates, currentFile);
+		}
+		try {
+			if(currentReader != null) {
+				currentReader.close();
+			}
+		} finally {
+			if(snapshotReader != null) {
+				snapshotReader.close();
+			}
+			currentReader = null;
+			snapshotReader = null;
+			current = null;
+			currentKey = null;
+			previous = null;
+		}
+	}
+
+}
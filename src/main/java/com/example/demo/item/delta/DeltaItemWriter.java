@@ -0,0 +1,103 @@
+package com.example.demo.item.delta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.batch.item.ItemWriter;
+
+/**
+ * 差分の種類ごとに委譲先のItemWriterで書き込むItemWriter
+ *
+ * チャンク内の差分をDELETE、UPDATE、INSERTの順にまとめて書き込む。
+ *
+ * スナップショットの書き込み先を設定した場合は、書き込んだ差分（加工で除外されなかった差分）だけを
+ * 同じトランザクション内でスナップショットに反映する（UPDATE・DELETEのキーを削除した後、INSERT・UPDATEのキーとハッシュ値を登録）。
+ * 除外した差分はスナップショットに反映しないため、次回も差分として読み込まれる。
+ */
+public class DeltaItemWriter<T> implements ItemWriter<Delta<T>> {
+
+	private ItemWriter<? super T> insertWriter;
+
+	private ItemWriter<? super T> updateWriter;
+
+	private ItemWriter<? super T> deleteWriter;
+
+	private ItemWriter<? super SnapshotEntry> snapshotDeleteWriter;
+
+	private ItemWriter<? super SnapshotEntry> snapshotInsertWriter;
+
+	public void setInsertWriter(ItemWriter<? super T> insertWriter) {
+		this.insertWriter = insertWriter;
+	}
+
+	public void setUpdateWriter(ItemWriter<? super T> updateWriter) {
+		this.updateWriter = updateWriter;
+	}
+
+	public void setDeleteWriter(ItemWriter<? super T> deleteWriter) {
+		this.deleteWriter = deleteWriter;
+	}
+
+	/**
+	 * @param snapshotDeleteWriter スナップショットからキーを削除するItemWriter（該当するキーが無い場合も成功とすること）
+	 */
+	public void setSnapshotDeleteWriter(ItemWriter<? super SnapshotEntry> snapshotDeleteWriter) {
+		this.snapshotDeleteWriter = snapshotDeleteWriter;
+	}
+
+	/**
+	 * @param snapshotInsertWriter スナップショットにキーとハッシュ値を登録するItemWriter
+	 */
+	public void setSnapshotInsertWriter(ItemWriter<? super SnapshotEntry> snapshotInsertWriter) {
+		this.snapshotInsertWriter = snapshotInsertWriter;
+	}
+
+	@Override
+	public void write(List<? extends Delta<T>> items) throws Exception {
+		List<T> inserts = new ArrayList<>();
+		List<T> updates = new ArrayList<>();
+		List<T> deletes = new ArrayList<>();
+		List<SnapshotEntry> snapshotDeletes = new ArrayList<>(items.size());
+		List<SnapshotEntry> snapshotInserts = new ArrayList<>(items.size());
+		for(Delta<T> delta : items) {
+			// INSERTのキーはスナップショットに無いため、UPDATE・DELETEのキーだけを削除する
+			SnapshotEntry entry = new SnapshotEntry(delta.getKey(), delta.getHash());
+			if(delta.getOperation() != DeltaOperation.INSERT) {
+				snapshotDeletes.add(entry);
+			}
+			if(delta.getOperation() != DeltaOperation.DELETE) {
+				snapshotInserts.add(entry);
+			}
+			switch(delta.getOperation()) {
+			case INSERT:
+				inserts.add(delta.getItem());
+				break;
+			case UPDATE:
+				updates.add(delta.getItem());
+				break;
+			case DELETE:
+				deletes.add(delta.getItem());
+				break;
+			}
+		}
+
+		// 該当する差分がある種類だけ書き込む
+		if(!deletes.isEmpty()) {
+			deleteWriter.write(deletes);
+		}
+		if(!updates.isEmpty()) {
+			updateWriter.write(updates);
+		}
+		if(!inserts.isEmpty()) {
+			insertWriter.write(inserts);
+		}
+
+		if(snapshotDeleteWriter != null && !snapshotDeletes.isEmpty()) {
+			snapshotDeleteWriter.write(snapshotDeletes);
+		}
+		if(snapshotInsertWriter != null && !snapshotInserts.isEmpty()) {
+			snapshotInsertWriter.write(snapshotInserts);
+		}
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.example.demo.item.delta;
+
+/**
+ * 差分の種類
+ */
+public enum DeltaOperation {
+
+	/** 前回のスナップショットに無いキー */
+	INSERT,
+
+	/** 前回のスナップショットにあり、内容（ハッシュ値）が異なるキー */
+	UPDATE,
+
+	/** 今回の入力に無いキー */
+	DELETE
+
+}
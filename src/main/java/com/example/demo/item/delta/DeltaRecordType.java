@@ -0,0 +1,62 @@
+package com.example.demo.item.delta;
+
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import com.example.demo.sort.RecordCodec;
+
+/**
+ * 差分取り込みの対象データの定義（キー、内容のハッシュ値、ファイルへの読み書き）
+ *
+ * 並べ替え、差分の抽出、スナップショットの作成で同じ定義を使用すること。
+ * キーの順序はString.compareToとする。
+ */
+public class DeltaRecordType<T> {
+
+	private final RecordCodec<T> codec;
+
+	private final Function<? super T, String> keyExtractor;
+
+	private final ToLongFunction<? super T> hasher;
+
+	private final Function<String, T> keyOnlyFactory;
+
+	/**
+	 * @param codec データのファイルへの読み書き
+	 * @param keyExtractor データからキーを取り出す関数（nullを返さないこと）
+	 * @param hasher データの内容のハッシュ値を求める関数
+	 * @param keyOnlyFactory キーだけを設定したデータを作成する関数（DELETEの差分に使用する）
+	 */
+	public DeltaRecordType(RecordCodec<T> codec, Function<? super T, String> keyExtractor,
+			ToLongFunction<? super T> hasher, Function<String, T> keyOnlyFactory) {
+		this.codec = codec;
+		this.keyExtractor = keyExtractor;
+		this.hasher = hasher;
+		this.keyOnlyFactory = keyOnlyFactory;
+	}
+
+	public RecordCodec<T> getCodec() {
+		return codec;
+	}
+
+	public String key(T item) {
+		return keyExtractor.apply(item);
+	}
+
+	public long hash(T item) {
+		return hasher.applyAsLong(item);
+	}
+
+	public T keyOnly(String key) {
+		return keyOnlyFactory.apply(key);
+	}
+
+	/**
+	 * @return キーの順序
+	 */
+	public Comparator<T> comparator() {
+		return (a, b) -> key(a).compareTo(key(b));
+	}
+
+}
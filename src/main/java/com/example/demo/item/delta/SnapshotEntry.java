@@ -0,0 +1,50 @@
+package com.example.demo.item.delta;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Comparator;
+
+import com.example.demo.sort.RecordCodec;
+
+/**
+ * スナップショットの1件（書き込み済みのデータのキーと、入力の内容のハッシュ値）
+ */
+public class SnapshotEntry {
+
+	/** スナップショットファイルの読み書き用 */
+	public static final RecordCodec<SnapshotEntry> CODEC = new RecordCodec<SnapshotEntry>() {
+
+		@Override
+		public void write(SnapshotEntry record, DataOutput out) throws IOException {
+			out.writeUTF(record.key);
+			out.writeLong(record.hash);
+		}
+
+		@Override
+		public SnapshotEntry read(DataInput in) throws IOException {
+			return new SnapshotEntry(in.readUTF(), in.readLong());
+		}
+	};
+
+	/** キーの順序（DeltaRecordTypeと同じString.compareTo） */
+	public static final Comparator<SnapshotEntry> KEY_ORDER = Comparator.comparing(SnapshotEntry::getKey);
+
+	private final String key;
+
+	private final long hash;
+
+	public SnapshotEntry(String key, long hash) {
+		this.key = key;
+		this.hash = hash;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public long getHash() {
+		return hash;
+	}
+
+}
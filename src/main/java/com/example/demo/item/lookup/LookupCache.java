@@ -0,0 +1,378 @@
+package com.example.demo.item.lookup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * ItemProcessorから参照データを検索するための読み込みスルー方式のキャッシュ
+ *
+ * キャッシュに無いキーはloaderでまとめて検索する（IN (...) の1回のクエリ）。
+ * prefetchで登録しておいたキー（チャンク内で読み込んだデータのキー）も最初のミス時に一緒に検索するため、
+ * 1件ずつ検索する場合と比べてクエリの回数はチャンクあたり1回程度になる。
+ * 検索しても見つからなかったキーも「無し」としてキャッシュし、同じキーで再検索しない。
+ *
+ * エントリはmaximumSizeを超えると最も長く参照されていないものから削除し（LRU）、
+ * 登録からtimeToLiveを経過したものは次の参照時に再検索する。
+ *
+ * 参照データをステップ間で持ち越さないよう、@StepScopeのBeanとして定義すること（ステップ終了時にdestroyで破棄する）。
+ *
+ * 非同期の加工（AsyncItemProcessor）から複数のスレッドで使用できるよう、スレッドセーフとしている。
+ * エントリはキーのハッシュ値で分けたセグメントごとにロックし（LRUもセグメントごとに判定する）、
+ * 検索（loader）はロックの外で行う。検索中のキーを参照した他のスレッドは、同じキーを重ねて検索せずに結果を待つ。
+ *
+ * ヒット・ミス件数等はMicrometerのカウンター「batch.lookup.cache」（タグ name, result）に記録する。
+ */
+public class LookupCache<K, V> implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(LookupCache.class);
+
+	private static final String METRIC_NAME = "batch.lookup.cache";
+
+	// セグメント数の上限と、セグメントあたりの最小の件数（件数が少ない場合はセグメントを分けず、正確なLRUとする）
+	private static final int MAX_SEGMENTS = 16;
+
+	private static final int MIN_SEGMENT_SIZE = 64;
+
+	/**
+	 * 複数のキーをまとめて検索する関数
+	 */
+	@FunctionalInterface
+	public interface BulkLoader<K, V> {
+
+		/**
+		 * @param keys 検索するキー
+		 * @return キーと値のMap（見つからなかったキーは含めない）
+		 */
+		Map<K, V> load(Collection<K> keys);
+	}
+
+	private final String name;
+
+	private final BulkLoader<K, V> loader;
+
+	private int maximumSize = 10_000;
+
+	private long timeToLiveNanos = Duration.ofMinutes(10).toNanos();
+
+	private int batchSize = 500;
+
+	private LongSupplier ticker = System::nanoTime;
+
+	private volatile List<Segment<K, V>> segments;
+
+	private final Set<K> pending = ConcurrentHashMap.newKeySet();
+
+	// 検索中のキーと、その結果
+	private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	private final Counter loads;
+
+	private final Counter evictions;
+
+	// このキャッシュ（ステップ実行）での件数（Micrometerのカウンターはプロセス全体で累積する）
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder loadCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * @param name キャッシュ名（ログ・メトリクスのタグに使用する）
+	 * @param loader 複数のキーをまとめて検索する関数
+	 */
+	public LookupCache(String name, BulkLoader<K, V> loader) {
+		this.name = name;
+		this.loader = loader;
+		this.hits = Metrics.counter(METRIC_NAME, "name", name, "result", "hit");
+		this.misses = Metrics.counter(METRIC_NAME, "name", name, "result", "miss");
+		this.loads = Metrics.counter(METRIC_NAME, "name", name, "result", "load");
+		this.evictions = Metrics.counter(METRIC_NAME, "name", name, "result", "eviction");
+		this.segments = createSegments(maximumSize);
+	}
+
+	/**
+	 * キャッシュする最大件数を設定します。デフォルトは10000（使用を始める前に設定すること）
+	 *
+	 * @param maximumSize 最大件数
+	 */
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+		this.segments = createSegments(maximumSize);
+	}
+
+	/**
+	 * エントリの有効期間を設定します。デフォルトは10分（0以下の場合は期限なし）
+	 *
+	 * @param timeToLive 有効期間
+	 */
+	public void setTimeToLive(Duration timeToLive) {
+		this.timeToLiveNanos = timeToLive.toNanos();
+	}
+
+	/**
+	 * 1回の検索で指定するキーの最大数を設定します。デフォルトは500
+	 *
+	 * DB2のIN述部やパラメータマーカー数の上限を超えないよう、超える分は複数回に分けて検索する。
+	 *
+	 * @param batchSize キーの最大数
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * 有効期間の判定に使用する時刻（ナノ秒）の取得方法を設定します（テスト用）
+	 *
+	 * @param ticker 時刻を返す関数
+	 */
+	void setTicker(LongSupplier ticker) {
+		this.ticker = ticker;
+	}
+
+	/**
+	 * 次のミス時にまとめて検索するキーを登録します
+	 *
+	 * @param key キー（nullの場合は何もしない）
+	 */
+	public void prefetch(K key) {
+		if(key == null) {
+			return;
+		}
+		CacheEntry<V> entry = segment(key).get(key);
+		if(entry == null || entry.isExpired(ticker.getAsLong(), timeToLiveNanos)) {
+			pending.add(key);
+		}
+	}
+
+	/**
+	 * キーに対応する値を返します。キャッシュに無い場合は登録済みのキーとまとめて検索します
+	 *
+	 * @param key キー
+	 * @return 値（見つからない場合はnull）
+	 */
+	public V get(K key) {
+		if(key == null) {
+			return null;
+		}
+
+		CacheEntry<V> entry = segment(key).get(key);
+		if(entry != null && !entry.isExpired(ticker.getAsLong(), timeToLiveNanos)) {
+			hitCount.increment();
+			hits.increment();
+			return entry.value;
+		}
+
+		missCount.increment();
+		misses.increment();
+		return load(key);
+	}
+
+	private V load(K key) {
+		CompletableFuture<V> future = new CompletableFuture<>();
+		CompletableFuture<V> running = loading.putIfAbsent(key, future);
+		if(running != null) {
+			// 他のスレッドが検索中のキーは、その結果を待つ
+			return await(running);
+		}
+
+		// ミスしてから検索を始めるまでの間に、他のスレッドが検索を終えている場合
+		CacheEntry<V> entry = segment(key).get(key);
+		if(entry != null && !entry.isExpired(ticker.getAsLong(), timeToLiveNanos)) {
+			loading.remove(key, future);
+			future.complete(entry.value);
+			return entry.value;
+		}
+
+		// このキーと、登録済みのキーのうち他のスレッドが検索していないものをまとめて検索する
+		Map<K, CompletableFuture<V>> claimed = new LinkedHashMap<>();
+		claimed.put(key, future);
+		pending.remove(key);
+		Iterator<K> iterator = pending.iterator();
+		while(iterator.hasNext()) {
+			K pendingKey = iterator.next();
+			iterator.remove();
+			CompletableFuture<V> pendingFuture = new CompletableFuture<>();
+			if(loading.putIfAbsent(pendingKey, pendingFuture) == null) {
+				claimed.put(pendingKey, pendingFuture);
+			}
+		}
+
+		try {
+			List<K> keys = new ArrayList<>(Math.min(claimed.size(), batchSize));
+			for(K claimedKey : claimed.keySet()) {
+				keys.add(claimedKey);
+				if(keys.size() >= batchSize) {
+					load(keys, claimed);
+					keys = new ArrayList<>(Math.min(claimed.size(), batchSize));
+				}
+			}
+			if(!keys.isEmpty()) {
+				load(keys, claimed);
+			}
+		} catch(RuntimeException e) {
+			for(CompletableFuture<V> claimedFuture : claimed.values()) {
+				claimedFuture.completeExceptionally(e);
+			}
+			throw e;
+		} finally {
+			// キャッシュに登録してから検索中の状態を解除する
+			claimed.forEach(loading::remove);
+		}
+		return future.getNow(null);
+	}
+
+	private void load(List<K> keys, Map<K, CompletableFuture<V>> claimed) {
+		loadCount.increment();
+		loads.increment();
+		Map<K, V> values = loader.load(keys);
+		long now = ticker.getAsLong();
+		for(K key : keys) {
+			V value = values.get(key);
+			segment(key).put(key, new CacheEntry<>(value, now));
+			claimed.get(key).complete(value);
+		}
+		log.debug("Loaded lookup cache. [name:{}, keys:{}, found:{}]", name, keys.size(), values.size());
+	}
+
+	private static <V> V await(CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch(CompletionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return キャッシュしている件数
+	 */
+	public int size() {
+		int size = 0;
+		for(Segment<K, V> segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * キャッシュを破棄します
+	 */
+	public void clear() {
+		for(Segment<K, V> segment : segments) {
+			segment.clear();
+		}
+		pending.clear();
+	}
+
+	/**
+	 * キャッシュを破棄します（ステップスコープの終了時に呼ばれる）
+	 */
+	@Override
+	public void destroy() {
+		log.info("Lookup cache closed. [name:{}, size:{}, hit:{}, miss:{}, load:{}, eviction:{}]",
+				name, size(), hitCount.sum(), missCount.sum(), loadCount.sum(), evictionCount.sum());
+		clear();
+	}
+
+	private Segment<K, V> segment(K key) {
+		List<Segment<K, V>> current = segments;
+		int hash = key.hashCode();
+		hash ^= hash >>> 16;
+		return current.get(hash & (current.size() - 1));
+	}
+
+	private List<Segment<K, V>> createSegments(int maximumSize) {
+		int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maximumSize / MIN_SEGMENT_SIZE)));
+		int segmentSize = Math.max(1, (maximumSize + count - 1) / count);
+		List<Segment<K, V>> result = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			result.add(new Segment<>(segmentSize, () -> {
+				evictionCount.increment();
+				evictions.increment();
+			}));
+		}
+		return result;
+	}
+
+	/**
+	 * アクセス順のLinkedHashMapを1つのロックで保護したセグメント
+	 */
+	private static class Segment<K, V> {
+
+		private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+		Segment(int maximumSize, Runnable onEviction) {
+			this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+					if(size() > maximumSize) {
+						onEviction.run();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		synchronized CacheEntry<V> get(K key) {
+			return entries.get(key);
+		}
+
+		synchronized void put(K key, CacheEntry<V> entry) {
+			entries.put(key, entry);
+		}
+
+		synchronized int size() {
+			return entries.size();
+		}
+
+		synchronized void clear() {
+			entries.clear();
+		}
+	}
+
+	private static class CacheEntry<V> {
+
+		private final V value;
+
+		private final long loadedAt;
+
+		CacheEntry(V value, long loadedAt) {
+			this.value = value;
+			this.loadedAt = loadedAt;
+		}
+
+		boolean isExpired(long now, long timeToLiveNanos) {
+			return timeToLiveNanos > 0 && now - loadedAt > timeToLiveNanos;
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.example.demo.item.lookup;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * LookupCacheで参照データを検索し、データに付与するItemProcessor
+ *
+ * ItemReadListenerとしてステップに登録すると、読み込んだデータのキーをLookupCacheに登録しておき、
+ * チャンクの最初の加工時にチャンク内のキーをまとめて検索する。
+ * （チャンクの加工はそのチャンクの読み込みがすべて終わってから行われるため）
+ * 委譲先のItemProcessorが設定されている場合は、その処理結果に付与する。
+ * 付与する関数がnullを返した場合は、そのデータを除外する（例えば参照データが見つかったデータを取り込まない）。
+ */
+public class LookupItemProcessor<T, K, V> implements ItemProcessor<T, T>, ItemReadListener<T> {
+
+	private final ItemProcessor<T, T> delegate;
+
+	private final LookupCache<K, V> cache;
+
+	private final Function<? super T, ? extends K> keyExtractor;
+
+	private final BiFunction<? super T, ? super V, ? extends T> enricher;
+
+	/**
+	 * @param delegate 委譲先のItemProcessor（無い場合はnull）
+	 * @param cache 参照データのキャッシュ
+	 * @param keyExtractor データから検索キーを取り出す関数
+	 * @param enricher データに参照データ（見つからない場合はnull）を付与する関数（nullを返した場合は除外する）
+	 */
+	public LookupItemProcessor(ItemProcessor<T, T> delegate, LookupCache<K, V> cache,
+			Function<? super T, ? extends K> keyExtractor, BiFunction<? super T, ? super V, ? extends T> enricher) {
+		this.delegate = delegate;
+		this.cache = cache;
+		this.keyExtractor = keyExtractor;
+		this.enricher = enricher;
+	}
+
+	@Override
+	public T process(T item) throws Exception {
+		T result = delegate != null ? delegate.process(item) : item;
+		if(result == null) {
+			return null;
+		}
+		return enricher.apply(result, cache.get(keyExtractor.apply(result)));
+	}
+
+	@Override
+	public void beforeRead() {
+	}
+
+	@Override
+	public void afterRead(T item) {
+		cache.prefetch(keyExtractor.apply(item));
+	}
+
+	@Override
+	public void onReadError(Exception ex) {
+	}
+
+}
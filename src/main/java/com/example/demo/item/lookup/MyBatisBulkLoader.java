@@ -0,0 +1,52 @@
+package com.example.demo.item.lookup;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+
+/**
+ * MyBatisのクエリで複数のキーをまとめて検索するLookupCache.BulkLoader
+ *
+ * クエリにはパラメータ「keys」（キーのList）を渡すため、&lt;foreach collection="keys"&gt;でIN (...)を組み立てること。
+ * 同じキーの行が複数ある場合は最初の行を使用する。
+ */
+public class MyBatisBulkLoader<K, V> implements LookupCache.BulkLoader<K, V> {
+
+	private final SqlSessionTemplate sqlSessionTemplate;
+
+	private final String queryId;
+
+	private final Function<? super V, ? extends K> keyExtractor;
+
+	/**
+	 * @param sqlSessionFactory SqlSessionFactory
+	 * @param queryId クエリのID
+	 * @param keyExtractor 検索結果からキーを取り出す関数
+	 */
+	public MyBatisBulkLoader(SqlSessionFactory sqlSessionFactory, String queryId, Function<? super V, ? extends K> keyExtractor) {
+		// MyBatisBatchItemWriterと同じトランザクション内で使用するため、ExecutorTypeはBATCHとする
+		this.sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+		this.queryId = queryId;
+		this.keyExtractor = keyExtractor;
+	}
+
+	@Override
+	public Map<K, V> load(Collection<K> keys) {
+		Map<String, Object> parameter = new HashMap<>(2);
+		parameter.put("keys", keys);
+		List<V> rows = sqlSessionTemplate.selectList(queryId, parameter);
+
+		Map<K, V> result = new HashMap<>(rows.size() * 2);
+		for(V row : rows) {
+			result.putIfAbsent(keyExtractor.apply(row), row);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.example.demo.item.mapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.batch.item.file.transform.FieldExtractor;
+
+/**
+ * 生成したgetterでBeanのプロパティを取り出すFieldExtractor
+ *
+ * BeanWrapperFieldExtractorと同じ結果（プロパティの値の配列）を返すが、
+ * BeanWrapperによるリフレクションはgetterの生成時だけで、データごとの取り出しでは行わない。
+ * ネストしたプロパティ（"address.city"等）は使用できない。
+ */
+public class GeneratedFieldExtractor<T> implements FieldExtractor<T> {
+
+	private final List<Function<T, Object>> getters;
+
+	/**
+	 * @param type Beanの型
+	 * @param names 出力対象のプロパティ名（出力する順番）
+	 */
+	public GeneratedFieldExtractor(Class<T> type, String... names) {
+		getters = new ArrayList<>(names.length);
+		for(String name : names) {
+			getters.add(PropertyAccessors.getter(type, name));
+		}
+	}
+
+	@Override
+	public Object[] extract(T item) {
+		Object[] values = new Object[getters.size()];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = getters.get(i).apply(item);
+		}
+		return values;
+	}
+
+}
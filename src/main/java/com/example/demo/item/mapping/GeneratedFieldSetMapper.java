@@ -0,0 +1,95 @@
+package com.example.demo.item.mapping;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.batch.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.item.file.transform.FieldSet;
+
+/**
+ * 生成したコンストラクタとsetterでFieldSetをBeanに変換するFieldSetMapper
+ *
+ * プロパティ名の順番でFieldSetのカラム（インデックス）を対応付ける（CsvFileItemReaderのheadersと同じ順番とすること）。
+ * リフレクションはコンストラクタとsetterの生成時だけで、データごとの変換では行わない。
+ *
+ * 　　<使用できるプロパティの型>
+ * 　　・String（前後の空白を除く。FieldSet.readStringと同じ）
+ * 　　・int、long（ボクシングせずに設定する）
+ * 　　・Integer、Long、BigDecimal（空のカラムはnull）
+ */
+public class GeneratedFieldSetMapper<T> implements FieldSetMapper<T> {
+
+	private final Supplier<T> constructor;
+
+	private final List<Column<T>> columns;
+
+	/**
+	 * @param type Beanの型（引数なしのコンストラクタが必要）
+	 * @param names カラムに対応するプロパティ名（カラムの順番）
+	 */
+	public GeneratedFieldSetMapper(Class<T> type, String... names) {
+		constructor = PropertyAccessors.constructor(type);
+		columns = new ArrayList<>(names.length);
+		for(String name : names) {
+			columns.add(column(type, name));
+		}
+	}
+
+	private static <T> Column<T> column(Class<T> type, String name) {
+		Class<?> propertyType = PropertyAccessors.propertyType(type, name);
+		if(propertyType == int.class) {
+			ObjIntConsumer<T> setter = PropertyAccessors.intSetter(type, name);
+			return (item, fieldSet, index) -> setter.accept(item, fieldSet.readInt(index));
+		}
+		if(propertyType == long.class) {
+			ObjLongConsumer<T> setter = PropertyAccessors.longSetter(type, name);
+			return (item, fieldSet, index) -> setter.accept(item, fieldSet.readLong(index));
+		}
+
+		BiConsumer<T, Object> setter = PropertyAccessors.setter(type, name);
+		if(propertyType == String.class) {
+			return (item, fieldSet, index) -> setter.accept(item, fieldSet.readString(index));
+		}
+		if(propertyType == Integer.class) {
+			return (item, fieldSet, index) -> setter.accept(item, isEmpty(fieldSet, index) ? null : fieldSet.readInt(index));
+		}
+		if(propertyType == Long.class) {
+			return (item, fieldSet, index) -> setter.accept(item, isEmpty(fieldSet, index) ? null : fieldSet.readLong(index));
+		}
+		if(propertyType == BigDecimal.class) {
+			return (item, fieldSet, index) -> setter.accept(item, isEmpty(fieldSet, index) ? null : fieldSet.readBigDecimal(index));
+		}
+		throw new IllegalArgumentException("Unsupported property type: " + name + " (" + propertyType.getName() + ")");
+	}
+
+	private static boolean isEmpty(FieldSet fieldSet, int index) {
+		String value = fieldSet.readRawString(index);
+		return value == null || value.trim().isEmpty();
+	}
+
+	@Override
+	public T mapFieldSet(FieldSet fieldSet) {
+		if(fieldSet == null) {
+			return null;
+		}
+		T item = constructor.get();
+		for(int i = 0, n = columns.size(); i < n; i++) {
+			columns.get(i).set(item, fieldSet, i);
+		}
+		return item;
+	}
+
+	/**
+	 * カラムの値をBeanに設定する
+	 */
+	@FunctionalInterface
+	private interface Column<T> {
+		void set(T item, FieldSet fieldSet, int index);
+	}
+
+}
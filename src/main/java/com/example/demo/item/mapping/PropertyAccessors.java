@@ -0,0 +1,130 @@
+package com.example.demo.item.mapping;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Beanのgetter・setter・コンストラクタを、LambdaMetafactoryで関数型インターフェースの実装として生成する
+ *
+ * 生成時だけリフレクションでメソッドを検索し、生成した関数の呼び出しは通常のメソッド呼び出しと同じ（リフレクションを使用しない）。
+ * 生成はBeanの型とプロパティごとに1回（ItemReader・ItemWriterの作成時）とすること。
+ */
+public final class PropertyAccessors {
+
+	private PropertyAccessors() {
+	}
+
+	/**
+	 * @return プロパティの型
+	 */
+	static Class<?> propertyType(Class<?> type, String name) {
+		return descriptor(type, name).getPropertyType();
+	}
+
+	/**
+	 * getterを生成します（プリミティブ型の値はボクシングして返す）
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Function<T, Object> getter(Class<T> type, String name) {
+		Method method = descriptor(type, name).getReadMethod();
+		if(method == null) {
+			throw new IllegalArgumentException("No getter for property '" + name + "' of " + type.getName());
+		}
+		return (Function<T, Object>) generate(type, method, Function.class, "apply",
+				MethodType.methodType(Object.class, Object.class),
+				MethodType.methodType(ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType()), type));
+	}
+
+	/**
+	 * setterを生成します（プリミティブ型のプロパティにはラッパー型の値を渡すこと）
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> BiConsumer<T, Object> setter(Class<T> type, String name) {
+		Method method = writeMethod(type, name);
+		return (BiConsumer<T, Object>) generate(type, method, BiConsumer.class, "accept",
+				MethodType.methodType(void.class, Object.class, Object.class),
+				MethodType.methodType(void.class, type, ClassUtils.resolvePrimitiveIfNecessary(method.getParameterTypes()[0])));
+	}
+
+	/**
+	 * intのプロパティのsetterを、ボクシングしない形で生成します
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> ObjIntConsumer<T> intSetter(Class<T> type, String name) {
+		return (ObjIntConsumer<T>) generate(type, writeMethod(type, name), ObjIntConsumer.class, "accept",
+				MethodType.methodType(void.class, Object.class, int.class),
+				MethodType.methodType(void.class, type, int.class));
+	}
+
+	/**
+	 * longのプロパティのsetterを、ボクシングしない形で生成します
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> ObjLongConsumer<T> longSetter(Class<T> type, String name) {
+		return (ObjLongConsumer<T>) generate(type, writeMethod(type, name), ObjLongConsumer.class, "accept",
+				MethodType.methodType(void.class, Object.class, long.class),
+				MethodType.methodType(void.class, type, long.class));
+	}
+
+	/**
+	 * 引数なしのコンストラクタを生成します
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Supplier<T> constructor(Class<T> type) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+			MethodHandle handle = lookup.findConstructor(type, MethodType.methodType(void.class));
+			CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+					MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+			return (Supplier<T>) site.getTarget().invoke();
+		} catch(NoSuchMethodException e) {
+			throw new IllegalArgumentException("No default constructor: " + type.getName(), e);
+		} catch(Throwable e) {
+			throw new IllegalStateException("Failed to generate constructor: " + type.getName(), e);
+		}
+	}
+
+	private static Method writeMethod(Class<?> type, String name) {
+		Method method = descriptor(type, name).getWriteMethod();
+		if(method == null) {
+			throw new IllegalArgumentException("No setter for property '" + name + "' of " + type.getName());
+		}
+		return method;
+	}
+
+	private static PropertyDescriptor descriptor(Class<?> type, String name) {
+		PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, name);
+		if(descriptor == null) {
+			throw new IllegalArgumentException("No property '" + name + "' in " + type.getName());
+		}
+		return descriptor;
+	}
+
+	private static Object generate(Class<?> type, Method method, Class<?> interfaceType, String interfaceMethod,
+			MethodType erasedType, MethodType instantiatedType) {
+		try {
+			// Beanのクラスのコンテキストで生成し、Beanのクラスローダーから参照できるようにする
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+			MethodHandle handle = lookup.unreflect(method);
+			CallSite site = LambdaMetafactory.metafactory(lookup, interfaceMethod, MethodType.methodType(interfaceType),
+					erasedType, handle, instantiatedType);
+			return site.getTarget().invoke();
+		} catch(Throwable e) {
+			throw new IllegalStateException("Failed to generate accessor: " + method, e);
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package com.example.demo.item.processor;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.ItemProcessor;
@@ -10,15 +12,15 @@ public class PersonItemProcessor_ForErrorTest02 implements ItemProcessor<Person,
 
 	private static final Logger log = LoggerFactory.getLogger(PersonItemProcessor_ForErrorTest02.class);
 
-	private int itemCount = 0;
+	// 非同期の加工（AsyncProcessing）では複数のスレッドから呼ばれるため、スレッドセーフなカウンターとする
+	private final AtomicInteger itemCount = new AtomicInteger();
 
 	@Override
 	public Person process(final Person person) throws Exception {
 		final String firstName = person.getFirstName().toUpperCase();
 		String lastName = person.getLastName();
 
-		itemCount++;
-		if (itemCount == 7) {
+		if (itemCount.incrementAndGet() == 7) {
 			lastName += "xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx";
 		}
 
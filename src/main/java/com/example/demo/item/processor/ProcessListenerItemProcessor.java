@@ -0,0 +1,49 @@
+package com.example.demo.item.processor;
+
+import java.util.List;
+
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * 委譲先のItemProcessorの前後でItemProcessListenerを呼び出すItemProcessor
+ *
+ * AsyncItemProcessorで加工を別スレッドに移すと、ステップに登録したItemProcessListenerには
+ * 加工結果ではなくFutureが渡され、加工中の例外もonProcessErrorに通知されない。
+ * このクラスでAsyncItemProcessorの委譲先を包むことで、加工を行うスレッド上で従来どおりリスナーを呼び出す。
+ * （このクラスに渡したリスナーはステップには登録しないこと）
+ */
+public class ProcessListenerItemProcessor<I, O> implements ItemProcessor<I, O> {
+
+	private final ItemProcessor<I, O> delegate;
+
+	private final List<ItemProcessListener<? super I, ? super O>> listeners;
+
+	public ProcessListenerItemProcessor(ItemProcessor<I, O> delegate, List<ItemProcessListener<? super I, ? super O>> listeners) {
+		this.delegate = delegate;
+		this.listeners = listeners;
+	}
+
+	@Override
+	public O process(I item) throws Exception {
+		for(ItemProcessListener<? super I, ? super O> listener : listeners) {
+			listener.beforeProcess(item);
+		}
+
+		O result;
+		try {
+			result = delegate.process(item);
+		} catch(Exception e) {
+			for(ItemProcessListener<? super I, ? super O> listener : listeners) {
+				listener.onProcessError(item, e);
+			}
+			throw e;
+		}
+
+		for(ItemProcessListener<? super I, ? super O> listener : listeners) {
+			listener.afterProcess(item, result);
+		}
+		return result;
+	}
+
+}
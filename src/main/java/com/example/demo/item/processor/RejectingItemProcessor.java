@@ -0,0 +1,80 @@
+package com.example.demo.item.processor;
+
+import java.sql.Timestamp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.validator.ValidationException;
+import org.springframework.batch.item.validator.Validator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo.item.validator.TableColumnValidator;
+
+/**
+ * 書き込み前にデータを検証し、不正なデータをリジェクトテーブル（item_reject）へ振り分けるItemProcessor
+ *
+ * 不正なデータはnullを返して除外するため、ステップのFILTER_COUNTに計上される。
+ * リジェクトテーブルへの登録はチャンクと同じトランザクションで行うため、正常なデータと同時にコミットされる。
+ * 委譲先のItemProcessorが設定されている場合は、その処理結果を検証する。
+ */
+public class RejectingItemProcessor<T> implements ItemProcessor<T, T> {
+
+	private static final Logger log = LoggerFactory.getLogger(RejectingItemProcessor.class);
+
+	private static final String INSERT_REJECT =
+			"INSERT INTO item_reject (step_name, table_name, item, reason, rejected_at) VALUES (?, ?, ?, ?, ?)";
+
+	private final ItemProcessor<T, T> delegate;
+
+	private final Validator<? super T> validator;
+
+	private final String tableName;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * @param delegate 委譲先のItemProcessor（無い場合はnull）
+	 * @param validator 検証を行うValidator
+	 * @param tableName 出力先のテーブル名（リジェクトテーブルに記録する）
+	 * @param jdbcTemplate リジェクトテーブルへの登録に使用するJdbcTemplate
+	 */
+	public RejectingItemProcessor(ItemProcessor<T, T> delegate, Validator<? super T> validator, String tableName, JdbcTemplate jdbcTemplate) {
+		this.delegate = delegate;
+		this.validator = validator;
+		this.tableName = tableName;
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public T process(T item) throws Exception {
+		T result = delegate != null ? delegate.process(item) : item;
+		if(result == null) {
+			return null;
+		}
+
+		try {
+			validator.validate(result);
+			return result;
+		} catch(ValidationException e) {
+			String stepName = currentStepName();
+			log.warn("Rejected before write. [step:{}, item:{}, reason:{}]", stepName, result, e.getMessage());
+			jdbcTemplate.update(INSERT_REJECT,
+					stepName,
+					tableName,
+					// UTF-8のバイト数でカラムの桁数（VARCHAR(2500)、VARCHAR(1000)）に収める
+					TableColumnValidator.truncateUtf8(String.valueOf(result), 2500),
+					TableColumnValidator.truncateUtf8(e.getMessage(), 1000),
+					new Timestamp(System.currentTimeMillis()));
+			return null;
+		}
+	}
+
+	private String currentStepName() {
+		StepContext context = StepSynchronizationManager.getContext();
+		return context != null ? context.getStepName() : null;
+	}
+
+}
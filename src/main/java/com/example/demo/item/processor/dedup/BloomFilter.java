@@ -0,0 +1,54 @@
+package com.example.demo.item.processor.dedup;
+
+/**
+ * long値のブルームフィルタ
+ *
+ * mightContainがfalseの場合は必ず未登録のため、FingerprintStoreの前段に置いて
+ * 新しいデータの大半をメモリ上のセットやスピルファイルを検索せずに判定する。
+ */
+class BloomFilter {
+
+	private final long[] bits;
+
+	private final long numBits;
+
+	private final int numHashFunctions;
+
+	/**
+	 * @param expectedItems 登録する見込み件数
+	 * @param fpp 偽陽性率（0より大きく1未満）
+	 */
+	BloomFilter(long expectedItems, double fpp) {
+		long n = Math.max(expectedItems, 1);
+		long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+		this.bits = new long[(int) Math.min((m + 63) >>> 6, Integer.MAX_VALUE - 8)];
+		this.numBits = (long) bits.length << 6;
+		this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+	}
+
+	void put(long value) {
+		long h1 = value;
+		long h2 = Fingerprints.mix(value ^ 0x9E3779B97F4A7C15L) | 1;
+		for(int i = 0; i < numHashFunctions; i++) {
+			long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	boolean mightContain(long value) {
+		long h1 = value;
+		long h2 = Fingerprints.mix(value ^ 0x9E3779B97F4A7C15L) | 1;
+		for(int i = 0; i < numHashFunctions; i++) {
+			long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+			if((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	long sizeInBytes() {
+		return (long) bits.length * Long.BYTES;
+	}
+
+}
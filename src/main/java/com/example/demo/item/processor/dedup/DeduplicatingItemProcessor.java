@@ -0,0 +1,193 @@
+package com.example.demo.item.processor.dedup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import com.example.demo.item.mapping.PropertyAccessors;
+
+/**
+ * キー項目が同じデータを除外するItemProcessor
+ *
+ * 最初に出現したデータだけを後続へ渡し、2件目以降はnullを返して除外するため、ステップのFILTER_COUNTに計上される。
+ * 判定にはキー項目の64ビットフィンガープリント（Fingerprints）を使用し、フィンガープリントが一致した場合は
+ * spillDirectoryのファイルに書き出したキー項目の値と比較する（フィンガープリントの衝突で異なるデータを除外しない）。
+ * フィンガープリントはmemoryBudgetまでメモリ上に保持し、超えた分はspillDirectoryのファイルへ書き出すため、
+ * 件数が多い場合もメモリ使用量は一定となる。
+ *
+ * 判定状態はステップ実行ごとに作り直すため、@StepScopeのBeanとして定義すること。
+ * （再実行時は、前回の実行でコミット済みのデータとの重複は判定しない）
+ *
+ * 判定状態はチャンクのロールバックで元に戻らないため、ロールバックしたチャンクを同じステップ実行の中で
+ * 処理し直すステップ（faultTolerantのretry・skip）では使用できない。ロールバック後に加工しようとした場合は
+ * IllegalStateExceptionをスローしてステップを失敗させる（処理し直したデータを重複として除外しないため）。
+ */
+public class DeduplicatingItemProcessor<T> implements ItemProcessor<T, T>, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(DeduplicatingItemProcessor.class);
+
+	private final List<Function<? super T, ?>> keyExtractors = new ArrayList<>();
+
+	private long memoryBudget = 64L * 1024 * 1024;
+
+	private long bloomFilterExpectedItems = 0;
+
+	private double bloomFilterFpp = 0.01;
+
+	private File spillDirectory = new File(System.getProperty("java.io.tmpdir"));
+
+	private int maxRuns = 16;
+
+	private FingerprintStore store;
+
+	private long filtered;
+
+	// 加工したチャンクのトランザクションがロールバックされたかどうか
+	private volatile boolean rolledBack;
+
+	/**
+	 * キー項目を取り出す関数を追加します
+	 *
+	 * @param keyExtractor キー項目を取り出す関数
+	 * @return this
+	 */
+	public DeduplicatingItemProcessor<T> addKey(Function<? super T, ?> keyExtractor) {
+		keyExtractors.add(keyExtractor);
+		return this;
+	}
+
+	/**
+	 * プロパティ名でキー項目を追加します（getterで値を取り出す）
+	 *
+	 * getterの呼び出しは、生成時だけリフレクションを使用する関数（PropertyAccessors）で行う。
+	 *
+	 * @param type データの型
+	 * @param propertyNames プロパティ名
+	 * @return this
+	 */
+	public DeduplicatingItemProcessor<T> addKeyProperties(Class<T> type, String... propertyNames) {
+		for(String propertyName : propertyNames) {
+			addKey(PropertyAccessors.getter(type, propertyName.trim()));
+		}
+		return this;
+	}
+
+	/**
+	 * メモリ上に保持するフィンガープリントの上限（バイト）を設定します。デフォルトは64MB
+	 *
+	 * @param memoryBudget 上限（バイト）
+	 */
+	public void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * 前段のブルームフィルタの見込み件数を設定します。デフォルトは0（ブルームフィルタを使用しない）
+	 *
+	 * スピルが発生する件数の場合に設定すると、新しいデータの大半はファイルを検索せずに判定できる。
+	 *
+	 * @param bloomFilterExpectedItems 見込み件数
+	 */
+	public void setBloomFilterExpectedItems(long bloomFilterExpectedItems) {
+		this.bloomFilterExpectedItems = bloomFilterExpectedItems;
+	}
+
+	/**
+	 * ブルームフィルタの偽陽性率を設定します。デフォルトは0.01
+	 *
+	 * @param bloomFilterFpp 偽陽性率
+	 */
+	public void setBloomFilterFpp(double bloomFilterFpp) {
+		this.bloomFilterFpp = bloomFilterFpp;
+	}
+
+	/**
+	 * キー項目の値とスピルファイルの出力先を設定します。デフォルトはjava.io.tmpdir
+	 *
+	 * @param spillDirectory 出力先
+	 */
+	public void setSpillDirectory(File spillDirectory) {
+		this.spillDirectory = spillDirectory;
+	}
+
+	/**
+	 * マージせずに保持するスピルファイルの数を設定します。デフォルトは16
+	 *
+	 * @param maxRuns スピルファイルの数
+	 */
+	public void setMaxRuns(int maxRuns) {
+		this.maxRuns = maxRuns;
+	}
+
+	@Override
+	public T process(T item) throws Exception {
+		Assert.state(!rolledBack, "Deduplication does not support reprocessing a rolled back chunk (retry or skip).");
+		if(store == null) {
+			store = createStore();
+		}
+		watchRollback();
+
+		Object[] keys = new Object[keyExtractors.size()];
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = keyExtractors.get(i).apply(item);
+		}
+
+		if(store.add(Fingerprints.of(keys), Fingerprints.keyBytes(keys))) {
+			return item;
+		}
+
+		filtered++;
+		log.debug("Filtered duplicate item: {}", item);
+		return null;
+	}
+
+	/**
+	 * チャンクのトランザクションの終了時に、ロールバックされたかどうかを記録するよう登録します（トランザクションごとに1回）
+	 */
+	private void watchRollback() {
+		if(!TransactionSynchronizationManager.isSynchronizationActive() || TransactionSynchronizationManager.hasResource(this)) {
+			return;
+		}
+		TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(DeduplicatingItemProcessor.this);
+				if(status != STATUS_COMMITTED) {
+					rolledBack = true;
+				}
+			}
+		});
+	}
+
+	private FingerprintStore createStore() {
+		Assert.state(!keyExtractors.isEmpty(), "At least one key is required.");
+		BloomFilter bloomFilter = bloomFilterExpectedItems > 0 ? new BloomFilter(bloomFilterExpectedItems, bloomFilterFpp) : null;
+		return new FingerprintStore(memoryBudget, bloomFilter, spillDirectory, maxRuns);
+	}
+
+	/**
+	 * 判定状態を破棄し、スピルファイルを削除します（ステップスコープの終了時に呼ばれる）
+	 */
+	@Override
+	public void destroy() {
+		if(store != null) {
+			log.info("Deduplication finished. [unique:{}, filtered:{}, runs:{}, collisions:{}]",
+					store.size(), filtered, store.runCount(), store.collisionCount());
+			store.close();
+			store = null;
+		}
+		filtered = 0;
+		rolledBack = false;
+	}
+
+}
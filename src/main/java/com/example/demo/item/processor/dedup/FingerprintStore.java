@@ -0,0 +1,499 @@
+package com.example.demo.item.processor.dedup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * メモリ使用量の上限付きでフィンガープリントを保持するセット
+ *
+ * 登録したキー（バイト列）はファイル（キーログ）に追記し、フィンガープリントとキーログ上の位置の組を保持する。
+ * フィンガープリントが一致した場合はキーログのキーと比較するため、異なるキーのフィンガープリントが衝突しても除外しない。
+ *
+ * フィンガープリントと位置の組はメモリ上のLongLongHashMapに保持し、上限に達した場合はフィンガープリントの昇順に並べて
+ * ファイルへ書き出す（スピル）。書き出したファイル（ラン）は、ブロックごとの先頭のフィンガープリント（疎な索引）で
+ * 読み込むブロックを絞り込み、FileChannelでそのブロックだけを読み込んで検索する。
+ * （メモリマップはしない。マップ中のファイルはWindowsでは削除できないため）
+ * ランの数がmaxRunsを超えた場合は1つのランにマージし、検索するファイルの数を抑える。
+ *
+ * ブルームフィルタを設定した場合は前段で判定し、未登録が確定したフィンガープリントは
+ * メモリ上のマップやランを検索せずに登録する。
+ *
+ * スレッドセーフではない。
+ */
+class FingerprintStore implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(FingerprintStore.class);
+
+	// フィンガープリントと位置の組（16バイト）
+	private static final int RECORD_BYTES = 2 * Long.BYTES;
+
+	// ランの疎な索引の間隔（1ブロック = 4KB）
+	private static final int BLOCK_RECORDS = 256;
+
+	private static final long NOT_FOUND = -1L;
+
+	private final LongLongHashMap memory;
+
+	private final BloomFilter bloomFilter;
+
+	private final File spillDirectory;
+
+	private final int maxRuns;
+
+	private final List<Run> runs = new ArrayList<>();
+
+	// 異なるキーで同じフィンガープリントになった2件目以降の位置（衝突は極めてまれなため、スピルせずに保持する）
+	private final Map<Long, List<Long>> collisions = new HashMap<>();
+
+	private KeyLog keyLog;
+
+	private long size;
+
+	/**
+	 * @param memoryBudget メモリ上のマップに使用する上限（バイト）。ブルームフィルタとランの索引の分は含まない
+	 * @param bloomFilter 前段のブルームフィルタ（使用しない場合はnull）
+	 * @param spillDirectory キーログ・スピルファイルの出力先
+	 * @param maxRuns マージせずに保持するランの数
+	 */
+	FingerprintStore(long memoryBudget, BloomFilter bloomFilter, File spillDirectory, int maxRuns) {
+		// スロット数はメモリ上限以下の2のべき乗（上限が2のべき乗でない場合は切り捨て）
+		long slots = Long.highestOneBit(Math.max(memoryBudget / RECORD_BYTES, 16));
+		this.memory = new LongLongHashMap((int) Math.min(slots, 1 << 30));
+		this.bloomFilter = bloomFilter;
+		this.spillDirectory = spillDirectory;
+		this.maxRuns = maxRuns;
+	}
+
+	/**
+	 * @param fingerprint キーのフィンガープリント
+	 * @param key キー（一致判定に使用するバイト列）
+	 * @return 新しいキーの場合はtrue、登録済みの場合はfalse
+	 */
+	boolean add(long fingerprint, byte[] key) {
+		try {
+			if(bloomFilter != null) {
+				if(!bloomFilter.mightContain(fingerprint)) {
+					bloomFilter.put(fingerprint);
+					append(fingerprint, key);
+					return true;
+				}
+			}
+
+			if(contains(fingerprint, key)) {
+				return false;
+			}
+
+			if(bloomFilter != null) {
+				bloomFilter.put(fingerprint);
+			}
+			append(fingerprint, key);
+			return true;
+		} catch(IOException e) {
+			throw new UncheckedIOException("Failed to access fingerprint files in " + spillDirectory, e);
+		}
+	}
+
+	long size() {
+		return size;
+	}
+
+	int runCount() {
+		return runs.size();
+	}
+
+	long collisionCount() {
+		return collisions.values().stream().mapToLong(List::size).sum();
+	}
+
+	private boolean contains(long fingerprint, byte[] key) throws IOException {
+		if(keyLog == null) {
+			return false;
+		}
+		LongPredicate matches = position -> keyLog.matches(position, key);
+
+		long position = memory.get(fingerprint, NOT_FOUND);
+		if(position != NOT_FOUND && matches.test(position)) {
+			return true;
+		}
+		for(Run run : runs) {
+			if(run.contains(fingerprint, matches)) {
+				return true;
+			}
+		}
+		List<Long> collided = collisions.get(fingerprint);
+		if(collided != null) {
+			for(long collidedPosition : collided) {
+				if(matches.test(collidedPosition)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void append(long fingerprint, byte[] key) throws IOException {
+		if(keyLog == null) {
+			keyLog = new KeyLog(File.createTempFile("dedup-", ".keys", spillDirectory));
+		}
+		long position = keyLog.append(key);
+		size++;
+		if(!memory.putIfAbsent(fingerprint, position)) {
+			collisions.computeIfAbsent(fingerprint, k -> new ArrayList<>(1)).add(position);
+			log.debug("Fingerprint collision. [fingerprint:{}]", fingerprint);
+			return;
+		}
+		if(memory.isFull()) {
+			spill();
+		}
+	}
+
+	private void spill() throws IOException {
+		long[] sorted = memory.toSortedKeys();
+		RunWriter writer = new RunWriter(File.createTempFile("dedup-", ".run", spillDirectory));
+		try {
+			for(long fingerprint : sorted) {
+				writer.write(fingerprint, memory.get(fingerprint, NOT_FOUND));
+			}
+		} finally {
+			writer.close();
+		}
+		memory.clear();
+		runs.add(writer.open());
+		log.debug("Spilled {} fingerprint(s). [runs:{}]", sorted.length, runs.size());
+		if(runs.size() > maxRuns) {
+			mergeRuns();
+		}
+	}
+
+	private void mergeRuns() throws IOException {
+		RunWriter writer = new RunWriter(File.createTempFile("dedup-", ".run", spillDirectory));
+
+		// 各ランの先頭から昇順に取り出して1つのファイルに書き出す
+		PriorityQueue<RunCursor> queue = new PriorityQueue<>();
+		List<RunCursor> cursors = new ArrayList<>(runs.size());
+		try {
+			for(Run run : runs) {
+				RunCursor cursor = new RunCursor(run.file);
+				cursors.add(cursor);
+				if(cursor.next()) {
+					queue.add(cursor);
+				}
+			}
+			while(!queue.isEmpty()) {
+				RunCursor cursor = queue.poll();
+				writer.write(cursor.fingerprint, cursor.position);
+				if(cursor.next()) {
+					queue.add(cursor);
+				}
+			}
+		} finally {
+			for(RunCursor cursor : cursors) {
+				cursor.close();
+			}
+			writer.close();
+		}
+
+		// ファイルを閉じてから削除する
+		for(Run run : runs) {
+			run.delete();
+		}
+		runs.clear();
+		runs.add(writer.open());
+		log.debug("Merged runs into one. [fingerprints:{}]", writer.count);
+	}
+
+	@Override
+	public void close() {
+		for(Run run : runs) {
+			run.delete();
+		}
+		runs.clear();
+		if(keyLog != null) {
+			keyLog.delete();
+			keyLog = null;
+		}
+		memory.clear();
+		collisions.clear();
+	}
+
+	private static void delete(File file, Closeable closeable) {
+		try {
+			closeable.close();
+		} catch(IOException e) {
+			log.warn("Failed to close file: {}", file, e);
+		}
+		try {
+			Files.deleteIfExists(file.toPath());
+		} catch(IOException e) {
+			log.warn("Failed to delete spill file: {}", file, e);
+		}
+	}
+
+	/**
+	 * 登録したキーを追記するファイル
+	 *
+	 * 1件ごとに「長さ（int）、バイト列」の形式で書き込み、先頭からの位置で読み込む。
+	 * 書き込みはバッファにまとめ、バッファ上のキーはファイルを読まずに比較する。
+	 */
+	private static class KeyLog {
+
+		private final File file;
+
+		private final FileChannel channel;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+		private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+
+		// ファイルに書き込み済みのバイト数（バッファの先頭の位置）
+		private long flushed;
+
+		KeyLog(File file) throws IOException {
+			this.file = file;
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+
+		long append(byte[] key) throws IOException {
+			int length = Integer.BYTES + key.length;
+			if(buffer.remaining() < length) {
+				flush();
+			}
+			long position = flushed + buffer.position();
+			if(buffer.remaining() < length) {
+				// バッファより大きいキーは直接書き込む
+				ByteBuffer record = ByteBuffer.allocate(length);
+				record.putInt(key.length).put(key).flip();
+				writeFully(record);
+			} else {
+				buffer.putInt(key.length).put(key);
+			}
+			return position;
+		}
+
+		boolean matches(long position, byte[] key) {
+			if(position >= flushed) {
+				int offset = (int) (position - flushed);
+				if(buffer.getInt(offset) != key.length) {
+					return false;
+				}
+				return Arrays.equals(buffer.array(), offset + Integer.BYTES, offset + Integer.BYTES + key.length, key, 0, key.length);
+			}
+
+			try {
+				header.clear();
+				readFully(header, position);
+				if(header.getInt(0) != key.length) {
+					return false;
+				}
+				ByteBuffer stored = ByteBuffer.allocate(key.length);
+				readFully(stored, position + Integer.BYTES);
+				return Arrays.equals(stored.array(), key);
+			} catch(IOException e) {
+				throw new UncheckedIOException("Failed to read key log: " + file, e);
+			}
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			writeFully(buffer);
+			buffer.clear();
+		}
+
+		private void writeFully(ByteBuffer source) throws IOException {
+			while(source.hasRemaining()) {
+				flushed += channel.write(source, flushed);
+			}
+		}
+
+		private void readFully(ByteBuffer target, long position) throws IOException {
+			while(target.hasRemaining()) {
+				if(channel.read(target, position + target.position()) < 0) {
+					throw new EOFException("Unexpected end of key log: " + file);
+				}
+			}
+		}
+
+		void delete() {
+			FingerprintStore.delete(file, channel);
+		}
+	}
+
+	/**
+	 * ランをファイルに書き出し、疎な索引を作成する
+	 */
+	private static class RunWriter implements Closeable {
+
+		private final File file;
+
+		private final DataOutputStream out;
+
+		private long[] index = new long[16];
+
+		private long count;
+
+		RunWriter(File file) throws IOException {
+			this.file = file;
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		}
+
+		void write(long fingerprint, long position) throws IOException {
+			if(count % BLOCK_RECORDS == 0) {
+				int block = (int) (count / BLOCK_RECORDS);
+				if(block == index.length) {
+					index = Arrays.copyOf(index, block * 2);
+				}
+				index[block] = fingerprint;
+			}
+			out.writeLong(fingerprint);
+			out.writeLong(position);
+			count++;
+		}
+
+		Run open() throws IOException {
+			int blocks = (int) ((count + BLOCK_RECORDS - 1) / BLOCK_RECORDS);
+			return new Run(file, Arrays.copyOf(index, blocks), count);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	/**
+	 * スピルファイル（フィンガープリントの昇順に並んだ、フィンガープリントと位置の組）
+	 */
+	private static class Run {
+
+		private final File file;
+
+		private final FileChannel channel;
+
+		// 各ブロックの先頭のフィンガープリント
+		private final long[] index;
+
+		private final long count;
+
+		private final ByteBuffer block = ByteBuffer.allocate(BLOCK_RECORDS * RECORD_BYTES);
+
+		private Run(File file, long[] index, long count) throws IOException {
+			this.file = file;
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			this.index = index;
+			this.count = count;
+		}
+
+		/**
+		 * @param fingerprint フィンガープリント
+		 * @param matches 一致したフィンガープリントの位置でキーを比較する関数
+		 * @return キーが一致した場合はtrue
+		 */
+		boolean contains(long fingerprint, LongPredicate matches) throws IOException {
+			// 先頭がfingerprint未満の最後のブロックから読む（同じフィンガープリントが前のブロックの末尾にある場合を含む）
+			int low = 0;
+			int high = index.length;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(index[mid] < fingerprint) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+
+			for(int b = Math.max(low - 1, 0); b < index.length; b++) {
+				if(index[b] > fingerprint) {
+					return false;
+				}
+				int records = readBlock(b);
+				for(int i = 0; i < records; i++) {
+					long current = block.getLong(i * RECORD_BYTES);
+					if(current > fingerprint) {
+						return false;
+					}
+					if(current == fingerprint && matches.test(block.getLong(i * RECORD_BYTES + Long.BYTES))) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		private int readBlock(int b) throws IOException {
+			long first = (long) b * BLOCK_RECORDS;
+			int records = (int) Math.min(BLOCK_RECORDS, count - first);
+			block.clear().limit(records * RECORD_BYTES);
+			long position = first * RECORD_BYTES;
+			while(block.hasRemaining()) {
+				if(channel.read(block, position + block.position()) < 0) {
+					throw new EOFException("Unexpected end of spill file: " + file);
+				}
+			}
+			return records;
+		}
+
+		void delete() {
+			FingerprintStore.delete(file, channel);
+		}
+	}
+
+	/**
+	 * マージ時にランを先頭から順に読み込む
+	 */
+	private static class RunCursor implements Comparable<RunCursor>, Closeable {
+
+		private final DataInputStream in;
+
+		private long fingerprint;
+
+		private long position;
+
+		RunCursor(File file) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+		}
+
+		boolean next() throws IOException {
+			try {
+				fingerprint = in.readLong();
+			} catch(EOFException e) {
+				return false;
+			}
+			position = in.readLong();
+			return true;
+		}
+
+		@Override
+		public int compareTo(RunCursor other) {
+			return Long.compare(fingerprint, other.fingerprint);
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.example.demo.item.processor.dedup;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 重複判定キーの64ビットフィンガープリント
+ *
+ * 文字列を生成・保持せずにキー項目の値から64ビットのハッシュ値を求める（FNV-1a + MurmurHash3の最終混合）。
+ * 異なるキーが同じフィンガープリントになる確率は、n件で約 n² / 2^65（1,000万件で約0.0003%）。
+ * 衝突した場合に同じキーと判定しないよう、一致判定にはkeyBytesで変換したキーを併用すること。
+ */
+public final class Fingerprints {
+
+	private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+
+	private static final long FNV_PRIME = 0x100000001B3L;
+
+	// キー項目の区切り（("ab", "c") と ("a", "bc") を区別する）
+	private static final char SEPARATOR = '\u001F';
+
+	// nullと空文字を区別する
+	private static final char NULL_MARKER = '\u0000';
+
+	private Fingerprints() {
+	}
+
+	/**
+	 * @param values キー項目の値
+	 * @return フィンガープリント
+	 */
+	public static long of(Object... values) {
+		long hash = FNV_OFFSET_BASIS;
+		for(Object value : values) {
+			if(value == null) {
+				hash = (hash ^ NULL_MARKER) * FNV_PRIME;
+			} else {
+				CharSequence chars = value instanceof CharSequence ? (CharSequence) value : value.toString();
+				for(int i = 0; i < chars.length(); i++) {
+					hash = (hash ^ chars.charAt(i)) * FNV_PRIME;
+				}
+			}
+			hash = (hash ^ SEPARATOR) * FNV_PRIME;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * キー項目の値を、一致判定用のバイト列に変換します
+	 *
+	 * 各項目をnullの有無・長さ・値（UTF-8）の順に書き込むため、区切り文字を含む値やnullと空文字も区別できる。
+	 *
+	 * @param values キー項目の値
+	 * @return バイト列
+	 */
+	static byte[] keyBytes(Object... values) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+		for(Object value : values) {
+			if(value == null) {
+				out.write(0);
+				continue;
+			}
+			byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+			out.write(1);
+			out.write(bytes.length >>> 24);
+			out.write(bytes.length >>> 16);
+			out.write(bytes.length >>> 8);
+			out.write(bytes.length);
+			out.write(bytes, 0, bytes.length);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * MurmurHash3の最終混合（fmix64）
+	 */
+	static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB93FE53E2CD3L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+}
@@ -0,0 +1,166 @@
+package com.example.demo.item.processor.dedup;
+
+import java.util.Arrays;
+
+/**
+ * キー・値ともにlong値のハッシュマップ（オープンアドレス法・線形探索）
+ *
+ * java.util.HashMap&lt;Long, Long&gt;と違い、要素ごとのオブジェクト（Long、Entry）を生成しないため、
+ * 1要素あたりのメモリ使用量は16バイト / 負荷率となる。
+ * スロット数は要素数に応じてmaxCapacityまで倍増する。
+ * キーの0は空きスロットを表すため、キーとしての0は別のフラグで管理する。
+ */
+class LongLongHashMap {
+
+	private static final double LOAD_FACTOR = 0.75;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final int maxCapacity;
+
+	private long[] keys;
+
+	private long[] values;
+
+	private int mask;
+
+	private int threshold;
+
+	private boolean containsZero;
+
+	private long zeroValue;
+
+	private int size;
+
+	/**
+	 * @param maxCapacity 最大のスロット数（2のべき乗に切り上げる）。要素数が最大スロット数 × 負荷率に達した後は追加できない
+	 */
+	LongLongHashMap(int maxCapacity) {
+		this.maxCapacity = Integer.highestOneBit(Math.max(maxCapacity, 16) - 1) << 1;
+		allocate(Math.min(INITIAL_CAPACITY, this.maxCapacity));
+	}
+
+	/**
+	 * @param key キー
+	 * @param value 値
+	 * @return 追加した場合はtrue、既にキーが存在した場合はfalse（値は変更しない）
+	 */
+	boolean putIfAbsent(long key, long value) {
+		if(key == 0) {
+			if(containsZero) {
+				return false;
+			}
+			containsZero = true;
+			zeroValue = value;
+			size++;
+			return true;
+		}
+
+		int index = index(key);
+		while(true) {
+			long current = keys[index];
+			if(current == 0) {
+				if(isFull()) {
+					throw new IllegalStateException("LongLongHashMap is full: " + size);
+				}
+				keys[index] = key;
+				values[index] = value;
+				size++;
+				if(size >= threshold && keys.length < maxCapacity) {
+					resize(keys.length << 1);
+				}
+				return true;
+			}
+			if(current == key) {
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	/**
+	 * @param key キー
+	 * @param defaultValue キーが存在しない場合の値
+	 * @return 値
+	 */
+	long get(long key, long defaultValue) {
+		if(key == 0) {
+			return containsZero ? zeroValue : defaultValue;
+		}
+
+		int index = index(key);
+		while(true) {
+			long current = keys[index];
+			if(current == 0) {
+				return defaultValue;
+			}
+			if(current == key) {
+				return values[index];
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isFull() {
+		return keys.length == maxCapacity && size >= threshold;
+	}
+
+	/**
+	 * @return 全要素のキーを昇順に並べた配列
+	 */
+	long[] toSortedKeys() {
+		long[] result = new long[size];
+		int i = 0;
+		if(containsZero) {
+			result[i++] = 0;
+		}
+		for(long key : keys) {
+			if(key != 0) {
+				result[i++] = key;
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	void clear() {
+		// 最大まで拡張したスロットはスピル後もそのまま再利用する（値はキーと同時に上書きされるためクリアしない）
+		Arrays.fill(keys, 0);
+		containsZero = false;
+		size = 0;
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new long[capacity];
+		mask = capacity - 1;
+		threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		allocate(capacity);
+		for(int i = 0; i < oldKeys.length; i++) {
+			long key = oldKeys[i];
+			if(key != 0) {
+				int index = index(key);
+				while(keys[index] != 0) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = key;
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private int index(long key) {
+		// 上位ビットも使うように混ぜる（フィンガープリントは十分に分散しているため簡易な混合で良い）
+		return (int) (key ^ (key >>> 32)) & mask;
+	}
+
+}
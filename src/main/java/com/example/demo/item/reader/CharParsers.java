@@ -0,0 +1,191 @@
+package com.example.demo.item.reader;
+
+/**
+ * char配列の範囲を、Stringを作成せずにプリミティブ型へ変換する
+ *
+ * 不正な値の場合はNumberFormatExceptionをスローする（メッセージ作成時だけStringを作成する）。
+ */
+public final class CharParsers {
+
+    private CharParsers() {
+    }
+
+    /**
+     * 符号付きの10進数をintに変換します
+     */
+    public static int parseInt(char[] chars, int start, int end) {
+        long value = parseLong(chars, start, end);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw invalid("int", chars, start, end);
+        }
+        return (int) value;
+    }
+
+    /**
+     * 符号付きの10進数をlongに変換します
+     */
+    public static long parseLong(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        if (i >= end) {
+            throw invalid("long", chars, start, end);
+        }
+        // 負数で累積し、Long.MIN_VALUEも変換できるようにする
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9 || result < multmin) {
+                throw invalid("long", chars, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalid("long", chars, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * 符号付きの10進数（小数点以下scale桁まで）を、10^scale倍した整数（例えばscale=2の場合、"12.3"は1230）に変換します
+     *
+     * 小数点以下がscale桁を超える場合は、丸めずにNumberFormatExceptionをスローする。
+     */
+    public static long parseDecimal(char[] chars, int start, int end, int scale) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long result = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c == '.' && fraction < 0) {
+                fraction = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9 || (fraction >= 0 && ++fraction > scale)) {
+                throw invalid("decimal(scale=" + scale + ")", chars, start, end);
+            }
+            result = Math.addExact(Math.multiplyExact(result, 10), digit);
+            digits++;
+        }
+        if (digits == 0) {
+            throw invalid("decimal(scale=" + scale + ")", chars, start, end);
+        }
+        for (int n = Math.max(fraction, 0); n < scale; n++) {
+            result = Math.multiplyExact(result, 10);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * 日付をエポック日（1970-01-01からの日数、LocalDate.toEpochDayと同じ）に変換します
+     *
+     * @param pattern 固定長の書式
+     */
+    public static int parseDate(char[] chars, int start, int end, DatePattern pattern) {
+        if (end - start != pattern.length()) {
+            throw invalid("date(" + pattern + ")", chars, start, end);
+        }
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char p = pattern.charAt(i);
+            char c = chars[start + i];
+            if (p == 'y' || p == 'M' || p == 'd') {
+                int digit = c - '0';
+                if (digit < 0 || digit > 9) {
+                    throw invalid("date(" + pattern + ")", chars, start, end);
+                }
+                if (p == 'y') {
+                    year = year * 10 + digit;
+                } else if (p == 'M') {
+                    month = month * 10 + digit;
+                } else {
+                    day = day * 10 + digit;
+                }
+            } else if (p != c) {
+                throw invalid("date(" + pattern + ")", chars, start, end);
+            }
+        }
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw invalid("date(" + pattern + ")", chars, start, end);
+        }
+        return (int) epochDay(year, month, day);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+        case 2:
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        case 4:
+        case 6:
+        case 9:
+        case 11:
+            return 30;
+        default:
+            return 31;
+        }
+    }
+
+    /**
+     * グレゴリオ暦の年月日からエポック日を求めます
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static NumberFormatException invalid(String type, char[] chars, int start, int end) {
+        return new NumberFormatException("Invalid " + type + " value: \"" + new String(chars, start, end - start) + "\"");
+    }
+
+    /**
+     * 固定長の日付の書式（y：年、M：月、d：日、それ以外は区切り文字。例えば"yyyy-MM-dd"、"yyyyMMdd"）
+     */
+    public static final class DatePattern {
+
+        private final String pattern;
+
+        private DatePattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public static DatePattern of(String pattern) {
+            if (pattern.indexOf('y') < 0 || pattern.indexOf('M') < 0 || pattern.indexOf('d') < 0) {
+                throw new IllegalArgumentException("Date pattern must contain y, M and d: " + pattern);
+            }
+            return new DatePattern(pattern);
+        }
+
+        int length() {
+            return pattern.length();
+        }
+
+        char charAt(int index) {
+            return pattern.charAt(index);
+        }
+
+        @Override
+        public String toString() {
+            return pattern;
+        }
+    }
+
+}
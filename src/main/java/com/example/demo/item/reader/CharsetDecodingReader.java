@@ -0,0 +1,287 @@
+package com.example.demo.item.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * バイト列を文字に変換するReader（BOMの判定とASCIIの高速化を行う）
+ *
+ * 先頭のBOM（UTF-8、UTF-16BE、UTF-16LE）を読み飛ばし、BOMがある場合は指定した文字コードよりBOMを優先する。
+ * 文字コードがUTF-8、US-ASCII、ISO-8859-1の場合は、ASCII（0x00～0x7F）が連続する部分を8バイト単位で判定して
+ * CharsetDecoderを使用せずにcharに変換する。UTF-8の2バイト、3バイトの文字（日本語等）も直接変換し、
+ * それ以外の部分（4バイトの文字、不正なバイト列等）だけをCharsetDecoderで変換する。
+ * 上記以外の文字コード（Shift_JIS等、2バイト目がASCIIの範囲となるもの）はInputStreamReaderで変換する。
+ *
+ * 不正なバイト列は、InputStreamReaderと同様に置換文字（U+FFFD）に変換する。
+ */
+public class CharsetDecodingReader extends Reader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    // byte[]の8バイトをlongとして読み込む
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final InputStream in;
+
+    private final CharsetDecoder decoder;
+
+    private final boolean utf8;
+
+    private final boolean latin1;
+
+    private final byte[] buf;
+
+    private int pos;
+
+    private int limit;
+
+    // 変換途中のバイト列の続きを読み込む必要がある場合はtrue
+    private boolean needMore;
+
+    // 出力先に入りきらなかったサロゲートペアの2文字目（無い場合は-1）
+    private int pendingChar = -1;
+
+    private final char[] spare = new char[2];
+
+    private boolean closed;
+
+    CharsetDecodingReader(InputStream in, Charset charset, int bufferSize) {
+        this.in = in;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.utf8 = StandardCharsets.UTF_8.equals(charset);
+        this.latin1 = StandardCharsets.ISO_8859_1.equals(charset);
+        this.buf = new byte[Math.max(bufferSize, 16)];
+    }
+
+    /**
+     * 入力ストリームを文字コードで変換するReaderを返します
+     *
+     * @param in 入力ストリーム
+     * @param charset 文字コード（BOMがある場合はBOMの文字コードを使用する）
+     * @return Reader
+     */
+    public static Reader open(InputStream in, Charset charset) throws IOException {
+        return open(in, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    static Reader open(InputStream in, Charset charset, int bufferSize) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(in, 3);
+        byte[] head = new byte[3];
+        int n = 0;
+        while (n < head.length) {
+            int read = input.read(head, n, head.length - n);
+            if (read < 0) {
+                break;
+            }
+            n += read;
+        }
+
+        Charset bomCharset = null;
+        int bomLength = 0;
+        if (n >= 3 && head[0] == (byte) 0xEF && head[1] == (byte) 0xBB && head[2] == (byte) 0xBF) {
+            bomCharset = StandardCharsets.UTF_8;
+            bomLength = 3;
+        } else if (n >= 2 && head[0] == (byte) 0xFE && head[1] == (byte) 0xFF) {
+            bomCharset = StandardCharsets.UTF_16BE;
+            bomLength = 2;
+        } else if (n >= 2 && head[0] == (byte) 0xFF && head[1] == (byte) 0xFE) {
+            bomCharset = StandardCharsets.UTF_16LE;
+            bomLength = 2;
+        }
+        if (n > bomLength) {
+            input.unread(head, bomLength, n - bomLength);
+        }
+
+        Charset effective = bomCharset != null ? bomCharset : charset;
+        if (isAsciiCompatible(effective)) {
+            return new CharsetDecodingReader(input, effective, bufferSize);
+        }
+        return new InputStreamReader(input, effective);
+    }
+
+    /**
+     * ASCIIのバイトが常にASCIIの1文字を表し、他の文字の一部とならない文字コードの場合はtrue
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset)
+                || StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int k = off;
+        int end = off + len;
+        if (pendingChar >= 0) {
+            cbuf[k++] = (char) pendingChar;
+            pendingChar = -1;
+        }
+
+        while (k < end) {
+            if (pos >= limit || needMore) {
+                // 読み込み済みの文字がある場合は、入力を待たずに返す
+                if (k > off) {
+                    break;
+                }
+                if (!fill()) {
+                    if (pos >= limit) {
+                        return -1;
+                    }
+                    // 入力の最後が途中で切れたバイト列の場合は置換文字に変換する
+                    k = decode(cbuf, k, end, limit, true);
+                    continue;
+                }
+            }
+
+            // ASCIIが連続する部分は、そのままcharに変換する（8バイト単位で判定し、判定したlongから変換する）
+            byte[] b = buf;
+            int p = pos;
+            int max = Math.min(limit - p, end - k);
+            int i = 0;
+            while (i + 8 <= max) {
+                long word = (long) LONGS.get(b, p + i);
+                if ((word & 0x8080808080808080L) != 0) {
+                    break;
+                }
+                int d = k + i;
+                cbuf[d] = (char) (word & 0x7F);
+                cbuf[d + 1] = (char) ((word >>> 8) & 0x7F);
+                cbuf[d + 2] = (char) ((word >>> 16) & 0x7F);
+                cbuf[d + 3] = (char) ((word >>> 24) & 0x7F);
+                cbuf[d + 4] = (char) ((word >>> 32) & 0x7F);
+                cbuf[d + 5] = (char) ((word >>> 40) & 0x7F);
+                cbuf[d + 6] = (char) ((word >>> 48) & 0x7F);
+                cbuf[d + 7] = (char) (word >>> 56);
+                i += 8;
+            }
+            while (i < max && b[p + i] >= 0) {
+                cbuf[k + i] = (char) b[p + i];
+                i++;
+            }
+            k += i;
+            pos = p + i;
+            if (k >= end || pos >= limit) {
+                continue;
+            }
+
+            // UTF-8の2バイト、3バイトの文字（正しいバイト列でバッファ内にあるもの）は直接変換する
+            if (utf8) {
+                int c = b[pos] & 0xFF;
+                if (c >= 0xC2 && c <= 0xDF && pos + 1 < limit) {
+                    int c2 = b[pos + 1];
+                    if ((c2 & 0xC0) == 0x80) {
+                        cbuf[k++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+                        pos += 2;
+                        continue;
+                    }
+                } else if (c >= 0xE0 && c <= 0xEF && pos + 2 < limit) {
+                    int c2 = b[pos + 1] & 0xFF;
+                    int c3 = b[pos + 2];
+                    if ((c2 & 0xC0) == 0x80 && (c3 & 0xC0) == 0x80
+                            && (c != 0xE0 || c2 >= 0xA0) && (c != 0xED || c2 < 0xA0)) {
+                        cbuf[k++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+                        pos += 3;
+                        continue;
+                    }
+                }
+            } else if (latin1) {
+                cbuf[k++] = (char) (b[pos] & 0xFF);
+                pos++;
+                continue;
+            }
+
+            // 上記以外（4バイトの文字、不正なバイト列、バッファの終端で切れたバイト列等）は、
+            // ASCII以外が連続する部分をCharsetDecoderで変換する
+            // （続くASCIIの1バイトも含めて渡し、途中で切れたバイト列を不正なバイト列として判定させる）
+            int runEnd = pos + 1;
+            while (runEnd < limit && b[runEnd] < 0) {
+                runEnd++;
+            }
+            int before = k;
+            int beforePos = pos;
+            k = decode(cbuf, k, end, runEnd < limit ? runEnd + 1 : runEnd, false);
+            if (k == before && pos == beforePos && !needMore) {
+                // 出力先の残りが1文字でサロゲートペアを出力できない場合
+                k = decodeSurrogatePair(cbuf, k, runEnd < limit ? runEnd + 1 : runEnd);
+                break;
+            }
+        }
+        return k - off;
+    }
+
+    private int decode(char[] cbuf, int k, int end, int to, boolean endOfInput) {
+        ByteBuffer input = ByteBuffer.wrap(buf, pos, to - pos);
+        CharBuffer output = CharBuffer.wrap(cbuf, k, end - k);
+        CoderResult result = decoder.decode(input, output, endOfInput);
+        pos = input.position();
+        needMore = !endOfInput && result.isUnderflow() && input.hasRemaining();
+        if (endOfInput && !input.hasRemaining()) {
+            decoder.flush(output);
+            decoder.reset();
+        }
+        return output.position();
+    }
+
+    private int decodeSurrogatePair(char[] cbuf, int k, int to) {
+        ByteBuffer input = ByteBuffer.wrap(buf, pos, to - pos);
+        CharBuffer output = CharBuffer.wrap(spare);
+        decoder.decode(input, output, false);
+        pos = input.position();
+        if (output.position() > 0) {
+            cbuf[k++] = spare[0];
+        }
+        if (output.position() > 1) {
+            pendingChar = spare[1];
+        }
+        return k;
+    }
+
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        needMore = false;
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return pendingChar >= 0 || pos < limit || in.available() > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        in.close();
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.example.demo.item.reader;
+
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.mybatis.spring.batch.MyBatisCursorItemReader;
+import org.springframework.util.ClassUtils;
+
+/**
+ * カーソルの取得条件（fetchSize、読み取り専用、トランザクション分離レベル）を指定できるMyBatisCursorItemReader
+ *
+ * 指定した条件は {@link CursorStatementInterceptor} によって、カーソルを開く際のステートメント・コネクションに反映される。
+ * カーソルはステップのトランザクションとは別のコネクションで開かれるため、他の処理には影響しない。
+ */
+public class ConfigurableMyBatisCursorItemReader<T> extends MyBatisCursorItemReader<T> {
+
+    private Integer fetchSize;
+
+    private boolean readOnly = true;
+
+    private TransactionIsolationLevel isolationLevel;
+
+    public ConfigurableMyBatisCursorItemReader() {
+        setName(ClassUtils.getShortName(ConfigurableMyBatisCursorItemReader.class));
+    }
+
+    /**
+     * 1回の通信で取得する行数（JDBCのfetchSize）を設定します。
+     * 未設定の場合はマッパーXMLのfetchSizeが使用される。
+     *
+     * @param fetchSize 1回の通信で取得する行数
+     */
+    public void setFetchSize(Integer fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * カーソル用のコネクションを読み取り専用にするかどうかを設定します。デフォルトはtrue
+     *
+     * @param readOnly 読み取り専用にする場合はtrue
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * カーソル用のコネクションのトランザクション分離レベルを設定します。
+     * 未設定の場合はデータソースのデフォルトが使用される。
+     *
+     * @param isolationLevel トランザクション分離レベル
+     */
+    public void setIsolationLevel(TransactionIsolationLevel isolationLevel) {
+        this.isolationLevel = isolationLevel;
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        CursorStatementInterceptor.setOptions(new CursorStatementInterceptor.Options(fetchSize, readOnly, isolationLevel));
+        try {
+            super.doOpen();
+        } finally {
+            CursorStatementInterceptor.clearOptions();
+        }
+    }
+
+}
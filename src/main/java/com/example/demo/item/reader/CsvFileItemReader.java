@@ -1,6 +1,5 @@
 package com.example.demo.item.reader;
 
-import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 
 import org.slf4j.Logger;
@@ -56,6 +55,7 @@ public class CsvFileItemReader<T> extends AbstractItemCountingItemStreamItemRead
 
     /**
      * 読み込み対象のエンコーディングを設定します。デフォルトは {@link #DEFAULT_CHARSET}.
+     * ファイルの先頭にBOMがある場合は、BOMのエンコーディングを優先します。
      *
      * @param charset 文字コード
      */
@@ -168,7 +168,8 @@ public class CsvFileItemReader<T> extends AbstractItemCountingItemStreamItemRead
         }
 
         csvParser = new CsvParser(settings());
-        csvParser.beginParsing(new InputStreamReader(resource.getInputStream(), charset));
+        // 先頭のBOMを読み飛ばし、UTF-8等のASCIIの部分は高速に変換する
+        csvParser.beginParsing(CharsetDecodingReader.open(resource.getInputStream(), charset));
         for (int i = 0; i < linesToSkip; i++) {
             readLine();
         }
@@ -0,0 +1,73 @@
+package com.example.demo.item.reader;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+
+/**
+ * {@link ConfigurableMyBatisCursorItemReader} がカーソルを開く際に、
+ * 指定された取得条件をコネクション・ステートメントへ反映するMyBatisのプラグイン
+ *
+ * 取得条件はカーソルを開いている間だけスレッドに紐付けられるため、それ以外のSQLには影響しない。
+ * コネクションに対する変更はコネクションプール（HikariCP）への返却時に元に戻される。
+ */
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class CursorStatementInterceptor implements Interceptor {
+
+    private static final ThreadLocal<Options> OPTIONS = new ThreadLocal<>();
+
+    static void setOptions(Options options) {
+        OPTIONS.set(options);
+    }
+
+    static void clearOptions() {
+        OPTIONS.remove();
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Options options = OPTIONS.get();
+        if (options == null) {
+            return invocation.proceed();
+        }
+
+        Connection connection = (Connection) invocation.getArgs()[0];
+        if (connection.isReadOnly() != options.readOnly) {
+            connection.setReadOnly(options.readOnly);
+        }
+        if (options.isolationLevel != null && options.isolationLevel != TransactionIsolationLevel.NONE) {
+            connection.setTransactionIsolation(options.isolationLevel.getLevel());
+        }
+
+        Statement statement = (Statement) invocation.proceed();
+        if (options.fetchSize != null) {
+            statement.setFetchSize(options.fetchSize);
+        }
+        return statement;
+    }
+
+    /**
+     * カーソルの取得条件
+     */
+    static class Options {
+
+        private final Integer fetchSize;
+
+        private final boolean readOnly;
+
+        private final TransactionIsolationLevel isolationLevel;
+
+        Options(Integer fetchSize, boolean readOnly, TransactionIsolationLevel isolationLevel) {
+            this.fetchSize = fetchSize;
+            this.readOnly = readOnly;
+            this.isolationLevel = isolationLevel;
+        }
+    }
+
+}
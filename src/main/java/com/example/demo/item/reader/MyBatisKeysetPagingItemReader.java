@@ -0,0 +1,161 @@
+package com.example.demo.item.reader;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * キーセット方式でページ単位に読み込むItemReader
+ *
+ * 前ページの最後のキーより大きいレコードをキー順に pageSize 件ずつ取得する。
+ * （WHERE id &gt; #{_lastKey} ORDER BY id FETCH FIRST ${_pageSize} ROWS ONLY）
+ *
+ * カーソルをステップ全体で開き続けないため、ロックやログを長時間保持しない。
+ * 最後に読み込んだキーをExecutionContextに保存するため、再実行時は読み飛ばしを行わずに続きから読み込む。
+ *
+ * クエリには次のパラメータが渡される。
+ * 　　_lastKey  : 前ページの最後のキー（最初のページはnull）
+ * 　　_pageSize : 1ページの件数
+ */
+public class MyBatisKeysetPagingItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> implements InitializingBean {
+
+    private static final String LAST_KEY = "last.key";
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    private SqlSessionTemplate sqlSessionTemplate;
+
+    private String queryId;
+
+    private Map<String, Object> parameterValues = Collections.emptyMap();
+
+    private int pageSize = 1000;
+
+    private Function<? super T, ? extends Serializable> keyExtractor;
+
+    private Serializable lastKey;
+
+    private List<T> page = Collections.emptyList();
+
+    private int pageIndex = 0;
+
+    public MyBatisKeysetPagingItemReader() {
+        setName(ClassUtils.getShortName(MyBatisKeysetPagingItemReader.class));
+    }
+
+    public void setSqlSessionFactory(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
+
+    public void setQueryId(String queryId) {
+        this.queryId = queryId;
+    }
+
+    public void setParameterValues(Map<String, Object> parameterValues) {
+        this.parameterValues = parameterValues;
+    }
+
+    /**
+     * 1ページの件数を設定します。デフォルトは1000
+     *
+     * @param pageSize 1ページの件数
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * 読み込んだレコードからキーを取り出す関数を設定します
+     *
+     * @param keyExtractor キーを取り出す関数（キーはExecutionContextに保存するためSerializableであること）
+     */
+    public void setKeyExtractor(Function<? super T, ? extends Serializable> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(sqlSessionFactory, "A SqlSessionFactory is required.");
+        Assert.notNull(queryId, "A queryId is required.");
+        Assert.notNull(keyExtractor, "A keyExtractor is required.");
+        Assert.isTrue(pageSize > 0, "pageSize must be greater than zero");
+
+        // MyBatisBatchItemWriterと同じトランザクション内で使用するため、ExecutorTypeはBATCHとする
+        // （MyBatisPagingItemReaderと同様）
+        sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        if (pageIndex >= page.size()) {
+            // 前ページが1ページの件数に満たない場合は、それ以上のレコードは無い
+            if (pageIndex > 0 && page.size() < pageSize) {
+                return null;
+            }
+            page = readPage();
+            pageIndex = 0;
+            if (page.isEmpty()) {
+                return null;
+            }
+        }
+
+        T item = page.get(pageIndex++);
+        lastKey = keyExtractor.apply(item);
+        return item;
+    }
+
+    private List<T> readPage() {
+        Map<String, Object> parameters = new HashMap<>(parameterValues);
+        parameters.put("_lastKey", lastKey);
+        parameters.put("_pageSize", pageSize);
+        return sqlSessionTemplate.selectList(queryId, parameters);
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        lastKey = null;
+        page = Collections.emptyList();
+        pageIndex = 0;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        page = Collections.emptyList();
+        pageIndex = 0;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        if (isSaveState() && executionContext.containsKey(getExecutionContextKey(LAST_KEY))) {
+            lastKey = (Serializable) executionContext.get(getExecutionContextKey(LAST_KEY));
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState() && lastKey != null) {
+            executionContext.put(getExecutionContextKey(LAST_KEY), lastKey);
+        }
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        // 最後のキーから続きを読み込むため、読み飛ばしは不要
+    }
+
+}
@@ -0,0 +1,501 @@
+package com.example.demo.item.reader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ReaderNotOpenException;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.ResourceAwareItemReaderItemStream;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import com.example.demo.item.reader.CharParsers.DatePattern;
+
+/**
+ * 型付きのカラム定義に従ってCSVを読み込むItemReader
+ *
+ * CsvFileItemReaderはカラムをStringの配列として返すため、数値や日付のカラムはString作成後に変換することになる。
+ * このクラスは読み込んだ文字のバッファ上でカラムを区切り、int、long、小数（固定の小数点以下桁数）、日付（固定長の書式）のカラムは
+ * Stringを作成せずにバッファから直接プリミティブ型へ変換して、データのsetterに渡す。
+ *
+ * 　　<カラム定義>
+ * 　　・カラムはファイルの並び順に add～Column で定義する。定義より後ろのカラムは読み飛ばす。
+ * 　　・空のカラムは、数値・日付の場合はsetterを呼び出さない（データの初期値のまま）。文字列の場合は""を渡す。
+ * 　　・変換できない値、カラム数の不足はFlatFileParseException（入力は該当カラムの値）とする。
+ *
+ * 　　<CSVの書式>
+ * 　　・改行はCRLF、LFのどちらも可。空行は読み飛ばす。
+ * 　　・囲み文字で囲んだカラムは、区切り文字・改行を含めることができ、囲み文字を2つ続けると囲み文字1つとなる。
+ */
+public class TypedCsvFileItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> implements ResourceAwareItemReaderItemStream<T>, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TypedCsvFileItemReader.class);
+
+    // default encoding for input files
+    public static final Charset DEFAULT_CHARSET = Charset.defaultCharset();
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private Resource resource;
+
+    private boolean noInput = false;
+
+    private int lineCount = 0;
+
+    private Charset charset = DEFAULT_CHARSET;
+
+    private int linesToSkip = 0;
+
+    private boolean strict = true;
+
+    private char delimiter = ',';
+
+    private char quote = '"';
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private Supplier<? extends T> itemFactory;
+
+    private final List<Column<? super T>> columns = new ArrayList<>();
+
+    private Reader reader;
+
+    private char[] buffer;
+
+    private int position;
+
+    private int limit;
+
+    private int recordStart;
+
+    private boolean eof;
+
+    private int[] fieldStarts = new int[16];
+
+    private int[] fieldEnds = new int[16];
+
+    private int fieldCount;
+
+    public TypedCsvFileItemReader() {
+        setName(ClassUtils.getShortName(TypedCsvFileItemReader.class));
+    }
+
+    /**
+     * 読み込み対象のエンコーディングを設定します。デフォルトは {@link #DEFAULT_CHARSET}.
+     * ファイルの先頭にBOMがある場合は、BOMのエンコーディングを優先します。
+     *
+     * @param charset 文字コード
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * 最初に読み込みをスキップする行数を設定します
+     *
+     * @param linesToSkip the number of lines to skip
+     */
+    public void setLinesToSkip(int linesToSkip) {
+        this.linesToSkip = linesToSkip;
+    }
+
+    /**
+     * strictModeを設定します
+     *
+     * @param strict <code>true</code> by default
+     */
+    public void setStrict(boolean strict) {
+        this.strict = strict;
+    }
+
+    /**
+     * カラムの区切り文字をセットします
+     *
+     * @param delimiter 区切り文字
+     */
+    public void setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * カラムの囲み文字をセットします
+     *
+     * @param quote 囲み文字
+     */
+    public void setQuote(char quote) {
+        this.quote = quote;
+    }
+
+    /**
+     * 読み込みバッファの初期サイズ（文字数）をセットします。1行がバッファに収まらない場合はバッファを拡張します
+     *
+     * @param bufferSize 文字数
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(bufferSize, 16);
+    }
+
+    /**
+     * 1行ごとにデータを作成する関数をセットします
+     *
+     * @param itemFactory データを作成する関数
+     */
+    public void setItemFactory(Supplier<? extends T> itemFactory) {
+        this.itemFactory = itemFactory;
+    }
+
+    /**
+     * intのカラムを追加します
+     *
+     * @param setter データに値を設定する関数
+     * @return this
+     */
+    public TypedCsvFileItemReader<T> addIntColumn(ObjIntConsumer<? super T> setter) {
+        columns.add((item, chars, start, end) -> {
+            if (start < end) {
+                setter.accept(item, CharParsers.parseInt(chars, start, end));
+            }
+        });
+        return this;
+    }
+
+    /**
+     * longのカラムを追加します
+     *
+     * @param setter データに値を設定する関数
+     * @return this
+     */
+    public TypedCsvFileItemReader<T> addLongColumn(ObjLongConsumer<? super T> setter) {
+        columns.add((item, chars, start, end) -> {
+            if (start < end) {
+                setter.accept(item, CharParsers.parseLong(chars, start, end));
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 小数のカラムを追加します。値は10^scale倍した整数（例えば金額の場合は銭・セント単位）で設定します
+     *
+     * @param scale 小数点以下の桁数（超える場合は変換エラー）
+     * @param setter データに値を設定する関数
+     * @return this
+     */
+    public TypedCsvFileItemReader<T> addDecimalColumn(int scale, ObjLongConsumer<? super T> setter) {
+        Assert.isTrue(scale >= 0 && scale <= 18, "scale must be between 0 and 18");
+        columns.add((item, chars, start, end) -> {
+            if (start < end) {
+                setter.accept(item, CharParsers.parseDecimal(chars, start, end, scale));
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 日付のカラムを追加します。値はエポック日（LocalDate.ofEpochDayで変換できる）で設定します
+     *
+     * @param pattern 固定長の書式（y：年、M：月、d：日、それ以外は区切り文字。例えば"yyyy-MM-dd"、"yyyyMMdd"）
+     * @param setter データに値を設定する関数
+     * @return this
+     */
+    public TypedCsvFileItemReader<T> addDateColumn(String pattern, ObjIntConsumer<? super T> setter) {
+        DatePattern datePattern = DatePattern.of(pattern);
+        columns.add((item, chars, start, end) -> {
+            if (start < end) {
+                setter.accept(item, CharParsers.parseDate(chars, start, end, datePattern));
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 文字列のカラムを追加します
+     *
+     * @param setter データに値を設定する関数
+     * @return this
+     */
+    public TypedCsvFileItemReader<T> addStringColumn(BiConsumer<? super T, String> setter) {
+        columns.add((item, chars, start, end) -> setter.accept(item, new String(chars, start, end - start)));
+        return this;
+    }
+
+    /**
+     * 読み飛ばすカラムを追加します
+     *
+     * @return this
+     */
+    public TypedCsvFileItemReader<T> addSkippedColumn() {
+        columns.add((item, chars, start, end) -> {
+        });
+        return this;
+    }
+
+    @Override
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        if (noInput) {
+            return null;
+        }
+        if (!readRecord()) {
+            return null;
+        }
+
+        if (fieldCount < columns.size()) {
+            throw new FlatFileParseException("Incorrect number of columns at line: " + lineCount
+                    + " [expected:" + columns.size() + ", actual:" + fieldCount + "]", "", lineCount);
+        }
+
+        T item = itemFactory.get();
+        for (int i = 0; i < columns.size(); i++) {
+            int start = fieldStarts[i];
+            int end = fieldEnds[i];
+            try {
+                columns.get(i).set(item, buffer, start, end);
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new FlatFileParseException("Parsing error at line: " + lineCount + ", column: " + (i + 1)
+                        + ", " + e.getMessage(), e, new String(buffer, start, end - start), lineCount);
+            }
+        }
+        return item;
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        Assert.notNull(resource, "Input resource must be set");
+
+        noInput = true;
+        if (!resource.exists()) {
+            if (strict) {
+                throw new IllegalStateException("Input resource must exist (reader is in 'strict' mode): " + resource);
+            }
+            log.warn("Input resource does not exist " + resource.getDescription());
+            return;
+        }
+
+        if (!resource.isReadable()) {
+            if (strict) {
+                throw new IllegalStateException("Input resource must be readable (reader is in 'strict' mode): " + resource);
+            }
+            log.warn("Input resource is not readable " + resource.getDescription());
+        }
+
+        // 先頭のBOMを読み飛ばし、UTF-8等のASCIIの部分は高速に変換する
+        reader = CharsetDecodingReader.open(resource.getInputStream(), charset);
+        buffer = new char[bufferSize];
+        position = 0;
+        limit = 0;
+        recordStart = 0;
+        eof = false;
+        for (int i = 0; i < linesToSkip; i++) {
+            readRecord();
+        }
+
+        noInput = false;
+    }
+
+    /**
+     * 1行を読み込み、カラムの位置を fieldStarts、fieldEnds に設定します
+     *
+     * @return 行が無い場合はfalse
+     */
+    private boolean readRecord() throws IOException {
+        if (reader == null) {
+            throw new ReaderNotOpenException("Reader must be open before it can be read");
+        }
+
+        fieldCount = 0;
+        int p = position;
+        // 空行を読み飛ばす
+        while (true) {
+            if (p >= limit) {
+                recordStart = p;
+                p -= fill();
+                if (p >= limit) {
+                    position = p;
+                    return false;
+                }
+            }
+            char c = buffer[p];
+            if (c != '\n' && c != '\r') {
+                break;
+            }
+            p++;
+        }
+        recordStart = p;
+        lineCount++;
+
+        while (true) {
+            int start = p;
+            int end;
+            if (p >= limit) {
+                int shift = fill();
+                p -= shift;
+                start -= shift;
+            }
+            if (p < limit && buffer[p] == quote) {
+                // 囲み文字を除き、連続した囲み文字はその場で1文字に詰める
+                p++;
+                start = p;
+                int w = p;
+                while (true) {
+                    if (p >= limit) {
+                        int shift = fill();
+                        p -= shift;
+                        start -= shift;
+                        w -= shift;
+                        if (p >= limit) {
+                            throw new FlatFileParseException("Unclosed quote at line: " + lineCount, "", lineCount);
+                        }
+                    }
+                    char c = buffer[p];
+                    if (c == quote) {
+                        if (p + 1 >= limit) {
+                            int shift = fill();
+                            p -= shift;
+                            start -= shift;
+                            w -= shift;
+                        }
+                        if (p + 1 < limit && buffer[p + 1] == quote) {
+                            buffer[w++] = quote;
+                            p += 2;
+                            continue;
+                        }
+                        p++;
+                        break;
+                    }
+                    buffer[w++] = c;
+                    p++;
+                }
+                end = w;
+            } else {
+                while (true) {
+                    if (p >= limit) {
+                        int shift = fill();
+                        p -= shift;
+                        start -= shift;
+                        if (p >= limit) {
+                            break;
+                        }
+                    }
+                    char c = buffer[p];
+                    if (c == delimiter || c == '\n' || c == '\r') {
+                        break;
+                    }
+                    p++;
+                }
+                end = p;
+            }
+            addField(start, end);
+
+            if (p >= limit) {
+                p -= fill();
+                if (p >= limit) {
+                    position = p;
+                    return true;
+                }
+            }
+            char c = buffer[p];
+            if (c == delimiter) {
+                p++;
+                continue;
+            }
+            if (c == '\n' || c == '\r') {
+                p++;
+                if (c == '\r') {
+                    if (p >= limit) {
+                        p -= fill();
+                    }
+                    if (p < limit && buffer[p] == '\n') {
+                        p++;
+                    }
+                }
+                position = p;
+                return true;
+            }
+            throw new FlatFileParseException("Unexpected character after quoted column at line: " + lineCount,
+                    String.valueOf(c), lineCount);
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * 読み込み中の行をバッファの先頭に詰め（収まらない場合はバッファを拡張し）、続きを読み込みます
+     *
+     * @return 詰めた文字数（読み込み中の位置から差し引くこと）
+     */
+    private int fill() throws IOException {
+        if (eof) {
+            return 0;
+        }
+        int shift = recordStart;
+        if (shift > 0) {
+            System.arraycopy(buffer, shift, buffer, 0, limit - shift);
+            limit -= shift;
+            recordStart = 0;
+            for (int i = 0; i < fieldCount; i++) {
+                fieldStarts[i] -= shift;
+                fieldEnds[i] -= shift;
+            }
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int n = reader.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+        return shift;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        lineCount = 0;
+        buffer = null;
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(itemFactory, "itemFactory is required");
+        Assert.notEmpty(columns, "At least one column is required");
+    }
+
+    /**
+     * カラムの値をデータに設定する
+     */
+    @FunctionalInterface
+    private interface Column<T> {
+        void set(T item, char[] chars, int start, int end);
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.demo.item.validator;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.validator.ValidationException;
+import org.springframework.batch.item.validator.Validator;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+/**
+ * 出力先テーブルのカラム定義（桁数・NOT NULL）に対して、書き込み前にデータを検証するValidator
+ *
+ * カラム定義は最初の検証時にJDBCのメタデータから1度だけ読み込む。
+ * 桁数を超えるデータがMyBatisのバッチ更新に渡るとチャンク全体が失敗するため、
+ * 書き込み前に検証して不正なデータだけを除外するために使用する。
+ */
+public class TableColumnValidator<T> implements Validator<T> {
+
+	private static final Logger log = LoggerFactory.getLogger(TableColumnValidator.class);
+
+	/**
+	 * 文字列の桁数の数え方
+	 */
+	public enum LengthSemantics {
+		// 文字数
+		CHARACTERS,
+		// UTF-8でエンコードした場合のバイト数（DB2のUnicodeデータベースのVARCHAR等）
+		BYTES
+	}
+
+	private final DataSource dataSource;
+
+	private final String tableName;
+
+	private final Map<String, Function<? super T, ?>> columns = new LinkedHashMap<>();
+
+	private LengthSemantics lengthSemantics = LengthSemantics.CHARACTERS;
+
+	private volatile Map<String, Column> metadata;
+
+	public TableColumnValidator(DataSource dataSource, String tableName) {
+		this.dataSource = dataSource;
+		this.tableName = tableName;
+	}
+
+	/**
+	 * 検証対象のカラムを追加します
+	 *
+	 * @param columnName カラム名
+	 * @param getter データからカラムの値を取り出す関数
+	 * @return this
+	 */
+	public TableColumnValidator<T> addColumn(String columnName, Function<? super T, ?> getter) {
+		columns.put(columnName.toUpperCase(Locale.ROOT), getter);
+		return this;
+	}
+
+	/**
+	 * 文字列の桁数の数え方を設定します。デフォルトはCHARACTERS
+	 *
+	 * @param lengthSemantics 桁数の数え方
+	 */
+	public void setLengthSemantics(LengthSemantics lengthSemantics) {
+		this.lengthSemantics = lengthSemantics;
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	@Override
+	public void validate(T item) throws ValidationException {
+		Map<String, Column> metadata = getMetadata();
+
+		for(Map.Entry<String, Function<? super T, ?>> entry : columns.entrySet()) {
+			Column column = metadata.get(entry.getKey());
+			if(column == null) {
+				continue;
+			}
+
+			Object value = entry.getValue().apply(item);
+			if(value == null) {
+				if(!column.nullable) {
+					throw new ValidationException(column.name + " must not be null");
+				}
+				continue;
+			}
+
+			if(column.character && column.size > 0 && value instanceof CharSequence) {
+				int length = length((CharSequence) value);
+				if(length > column.size) {
+					throw new ValidationException(column.name + " exceeds " + column.typeName + "(" + column.size + "): length=" + length);
+				}
+			}
+		}
+	}
+
+	private int length(CharSequence value) {
+		if(lengthSemantics == LengthSemantics.CHARACTERS) {
+			return Character.codePointCount(value, 0, value.length());
+		}
+		return utf8Length(value);
+	}
+
+	/**
+	 * UTF-8でエンコードした場合のバイト数を返します（Stringを生成せずに数える）
+	 *
+	 * @param value 文字列
+	 * @return バイト数
+	 */
+	public static int utf8Length(CharSequence value) {
+		int bytes = 0;
+		for(int i = 0; i < value.length(); ) {
+			int codePoint = Character.codePointAt(value, i);
+			bytes += utf8Length(codePoint);
+			i += Character.charCount(codePoint);
+		}
+		return bytes;
+	}
+
+	/**
+	 * UTF-8でエンコードした場合にmaxBytesバイトに収まるよう、文字列の末尾を切り詰めます
+	 *
+	 * 文字（コードポイント）の途中では切らないため、サロゲートペアが分割されることはない。
+	 *
+	 * @param value 文字列（nullの場合はnullを返す）
+	 * @param maxBytes バイト数の上限
+	 * @return 切り詰めた文字列
+	 */
+	public static String truncateUtf8(String value, int maxBytes) {
+		if(value == null) {
+			return null;
+		}
+		int bytes = 0;
+		for(int i = 0; i < value.length(); ) {
+			int codePoint = value.codePointAt(i);
+			bytes += utf8Length(codePoint);
+			if(bytes > maxBytes) {
+				return value.substring(0, i);
+			}
+			i += Character.charCount(codePoint);
+		}
+		return value;
+	}
+
+	private static int utf8Length(int codePoint) {
+		if(codePoint < 0x80) {
+			return 1;
+		} else if(codePoint < 0x800) {
+			return 2;
+		} else if(codePoint < 0x10000) {
+			// ペアになっていないサロゲートも3バイトと数える
+			return 3;
+		}
+		return 4;
+	}
+
+	private Map<String, Column> getMetadata() {
+		Map<String, Column> result = metadata;
+		if(result == null) {
+			synchronized(this) {
+				result = metadata;
+				if(result == null) {
+					result = loadMetadata();
+					metadata = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private Map<String, Column> loadMetadata() {
+		Connection connection = DataSourceUtils.getConnection(dataSource);
+		try {
+			DatabaseMetaData meta = connection.getMetaData();
+			String schema = connection.getSchema();
+
+			// 接続中のスキーマのテーブルを優先し、見つからない場合はスキーマを指定せずに検索する
+			Map<String, Column> result = readColumns(meta, schema);
+			if(result.isEmpty() && schema != null) {
+				result = readColumns(meta, null);
+			}
+			if(result.isEmpty()) {
+				log.warn("Column metadata not found. Validation is skipped. [table:{}]", tableName);
+			}
+			return result;
+		} catch(SQLException e) {
+			throw new IllegalStateException("Failed to read column metadata: " + tableName, e);
+		} finally {
+			DataSourceUtils.releaseConnection(connection, dataSource);
+		}
+	}
+
+	private Map<String, Column> readColumns(DatabaseMetaData meta, String schema) throws SQLException {
+		Map<String, Column> result = new HashMap<>();
+		for(String name : new String[] {tableName.toUpperCase(Locale.ROOT), tableName}) {
+			try(ResultSet rs = meta.getColumns(null, schema, name, null)) {
+				while(rs.next()) {
+					Column column = new Column();
+					column.name = rs.getString("COLUMN_NAME");
+					column.typeName = rs.getString("TYPE_NAME");
+					column.size = rs.getInt("COLUMN_SIZE");
+					column.nullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+					column.character = isCharacter(rs.getInt("DATA_TYPE"));
+					result.put(column.name.toUpperCase(Locale.ROOT), column);
+				}
+			}
+			if(!result.isEmpty()) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private boolean isCharacter(int dataType) {
+		switch(dataType) {
+		case Types.CHAR:
+		case Types.VARCHAR:
+		case Types.LONGVARCHAR:
+		case Types.NCHAR:
+		case Types.NVARCHAR:
+		case Types.LONGNVARCHAR:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static class Column {
+		private String name;
+		private String typeName;
+		private int size;
+		private boolean nullable;
+		private boolean character;
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.example.demo.item.writer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.springframework.batch.item.file.FlatFileItemWriter;
+import org.springframework.util.ClassUtils;
+
+/**
+ * CsvLineAggregatorを使用してCSVを出力するItemWriter
+ *
+ * チャンク内の各行をCsvLineAggregatorから1つのStringBuilderへ直接追記するため、
+ * FlatFileItemWriterと異なり1行ごとのStringを生成しない。
+ */
+public class CsvFileItemWriter<T> extends FlatFileItemWriter<T> {
+
+    private CsvLineAggregator<T> csvLineAggregator;
+
+    public CsvFileItemWriter() {
+        setName(ClassUtils.getShortName(CsvFileItemWriter.class));
+    }
+
+    /**
+     * 1行分のCSVを生成するLineAggregatorをセットします
+     *
+     * @param lineAggregator CsvLineAggregator
+     */
+    public void setCsvLineAggregator(CsvLineAggregator<T> lineAggregator) {
+        setLineAggregator(lineAggregator);
+        this.csvLineAggregator = lineAggregator;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        super.afterPropertiesSet();
+        if (csvLineAggregator != null) {
+            // 行末の改行コードはItemWriterの設定に合わせる
+            csvLineAggregator.setLineSeparator(lineSeparator);
+        }
+    }
+
+    @Override
+    public String doWrite(List<? extends T> items) {
+        if (csvLineAggregator == null) {
+            return super.doWrite(items);
+        }
+
+        StringBuilder lines = new StringBuilder(items.size() * 64);
+        try {
+            for (T item : items) {
+                csvLineAggregator.aggregate(item, lines);
+            }
+        } catch (IOException e) {
+            // StringBuilderへの追記では発生しない
+            throw new UncheckedIOException(e);
+        }
+        return lines.toString();
+    }
+
+}
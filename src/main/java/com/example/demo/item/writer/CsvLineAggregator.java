@@ -1,22 +1,149 @@
 package com.example.demo.item.writer;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
 import org.springframework.batch.item.file.transform.ExtractorLineAggregator;
+import org.springframework.batch.item.file.transform.FieldExtractor;
+import org.springframework.util.Assert;
 
 import com.univocity.parsers.csv.CsvWriter;
 import com.univocity.parsers.csv.CsvWriterSettings;
 
+/**
+ * 囲み文字に対応したLineAggregator
+ *
+ * 値に含まれる改行は、文字列を返す場合もAppendableへ追記する場合も、改行コード（lineSeparator）に変換せずそのまま出力する。
+ *
+ * CsvWriterはスレッドセーフではないため、スレッドごとにCsvWriterを保持する。
+ * そのため、マルチスレッドのステップから同時に呼び出しても安全。
+ */
 public class CsvLineAggregator<T> extends ExtractorLineAggregator<T> {
 
-    private CsvWriter writer;
+    private final CsvWriterSettings settings;
+
+    private FieldExtractor<T> fieldExtractor;
+
+    // 文字列として1行を返すためのCsvWriter（スレッドごと）
+    private final ThreadLocal<CsvWriter> stringWriter = ThreadLocal.withInitial(this::newStringWriter);
+
+    // 呼び出し元のAppendableへ直接書き込むためのCsvWriter（スレッドごと）
+    private final ThreadLocal<AppendableWriter> appendableWriter = ThreadLocal.withInitial(this::newAppendableWriter);
 
     public CsvLineAggregator() {
-        CsvWriterSettings settings = new CsvWriterSettings();
-        writer = new CsvWriter(settings);
+        this(new CsvWriterSettings());
+        settings.getFormat().setLineSeparator("\r\n");
+        // 値に含まれる改行は囲み文字の中にそのまま出力する（\r\nが\r\r\nに置き換えられないようにする）
+        settings.setNormalizeLineEndingsWithinQuotes(false);
+    }
+
+    /**
+     * CsvWriterの設定を指定して生成します
+     *
+     * 設定はスレッドごとのCsvWriterを生成する際に参照されるため、使用開始後に変更しないこと。
+     *
+     * @param settings CsvWriterの設定
+     */
+    public CsvLineAggregator(CsvWriterSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * {@link #aggregate(Object, Appendable)} で1行の末尾に出力する改行コードをセットします。デフォルトは\r\n
+     *
+     * 使用開始後に変更しないこと。
+     *
+     * @param lineSeparator 改行コード
+     */
+    public void setLineSeparator(String lineSeparator) {
+        settings.getFormat().setLineSeparator(lineSeparator);
+    }
+
+    @Override
+    public void setFieldExtractor(FieldExtractor<T> fieldExtractor) {
+        super.setFieldExtractor(fieldExtractor);
+        this.fieldExtractor = fieldExtractor;
     }
 
     @Override
     protected String doAggregate(Object[] fields) {
-        return writer.writeRowToString(fields);
+        return stringWriter.get().writeRowToString(fields);
+    }
+
+    /**
+     * 1行分のCSVを呼び出し元のAppendableに直接追記します（末尾に改行コードを含む）
+     *
+     * 1行ごとのStringを生成しないため、大量データの出力時はこちらを使用する。
+     *
+     * @param item 出力対象
+     * @param out 追記先
+     * @throws IOException 追記に失敗した場合
+     */
+    public void aggregate(T item, Appendable out) throws IOException {
+        Assert.notNull(item, "Item is required");
+        Object[] fields = fieldExtractor.extract(item);
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] == null) {
+                fields[i] = "";
+            }
+        }
+
+        AppendableWriter writer = appendableWriter.get();
+        writer.target = out;
+        try {
+            writer.csvWriter.writeRow(fields);
+            if (writer.error != null) {
+                throw writer.error;
+            }
+        } finally {
+            writer.target = null;
+            writer.error = null;
+        }
+    }
+
+    private CsvWriter newStringWriter() {
+        return new CsvWriter(settings);
+    }
+
+    private AppendableWriter newAppendableWriter() {
+        AppendableWriter writer = new AppendableWriter();
+        writer.csvWriter = new CsvWriter(writer, settings);
+        return writer;
+    }
+
+    /**
+     * 書き込み先のAppendableを呼び出しごとに差し替えるWriter
+     */
+    private static class AppendableWriter extends Writer {
+
+        private CsvWriter csvWriter;
+
+        private Appendable target;
+
+        private IOException error;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            // CsvWriterは書き込みエラーを独自の例外に包むため、元のIOExceptionを保持しておく
+            try {
+                if (target instanceof StringBuilder) {
+                    ((StringBuilder) target).append(cbuf, off, len);
+                } else {
+                    target.append(CharBuffer.wrap(cbuf, off, len));
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
     }
 
-}
\ No newline at end of file
+}
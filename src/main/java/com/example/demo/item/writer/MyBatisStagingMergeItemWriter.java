@@ -0,0 +1,141 @@
+package com.example.demo.item.writer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+/**
+ * ステージングテーブルとMERGE文でチャンク単位に登録・更新（UPSERT）を行うItemWriter
+ *
+ * 1チャンク分のデータを次の3つのSQLで書き込む（MyBatisのBATCHモードで実行するため、通信は3回）。
+ * 　　①insertStatementId : チャンク内の全件をステージングテーブルへバッチ登録する
+ * 　　②mergeStatementId  : ステージングテーブルから本テーブルへ1回のMERGEで反映する
+ * 　　③deleteStatementId : ステージングテーブルからチャンク分のデータを削除する
+ *
+ * ステージングテーブルのデータはチャンクごとに採番したbatchIdで区別し、同じトランザクション内で削除するため、
+ * 他のセッション（並列ステップ等）から参照されることはない。
+ * MERGEはキーで一致判定するため、同じデータを再実行・リスタートしても重複登録されない。
+ *
+ * 各SQLには次のパラメータが渡される。
+ * 　　batchId : チャンクごとに採番したID
+ * 　　item    : 書き込むデータ（①のみ）
+ */
+public class MyBatisStagingMergeItemWriter<T> implements ItemWriter<T>, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MyBatisStagingMergeItemWriter.class);
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    private SqlSessionTemplate sqlSessionTemplate;
+
+    private String insertStatementId;
+
+    private String mergeStatementId;
+
+    private String deleteStatementId;
+
+    private Function<? super T, ?> keyExtractor;
+
+    public void setSqlSessionFactory(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
+
+    public void setInsertStatementId(String insertStatementId) {
+        this.insertStatementId = insertStatementId;
+    }
+
+    public void setMergeStatementId(String mergeStatementId) {
+        this.mergeStatementId = mergeStatementId;
+    }
+
+    public void setDeleteStatementId(String deleteStatementId) {
+        this.deleteStatementId = deleteStatementId;
+    }
+
+    /**
+     * MERGEの一致判定に使用するキーを取り出す関数を設定します
+     *
+     * 同じキーのデータがチャンク内に複数ある場合は、後のデータだけをステージングテーブルに登録する。
+     * （同じ行に複数のデータが一致するとMERGEがエラーになるため）
+     * キーがnullのデータも1つのキーとして扱う（MERGEではNULL同士を一致させること）。
+     *
+     * @param keyExtractor キーを取り出す関数
+     */
+    public void setKeyExtractor(Function<? super T, ?> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(sqlSessionFactory, "A SqlSessionFactory is required.");
+        Assert.notNull(insertStatementId, "A insertStatementId is required.");
+        Assert.notNull(mergeStatementId, "A mergeStatementId is required.");
+        Assert.notNull(deleteStatementId, "A deleteStatementId is required.");
+
+        // MyBatisBatchItemWriterと同様にBATCHモードで実行する
+        sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        String batchId = UUID.randomUUID().toString();
+
+        for (T item : distinct(items)) {
+            Map<String, Object> parameter = new HashMap<>(4);
+            parameter.put("batchId", batchId);
+            parameter.put("item", item);
+            sqlSessionTemplate.insert(insertStatementId, parameter);
+        }
+
+        Map<String, Object> parameter = new HashMap<>(2);
+        parameter.put("batchId", batchId);
+        sqlSessionTemplate.update(mergeStatementId, parameter);
+        sqlSessionTemplate.delete(deleteStatementId, parameter);
+
+        List<BatchResult> results = sqlSessionTemplate.flushStatements();
+        if (log.isDebugEnabled()) {
+            for (BatchResult result : results) {
+                log.debug("{} : {} statement(s)", result.getMappedStatement().getId(), result.getUpdateCounts().length);
+            }
+        }
+    }
+
+    private Collection<? extends T> distinct(List<? extends T> items) {
+        if (keyExtractor == null) {
+            return items;
+        }
+
+        // LinkedHashMapはnullのキーも保持する
+        Map<Object, T> distinct = new LinkedHashMap<>(items.size() * 2);
+        for (T item : items) {
+            Object key = keyExtractor.apply(item);
+            distinct.remove(key);
+            distinct.put(key, item);
+        }
+
+        if (distinct.size() == items.size()) {
+            return items;
+        }
+        return new ArrayList<>(distinct.values());
+    }
+
+}
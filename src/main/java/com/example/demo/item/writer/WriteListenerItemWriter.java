@@ -0,0 +1,46 @@
+package com.example.demo.item.writer;
+
+import java.util.List;
+
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.ItemWriter;
+
+/**
+ * 委譲先のItemWriterの前後でItemWriteListenerを呼び出すItemWriter
+ *
+ * AsyncItemWriterを使用するステップにItemWriteListenerを登録すると、書き込むデータではなくFutureが渡される。
+ * このクラスでAsyncItemWriterの委譲先を包むことで、Futureから取り出した後のデータでリスナーを呼び出す。
+ * （このクラスに渡したリスナーはステップには登録しないこと）
+ */
+public class WriteListenerItemWriter<T> implements ItemWriter<T> {
+
+    private final ItemWriter<T> delegate;
+
+    private final List<ItemWriteListener<? super T>> listeners;
+
+    public WriteListenerItemWriter(ItemWriter<T> delegate, List<ItemWriteListener<? super T>> listeners) {
+        this.delegate = delegate;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        for (ItemWriteListener<? super T> listener : listeners) {
+            listener.beforeWrite(items);
+        }
+
+        try {
+            delegate.write(items);
+        } catch (Exception e) {
+            for (ItemWriteListener<? super T> listener : listeners) {
+                listener.onWriteError(e, items);
+            }
+            throw e;
+        }
+
+        for (ItemWriteListener<? super T> listener : listeners) {
+            listener.afterWrite(items);
+        }
+    }
+
+}
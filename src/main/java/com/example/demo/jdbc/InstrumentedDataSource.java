@@ -0,0 +1,219 @@
+package com.example.demo.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * JDBCの呼び出しを集計するDataSource
+ *
+ * 委譲先（Hikari等）から取得したConnection、Statement、ResultSetをプロキシで包み、
+ * 現在のスレッドにbindしているJdbcStatisticsに呼び出し回数と時間を加算する。
+ * プロキシの呼び出し自体にもコストがあるため、計測時だけ使用すること（batch.jdbc-metrics.enabled）。
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+	public InstrumentedDataSource(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return wrap(Connection.class, obtainTargetDataSource().getConnection(), new ConnectionHandler());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return wrap(Connection.class, obtainTargetDataSource().getConnection(username, password), new ConnectionHandler());
+	}
+
+	private static <T> T wrap(Class<T> type, T target, Handler handler) {
+		if(target == null) {
+			return null;
+		}
+		handler.target = target;
+		return type.cast(Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[] {type}, handler));
+	}
+
+	/**
+	 * 委譲先を呼び出し、集計中の場合は時間を加算する
+	 */
+	private abstract static class Handler implements InvocationHandler {
+
+		Object target;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch(method.getName()) {
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+				break;
+			}
+
+			JdbcStatistics statistics = JdbcStatistics.current();
+			if(statistics == null || !isMeasured(method)) {
+				return after(statistics, method, invokeTarget(method, args));
+			}
+			long start = System.nanoTime();
+			try {
+				return after(statistics, method, invokeTarget(method, args));
+			} finally {
+				statistics.driverNanos += System.nanoTime() - start;
+			}
+		}
+
+		private Object invokeTarget(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			} catch(InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+
+		/**
+		 * @return 時間を計測するメソッドかどうか
+		 */
+		abstract boolean isMeasured(Method method);
+
+		/**
+		 * 呼び出し後に回数を加算し、戻り値を必要に応じて包みます
+		 */
+		abstract Object after(JdbcStatistics statistics, Method method, Object result) throws SQLException;
+	}
+
+	private static class ConnectionHandler extends Handler {
+
+		@Override
+		boolean isMeasured(Method method) {
+			switch(method.getName()) {
+			case "prepareStatement":
+			case "prepareCall":
+			case "commit":
+			case "rollback":
+				return true;
+			default:
+				return false;
+			}
+		}
+
+		@Override
+		Object after(JdbcStatistics statistics, Method method, Object result) {
+			switch(method.getName()) {
+			case "createStatement":
+				return wrap(Statement.class, (Statement) result, new StatementHandler());
+			case "prepareStatement":
+				return wrap(PreparedStatement.class, (PreparedStatement) result, new StatementHandler());
+			case "prepareCall":
+				return wrap(CallableStatement.class, (CallableStatement) result, new StatementHandler());
+			case "commit":
+			case "rollback":
+				if(statistics != null) {
+					statistics.transactions++;
+				}
+				return result;
+			default:
+				return result;
+			}
+		}
+	}
+
+	private static class StatementHandler extends Handler {
+
+		// addBatchしてまだ実行していないステートメントの数
+		private int pendingBatch;
+
+		@Override
+		boolean isMeasured(Method method) {
+			return method.getName().startsWith("execute");
+		}
+
+		@Override
+		Object after(JdbcStatistics statistics, Method method, Object result) throws SQLException {
+			switch(method.getName()) {
+			case "execute":
+			case "executeQuery":
+			case "executeUpdate":
+			case "executeLargeUpdate":
+				if(statistics != null) {
+					statistics.statements++;
+				}
+				break;
+			case "addBatch":
+				pendingBatch++;
+				break;
+			case "clearBatch":
+				pendingBatch = 0;
+				break;
+			case "executeBatch":
+			case "executeLargeBatch":
+				if(statistics != null) {
+					statistics.batches++;
+					statistics.batchedStatements += pendingBatch;
+				}
+				pendingBatch = 0;
+				break;
+			default:
+				break;
+			}
+			if(result instanceof ResultSet) {
+				ResultSet resultSet = (ResultSet) result;
+				// ResultSetのfetchSizeを返さないドライバもあるため、その場合はステートメントの設定値とする
+				int fetchSize = resultSet.getFetchSize();
+				if(fetchSize <= 0) {
+					fetchSize = ((Statement) target).getFetchSize();
+				}
+				return wrap(ResultSet.class, resultSet, new ResultSetHandler(fetchSize));
+			}
+			return result;
+		}
+	}
+
+	private static class ResultSetHandler extends Handler {
+
+		private final int fetchSize;
+
+		private long rows;
+
+		ResultSetHandler(int fetchSize) {
+			this.fetchSize = fetchSize;
+		}
+
+		@Override
+		boolean isMeasured(Method method) {
+			return method.getName().equals("next");
+		}
+
+		@Override
+		Object after(JdbcStatistics statistics, Method method, Object result) {
+			if(statistics != null && Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+				rows++;
+				statistics.rows++;
+				if(fetchSize <= 0) {
+					// ドライバが取得件数を決めるため推定しない
+					if(rows == 1) {
+						statistics.unknownFetchSizeResultSets++;
+					}
+				} else if(rows > fetchSize && (rows - 1) % fetchSize == 0) {
+					// 最初のfetchSize件は実行時に取得し、以降はfetchSize件ごとに取得すると見なす
+					statistics.fetches++;
+				}
+			}
+			return result;
+		}
+	}
+
+}
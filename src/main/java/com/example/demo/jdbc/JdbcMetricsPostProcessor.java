@@ -0,0 +1,48 @@
+package com.example.demo.jdbc;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Step;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import com.example.demo.step.StepListeners;
+
+/**
+ * DataSourceをInstrumentedDataSourceで包み、すべてのステップにJdbcStatisticsListenerを登録するBeanPostProcessor
+ *
+ * 各ステップの定義を変更せずに、JDBCの呼び出しをステップ・チャンクごとに集計する。
+ * InputFingerprintStep等で包んだステップは、委譲先のステップに登録する。
+ */
+public class JdbcMetricsPostProcessor implements BeanPostProcessor {
+
+	private static final Logger log = LoggerFactory.getLogger(JdbcMetricsPostProcessor.class);
+
+	private final boolean enabled;
+
+	private final JdbcStatisticsListener listener = new JdbcStatisticsListener();
+
+	/**
+	 * @param enabled 集計するかどうか（falseの場合はBeanを変更しない）
+	 */
+	public JdbcMetricsPostProcessor(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if(!enabled) {
+			return bean;
+		}
+		if(bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+			log.info("JDBC statistics are enabled. [dataSource:{}]", beanName);
+			return new InstrumentedDataSource((DataSource) bean);
+		}
+		if(bean instanceof Step) {
+			StepListeners.register((Step) bean, listener);
+		}
+		return bean;
+	}
+
+}
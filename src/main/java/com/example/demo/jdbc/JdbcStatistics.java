@@ -0,0 +1,166 @@
+package com.example.demo.jdbc;
+
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * JDBCの呼び出し回数・時間の集計
+ *
+ * 集計中のスレッドにbindしたJdbcStatisticsに、InstrumentedDataSourceのコネクション・ステートメントが加算する。
+ * bindしていないスレッドからの呼び出しは集計しない。
+ *
+ * 　　<項目>
+ * 　　・statements        : execute、executeQuery、executeUpdateの回数
+ * 　　・batches           : executeBatchの回数
+ * 　　・batched-statements: executeBatchで実行したステートメント（addBatch）の数
+ * 　　・rows              : ResultSetから読み込んだ行数
+ * 　　・estimated-fetches    : 2回目以降の取得（fetchSize件ごとに1回と見なした推定値）
+ * 　　・transactions         : commit、rollbackの回数
+ * 　　・estimated-round-trips: DBとの通信回数の推定値（statements + batches + estimated-fetches + transactions）
+ * 　　・driver-time-ms       : 上記の呼び出しとステートメントの作成に要した時間（JDBCドライバ内の時間）
+ *
+ * fetchSizeが0以下（DB2 JCCのデフォルト等、ドライバが取得件数を決める）のResultSetは取得回数を推定できないため、
+ * 1件でも読み込んだ場合は推定値（estimated-～）を出力せず、代わりにその数を「fetch-size-unknown-result-sets」に出力する。
+ */
+public class JdbcStatistics {
+
+	public static final String KEY_PREFIX = "jdbc.";
+
+	private static final ThreadLocal<JdbcStatistics> CURRENT = new ThreadLocal<>();
+
+	long statements;
+
+	long batches;
+
+	long batchedStatements;
+
+	long rows;
+
+	long fetches;
+
+	long unknownFetchSizeResultSets;
+
+	long transactions;
+
+	long driverNanos;
+
+	/**
+	 * @return 現在のスレッドにbindしている集計（無い場合はnull）
+	 */
+	public static JdbcStatistics current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * 現在のスレッドに集計をbindします
+	 *
+	 * @param statistics 集計（nullの場合は解除）
+	 * @return 直前にbindしていた集計（復元する場合に指定する）
+	 */
+	public static JdbcStatistics bind(JdbcStatistics statistics) {
+		JdbcStatistics previous = CURRENT.get();
+		if(statistics == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(statistics);
+		}
+		return previous;
+	}
+
+	/**
+	 * 他の集計を加算します
+	 */
+	public synchronized void add(JdbcStatistics other) {
+		statements += other.statements;
+		batches += other.batches;
+		batchedStatements += other.batchedStatements;
+		rows += other.rows;
+		fetches += other.fetches;
+		unknownFetchSizeResultSets += other.unknownFetchSizeResultSets;
+		transactions += other.transactions;
+		driverNanos += other.driverNanos;
+	}
+
+	public long getStatements() {
+		return statements;
+	}
+
+	public long getBatches() {
+		return batches;
+	}
+
+	public long getBatchedStatements() {
+		return batchedStatements;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return 2回目以降の取得回数の推定値（isEstimatedがfalseの場合は実際より少ない）
+	 */
+	public long getEstimatedFetches() {
+		return fetches;
+	}
+
+	/**
+	 * @return fetchSizeが0以下で取得回数を推定できなかったResultSetの数
+	 */
+	public long getUnknownFetchSizeResultSets() {
+		return unknownFetchSizeResultSets;
+	}
+
+	/**
+	 * @return 全てのResultSetの取得回数を推定できた場合はtrue
+	 */
+	public boolean isEstimated() {
+		return unknownFetchSizeResultSets == 0;
+	}
+
+	public long getTransactions() {
+		return transactions;
+	}
+
+	public long getDriverNanos() {
+		return driverNanos;
+	}
+
+	/**
+	 * @return DBとの通信回数の推定値（isEstimatedがfalseの場合は実際より少ない）
+	 */
+	public long getEstimatedRoundTrips() {
+		return statements + batches + fetches + transactions;
+	}
+
+	/**
+	 * ExecutionContextにキー「jdbc.～」で保存します
+	 */
+	public synchronized void putTo(ExecutionContext executionContext) {
+		executionContext.putLong(KEY_PREFIX + "statements", statements);
+		executionContext.putLong(KEY_PREFIX + "batches", batches);
+		executionContext.putLong(KEY_PREFIX + "batched-statements", batchedStatements);
+		executionContext.putLong(KEY_PREFIX + "rows", rows);
+		executionContext.putLong(KEY_PREFIX + "transactions", transactions);
+		if(isEstimated()) {
+			executionContext.putLong(KEY_PREFIX + "estimated-fetches", fetches);
+			executionContext.putLong(KEY_PREFIX + "estimated-round-trips", getEstimatedRoundTrips());
+			executionContext.remove(KEY_PREFIX + "fetch-size-unknown-result-sets");
+		} else {
+			executionContext.remove(KEY_PREFIX + "estimated-fetches");
+			executionContext.remove(KEY_PREFIX + "estimated-round-trips");
+			executionContext.putLong(KEY_PREFIX + "fetch-size-unknown-result-sets", unknownFetchSizeResultSets);
+		}
+		executionContext.putLong(KEY_PREFIX + "driver-time-ms", driverNanos / 1_000_000);
+	}
+
+	@Override
+	public synchronized String toString() {
+		String estimated = isEstimated()
+				? "estimatedFetches=" + fetches + ", estimatedRoundTrips=" + getEstimatedRoundTrips()
+				: "fetchSizeUnknownResultSets=" + unknownFetchSizeResultSets;
+		return "statements=" + statements + ", batches=" + batches + ", batchedStatements=" + batchedStatements
+				+ ", rows=" + rows + ", transactions=" + transactions + ", " + estimated
+				+ ", driverTimeMs=" + driverNanos / 1_000_000;
+	}
+
+}
@@ -0,0 +1,172 @@
+package com.example.demo.jdbc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * ステップ・チャンクごとにJDBCの呼び出しを集計するリスナー
+ *
+ * チャンクの開始（beforeChunk）からコミット後（afterChunk）まで、チャンクを処理するスレッドにJdbcStatisticsをbindする。
+ * チャンクの集計には、コミットとJobRepositoryのメタデータの更新も含まれる。
+ * ステップの開始から終了までは、ステップを実行するスレッドにステップ全体の集計をbindする（ItemStreamのopen等）。
+ *
+ * 　　<出力先>
+ * 　　・ステップのExecutionContext : キー「jdbc.～」にステップ全体の累計（チャンクのコミットごとに更新）
+ * 　　　　　　　　　　　　　　　　　　「jdbc.chunk.max-estimated-round-trips」に1チャンクの通信回数（推定値）の最大値
+ * 　　・ログ                       : ステップの終了時に累計
+ * 　　・Micrometer（タグstep）     : カウンター「batch.jdbc.～」に累計、
+ * 　　　　　　　　　　　　　　　　　　分布「batch.jdbc.chunk.estimated.round.trips」「batch.jdbc.chunk.statements」に1チャンクの値
+ *
+ * 通信回数は推定値のため、取得回数を推定できないResultSet（fetchSizeが0以下）を読み込んだ場合は出力しない（JdbcStatistics参照）。
+ * Micrometerのメーターはグローバルレジストリ（Metrics）に登録するため、レジストリを追加していない場合は記録されない。
+ */
+public class JdbcStatisticsListener implements StepExecutionListener, ChunkListener {
+
+	private static final Logger log = LoggerFactory.getLogger(JdbcStatisticsListener.class);
+
+	public static final String METRIC_PREFIX = "batch.jdbc.";
+
+	private static final String CHUNK_ATTRIBUTE = JdbcStatisticsListener.class.getName() + ".chunk";
+
+	private static final String PREVIOUS_ATTRIBUTE = JdbcStatisticsListener.class.getName() + ".previous";
+
+	private final Map<Long, StepStatistics> steps = new ConcurrentHashMap<>();
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		StepStatistics step = new StepStatistics(stepExecution.getStepName());
+		steps.put(stepExecution.getId(), step);
+		step.previous = JdbcStatistics.bind(step.outside);
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		StepStatistics step = steps.remove(stepExecution.getId());
+		if(step == null) {
+			return null;
+		}
+		JdbcStatistics.bind(step.previous);
+
+		// チャンク外（open、close等）の呼び出しを加算する
+		export(step.name, step.outside);
+		step.total.add(step.outside);
+
+		step.total.putTo(stepExecution.getExecutionContext());
+		if(step.total.isEstimated()) {
+			stepExecution.getExecutionContext().putLong(JdbcStatistics.KEY_PREFIX + "chunk.max-estimated-round-trips", step.maxChunkRoundTrips);
+			log.info("JDBC statistics. [step:{}, chunks:{}, maxChunkEstimatedRoundTrips:{}, {}]",
+					step.name, step.chunks, step.maxChunkRoundTrips, step.total);
+		} else {
+			log.info("JDBC statistics. [step:{}, chunks:{}, {}]", step.name, step.chunks, step.total);
+		}
+		return null;
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+		JdbcStatistics chunk = new JdbcStatistics();
+		context.setAttribute(CHUNK_ATTRIBUTE, chunk);
+		context.setAttribute(PREVIOUS_ATTRIBUTE, new PreviousBinding(JdbcStatistics.bind(chunk)));
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		complete(context);
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext context) {
+		complete(context);
+	}
+
+	private void complete(ChunkContext context) {
+		JdbcStatistics chunk = (JdbcStatistics) context.getAttribute(CHUNK_ATTRIBUTE);
+		PreviousBinding previous = (PreviousBinding) context.getAttribute(PREVIOUS_ATTRIBUTE);
+		if(chunk == null || previous == null) {
+			return;
+		}
+		context.removeAttribute(CHUNK_ATTRIBUTE);
+		context.removeAttribute(PREVIOUS_ATTRIBUTE);
+		JdbcStatistics.bind(previous.statistics);
+
+		StepExecution stepExecution = context.getStepContext().getStepExecution();
+		StepStatistics step = steps.get(stepExecution.getId());
+		if(step == null) {
+			return;
+		}
+		step.total.add(chunk);
+		synchronized(step) {
+			step.chunks++;
+			step.maxChunkRoundTrips = Math.max(step.maxChunkRoundTrips, chunk.getEstimatedRoundTrips());
+		}
+
+		export(step.name, chunk);
+		if(chunk.isEstimated()) {
+			step.chunkRoundTrips.record(chunk.getEstimatedRoundTrips());
+		}
+		step.chunkStatements.record(chunk.getStatements() + chunk.getBatchedStatements());
+		// 次のコミットでJobRepositoryに保存される
+		step.total.putTo(stepExecution.getExecutionContext());
+	}
+
+	private void export(String stepName, JdbcStatistics statistics) {
+		Tags tags = Tags.of("step", stepName);
+		Metrics.counter(METRIC_PREFIX + "statements", tags).increment(statistics.getStatements());
+		Metrics.counter(METRIC_PREFIX + "batches", tags).increment(statistics.getBatches());
+		Metrics.counter(METRIC_PREFIX + "batched.statements", tags).increment(statistics.getBatchedStatements());
+		Metrics.counter(METRIC_PREFIX + "rows", tags).increment(statistics.getRows());
+		Metrics.counter(METRIC_PREFIX + "transactions", tags).increment(statistics.getTransactions());
+		if(statistics.isEstimated()) {
+			Metrics.counter(METRIC_PREFIX + "estimated.fetches", tags).increment(statistics.getEstimatedFetches());
+			Metrics.counter(METRIC_PREFIX + "estimated.round.trips", tags).increment(statistics.getEstimatedRoundTrips());
+		} else {
+			Metrics.counter(METRIC_PREFIX + "fetch.size.unknown.result.sets", tags).increment(statistics.getUnknownFetchSizeResultSets());
+		}
+		Metrics.timer(METRIC_PREFIX + "driver.time", tags).record(statistics.getDriverNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * ステップ実行ごとの集計
+	 */
+	private static class StepStatistics {
+		private final String name;
+		private final JdbcStatistics total = new JdbcStatistics();
+		private final JdbcStatistics outside = new JdbcStatistics();
+		private final DistributionSummary chunkRoundTrips;
+		private final DistributionSummary chunkStatements;
+		private JdbcStatistics previous;
+		private long chunks;
+		private long maxChunkRoundTrips;
+
+		StepStatistics(String name) {
+			this.name = name;
+			this.chunkRoundTrips = Metrics.summary(METRIC_PREFIX + "chunk.estimated.round.trips", "step", name);
+			this.chunkStatements = Metrics.summary(METRIC_PREFIX + "chunk.statements", "step", name);
+		}
+	}
+
+	/**
+	 * チャンクの開始前にbindしていた集計（nullの場合もChunkContextの属性に保存できるよう包む）
+	 */
+	private static class PreviousBinding {
+		private final JdbcStatistics statistics;
+
+		PreviousBinding(JdbcStatistics statistics) {
+			this.statistics = statistics;
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.example.demo.launch;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * JVMの起動から最初のデータを処理するまでの時間（time-to-first-item）を記録するChunkListener
+ *
+ * プロセス内で最初に、読み込み件数が1件以上となったチャンクのコミット後に1回だけ記録する。
+ * （チャンクのコミット後に判定するため、チャンクの処理時間を含む）
+ * 記録した時間は、ログ、ジョブのExecutionContext（キー「startup.first-item-millis」）、
+ * Micrometerのメトリクス（batch.startup.first.item）に出力する。
+ */
+public class FirstItemTimingListener implements ChunkListener {
+
+	private static final Logger log = LoggerFactory.getLogger(FirstItemTimingListener.class);
+
+	public static final String FIRST_ITEM_MILLIS_KEY = "startup.first-item-millis";
+
+	private final AtomicBoolean recorded = new AtomicBoolean();
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		if(recorded.get()) {
+			return;
+		}
+		StepExecution stepExecution = context.getStepContext().getStepExecution();
+		if(stepExecution.getReadCount() == 0 || !recorded.compareAndSet(false, true)) {
+			return;
+		}
+
+		long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+		log.info("Time to first item: {} ms since JVM start. [job:{}, step:{}, items:{}]",
+				uptime, stepExecution.getJobExecution().getJobInstance().getJobName(),
+				stepExecution.getStepName(), stepExecution.getReadCount());
+		stepExecution.getJobExecution().getExecutionContext().putLong(FIRST_ITEM_MILLIS_KEY, uptime);
+		Metrics.timer("batch.startup.first.item").record(uptime, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext context) {
+	}
+
+}
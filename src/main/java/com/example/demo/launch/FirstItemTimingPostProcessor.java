@@ -0,0 +1,32 @@
+package com.example.demo.launch;
+
+import org.springframework.batch.core.Step;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import com.example.demo.step.StepListeners;
+
+/**
+ * すべてのステップにFirstItemTimingListenerを登録するBeanPostProcessor
+ */
+public class FirstItemTimingPostProcessor implements BeanPostProcessor {
+
+	private final boolean enabled;
+
+	private final FirstItemTimingListener listener = new FirstItemTimingListener();
+
+	/**
+	 * @param enabled 記録するかどうか（falseの場合はリスナーを登録しない）
+	 */
+	public FirstItemTimingPostProcessor(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if(enabled && bean instanceof Step) {
+			StepListeners.register((Step) bean, listener);
+		}
+		return bean;
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.example.demo.launch;
+
+/**
+ * 受け付けたジョブの起動（プロセスの起動等）に失敗した場合の例外
+ */
+public class JobLaunchFailedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public JobLaunchFailedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
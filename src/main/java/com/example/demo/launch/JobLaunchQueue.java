@@ -0,0 +1,322 @@
+package com.example.demo.launch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.launch.NoSuchJobException;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * 同時実行数の上限と優先度付きで、ジョブの起動要求を順に起動するキュー
+ *
+ * 実行中のジョブ数が全体の上限（maxConcurrent）とジョブ名ごとの上限の両方に満たない場合だけ起動し、
+ * それ以外は起動待ちのキューに入れる。ジョブが終了するたびに、キューから起動できるものを起動する。
+ * キューは優先度の高い順、同じ優先度の場合は受け付けた順とする。
+ * ジョブ名ごとの上限に達したジョブは読み飛ばし、後ろの他のジョブを先に起動する（先頭のジョブで全体を止めない）。
+ * キューがqueueCapacity件に達している場合は、すぐに起動できる要求だけをキューに入れずに起動し、
+ * それ以外はJobLaunchRejectedExceptionをスローする（キューの件数はqueueCapacity件を超えない）。
+ * 起動できるジョブ名（jobNames）を設定した場合、それ以外のジョブ名はNoSuchJobExceptionとする
+ * （ジョブ名は実行数の管理やメトリクスのタグに使用するため、任意の文字列を受け付けない）。
+ * 受け付けたジョブをそのまま起動して失敗した場合は、JobLaunchFailedExceptionをスローする。
+ *
+ * 　　<メトリクス（Micrometer）>
+ * 　　・batch.launch.running            : 実行中のジョブ数
+ * 　　・batch.launch.job.running（タグjob）: ジョブ名ごとの実行中のジョブ数
+ * 　　・batch.launch.queued             : 起動待ちの件数
+ * 　　・batch.launch.queue.wait（タグjob） : 受け付けてから起動するまでの待ち時間
+ * 　　・batch.launch.rejected（タグjob）   : キューが上限に達していたため拒否した件数
+ * メトリクスはグローバルレジストリ（Metrics）に登録するため、レジストリを追加していない場合は記録されない。
+ * 現在の状況はstatus（/runjob_queue）とログで確認する。
+ */
+public class JobLaunchQueue {
+
+	private static final Logger log = LoggerFactory.getLogger(JobLaunchQueue.class);
+
+	public static final String METRIC_PREFIX = "batch.launch.";
+
+	private final int maxConcurrent;
+
+	private final int queueCapacity;
+
+	private int defaultMaxConcurrentPerJob = 1;
+
+	private final Map<String, Integer> maxConcurrentPerJob = new HashMap<>();
+
+	private Set<String> jobNames;
+
+	private final TreeSet<Entry> queue = new TreeSet<>(Comparator.comparingInt((Entry entry) -> -entry.priority)
+			.thenComparingLong(entry -> entry.sequence));
+
+	private final Map<String, AtomicInteger> runningPerJob = new HashMap<>();
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private long sequence;
+
+	/**
+	 * @param maxConcurrent 全体の同時実行数の上限
+	 * @param queueCapacity 起動待ちの件数の上限
+	 */
+	public JobLaunchQueue(int maxConcurrent, int queueCapacity) {
+		this.maxConcurrent = Math.max(maxConcurrent, 1);
+		this.queueCapacity = Math.max(queueCapacity, 0);
+		Metrics.gauge(METRIC_PREFIX + "running", running);
+		Metrics.gauge(METRIC_PREFIX + "queued", queue, q -> {
+			synchronized(this) {
+				return q.size();
+			}
+		});
+	}
+
+	/**
+	 * ジョブ名ごとの同時実行数の上限（個別に設定していないジョブ）を設定します。デフォルトは1
+	 *
+	 * @param defaultMaxConcurrentPerJob 同時実行数
+	 */
+	public synchronized void setDefaultMaxConcurrentPerJob(int defaultMaxConcurrentPerJob) {
+		this.defaultMaxConcurrentPerJob = Math.max(defaultMaxConcurrentPerJob, 1);
+	}
+
+	/**
+	 * ジョブ名ごとの同時実行数の上限を設定します
+	 *
+	 * @param jobName ジョブ名
+	 * @param maxConcurrent 同時実行数
+	 */
+	public synchronized void setMaxConcurrent(String jobName, int maxConcurrent) {
+		maxConcurrentPerJob.put(jobName, Math.max(maxConcurrent, 1));
+	}
+
+	/**
+	 * 起動できるジョブ名を設定します（未設定の場合はジョブ名を確認しない）
+	 *
+	 * @param jobNames ジョブ名
+	 */
+	public synchronized void setJobNames(Collection<String> jobNames) {
+		this.jobNames = new HashSet<>(jobNames);
+	}
+
+	/**
+	 * ジョブの起動を要求します（起動できる場合はこのスレッドで起動する）
+	 *
+	 * @param jobName ジョブ名
+	 * @param priority 優先度（大きいほど先に起動する）
+	 * @param launcher ジョブを起動し、ジョブの終了時に完了するCompletableFutureを返す関数
+	 * @return 受付結果
+	 * @throws NoSuchJobException 起動できるジョブ名ではない場合
+	 * @throws JobLaunchRejectedException 起動待ちのキューが上限に達している場合
+	 * @throws JobLaunchFailedException 受け付けたジョブをそのまま起動して失敗した場合
+	 */
+	public Submission submit(String jobName, int priority, Launcher launcher) throws NoSuchJobException {
+		Entry entry;
+		boolean reserved = false;
+		synchronized(this) {
+			if(jobNames != null && !jobNames.contains(jobName)) {
+				throw new NoSuchJobException("No such job. [job:" + jobName + "]");
+			}
+			entry = new Entry(jobName, priority, sequence++, launcher);
+			if(queue.size() < queueCapacity) {
+				queue.add(entry);
+			} else if(canStart(jobName)) {
+				// キューが上限に達していてもすぐに起動できる場合は、キューに入れずにこの要求の枠を確保する
+				// （キューに入れると、dispatchで優先度の高い他の要求に枠を使われ、上限を超えて待たせることになる）
+				reserve(entry);
+				reserved = true;
+			} else {
+				Metrics.counter(METRIC_PREFIX + "rejected", "job", jobName).increment();
+				throw new JobLaunchRejectedException("Job launch queue is full. [job:" + jobName + ", queued:" + queue.size() + "]");
+			}
+		}
+
+		if(reserved) {
+			start(entry);
+		} else {
+			dispatch();
+		}
+
+		synchronized(this) {
+			if(queue.contains(entry)) {
+				int position = queue.headSet(entry).size() + 1;
+				log.info("Job launch is queued. [job:{}, priority:{}, position:{}, running:{}]",
+						jobName, priority, position, running.get());
+				return new Submission(false, position);
+			}
+		}
+
+		// 起動した場合は、起動の結果を待つ（他のスレッドのdispatchで起動した場合も同じ）
+		try {
+			entry.launched.join();
+		} catch(CompletionException e) {
+			throw new JobLaunchFailedException("Failed to launch job. [job:" + jobName + "]", e.getCause());
+		}
+		return new Submission(true, 0);
+	}
+
+	/**
+	 * @return 実行中・起動待ちのジョブの状況
+	 */
+	public synchronized Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("maxConcurrent", maxConcurrent);
+		status.put("running", running.get());
+		Map<String, Integer> jobs = new LinkedHashMap<>();
+		runningPerJob.forEach((name, count) -> {
+			if(count.get() > 0) {
+				jobs.put(name, count.get());
+			}
+		});
+		status.put("runningJobs", jobs);
+		List<String> queued = new ArrayList<>();
+		for(Entry entry : queue) {
+			queued.add(entry.jobName + " (priority:" + entry.priority + ")");
+		}
+		status.put("queued", queued);
+		return status;
+	}
+
+	private boolean canStart(String jobName) {
+		return running.get() < maxConcurrent && runningOf(jobName).get() < maxConcurrentPerJob.getOrDefault(jobName, defaultMaxConcurrentPerJob);
+	}
+
+	private AtomicInteger runningOf(String jobName) {
+		return runningPerJob.computeIfAbsent(jobName,
+				name -> Metrics.gauge(METRIC_PREFIX + "job.running", Tags.of("job", name), new AtomicInteger()));
+	}
+
+	/**
+	 * 起動できるジョブをキューから取り出して起動します
+	 */
+	private void dispatch() {
+		List<Entry> starting = new ArrayList<>();
+		synchronized(this) {
+			Iterator<Entry> it = queue.iterator();
+			while(running.get() < maxConcurrent && it.hasNext()) {
+				Entry entry = it.next();
+				if(canStart(entry.jobName)) {
+					it.remove();
+					reserve(entry);
+					starting.add(entry);
+				}
+			}
+		}
+
+		for(Entry entry : starting) {
+			start(entry);
+		}
+	}
+
+	/**
+	 * 実行数を加算し、起動する枠を確保します（synchronizedの中で呼ぶこと）
+	 */
+	private void reserve(Entry entry) {
+		running.incrementAndGet();
+		runningOf(entry.jobName).incrementAndGet();
+	}
+
+	private void start(Entry entry) {
+		long waited = System.nanoTime() - entry.enqueuedAt;
+		Metrics.timer(METRIC_PREFIX + "queue.wait", "job", entry.jobName).record(waited, TimeUnit.NANOSECONDS);
+		log.info("Launching job. [job:{}, priority:{}, waitedMs:{}]", entry.jobName, entry.priority, waited / 1_000_000);
+
+		CompletableFuture<?> completion;
+		try {
+			completion = entry.launcher.launch();
+		} catch(Exception e) {
+			log.error("Failed to launch job. [job:{}]", entry.jobName, e);
+			entry.launched.completeExceptionally(e);
+			release(entry);
+			return;
+		}
+		entry.launched.complete(null);
+		completion.whenComplete((result, e) -> {
+			if(e != null) {
+				log.warn("Job terminated abnormally. [job:{}]", entry.jobName, e);
+			}
+			release(entry);
+		});
+	}
+
+	private void release(Entry entry) {
+		synchronized(this) {
+			running.decrementAndGet();
+			runningOf(entry.jobName).decrementAndGet();
+		}
+		dispatch();
+	}
+
+	/**
+	 * ジョブを起動する関数
+	 */
+	@FunctionalInterface
+	public interface Launcher {
+
+		/**
+		 * @return ジョブの終了時に完了するCompletableFuture
+		 */
+		CompletableFuture<?> launch() throws Exception;
+	}
+
+	/**
+	 * 起動要求の受付結果
+	 */
+	public static class Submission {
+
+		private final boolean started;
+
+		private final int position;
+
+		Submission(boolean started, int position) {
+			this.started = started;
+			this.position = position;
+		}
+
+		/**
+		 * @return 受け付けた時点で起動したかどうか
+		 */
+		public boolean isStarted() {
+			return started;
+		}
+
+		/**
+		 * @return 起動待ちの場合はキュー内の順番（1から）
+		 */
+		public int getPosition() {
+			return position;
+		}
+	}
+
+	private static class Entry {
+		private final String jobName;
+		private final int priority;
+		private final long sequence;
+		private final Launcher launcher;
+		private final long enqueuedAt = System.nanoTime();
+		// 起動した（launcherが戻った）時に完了する
+		private final CompletableFuture<Void> launched = new CompletableFuture<>();
+
+		Entry(String jobName, int priority, long sequence, Launcher launcher) {
+			this.jobName = jobName;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.launcher = launcher;
+		}
+	}
+
+}
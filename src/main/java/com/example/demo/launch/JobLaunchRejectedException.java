@@ -0,0 +1,14 @@
+package com.example.demo.launch;
+
+/**
+ * 起動待ちのキューが上限に達しているため、ジョブの起動要求を受け付けられない場合の例外
+ */
+public class JobLaunchRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public JobLaunchRejectedException(String message) {
+		super(message);
+	}
+
+}
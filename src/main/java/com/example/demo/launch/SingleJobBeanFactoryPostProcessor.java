@@ -0,0 +1,49 @@
+package com.example.demo.launch;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Job;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+
+/**
+ * 指定したジョブ以外のJobのBean定義を削除するBeanFactoryPostProcessor
+ *
+ * 遅延初期化（spring.main.lazy-initialization）と組み合わせると、
+ * 起動時に作成されるBeanは指定したジョブから参照されるステップ・ItemReader・ItemWriter等だけとなる。
+ * （JobLauncherApplicationRunnerはすべてのJobのBeanを取得するため、削除しない場合は全ジョブのステップが作成される）
+ */
+public class SingleJobBeanFactoryPostProcessor implements BeanFactoryPostProcessor {
+
+	private static final Logger log = LoggerFactory.getLogger(SingleJobBeanFactoryPostProcessor.class);
+
+	private final String jobName;
+
+	/**
+	 * @param jobName 残すジョブのBean名
+	 */
+	public SingleJobBeanFactoryPostProcessor(String jobName) {
+		this.jobName = jobName;
+	}
+
+	@Override
+	public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+		// @Beanメソッドの戻り値の型で判定する（Beanは作成しない）
+		String[] jobNames = beanFactory.getBeanNamesForType(Job.class, true, false);
+		if(!Arrays.asList(jobNames).contains(jobName)) {
+			throw new IllegalStateException("No such job: " + jobName + " (jobs: " + Arrays.toString(jobNames) + ")");
+		}
+
+		BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+		for(String name : jobNames) {
+			if(!name.equals(jobName)) {
+				registry.removeBeanDefinition(name);
+			}
+		}
+		log.debug("Removed {} job definition(s) other than {}.", jobNames.length - 1, jobName);
+	}
+
+}
@@ -23,7 +23,10 @@ public class JobCompletionNotificationListener extends JobExecutionListenerSuppo
 		if(jobExecution.getStatus() == BatchStatus.COMPLETED) {
 			log.info("!!! JOB FINISHED! Time to verify the results");
 
-			personMapper.findAllPerson().forEach(person -> log.info("Found <" + person + "> in the database."));
+			// 大量データの性能測定時はログレベルをWARNに下げて全件読み込みを抑止する
+			if(log.isInfoEnabled()) {
+				personMapper.findAllPerson().forEach(person -> log.info("Found <" + person + "> in the database."));
+			}
 		}
 	}
 }
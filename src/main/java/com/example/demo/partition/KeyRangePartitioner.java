@@ -0,0 +1,108 @@
+package com.example.demo.partition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 書き込みのキーの値の範囲で、互いに重ならないパーティションに分けるPartitioner
+ *
+ * 並行して実行するワーカーが同じキーの行を書き込まないよう、キーの値の範囲（minKey以上、maxKey未満）で分ける。
+ * 同じキーの行は必ず同じパーティションとなるため、ワーカー間で行ロックが競合しない。
+ * 範囲の境界は、対象の行をキー順に並べた時の件数の等分位置のキーとする（件数がほぼ均等になる）。
+ * 同じキーの行が多く境界が重なる場合は、パーティションの数がgridSizeより少なくなる。
+ *
+ * 各パーティションのExecutionContextには次の値を設定する。
+ * 　　minKey : キーの下限（この値を含む。最初のパーティションはnullで、キーがnullの行も含む）
+ * 　　maxKey : キーの上限（この値を含まない。最後のパーティションはnull）
+ */
+public class KeyRangePartitioner implements Partitioner {
+
+	private static final Logger log = LoggerFactory.getLogger(KeyRangePartitioner.class);
+
+	public static final String MIN_KEY = "minKey";
+
+	public static final String MAX_KEY = "maxKey";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String table;
+
+	private final String keyColumn;
+
+	private String condition;
+
+	private Object[] conditionArgs = new Object[0];
+
+	/**
+	 * @param dataSource DataSource
+	 * @param table テーブル名
+	 * @param keyColumn キーのカラム名（書き込み時の更新条件と同じカラムとする）
+	 */
+	public KeyRangePartitioner(DataSource dataSource, String table, String keyColumn) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.table = table;
+		this.keyColumn = keyColumn;
+	}
+
+	/**
+	 * 対象の行の条件を設定します（ワーカーの読み込み条件と同じとする）
+	 *
+	 * @param condition WHERE句の条件（?でパラメータを指定する）
+	 * @param args パラメータ
+	 */
+	public void setCondition(String condition, Object... args) {
+		this.condition = condition;
+		this.conditionArgs = args;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		List<Object> boundaries = boundaries(gridSize);
+
+		Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+		for(int i = 0; i <= boundaries.size(); i++) {
+			ExecutionContext context = new ExecutionContext();
+			context.put(MIN_KEY, i > 0 ? boundaries.get(i - 1) : null);
+			context.put(MAX_KEY, i < boundaries.size() ? boundaries.get(i) : null);
+			partitions.put("partition" + i, context);
+		}
+		log.info("Partitioned {}.{} into {} key range(s). [boundaries:{}]", table, keyColumn, partitions.size(), boundaries);
+		return partitions;
+	}
+
+	private List<Object> boundaries(int gridSize) {
+		String where = " WHERE " + keyColumn + " IS NOT NULL" + (condition != null ? " AND (" + condition + ")" : "");
+		long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + where, Long.class, conditionArgs);
+
+		List<Object> boundaries = new ArrayList<>();
+		String sql = "SELECT " + keyColumn + " FROM " + table + where
+				+ " ORDER BY " + keyColumn + " OFFSET ? ROWS FETCH FIRST 1 ROWS ONLY";
+		for(int i = 1; i < gridSize; i++) {
+			long offset = count * i / gridSize;
+			if(offset == 0 || offset >= count) {
+				continue;
+			}
+			Object[] args = new Object[conditionArgs.length + 1];
+			System.arraycopy(conditionArgs, 0, args, 0, conditionArgs.length);
+			args[conditionArgs.length] = offset;
+			Object boundary = jdbcTemplate.queryForObject(sql, Object.class, args);
+			// 境界が重なる（同じキーが多い）場合は1つにまとめる
+			if(boundaries.isEmpty() || !Objects.equals(boundaries.get(boundaries.size() - 1), boundary)) {
+				boundaries.add(boundary);
+			}
+		}
+		return boundaries;
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.example.demo.perf;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 性能測定用のハーネス
+ *
+ * プロファイル「perf」で起動した場合のみ有効になり、
+ * 測定用CSVを生成した上で指定したジョブを順番に実行し、ステップごとのスループット（件/秒）を記録する。
+ *
+ * 　　<使用例>
+ * 　　java -jar SpringBatchSample.jar --spring.profiles.active=perf --perf.rows=1000000
+ */
+@Component
+@Profile("perf")
+public class PerformanceHarness implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(PerformanceHarness.class);
+
+	@Autowired
+	JobLauncher jobLauncher;
+
+	@Autowired
+	Map<String, Job> jobs;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	// 生成する件数
+	@Value("${perf.rows:1000000}")
+	private long rows;
+
+	// 生成先のCSVファイル（step01の入力ファイル）
+	@Value("${perf.data-file:build/perf/perf-data.csv}")
+	private String dataFile;
+
+	// 既存のCSVファイルがあっても再生成するかどうか
+	@Value("${perf.regenerate:false}")
+	private boolean regenerate;
+
+	// 実行するジョブ
+	@Value("${perf.jobs:job01,job02,job03,job04,job05,job06}")
+	private String[] jobNames;
+
+	// 測定結果の出力先
+	@Value("${perf.report-file:build/perf/perf-report.csv}")
+	private String reportFile;
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		Path data = Paths.get(dataFile);
+		if(regenerate || !Files.exists(data)) {
+			new SampleDataGenerator().generate(data, rows);
+		}
+
+		List<String> report = new ArrayList<>();
+		report.add("job,step,status,readCount,writeCount,elapsedMs,rowsPerSec");
+
+		for(String jobName : jobNames) {
+			Job job = jobs.get(jobName);
+			if(job == null) {
+				log.warn("Job not found. [job:{}]", jobName);
+				continue;
+			}
+
+			// ジョブ間で結果が影響しないようにPersonテーブルを空にする
+			// job07（差分取り込み）の前回の取り込み内容（スナップショット）も併せて空にし、全件を登録させる
+			jdbcTemplate.batchUpdate("DELETE FROM person_delta_snapshot", "DELETE FROM person");
+
+			JobParameters parameters = new JobParametersBuilder()
+					.addLong("run.id", System.currentTimeMillis())
+					.toJobParameters();
+			JobExecution execution = jobLauncher.run(job, parameters);
+
+			for(StepExecution step : execution.getStepExecutions()) {
+				long elapsed = elapsedMillis(step);
+				double rowsPerSec = elapsed > 0 ? step.getReadCount() * 1000.0 / elapsed : 0;
+				log.warn("[perf] {} / {} : status={}, read={}, write={}, elapsed={} ms, {} rows/sec",
+						jobName, step.getStepName(), step.getStatus(), step.getReadCount(), step.getWriteCount(),
+						elapsed, String.format("%.1f", rowsPerSec));
+				report.add(String.join(",", jobName, step.getStepName(), step.getStatus().toString(),
+						String.valueOf(step.getReadCount()), String.valueOf(step.getWriteCount()),
+						String.valueOf(elapsed), String.format("%.1f", rowsPerSec)));
+			}
+		}
+
+		writeReport(report);
+	}
+
+	private long elapsedMillis(StepExecution step) {
+		if(step.getStartTime() == null || step.getEndTime() == null) {
+			return 0;
+		}
+		return step.getEndTime().getTime() - step.getStartTime().getTime();
+	}
+
+	private void writeReport(List<String> lines) throws IOException {
+		Path path = Paths.get(reportFile);
+		if(path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+		try(BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			for(String line : lines) {
+				writer.write(line);
+				writer.write("\r\n");
+			}
+		}
+		log.warn("[perf] report written to {}", path.toAbsolutePath());
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.example.demo.perf;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 性能測定用のCSVファイルを生成するクラス
+ *
+ * sample-data.csv と同じ形式（UTF-8 BOM付き、改行コードCRLF、1列目がfirstName、2列目がlastName）で
+ * 任意の件数のデータを出力する。
+ * 一定間隔で囲み文字・区切り文字・エスケープされた囲み文字・改行を含むフィールドも出力する。
+ *
+ * 　　<使用例>
+ * 　　java -cp ... com.example.demo.perf.SampleDataGenerator build/perf/perf-data.csv 1000000
+ */
+public class SampleDataGenerator {
+
+	private static final Logger log = LoggerFactory.getLogger(SampleDataGenerator.class);
+
+	private static final String LINE_SEPARATOR = "\r\n";
+
+	private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+	// 囲み文字付きのフィールドを出力する間隔
+	private int quotedInterval = 7;
+
+	// 改行を含むフィールドを出力する間隔
+	private int multiLineInterval = 13;
+
+	/**
+	 * 囲み文字付きのフィールドを出力する間隔を設定します
+	 *
+	 * @param quotedInterval 間隔（0以下の場合は出力しない）
+	 */
+	public void setQuotedInterval(int quotedInterval) {
+		this.quotedInterval = quotedInterval;
+	}
+
+	/**
+	 * 改行を含むフィールドを出力する間隔を設定します
+	 *
+	 * @param multiLineInterval 間隔（0以下の場合は出力しない）
+	 */
+	public void setMultiLineInterval(int multiLineInterval) {
+		this.multiLineInterval = multiLineInterval;
+	}
+
+	/**
+	 * CSVファイルを生成します
+	 *
+	 * @param file 出力先ファイル
+	 * @param rows 出力件数
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public void generate(Path file, long rows) throws IOException {
+		if(file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+
+		long start = System.nanoTime();
+		try(OutputStream out = Files.newOutputStream(file)) {
+			out.write(UTF8_BOM);
+			try(Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16)) {
+				StringBuilder line = new StringBuilder(64);
+				for(long i = 1; i <= rows; i++) {
+					line.setLength(0);
+					appendRow(line, i);
+					writer.append(line);
+				}
+			}
+		}
+
+		log.info("Generated {} rows into {} ({} ms)", rows, file, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private void appendRow(StringBuilder line, long i) {
+		// 名前に"G1"、"G2"を交互に含める（step05の並列ステップの振り分け用）
+		line.append("first_name_G").append(i % 2 == 0 ? 2 : 1).append('_').append(i);
+		line.append(',');
+
+		// lastNameはsavePersonの更新キーとなるため一意にする
+		if(multiLineInterval > 0 && i % multiLineInterval == 0) {
+			line.append("\"la,st_n\"\"am").append(LINE_SEPARATOR).append('e').append(i).append('"');
+		}
+		else if(quotedInterval > 0 && i % quotedInterval == 0) {
+			line.append("\"last,name").append(i).append('"');
+		}
+		else {
+			line.append("last_name").append(i);
+		}
+		line.append(LINE_SEPARATOR);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			System.err.println("usage: SampleDataGenerator <output file> <rows>");
+			System.exit(1);
+		}
+		new SampleDataGenerator().generate(Paths.get(args[0]), Long.parseLong(args[1]));
+	}
+
+}
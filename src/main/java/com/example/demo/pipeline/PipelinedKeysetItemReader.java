@@ -0,0 +1,248 @@
+package com.example.demo.pipeline;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+/**
+ * 上流のステップのWatermark以下のキーのデータを、上流のステップの実行中に読み込むItemReader
+ *
+ * キーセット方式で、前ページの最後のキーより大きく、Watermark以下のレコードをキー順に pageSize 件ずつ取得する。
+ * Watermarkに追いついた場合は、上流のステップがコミットするか終了するまで待機する（上流を追い越さない）。
+ * 上流のステップが正常終了し、最終的なWatermarkまで読み込んだ時点で終了（null）とする。
+ *
+ * 最後に読み込んだキーをExecutionContextに保存するため、再実行時は続きから読み込む。
+ * 上流のステップが前回のジョブ実行で完了済みの場合は、そのExecutionContextのWatermarkまで読み込む。
+ * （StepExecutionListenerとして、ステップのreaderに設定すると自動的に登録される）
+ *
+ * キーは上流のステップのコミット順に増加すること（上流はシングルスレッドのステップとする。WatermarkPublisherを参照）。
+ * このItemReaderもスレッドセーフではないため、マルチスレッドのステップでは使用しないこと。
+ *
+ * クエリには次のパラメータが渡される。
+ * 　　_lastKey  : 前ページの最後のキー（最初のページはnull）
+ * 　　_upperKey : Watermark（このキー以下を取得する）
+ * 　　_pageSize : 1ページの件数
+ */
+public class PipelinedKeysetItemReader<T> extends AbstractItemCountingItemStreamItemReader<T>
+		implements StepExecutionListener, InitializingBean {
+
+	private static final String LAST_KEY = "last.key";
+
+	private SqlSessionFactory sqlSessionFactory;
+
+	private SqlSessionTemplate sqlSessionTemplate;
+
+	private String queryId;
+
+	private int pageSize = 1000;
+
+	private ToLongFunction<? super T> keyExtractor;
+
+	private WatermarkRegistry registry;
+
+	private JobRepository jobRepository;
+
+	private String upstreamStepName;
+
+	private long pollInterval = 1000;
+
+	private Watermark watermark;
+
+	private Long lastKey;
+
+	private long scannedUpTo = Watermark.NONE;
+
+	private boolean pageFull;
+
+	private List<T> page = Collections.emptyList();
+
+	private int pageIndex;
+
+	public PipelinedKeysetItemReader() {
+		setName(getClass().getSimpleName());
+	}
+
+	public void setSqlSessionFactory(SqlSessionFactory sqlSessionFactory) {
+		this.sqlSessionFactory = sqlSessionFactory;
+	}
+
+	public void setQueryId(String queryId) {
+		this.queryId = queryId;
+	}
+
+	/**
+	 * 1ページの件数を設定します。デフォルトは1000
+	 *
+	 * @param pageSize 1ページの件数
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	public void setKeyExtractor(ToLongFunction<? super T> keyExtractor) {
+		this.keyExtractor = keyExtractor;
+	}
+
+	public void setRegistry(WatermarkRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * @param jobRepository 上流のステップの前回の実行結果を参照するJobRepository
+	 */
+	public void setJobRepository(JobRepository jobRepository) {
+		this.jobRepository = jobRepository;
+	}
+
+	/**
+	 * @param upstreamStepName 上流のステップ名（WatermarkPublisherを登録したステップ）
+	 */
+	public void setUpstreamStepName(String upstreamStepName) {
+		this.upstreamStepName = upstreamStepName;
+	}
+
+	/**
+	 * Watermarkに追いついた場合の最大の待機時間（ミリ秒）を設定します。デフォルトは1000
+	 * （経過後はWatermarkを確認し直す）
+	 *
+	 * @param pollInterval 待機時間（ミリ秒）
+	 */
+	public void setPollInterval(long pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+
+	/**
+	 * @return 最後に読み込んだキー（無い場合はWatermark.NONE）
+	 */
+	public long getLastKey() {
+		Long key = lastKey;
+		return key != null ? key : Watermark.NONE;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(sqlSessionFactory, "A SqlSessionFactory is required.");
+		Assert.notNull(queryId, "A queryId is required.");
+		Assert.notNull(keyExtractor, "A keyExtractor is required.");
+		Assert.notNull(registry, "A WatermarkRegistry is required.");
+		Assert.notNull(upstreamStepName, "An upstreamStepName is required.");
+		Assert.isTrue(pageSize > 0, "pageSize must be greater than zero");
+
+		// MyBatisBatchItemWriterと同じトランザクション内で使用するため、ExecutorTypeはBATCHとする
+		sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		watermark = registry.get(stepExecution.getJobExecutionId(), upstreamStepName);
+
+		if(jobRepository != null) {
+			// 上流のステップが前回のジョブ実行で完了済みの場合、今回のジョブ実行では実行されないため、
+			// 前回のExecutionContextに保存されたWatermarkを最終的な値とする
+			StepExecution upstream = jobRepository.getLastStepExecution(stepExecution.getJobExecution().getJobInstance(), upstreamStepName);
+			if(upstream != null
+					&& !upstream.getJobExecutionId().equals(stepExecution.getJobExecutionId())
+					&& upstream.getStatus() == BatchStatus.COMPLETED) {
+				watermark.advance(upstream.getExecutionContext().getLong(WatermarkPublisher.WATERMARK_KEY, Watermark.NONE));
+				watermark.complete();
+			}
+		}
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		return null;
+	}
+
+	@Override
+	protected T doRead() throws Exception {
+		while(true) {
+			if(pageIndex < page.size()) {
+				T item = page.get(pageIndex++);
+				lastKey = keyExtractor.applyAsLong(item);
+				return item;
+			}
+
+			// 終了の確認はWatermarkの取得より先に行う（終了後のWatermarkは最終的な値）
+			boolean completed = watermark.isCompleted();
+			long upperKey = watermark.get();
+			if(pageFull || scannedUpTo < upperKey) {
+				page = readPage(upperKey);
+				pageIndex = 0;
+				pageFull = page.size() >= pageSize;
+				if(!pageFull) {
+					// upperKey以下のレコードはすべて取得した
+					scannedUpTo = upperKey;
+				}
+				if(!page.isEmpty()) {
+					continue;
+				}
+			}
+			if(completed && !pageFull && scannedUpTo >= upperKey) {
+				return null;
+			}
+			watermark.await(scannedUpTo, pollInterval);
+		}
+	}
+
+	private List<T> readPage(long upperKey) {
+		Map<String, Object> parameters = new HashMap<>(4);
+		parameters.put("_lastKey", lastKey);
+		parameters.put("_upperKey", upperKey);
+		parameters.put("_pageSize", pageSize);
+		return sqlSessionTemplate.selectList(queryId, parameters);
+	}
+
+	@Override
+	protected void doOpen() throws Exception {
+		lastKey = null;
+		scannedUpTo = Watermark.NONE;
+		pageFull = false;
+		page = Collections.emptyList();
+		pageIndex = 0;
+	}
+
+	@Override
+	protected void doClose() throws Exception {
+		page = Collections.emptyList();
+		pageIndex = 0;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		super.open(executionContext);
+		if(isSaveState() && executionContext.containsKey(getExecutionContextKey(LAST_KEY))) {
+			lastKey = executionContext.getLong(getExecutionContextKey(LAST_KEY));
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		super.update(executionContext);
+		if(isSaveState() && lastKey != null) {
+			executionContext.putLong(getExecutionContextKey(LAST_KEY), lastKey);
+		}
+	}
+
+	@Override
+	protected void jumpToItem(int itemIndex) throws Exception {
+		// 最後のキーから続きを読み込むため、読み飛ばしは不要
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.example.demo.pipeline;
+
+/**
+ * 上流のステップがコミット済みのキーの上限（ウォーターマーク）
+ *
+ * 上流のステップはコミットごとにadvanceで上限を進め、終了時にcompleteまたはfailを通知する。
+ * 下流のステップは上限以下のキーのデータだけを読み込み、上限に追いついた場合はawaitで待機する。
+ */
+public class Watermark {
+
+	/** まだコミットされたデータが無いことを表す値 */
+	public static final long NONE = Long.MIN_VALUE;
+
+	private long value = NONE;
+
+	private boolean completed;
+
+	private Throwable failure;
+
+	/**
+	 * @return 現在の上限
+	 */
+	public synchronized long get() {
+		return value;
+	}
+
+	/**
+	 * @return 上流のステップが正常終了した場合はtrue（以降、上限は変わらない）
+	 */
+	public synchronized boolean isCompleted() {
+		return completed;
+	}
+
+	/**
+	 * 上限を進めます（現在の上限以下の値は無視する）
+	 *
+	 * @param newValue コミット済みのキーの上限
+	 */
+	public synchronized void advance(long newValue) {
+		if(newValue > value) {
+			value = newValue;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * 上流のステップの正常終了を通知します
+	 */
+	public synchronized void complete() {
+		completed = true;
+		notifyAll();
+	}
+
+	/**
+	 * 上流のステップの異常終了を通知します
+	 *
+	 * @param cause 原因
+	 */
+	public synchronized void fail(Throwable cause) {
+		failure = cause;
+		notifyAll();
+	}
+
+	/**
+	 * 上限がafterより大きくなるか、上流のステップが終了するまで待機します
+	 *
+	 * @param after 読み込み済みの上限
+	 * @param timeoutMillis 最大の待機時間（ミリ秒）
+	 * @throws IllegalStateException 上流のステップが異常終了した場合
+	 */
+	public synchronized void await(long after, long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		while(value <= after && !completed && failure == null) {
+			long remaining = deadline - System.currentTimeMillis();
+			if(remaining <= 0) {
+				return;
+			}
+			wait(remaining);
+		}
+		if(failure != null) {
+			throw new IllegalStateException("Upstream step failed.", failure);
+		}
+	}
+
+}
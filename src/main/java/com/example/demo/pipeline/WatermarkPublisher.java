@@ -0,0 +1,113 @@
+package com.example.demo.pipeline;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+/**
+ * 上流のステップのリスナーとして、チャンクのコミットごとにWatermarkを進める
+ *
+ * 書き込み後（コミット前）にキーの上限を求めてステップのExecutionContext（キー「pipeline.watermark」）に設定し、
+ * コミット後に下流のステップへ公開する。ExecutionContextの値はチャンクと同じトランザクションで保存されるため、
+ * 常にコミット済みのデータの上限となる（ジョブの再実行時に下流のステップが参照する）。
+ *
+ * キーはコミット順に増加すること（上流のステップだけが書き込む、IDENTITY列等）。
+ * IDENTITY列の値がコミット順に増加するのは、書き込むスレッドが1つの場合だけのため
+ * （複数のスレッドでチャンクを処理すると、後に採番したチャンクが先にコミットされ、下流が未コミットのidを読み飛ばす）、
+ * 上流のステップはシングルスレッドとすること。チャンクをステップの開始時と異なるスレッドで書き込んだ場合は例外とする。
+ */
+public class WatermarkPublisher<T> implements StepExecutionListener, ItemWriteListener<T>, ChunkListener {
+
+	public static final String WATERMARK_KEY = "pipeline.watermark";
+
+	private final WatermarkRegistry registry;
+
+	private final LongSupplier source;
+
+	private StepExecution stepExecution;
+
+	private Thread stepThread;
+
+	private Watermark watermark;
+
+	private long pending = Watermark.NONE;
+
+	private long committed = Watermark.NONE;
+
+	/**
+	 * @param registry Watermarkの管理
+	 * @param source 書き込み済みのキーの上限を返す関数（無い場合はWatermark.NONE）
+	 */
+	public WatermarkPublisher(WatermarkRegistry registry, LongSupplier source) {
+		this.registry = registry;
+		this.source = source;
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		this.stepExecution = stepExecution;
+		this.stepThread = Thread.currentThread();
+		this.watermark = registry.get(stepExecution.getJobExecutionId(), stepExecution.getStepName());
+		// 再実行時は前回コミットした上限から始める
+		long restored = stepExecution.getExecutionContext().getLong(WATERMARK_KEY, Watermark.NONE);
+		pending = restored;
+		committed = restored;
+		watermark.advance(restored);
+	}
+
+	@Override
+	public void beforeWrite(List<? extends T> items) {
+	}
+
+	@Override
+	public void afterWrite(List<? extends T> items) {
+		if(Thread.currentThread() != stepThread) {
+			throw new IllegalStateException("The upstream step of a watermark must be single-threaded"
+					+ " (keys are not committed in increasing order by multiple threads). [step:" + stepExecution.getStepName() + "]");
+		}
+		pending = Math.max(pending, source.getAsLong());
+		stepExecution.getExecutionContext().putLong(WATERMARK_KEY, pending);
+	}
+
+	@Override
+	public void onWriteError(Exception exception, List<? extends T> items) {
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		committed = pending;
+		watermark.advance(committed);
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext context) {
+		// ロールバックしたチャンクの上限は公開せず、ExecutionContextもコミット済みの上限に戻す
+		pending = committed;
+		stepExecution.getExecutionContext().putLong(WATERMARK_KEY, committed);
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		if(stepExecution.getStatus() == BatchStatus.COMPLETED) {
+			watermark.complete();
+		} else {
+			List<Throwable> failures = stepExecution.getFailureExceptions();
+			watermark.fail(failures.isEmpty()
+					? new IllegalStateException("Upstream step ended with " + stepExecution.getStatus())
+					: failures.get(0));
+		}
+		return null;
+	}
+
+}
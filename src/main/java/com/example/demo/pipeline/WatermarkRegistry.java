@@ -0,0 +1,39 @@
+package com.example.demo.pipeline;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+
+/**
+ * ジョブ実行ごとに、上流のステップのWatermarkを管理する
+ *
+ * Watermarkはジョブ実行（JobExecutionのid）と上流のステップ名で識別する。
+ * 並行して実行するステップの開始順は決まらないため、上流・下流のどちらが先に参照しても同じインスタンスを返す。
+ * ジョブのリスナーとして登録すると、ジョブの終了時にそのジョブ実行のWatermarkを破棄する。
+ */
+public class WatermarkRegistry implements JobExecutionListener {
+
+	private final Map<String, Watermark> watermarks = new ConcurrentHashMap<>();
+
+	/**
+	 * @param jobExecutionId ジョブ実行のid
+	 * @param stepName 上流のステップ名
+	 * @return Watermark
+	 */
+	public Watermark get(long jobExecutionId, String stepName) {
+		return watermarks.computeIfAbsent(jobExecutionId + ":" + stepName, key -> new Watermark());
+	}
+
+	@Override
+	public void beforeJob(JobExecution jobExecution) {
+	}
+
+	@Override
+	public void afterJob(JobExecution jobExecution) {
+		String prefix = jobExecution.getId() + ":";
+		watermarks.keySet().removeIf(key -> key.startsWith(prefix));
+	}
+
+}
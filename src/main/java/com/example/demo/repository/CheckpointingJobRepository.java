@@ -0,0 +1,189 @@
+package com.example.demo.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+
+/**
+ * 実行中のステップのメタデータ更新を間引くJobRepository
+ *
+ * チャンク指向のステップは、コミットごとにBATCH_STEP_EXECUTION（件数等）とBATCH_STEP_EXECUTION_CONTEXT（読み込み位置等）を更新する。
+ * このクラスは、実行中（STARTED）のステップについて、intervalChunksチャンクごと、または前回の更新からintervalMillis経過した時だけ
+ * 委譲先のJobRepositoryへ更新を渡し、それ以外の更新は行わない。
+ * ステップの開始時と終了時（COMPLETED、FAILED、STOPPED等）の更新、ジョブの更新は常に委譲先へ渡す。
+ *
+ * 　　<再実行の単位>
+ * 　　・ステップが正常終了・異常終了した場合は、終了時に最後にコミットしたチャンクまでの状態を更新するため、
+ * 　　　再実行時の読み込み位置は間引かない場合と同じになる。
+ * 　　・プロセスの強制終了などで終了時の更新が行われなかった場合、再実行時は最後に更新したチェックポイントから読み込むため、
+ * 　　　最大で intervalChunks チャンク分（または intervalMillis の間に処理したチャンク分）のデータを再度処理する。
+ * 　　　この場合も重複しないよう、書き込みは登録・更新（batch.writer.upsert=true）等の冪等な方式とすること。
+ * 　　・ジョブの停止要求（JobOperator.stop）は委譲先へ更新を渡した時に検知するため、停止までの時間も同様に遅れる。
+ */
+public class CheckpointingJobRepository implements JobRepository {
+
+	private static final Logger log = LoggerFactory.getLogger(CheckpointingJobRepository.class);
+
+	private final JobRepository delegate;
+
+	private final int intervalChunks;
+
+	private final long intervalMillis;
+
+	private final Map<Long, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+	private LongSupplier clock = System::currentTimeMillis;
+
+	/**
+	 * @param delegate 委譲先のJobRepository
+	 * @param intervalChunks 更新するチャンク数の間隔（1以下の場合は毎チャンク）
+	 * @param intervalMillis 更新する時間の間隔（ミリ秒、0以下の場合は時間では更新しない）
+	 */
+	public CheckpointingJobRepository(JobRepository delegate, int intervalChunks, long intervalMillis) {
+		this.delegate = delegate;
+		this.intervalChunks = Math.max(intervalChunks, 1);
+		this.intervalMillis = intervalMillis;
+	}
+
+	/**
+	 * 更新する時間の間隔の判定に使用する現在時刻（ミリ秒）の取得方法を設定します（テスト用）
+	 *
+	 * @param clock 現在時刻を返す関数
+	 */
+	void setClock(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public void updateExecutionContext(StepExecution stepExecution) {
+		// チャンクのコミット時は updateExecutionContext ⇒ update の順に呼ばれるため、
+		// ここで更新するかどうかを決め、続くupdateも同じ判断に従う
+		if(!isRunning(stepExecution)) {
+			delegate.updateExecutionContext(stepExecution);
+			return;
+		}
+
+		long now = clock.getAsLong();
+		Checkpoint checkpoint = checkpoints.computeIfAbsent(stepExecution.getId(), id -> new Checkpoint(now));
+		checkpoint.chunks++;
+		if(checkpoint.first || checkpoint.chunks >= intervalChunks
+				|| (intervalMillis > 0 && now - checkpoint.lastFlushed >= intervalMillis)) {
+			delegate.updateExecutionContext(stepExecution);
+			checkpoint.first = false;
+			checkpoint.chunks = 0;
+			checkpoint.lastFlushed = now;
+			checkpoint.updatePending = true;
+		}
+	}
+
+	@Override
+	public void update(StepExecution stepExecution) {
+		if(!isRunning(stepExecution)) {
+			Checkpoint checkpoint = stepExecution.getId() != null ? checkpoints.remove(stepExecution.getId()) : null;
+			if(checkpoint != null && checkpoint.skipped > 0) {
+				log.debug("Skipped {} step execution update(s). [step:{}]", checkpoint.skipped, stepExecution.getStepName());
+			}
+			delegate.update(stepExecution);
+			return;
+		}
+
+		Checkpoint checkpoint = checkpoints.computeIfAbsent(stepExecution.getId(), id -> new Checkpoint(clock.getAsLong()));
+		if(checkpoint.updatePending || !checkpoint.started) {
+			delegate.update(stepExecution);
+			checkpoint.started = true;
+			checkpoint.updatePending = false;
+		} else {
+			checkpoint.skipped++;
+		}
+	}
+
+	private boolean isRunning(StepExecution stepExecution) {
+		return stepExecution.getId() != null && stepExecution.getStatus() == BatchStatus.STARTED;
+	}
+
+	@Override
+	public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+		return delegate.isJobInstanceExists(jobName, jobParameters);
+	}
+
+	@Override
+	public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+		return delegate.createJobInstance(jobName, jobParameters);
+	}
+
+	@Override
+	public JobExecution createJobExecution(JobInstance jobInstance, JobParameters jobParameters, String jobConfigurationLocation) {
+		return delegate.createJobExecution(jobInstance, jobParameters, jobConfigurationLocation);
+	}
+
+	@Override
+	public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+			throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+		return delegate.createJobExecution(jobName, jobParameters);
+	}
+
+	@Override
+	public void update(JobExecution jobExecution) {
+		delegate.update(jobExecution);
+	}
+
+	@Override
+	public void add(StepExecution stepExecution) {
+		delegate.add(stepExecution);
+	}
+
+	@Override
+	public void addAll(Collection<StepExecution> stepExecutions) {
+		delegate.addAll(stepExecutions);
+	}
+
+	@Override
+	public void updateExecutionContext(JobExecution jobExecution) {
+		delegate.updateExecutionContext(jobExecution);
+	}
+
+	@Override
+	public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+		return delegate.getLastStepExecution(jobInstance, stepName);
+	}
+
+	@Override
+	public int getStepExecutionCount(JobInstance jobInstance, String stepName) {
+		return delegate.getStepExecutionCount(jobInstance, stepName);
+	}
+
+	@Override
+	public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+		return delegate.getLastJobExecution(jobName, jobParameters);
+	}
+
+	/**
+	 * ステップ実行ごとの更新状況
+	 */
+	private static class Checkpoint {
+		private boolean started;
+		private boolean first = true;
+		private boolean updatePending;
+		private int chunks;
+		private long lastFlushed;
+		private int skipped;
+
+		Checkpoint(long now) {
+			this.lastFlushed = now;
+		}
+	}
+
+}
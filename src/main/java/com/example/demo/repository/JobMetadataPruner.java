@@ -0,0 +1,124 @@
+package com.example.demo.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.repository.dao.AbstractJdbcBatchMetadataDao;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * 保持期間を過ぎたジョブのメタデータ（BATCH_*テーブル）を削除する
+ *
+ * 削除はジョブインスタンス単位で行い、すべての実行が保持期間より前に終了したインスタンスだけを対象とする。
+ * 実行中（END_TIMEが無い）の実行を含むインスタンスは削除しない。
+ * 外部キーの順序（ステップのExecutionContext ⇒ ステップ ⇒ ジョブのExecutionContext・パラメータ ⇒ ジョブの実行 ⇒ インスタンス）で削除する。
+ *
+ * archiveTablePrefixを指定した場合は、削除する前に同じ構造のアーカイブ用テーブル（例：BATCH_ARCHIVE_JOB_INSTANCE）に複写する。
+ *
+ * 　　<注意>
+ * 　　インスタンスを削除すると、同じ識別パラメータのジョブを再度起動できるようになる（JobInstanceAlreadyCompleteExceptionとならない）。
+ * 　　また、失敗したインスタンスを削除した場合は、再実行時に前回の読み込み位置から再開しない。
+ */
+public class JobMetadataPruner {
+
+	private static final String FIND_INSTANCES = "SELECT I.JOB_INSTANCE_ID FROM %PREFIX%JOB_INSTANCE I"
+			+ " WHERE I.JOB_INSTANCE_ID > ?"
+			+ " AND NOT EXISTS (SELECT 1 FROM %PREFIX%JOB_EXECUTION E WHERE E.JOB_INSTANCE_ID = I.JOB_INSTANCE_ID"
+			+ " AND (E.END_TIME IS NULL OR E.END_TIME >= ?))"
+			+ " ORDER BY I.JOB_INSTANCE_ID";
+
+	private static final String JOB_EXECUTIONS = "SELECT JOB_EXECUTION_ID FROM %PREFIX%JOB_EXECUTION WHERE JOB_INSTANCE_ID IN (:ids)";
+
+	private static final String STEP_EXECUTIONS = "SELECT STEP_EXECUTION_ID FROM %PREFIX%STEP_EXECUTION WHERE JOB_EXECUTION_ID IN ("
+			+ JOB_EXECUTIONS + ")";
+
+	/**
+	 * 削除するテーブル（プレフィックスを除く）と条件（外部キーの順序）
+	 */
+	private static final String[][] TABLES = {
+		{"STEP_EXECUTION_CONTEXT", "STEP_EXECUTION_ID IN (" + STEP_EXECUTIONS + ")"},
+		{"STEP_EXECUTION", "JOB_EXECUTION_ID IN (" + JOB_EXECUTIONS + ")"},
+		{"JOB_EXECUTION_CONTEXT", "JOB_EXECUTION_ID IN (" + JOB_EXECUTIONS + ")"},
+		{"JOB_EXECUTION_PARAMS", "JOB_EXECUTION_ID IN (" + JOB_EXECUTIONS + ")"},
+		{"JOB_EXECUTION", "JOB_INSTANCE_ID IN (:ids)"},
+		{"JOB_INSTANCE", "JOB_INSTANCE_ID IN (:ids)"},
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	private final String tablePrefix;
+
+	private String archiveTablePrefix;
+
+	/**
+	 * @param dataSource データソース
+	 * @param tablePrefix メタデータのテーブル名のプレフィックス（nullの場合は「BATCH_」）
+	 */
+	public JobMetadataPruner(DataSource dataSource, String tablePrefix) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		this.tablePrefix = tablePrefix != null ? tablePrefix : AbstractJdbcBatchMetadataDao.DEFAULT_TABLE_PREFIX;
+	}
+
+	/**
+	 * 削除する前に複写するアーカイブ用テーブルのプレフィックスを設定します。デフォルトは複写しない
+	 *
+	 * @param archiveTablePrefix テーブル名のプレフィックス（例：「BATCH_ARCHIVE_」。nullの場合は複写しない）
+	 */
+	public void setArchiveTablePrefix(String archiveTablePrefix) {
+		this.archiveTablePrefix = archiveTablePrefix;
+	}
+
+	/**
+	 * 削除できるジョブインスタンスをIDの昇順に検索します
+	 *
+	 * @param cutoff この日時より前に終了した実行だけのインスタンスを対象とする
+	 * @param afterId このIDより後のインスタンスを検索する（前回の検索の最後のID。最初は-1）
+	 * @param limit 件数の上限
+	 * @return ジョブインスタンスのID
+	 */
+	public List<Long> findPrunableInstances(Instant cutoff, long afterId, int limit) {
+		return jdbcTemplate.queryForList(sql(FIND_INSTANCES, tablePrefix) + " FETCH FIRST " + Math.max(limit, 1) + " ROWS ONLY",
+				Long.class, afterId, Timestamp.from(cutoff));
+	}
+
+	/**
+	 * ジョブインスタンスとその実行のメタデータを削除します（アーカイブ用テーブルを指定した場合は複写してから削除する）
+	 *
+	 * 呼び出し元のトランザクション内で実行するため、1回に渡すIDの件数でロックの範囲とトランザクションの大きさを調整すること。
+	 *
+	 * @param instanceIds ジョブインスタンスのID
+	 * @return テーブル（プレフィックスを除く）ごとの削除した行数
+	 */
+	public Map<String, Integer> prune(List<Long> instanceIds) {
+		Map<String, Integer> deleted = new LinkedHashMap<>();
+		if(instanceIds.isEmpty()) {
+			return deleted;
+		}
+		MapSqlParameterSource parameters = new MapSqlParameterSource("ids", instanceIds);
+		for(String[] table : TABLES) {
+			String where = sql(table[1], tablePrefix);
+			if(archiveTablePrefix != null) {
+				namedParameterJdbcTemplate.update("INSERT INTO " + archiveTablePrefix + table[0]
+						+ " SELECT * FROM " + tablePrefix + table[0] + " WHERE " + where, parameters);
+			}
+			deleted.put(table[0], namedParameterJdbcTemplate.update(
+					"DELETE FROM " + tablePrefix + table[0] + " WHERE " + where, parameters));
+		}
+		return deleted;
+	}
+
+	private static String sql(String sql, String tablePrefix) {
+		return sql.replace("%PREFIX%", tablePrefix);
+	}
+
+}
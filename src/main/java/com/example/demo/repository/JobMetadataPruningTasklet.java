@@ -0,0 +1,91 @@
+package com.example.demo.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * 保持期間を過ぎたジョブのメタデータをJobMetadataPrunerで削除するTasklet
+ *
+ * 1回の呼び出しでbatchSize件のジョブインスタンスを削除し、残りがある場合はCONTINUABLEを返す。
+ * TaskletStepは呼び出しごとにトランザクションをコミットするため、ロックの範囲とトランザクションの大きさはbatchSize件分に収まる。
+ *
+ * 保持期間の基準日時、削除済みの最後のIDと件数はステップのExecutionContextに保存し、再実行時は続きから削除する。
+ * 削除したインスタンスの件数をステップのWRITE_COUNTに、テーブルごとの行数をカウンター「batch.housekeeping.pruned」に計上する。
+ */
+public class JobMetadataPruningTasklet implements Tasklet {
+
+	private static final Logger log = LoggerFactory.getLogger(JobMetadataPruningTasklet.class);
+
+	static final String CUTOFF_KEY = "housekeeping.cutoff";
+
+	static final String LAST_ID_KEY = "housekeeping.last-instance-id";
+
+	static final String PRUNED_KEY = "housekeeping.pruned-instances";
+
+	private final JobMetadataPruner pruner;
+
+	private final Duration retention;
+
+	private int batchSize = 100;
+
+	/**
+	 * @param pruner メタデータを削除するJobMetadataPruner
+	 * @param retention 保持期間（正の値）
+	 */
+	public JobMetadataPruningTasklet(JobMetadataPruner pruner, Duration retention) {
+		if(retention.isNegative() || retention.isZero()) {
+			throw new IllegalArgumentException("Retention must be positive: " + retention);
+		}
+		this.pruner = pruner;
+		this.retention = retention;
+	}
+
+	/**
+	 * 1回のトランザクションで削除するジョブインスタンスの件数を設定します。デフォルトは100
+	 *
+	 * @param batchSize 件数
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = Math.max(batchSize, 1);
+	}
+
+	@Override
+	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+		ExecutionContext context = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+		if(!context.containsKey(CUTOFF_KEY)) {
+			// 実行中に保持期間の範囲が変わらないよう、基準日時は最初の呼び出し時に決める
+			context.putLong(CUTOFF_KEY, Instant.now().minus(retention).toEpochMilli());
+		}
+		Instant cutoff = Instant.ofEpochMilli(context.getLong(CUTOFF_KEY));
+		long lastId = context.getLong(LAST_ID_KEY, -1L);
+
+		List<Long> instanceIds = pruner.findPrunableInstances(cutoff, lastId, batchSize);
+		if(!instanceIds.isEmpty()) {
+			Map<String, Integer> deleted = pruner.prune(instanceIds);
+			deleted.forEach((table, rows) -> Metrics.counter("batch.housekeeping.pruned", "table", table).increment(rows));
+			contribution.incrementWriteCount(instanceIds.size());
+			context.putLong(LAST_ID_KEY, instanceIds.get(instanceIds.size() - 1));
+			context.putLong(PRUNED_KEY, context.getLong(PRUNED_KEY, 0L) + instanceIds.size());
+			log.debug("Pruned {} job instance(s). [rows:{}]", instanceIds.size(), deleted);
+		}
+
+		if(instanceIds.size() < batchSize) {
+			log.info("Pruned job metadata. [cutoff:{}, instances:{}]", cutoff, context.getLong(PRUNED_KEY, 0L));
+			return RepeatStatus.FINISHED;
+		}
+		return RepeatStatus.CONTINUABLE;
+	}
+
+}
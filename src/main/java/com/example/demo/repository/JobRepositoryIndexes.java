@@ -0,0 +1,98 @@
+package com.example.demo.repository;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.repository.dao.AbstractJdbcBatchMetadataDao;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JobRepository・JobExplorerの検索に必要なインデックスがメタデータのテーブルにあるかどうかを確認する
+ *
+ * 外部キーの列（JOB_INSTANCE_ID、JOB_EXECUTION_ID）で子テーブルを検索するため、
+ * インデックスが無いDB（DB2は外部キーにインデックスを自動で作成しない）では、メタデータの件数に比例してジョブの起動が遅くなる。
+ * 列を先頭に含むインデックス（主キー・一意制約を含む）があれば、インデックスがあるものとする。
+ */
+public class JobRepositoryIndexes {
+
+	/**
+	 * 確認するテーブル（プレフィックスを除く）と列
+	 *
+	 * 　　JOB_INSTANCE.JOB_NAME                 : getJobInstances、findRunningJobExecutions等（JOB_INST_UNで作成される）
+	 * 　　JOB_EXECUTION.JOB_INSTANCE_ID         : getLastJobExecution、findJobExecutions等
+	 * 　　JOB_EXECUTION_PARAMS.JOB_EXECUTION_ID : getJobParameters
+	 * 　　STEP_EXECUTION.JOB_EXECUTION_ID       : getStepExecutions、getLastStepExecution等
+	 */
+	private static final String[][] REQUIRED = {
+		{"JOB_INSTANCE", "JOB_NAME"},
+		{"JOB_EXECUTION", "JOB_INSTANCE_ID"},
+		{"JOB_EXECUTION_PARAMS", "JOB_EXECUTION_ID"},
+		{"STEP_EXECUTION", "JOB_EXECUTION_ID"},
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String tablePrefix;
+
+	/**
+	 * @param dataSource データソース
+	 * @param tablePrefix メタデータのテーブル名のプレフィックス（nullの場合は「BATCH_」）
+	 */
+	public JobRepositoryIndexes(DataSource dataSource, String tablePrefix) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.tablePrefix = tablePrefix != null ? tablePrefix : AbstractJdbcBatchMetadataDao.DEFAULT_TABLE_PREFIX;
+	}
+
+	/**
+	 * @return インデックスが無いテーブルと列（「テーブル名(列名)」）
+	 */
+	public List<String> findMissing() {
+		return jdbcTemplate.execute((Connection connection) -> {
+			DatabaseMetaData metaData = connection.getMetaData();
+			List<String> missing = new ArrayList<>();
+			for(String[] required : REQUIRED) {
+				String table = identifier(metaData, tablePrefix + required[0]);
+				String column = identifier(metaData, required[1]);
+				if(!leadingColumns(metaData, connection.getSchema(), table).contains(column)) {
+					missing.add(table + "(" + column + ")");
+				}
+			}
+			return missing;
+		});
+	}
+
+	/**
+	 * @return テーブルのインデックスの先頭の列
+	 */
+	private static Set<String> leadingColumns(DatabaseMetaData metaData, String schema, String table) throws SQLException {
+		Set<String> columns = new HashSet<>();
+		try(ResultSet rs = metaData.getIndexInfo(null, schema, table, false, true)) {
+			while(rs.next()) {
+				if(rs.getShort("ORDINAL_POSITION") == 1 && rs.getString("COLUMN_NAME") != null) {
+					columns.add(rs.getString("COLUMN_NAME"));
+				}
+			}
+		}
+		return columns;
+	}
+
+	private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+		if(metaData.storesUpperCaseIdentifiers()) {
+			return name.toUpperCase(Locale.ROOT);
+		}
+		if(metaData.storesLowerCaseIdentifiers()) {
+			return name.toLowerCase(Locale.ROOT);
+		}
+		return name;
+	}
+
+}
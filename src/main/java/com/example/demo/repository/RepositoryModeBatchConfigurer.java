@@ -0,0 +1,79 @@
+package com.example.demo.repository;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.MapJobExplorerFactoryBean;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
+import org.springframework.boot.autoconfigure.batch.BasicBatchConfigurer;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+
+/**
+ * JobRepositoryの方式を切り替えるBatchConfigurer
+ *
+ * 　　jdbc       : Spring Bootのデフォルト（コミットごとにメタデータテーブルを更新する）
+ * 　　checkpoint : 実行中のステップのメタデータ更新を間引く（CheckpointingJobRepository）
+ * 　　memory     : メタデータをメモリ上にだけ保持する（プロセス終了で消えるため、再実行はできない）
+ *
+ * memoryは性能測定等の使い捨ての実行用。データの書き込みは通常どおりDataSourceのトランザクションで行う。
+ */
+public class RepositoryModeBatchConfigurer extends BasicBatchConfigurer {
+
+	private static final Logger log = LoggerFactory.getLogger(RepositoryModeBatchConfigurer.class);
+
+	/**
+	 * JobRepositoryの方式
+	 */
+	public enum Mode {
+		JDBC, CHECKPOINT, MEMORY
+	}
+
+	private final Mode mode;
+
+	private final int checkpointIntervalChunks;
+
+	private final long checkpointIntervalMillis;
+
+	private MapJobRepositoryFactoryBean mapJobRepositoryFactory;
+
+	public RepositoryModeBatchConfigurer(BatchProperties properties, DataSource dataSource,
+			TransactionManagerCustomizers transactionManagerCustomizers,
+			Mode mode, int checkpointIntervalChunks, long checkpointIntervalMillis) {
+		super(properties, dataSource, transactionManagerCustomizers);
+		this.mode = mode;
+		this.checkpointIntervalChunks = checkpointIntervalChunks;
+		this.checkpointIntervalMillis = checkpointIntervalMillis;
+	}
+
+	@Override
+	protected JobRepository createJobRepository() throws Exception {
+		switch(mode) {
+		case CHECKPOINT:
+			log.info("JobRepository mode: checkpoint [interval-chunks:{}, interval:{}ms]", checkpointIntervalChunks, checkpointIntervalMillis);
+			return new CheckpointingJobRepository(super.createJobRepository(), checkpointIntervalChunks, checkpointIntervalMillis);
+		case MEMORY:
+			log.warn("JobRepository mode: memory (job metadata is not persisted and jobs cannot be restarted)");
+			mapJobRepositoryFactory = new MapJobRepositoryFactoryBean(getTransactionManager());
+			mapJobRepositoryFactory.afterPropertiesSet();
+			return mapJobRepositoryFactory.getObject();
+		default:
+			return super.createJobRepository();
+		}
+	}
+
+	@Override
+	protected JobExplorer createJobExplorer() throws Exception {
+		if(mapJobRepositoryFactory != null) {
+			// メモリ上のJobRepositoryと同じデータを参照する
+			MapJobExplorerFactoryBean factory = new MapJobExplorerFactoryBean(mapJobRepositoryFactory);
+			factory.afterPropertiesSet();
+			return factory.getObject();
+		}
+		return super.createJobExplorer();
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.example.demo.retry;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * 例外の原因のSQLExceptionのSQLStateが指定した値の場合だけ再試行するRetryPolicy
+ *
+ * デッドロックやロックのタイムアウトのように、同じ処理を再度実行すれば成功する可能性のある失敗を対象とする。
+ * 　　40001 : デッドロックまたはタイムアウトによるロールバック（DB2のSQLCODE -911、HSQLDB等の直列化の失敗）
+ * 　　57033 : デッドロックまたはタイムアウト（ロールバックなし。DB2のSQLCODE -913）
+ * 例外の原因（getCause）とSQLException.getNextExceptionを順にたどって判定する
+ * （MyBatisのバッチ更新の失敗は、BatchUpdateExceptionの次の例外に元のSQLStateが設定される場合がある）。
+ *
+ * 再試行するたびに警告のログと、Micrometerのメトリクス（batch.lock.retry、タグsqlState）を出力する。
+ */
+public class SqlStateRetryPolicy extends SimpleRetryPolicy {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger log = LoggerFactory.getLogger(SqlStateRetryPolicy.class);
+
+	private final Set<String> sqlStates;
+
+	/**
+	 * @param maxAttempts 最大の試行回数（初回を含む）
+	 * @param sqlStates 再試行するSQLState
+	 */
+	public SqlStateRetryPolicy(int maxAttempts, Collection<String> sqlStates) {
+		setMaxAttempts(maxAttempts);
+		this.sqlStates = new HashSet<>(sqlStates);
+	}
+
+	@Override
+	public boolean canRetry(RetryContext context) {
+		Throwable throwable = context.getLastThrowable();
+		return (throwable == null || findSqlState(throwable) != null) && context.getRetryCount() < getMaxAttempts();
+	}
+
+	@Override
+	public void registerThrowable(RetryContext context, Throwable throwable) {
+		super.registerThrowable(context, throwable);
+		String sqlState = throwable != null ? findSqlState(throwable) : null;
+		if(sqlState != null) {
+			Metrics.counter("batch.lock.retry", "sqlState", sqlState).increment();
+			if(context.getRetryCount() < getMaxAttempts()) {
+				log.warn("Lock conflict detected. The chunk is retried. [sqlState:{}, attempt:{}/{}]",
+						sqlState, context.getRetryCount() + 1, getMaxAttempts());
+			}
+		}
+	}
+
+	/**
+	 * @param throwable 例外
+	 * @return 再試行の対象のSQLState（対象でない場合はnull）
+	 */
+	public String findSqlState(Throwable throwable) {
+		Set<Throwable> visited = new HashSet<>();
+		for(Throwable t = throwable; t != null && visited.add(t); t = t.getCause()) {
+			if(!(t instanceof SQLException)) {
+				continue;
+			}
+			Set<SQLException> chain = new HashSet<>();
+			for(SQLException e = (SQLException) t; e != null && chain.add(e); e = e.getNextException()) {
+				if(sqlStates.contains(e.getSQLState())) {
+					return e.getSQLState();
+				}
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.example.demo.sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * CSVの1行（列の値の配列）を指定した列の順に比較するComparator
+ *
+ * 並べ替えのキーは「列名[:修飾子...]」をカンマ区切りで指定する。例えば「lastName,firstName:desc」
+ * 　　・asc     : 昇順（デフォルト）
+ * 　　・desc    : 降順
+ * 　　・numeric : 数値として比較する（数値でない値は数値より後）
+ * 空文字とnull（列の不足を含む）は、昇順の場合は先頭になる。
+ * 文字列はString.compareToで比較する（DBの照合順序とは異なる場合がある）。
+ */
+public class ColumnComparator implements Comparator<String[]> {
+
+	private final List<Key> keys;
+
+	private ColumnComparator(List<Key> keys) {
+		this.keys = keys;
+	}
+
+	/**
+	 * @param headers CSVの列名
+	 * @param keySpec 並べ替えのキー（「列名[:修飾子...]」のカンマ区切り）
+	 * @return Comparator
+	 * @throws IllegalArgumentException 列名が存在しない、または修飾子が不正な場合
+	 */
+	public static ColumnComparator of(String[] headers, String keySpec) {
+		List<Key> keys = new ArrayList<>();
+		for(String spec : keySpec.split(",")) {
+			String[] parts = spec.trim().split(":");
+			int index = Arrays.asList(headers).indexOf(parts[0].trim());
+			if(index < 0) {
+				throw new IllegalArgumentException("Unknown sort column: " + parts[0].trim() + " (columns: " + Arrays.toString(headers) + ")");
+			}
+			boolean descending = false;
+			boolean numeric = false;
+			for(int i = 1; i < parts.length; i++) {
+				switch(parts[i].trim().toLowerCase()) {
+				case "asc":
+					descending = false;
+					break;
+				case "desc":
+					descending = true;
+					break;
+				case "numeric":
+					numeric = true;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown sort option: " + parts[i].trim() + " (column: " + parts[0].trim() + ")");
+				}
+			}
+			keys.add(new Key(index, descending, numeric));
+		}
+		if(keys.isEmpty()) {
+			throw new IllegalArgumentException("No sort column specified.");
+		}
+		return new ColumnComparator(keys);
+	}
+
+	@Override
+	public int compare(String[] a, String[] b) {
+		for(Key key : keys) {
+			int result = key.compare(value(a, key.index), value(b, key.index));
+			if(result != 0) {
+				return key.descending ? -result : result;
+			}
+		}
+		return 0;
+	}
+
+	private static String value(String[] record, int index) {
+		return index < record.length ? record[index] : null;
+	}
+
+	private static class Key {
+
+		private final int index;
+
+		private final boolean descending;
+
+		private final boolean numeric;
+
+		Key(int index, boolean descending, boolean numeric) {
+			this.index = index;
+			this.descending = descending;
+			this.numeric = numeric;
+		}
+
+		int compare(String a, String b) {
+			boolean emptyA = a == null || a.isEmpty();
+			boolean emptyB = b == null || b.isEmpty();
+			if(emptyA || emptyB) {
+				return Boolean.compare(!emptyA, !emptyB);
+			}
+			if(!numeric) {
+				return a.compareTo(b);
+			}
+			BigDecimal numberA = toNumber(a);
+			BigDecimal numberB = toNumber(b);
+			if(numberA == null || numberB == null) {
+				return numberA != null ? -1 : numberB != null ? 1 : a.compareTo(b);
+			}
+			return numberA.compareTo(numberB);
+		}
+
+		private static BigDecimal toNumber(String value) {
+			try {
+				return new BigDecimal(value.trim());
+			} catch(NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+
+}
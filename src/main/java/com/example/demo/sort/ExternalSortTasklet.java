@@ -0,0 +1,110 @@
+package com.example.demo.sort;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.repeat.RepeatStatus;
+
+/**
+ * ItemReaderで読み込んだデータをExternalSorterで並べ替えてファイルに書き出すTasklet
+ *
+ * ItemReaderがItemStreamの場合は、このTasklet内で開いて閉じる（再実行時は先頭から読み込み直す）。
+ * 読み込んだ件数をステップのREAD_COUNT、書き出した件数をWRITE_COUNTに計上する。
+ */
+public class ExternalSortTasklet<T> implements Tasklet {
+
+	private static final Logger log = LoggerFactory.getLogger(ExternalSortTasklet.class);
+
+	private final ItemReader<? extends T> reader;
+
+	private final ExternalSorter<T> sorter;
+
+	private final File output;
+
+	/**
+	 * @param reader 入力
+	 * @param sorter 並べ替えに使用するExternalSorter
+	 * @param output 出力ファイル（RecordFileReaderで読み込む）
+	 */
+	public ExternalSortTasklet(ItemReader<? extends T> reader, ExternalSorter<T> sorter, File output) {
+		this.reader = reader;
+		this.sorter = sorter;
+		this.output = output;
+	}
+
+	@Override
+	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+		File parent = output.getAbsoluteFile().getParentFile();
+		if(parent != null) {
+			parent.mkdirs();
+		}
+
+		if(reader instanceof ItemStream) {
+			((ItemStream) reader).open(new ExecutionContext());
+		}
+		try {
+			long count = sorter.sort(new ReaderIterator(contribution), output);
+			contribution.incrementWriteCount((int) Math.min(count, Integer.MAX_VALUE));
+			log.info("Sorted {} record(s). [output:{}]", count, output);
+		} finally {
+			if(reader instanceof ItemStream) {
+				((ItemStream) reader).close();
+			}
+		}
+		return RepeatStatus.FINISHED;
+	}
+
+	/**
+	 * ItemReaderをIteratorとして読み込む
+	 */
+	private class ReaderIterator implements Iterator<T> {
+
+		private final StepContribution contribution;
+
+		private T next;
+
+		private boolean fetched;
+
+		ReaderIterator(StepContribution contribution) {
+			this.contribution = contribution;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if(!fetched) {
+				try {
+					next = reader.read();
+				} catch(RuntimeException e) {
+					throw e;
+				} catch(Exception e) {
+					throw new ItemStreamException("Failed to read input.", e);
+				}
+				fetched = true;
+				if(next != null) {
+					contribution.incrementReadCount();
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			fetched = false;
+			return next;
+		}
+	}
+
+}
@@ -0,0 +1,391 @@
+package com.example.demo.sort;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * メモリ使用量の上限付きでレコードを並べ替える（外部ソート）
+ *
+ * 入力をmaxRecordsInMemory件ずつメモリ上で並べ替えて一時ファイル（ラン）に書き出し、
+ * 最後にすべてのランを順にマージして出力ファイルに書き出す。
+ * ランの数がmaxFanInを超える場合は、隣り合うmaxFanIn個ずつを先にマージする。
+ *
+ * 比較結果が等しいレコードは入力の順序を保つ（安定ソート）。
+ * 出力ファイルはRecordFileReaderで読み込むこと。
+ *
+ * 　　<メモリ使用量の上限>
+ * 　　・maxRecordsInMemory : メモリ上に保持するレコード数の上限
+ * 　　・maxBytesInMemory   : メモリ上に保持するレコードの推定サイズの合計の上限（recordSizeでレコードごとのサイズを推定する）
+ * 　　いずれかの上限に達した時点でランを書き出す。
+ *
+ * 　　<並行処理>
+ * 　　parallelismが2以上の場合は、ランの並べ替えと書き出しを別スレッドで行い、その間に入力の読み込みを続ける。
+ * 　　読み込み中のバッファと並べ替え中のバッファの合計がparallelism個を超えないよう、
+ * 　　1つのランの上限はmaxRecordsInMemory（maxBytesInMemory）をparallelismで割った値とする（合計は上限を超えない）。
+ * 　　ランの順序は入力の順序のまま保つため、並行して書き出しても安定ソートとなる。
+ */
+public class ExternalSorter<T> {
+
+	private static final Logger log = LoggerFactory.getLogger(ExternalSorter.class);
+
+	private final RecordCodec<T> codec;
+
+	private final Comparator<? super T> comparator;
+
+	private int maxRecordsInMemory = 100_000;
+
+	private int maxFanIn = 64;
+
+	private File tempDirectory = new File(System.getProperty("java.io.tmpdir"));
+
+	private long maxBytesInMemory = Long.MAX_VALUE;
+
+	private ToLongFunction<? super T> recordSize;
+
+	private int parallelism = 1;
+
+	public ExternalSorter(RecordCodec<T> codec, Comparator<? super T> comparator) {
+		this.codec = codec;
+		this.comparator = comparator;
+	}
+
+	/**
+	 * メモリ上で並べ替えるレコード数の上限を設定します。デフォルトは100000
+	 *
+	 * @param maxRecordsInMemory レコード数
+	 */
+	public void setMaxRecordsInMemory(int maxRecordsInMemory) {
+		this.maxRecordsInMemory = maxRecordsInMemory;
+	}
+
+	/**
+	 * 1回のマージで同時に開くランの数の上限を設定します。デフォルトは64
+	 *
+	 * @param maxFanIn ランの数（2以上）
+	 */
+	public void setMaxFanIn(int maxFanIn) {
+		this.maxFanIn = Math.max(maxFanIn, 2);
+	}
+
+	public void setTempDirectory(File tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
+	/**
+	 * メモリ上で並べ替えるレコードの推定サイズの合計の上限を設定します。デフォルトは上限なし
+	 *
+	 * @param maxBytesInMemory バイト数
+	 * @param recordSize レコードごとの推定サイズ（バイト）を返す関数
+	 */
+	public void setMaxBytesInMemory(long maxBytesInMemory, ToLongFunction<? super T> recordSize) {
+		this.maxBytesInMemory = maxBytesInMemory;
+		this.recordSize = recordSize;
+	}
+
+	/**
+	 * ランの並べ替えと書き出しを並行して行う数（入力を読み込むスレッドを含む）を設定します。デフォルトは1（並行処理しない）
+	 *
+	 * @param parallelism 並行数（1以上）
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(parallelism, 1);
+	}
+
+	/**
+	 * 入力を並べ替えてファイルに書き出します
+	 *
+	 * @param input 入力
+	 * @param output 出力ファイル
+	 * @return レコード数
+	 */
+	public long sort(Iterator<? extends T> input, File output) throws IOException {
+		List<File> runs = new ArrayList<>();
+		RunWriter runWriter = parallelism > 1 ? new RunWriter() : null;
+		try {
+			int maxRecords = Math.max(maxRecordsInMemory / parallelism, 1);
+			long maxBytes = Math.max(maxBytesInMemory / parallelism, 1);
+			List<T> buffer = new ArrayList<>(Math.min(maxRecords, 1 << 16));
+			long bytes = 0;
+			long count = 0;
+			while(input.hasNext()) {
+				T record = input.next();
+				buffer.add(record);
+				count++;
+				if(recordSize != null) {
+					bytes += recordSize.applyAsLong(record);
+				}
+				if(buffer.size() >= maxRecords || bytes >= maxBytes) {
+					if(runWriter != null) {
+						runs.add(runWriter.submit(buffer));
+						buffer = new ArrayList<>(Math.min(maxRecords, 1 << 16));
+					} else {
+						runs.add(writeRun(buffer));
+						buffer.clear();
+					}
+					bytes = 0;
+				}
+			}
+
+			if(runs.isEmpty()) {
+				// メモリに収まる場合は一時ファイルを使用しない
+				sortInMemory(buffer);
+				write(buffer, output);
+				return count;
+			}
+			if(!buffer.isEmpty()) {
+				runs.add(writeRun(buffer));
+				buffer.clear();
+			}
+			if(runWriter != null) {
+				runWriter.await();
+			}
+
+			log.debug("Merging {} run(s). [records:{}]", runs.size(), count);
+			merge(runs, output);
+			return count;
+		} finally {
+			if(runWriter != null) {
+				// 書き出し中のランを削除しないよう、スレッドの終了を待ってから削除する
+				runWriter.shutdown();
+			}
+			for(File run : runs) {
+				Files.deleteIfExists(run.toPath());
+			}
+		}
+	}
+
+	private void sortInMemory(List<T> records) {
+		if(parallelism > 1) {
+			// Arrays.parallelSortも安定ソートのため、等しいレコードの順序は変わらない
+			@SuppressWarnings("unchecked")
+			T[] array = (T[]) records.toArray();
+			Arrays.parallelSort(array, comparator);
+			records.clear();
+			records.addAll(Arrays.asList(array));
+		} else {
+			records.sort(comparator);
+		}
+	}
+
+	/**
+	 * 並べ替え済みのランをマージしてファイルに書き出します（ランのファイルは削除しない）
+	 *
+	 * @param runs ラン（入力の順序。比較結果が等しいレコードは前のランを先に出力する）
+	 * @param output 出力ファイル
+	 */
+	private void merge(List<File> runs, File output) throws IOException {
+		List<File> current = runs;
+		List<File> intermediates = new ArrayList<>();
+		try {
+			while(current.size() > maxFanIn) {
+				// 隣り合うランをまとめることで、等しいレコードの順序を保つ
+				List<File> next = new ArrayList<>();
+				for(int i = 0; i < current.size(); i += maxFanIn) {
+					List<File> group = current.subList(i, Math.min(i + maxFanIn, current.size()));
+					if(group.size() == 1) {
+						next.add(group.get(0));
+						continue;
+					}
+					File merged = createTempFile();
+					intermediates.add(merged);
+					mergeOnce(group, merged);
+					next.add(merged);
+				}
+				current = next;
+			}
+			mergeOnce(current, output);
+		} finally {
+			for(File file : intermediates) {
+				Files.deleteIfExists(file.toPath());
+			}
+		}
+	}
+
+	private void mergeOnce(List<File> runs, File output) throws IOException {
+		PriorityQueue<Cursor<T>> queue = new PriorityQueue<>(runs.size(), (a, b) -> {
+			int result = comparator.compare(a.current, b.current);
+			return result != 0 ? result : Integer.compare(a.index, b.index);
+		});
+		List<RecordFileReader<T>> readers = new ArrayList<>(runs.size());
+		try(RecordFileWriter<T> writer = new RecordFileWriter<>(output, codec)) {
+			for(int i = 0; i < runs.size(); i++) {
+				RecordFileReader<T> reader = new RecordFileReader<>(runs.get(i), codec);
+				readers.add(reader);
+				Cursor<T> cursor = new Cursor<>(i, reader);
+				if(cursor.next()) {
+					queue.add(cursor);
+				}
+			}
+			while(!queue.isEmpty()) {
+				Cursor<T> cursor = queue.poll();
+				writer.write(cursor.current);
+				if(cursor.next()) {
+					queue.add(cursor);
+				}
+			}
+		} finally {
+			for(RecordFileReader<T> reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	private File writeRun(List<T> records) throws IOException {
+		records.sort(comparator);
+		File run = createTempFile();
+		write(records, run);
+		return run;
+	}
+
+	private void write(List<T> records, File file) throws IOException {
+		try(RecordFileWriter<T> writer = new RecordFileWriter<>(file, codec)) {
+			for(T record : records) {
+				writer.write(record);
+			}
+		}
+	}
+
+	private File createTempFile() throws IOException {
+		return File.createTempFile("sort-", ".run", tempDirectory);
+	}
+
+	/**
+	 * ランの並べ替えと書き出しを別スレッドで行う
+	 *
+	 * 並べ替え中のバッファがparallelism - 1個に達している場合は、いずれかの書き出しが終わるまで待つ。
+	 */
+	private class RunWriter {
+
+		private final ExecutorService executor;
+
+		private final Semaphore inFlight = new Semaphore(parallelism - 1);
+
+		private final List<Future<?>> futures = new ArrayList<>();
+
+		RunWriter() {
+			AtomicInteger threads = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(parallelism - 1, runnable -> {
+				Thread thread = new Thread(runnable, "sort-run-" + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		/**
+		 * @param records ランのレコード（書き出しが終わるまで変更しないこと）
+		 * @return ランのファイル（書き出しはawaitで完了を待つ）
+		 */
+		File submit(List<T> records) throws IOException {
+			try {
+				inFlight.acquire();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a sort run.");
+			}
+			File run;
+			try {
+				// 書き出しに失敗したランは先に確認し、残りの入力を読み込まずに終了する
+				checkFailures();
+				run = createTempFile();
+				futures.add(executor.submit(() -> {
+					try {
+						records.sort(comparator);
+						write(records, run);
+						return null;
+					} finally {
+						inFlight.release();
+					}
+				}));
+			} catch(IOException | RuntimeException e) {
+				inFlight.release();
+				throw e;
+			}
+			return run;
+		}
+
+		void await() throws IOException {
+			for(Future<?> future : futures) {
+				get(future);
+			}
+		}
+
+		private void checkFailures() throws IOException {
+			for(Future<?> future : futures) {
+				if(future.isDone()) {
+					get(future);
+				}
+			}
+		}
+
+		private void get(Future<?> future) throws IOException {
+			try {
+				future.get();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a sort run.");
+			} catch(ExecutionException e) {
+				Throwable cause = e.getCause();
+				if(cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if(cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if(cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException(cause);
+			}
+		}
+
+		void shutdown() {
+			executor.shutdownNow();
+			try {
+				while(!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+					log.debug("Waiting for sort runs to finish.");
+				}
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static class Cursor<T> {
+
+		private final int index;
+
+		private final RecordFileReader<T> reader;
+
+		private T current;
+
+		Cursor(int index, RecordFileReader<T> reader) {
+			this.index = index;
+			this.reader = reader;
+		}
+
+		boolean next() throws IOException {
+			current = reader.read();
+			return current != null;
+		}
+	}
+
+}
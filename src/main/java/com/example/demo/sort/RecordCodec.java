@@ -0,0 +1,27 @@
+package com.example.demo.sort;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 1レコードをバイナリで読み書きするための変換
+ *
+ * ExternalSorterの一時ファイル等、プロセス内で書き出して読み戻すファイルに使用する。
+ * （CSVと違い区切り文字や改行のエスケープが不要なため、読み書きが速い）
+ */
+public interface RecordCodec<T> {
+
+	/**
+	 * @param record レコード
+	 * @param out 出力先
+	 */
+	void write(T record, DataOutput out) throws IOException;
+
+	/**
+	 * @param in 入力元
+	 * @return レコード
+	 */
+	T read(DataInput in) throws IOException;
+
+}
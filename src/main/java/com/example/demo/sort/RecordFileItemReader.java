@@ -0,0 +1,53 @@
+package com.example.demo.sort;
+
+import java.io.File;
+
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.util.Assert;
+
+/**
+ * RecordFileWriter（ExternalSorter等）で書き出したファイルを読み込むItemReader
+ *
+ * 再実行時は、読み込み済みの件数まで先頭から読み飛ばす（ファイルは前回の実行から変わらないこと）。
+ */
+public class RecordFileItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+	private File file;
+
+	private RecordCodec<T> codec;
+
+	private RecordFileReader<T> reader;
+
+	public RecordFileItemReader() {
+		setName(getClass().getSimpleName());
+	}
+
+	public void setFile(File file) {
+		this.file = file;
+	}
+
+	public void setCodec(RecordCodec<T> codec) {
+		this.codec = codec;
+	}
+
+	@Override
+	protected void doOpen() throws Exception {
+		Assert.notNull(file, "File must be set");
+		Assert.notNull(codec, "RecordCodec must be set");
+		reader = new RecordFileReader<>(file, codec);
+	}
+
+	@Override
+	protected T doRead() throws Exception {
+		return reader.read();
+	}
+
+	@Override
+	protected void doClose() throws Exception {
+		if(reader != null) {
+			reader.close();
+			reader = null;
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.example.demo.sort;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * RecordFileWriterで書き出したファイルからレコードを順に読み込む
+ */
+public class RecordFileReader<T> implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final RecordCodec<T> codec;
+
+	private final DataInputStream in;
+
+	private boolean finished;
+
+	public RecordFileReader(File file, RecordCodec<T> codec) throws IOException {
+		this.codec = codec;
+		this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+	}
+
+	/**
+	 * @return 次のレコード（終端の場合はnull）
+	 */
+	public T read() throws IOException {
+		if(finished) {
+			return null;
+		}
+		if(!in.readBoolean()) {
+			finished = true;
+			return null;
+		}
+		return codec.read(in);
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
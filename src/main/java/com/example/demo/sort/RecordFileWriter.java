@@ -0,0 +1,59 @@
+package com.example.demo.sort;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * RecordCodecでレコードをファイルに書き出す
+ *
+ * 各レコードの前に継続フラグ（true）を、最後に終了フラグ（false）を書き出すため、
+ * RecordFileReaderは途中で切れたファイルを正常な終端と区別できる。
+ */
+public class RecordFileWriter<T> implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final RecordCodec<T> codec;
+
+	private final DataOutputStream out;
+
+	private long count;
+
+	private boolean closed;
+
+	public RecordFileWriter(File file, RecordCodec<T> codec) throws IOException {
+		this.codec = codec;
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+	}
+
+	public void write(T record) throws IOException {
+		out.writeBoolean(true);
+		codec.write(record, out);
+		count++;
+	}
+
+	/**
+	 * @return 書き出したレコード数
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		try {
+			out.writeBoolean(false);
+		} finally {
+			out.close();
+		}
+	}
+
+}
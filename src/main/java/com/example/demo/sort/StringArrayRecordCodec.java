@@ -0,0 +1,61 @@
+package com.example.demo.sort;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSVの1行（列の値の配列）をバイナリで読み書きするためのRecordCodec
+ *
+ * 列の値はnullを許容する。DataOutput.writeUTFと違い、64KBを超える値も書き出せる。
+ */
+public class StringArrayRecordCodec implements RecordCodec<String[]> {
+
+	@Override
+	public void write(String[] record, DataOutput out) throws IOException {
+		out.writeInt(record.length);
+		for(String value : record) {
+			if(value == null) {
+				out.writeInt(-1);
+				continue;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	@Override
+	public String[] read(DataInput in) throws IOException {
+		String[] record = new String[in.readInt()];
+		for(int i = 0; i < record.length; i++) {
+			int length = in.readInt();
+			if(length < 0) {
+				continue;
+			}
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			record[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return record;
+	}
+
+	/**
+	 * ExternalSorter.setMaxBytesInMemoryに指定する、1行のメモリ上の推定サイズ
+	 *
+	 * @param record 1行
+	 * @return 推定サイズ（バイト）
+	 */
+	public static long estimateSize(String[] record) {
+		// 配列とStringのヘッダー、文字列の内容（Latin-1以外は1文字2バイト）の概算
+		long size = 16 + 4L * record.length;
+		for(String value : record) {
+			if(value != null) {
+				size += 40 + 2L * value.length();
+			}
+		}
+		return size;
+	}
+
+}
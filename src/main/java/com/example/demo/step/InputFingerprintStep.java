@@ -0,0 +1,283 @@
+package com.example.demo.step;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobInterruptedException;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.core.io.Resource;
+
+/**
+ * 入力ファイルと設定が前回の成功時と同じ場合に、ステップの実行を省略するStep
+ *
+ * 入力ファイルのフィンガープリント（サイズ、更新日時、内容のSHA-256）と設定のキーを、
+ * ステップとジョブのExecutionContextにキー「input.fingerprint」で保存する。
+ * 実行時に、このステップを含むジョブ（他のジョブを含む）の直近の成功（COMPLETED）した実行で、
+ * 同じ名前のステップとフィンガープリントが一致する場合は、委譲先のステップを実行せずにCOMPLETED（終了コードの説明「reused」）とする。
+ *
+ * 出力先の状態（targetState、例えばテーブルのチェックサム（TableChecksum））も併せて比較するため、
+ * 前回の実行後に出力先が変更・再作成された場合は省略しない。
+ * 出力先の状態はジョブの終了時（afterJob）にジョブのExecutionContext（キー「input.target-state.ステップ名」）に保存する。
+ * 後続のステップが出力先を加工するジョブでも、加工後の状態のままであれば取り込み済みとみなして省略する。
+ * （状態を保存するため、このステップを含むジョブにJobExecutionListenerとして登録すること）
+ *
+ * 直近の成功した実行は、JobExplorerでジョブごとに新しいジョブインスタンスから順に、最大 searchDepth 件まで探す。
+ */
+public class InputFingerprintStep implements Step, JobExecutionListener {
+
+	private static final Logger log = LoggerFactory.getLogger(InputFingerprintStep.class);
+
+	public static final String FINGERPRINT_KEY = "input.fingerprint";
+
+	public static final String TARGET_STATE_KEY = "input.target-state";
+
+	public static final String REUSED = "reused";
+
+	private final Step delegate;
+
+	private final JobRepository jobRepository;
+
+	private final JobExplorer jobExplorer;
+
+	private final Resource input;
+
+	private final String configKey;
+
+	private Supplier<String> targetState = () -> "";
+
+	private int searchDepth = 20;
+
+	/**
+	 * @param delegate 委譲先のステップ
+	 * @param jobRepository ステップの実行結果を記録するJobRepository
+	 * @param jobExplorer 前回の実行を検索するJobExplorer
+	 * @param input 入力ファイル
+	 * @param configKey ステップの設定を表す文字列（処理結果に影響する設定が変わった場合は省略しない）
+	 */
+	public InputFingerprintStep(Step delegate, JobRepository jobRepository, JobExplorer jobExplorer, Resource input, String configKey) {
+		this.delegate = delegate;
+		this.jobRepository = jobRepository;
+		this.jobExplorer = jobExplorer;
+		this.input = input;
+		this.configKey = configKey;
+	}
+
+	/**
+	 * 出力先の状態を返す関数を設定します（例えば出力先テーブルのチェックサム）
+	 *
+	 * @param targetState 出力先の状態を返す関数
+	 */
+	public void setTargetState(Supplier<String> targetState) {
+		this.targetState = targetState;
+	}
+
+	/**
+	 * 前回の成功した実行を探すジョブインスタンスの最大件数を設定します。デフォルトは20
+	 *
+	 * @param searchDepth ジョブインスタンスの件数
+	 */
+	public void setSearchDepth(int searchDepth) {
+		this.searchDepth = searchDepth;
+	}
+
+	/**
+	 * @return 委譲先のステップ
+	 */
+	public Step getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+
+	@Override
+	public boolean isAllowStartIfComplete() {
+		return delegate.isAllowStartIfComplete();
+	}
+
+	@Override
+	public int getStartLimit() {
+		return delegate.getStartLimit();
+	}
+
+	@Override
+	public void execute(StepExecution stepExecution) throws JobInterruptedException {
+		String fingerprint;
+		try {
+			fingerprint = fingerprint();
+		} catch(IOException e) {
+			// フィンガープリントを求められない場合は省略せずに実行する
+			log.warn("Failed to fingerprint input. The step is executed. [step:{}, input:{}]", getName(), input, e);
+			delegate.execute(stepExecution);
+			return;
+		}
+
+		StepExecution last = findLastSuccessfulExecution();
+		if(last != null
+				&& fingerprint.equals(last.getExecutionContext().getString(FINGERPRINT_KEY, null))
+				&& targetState.get().equals(last.getJobExecution().getExecutionContext().getString(targetStateKey(), null))) {
+			reuse(stepExecution, last, fingerprint);
+			return;
+		}
+
+		delegate.execute(stepExecution);
+
+		if(stepExecution.getStatus() == BatchStatus.COMPLETED) {
+			record(stepExecution, fingerprint);
+			jobRepository.updateExecutionContext(stepExecution);
+		}
+	}
+
+	@Override
+	public void beforeJob(JobExecution jobExecution) {
+	}
+
+	/**
+	 * ジョブが成功した場合に、このステップの後続のステップを含めた、ジョブの終了時の出力先の状態を保存します
+	 */
+	@Override
+	public void afterJob(JobExecution jobExecution) {
+		if(jobExecution.getStatus() != BatchStatus.COMPLETED) {
+			return;
+		}
+		for(StepExecution stepExecution : jobExecution.getStepExecutions()) {
+			if(getName().equals(stepExecution.getStepName()) && stepExecution.getStatus() == BatchStatus.COMPLETED) {
+				jobExecution.getExecutionContext().putString(targetStateKey(), targetState.get());
+				jobRepository.updateExecutionContext(jobExecution);
+				return;
+			}
+		}
+	}
+
+	private void reuse(StepExecution stepExecution, StepExecution last, String fingerprint) {
+		log.info("Input is unchanged since the last successful execution. The step is reused. [step:{}, reusedStepExecutionId:{}]",
+				getName(), last.getId());
+
+		Date now = new Date();
+		stepExecution.setStartTime(now);
+		record(stepExecution, fingerprint);
+		stepExecution.getExecutionContext().putLong("input.reused-step-execution-id", last.getId());
+		jobRepository.updateExecutionContext(stepExecution);
+
+		stepExecution.setStatus(BatchStatus.COMPLETED);
+		stepExecution.setExitStatus(ExitStatus.COMPLETED.addExitDescription(REUSED));
+		stepExecution.setEndTime(now);
+		jobRepository.update(stepExecution);
+	}
+
+	private void record(StepExecution stepExecution, String fingerprint) {
+		stepExecution.getExecutionContext().putString(FINGERPRINT_KEY, fingerprint);
+		// 後続のステップやジョブリスナーから参照できるよう、ジョブのExecutionContextにも保存する
+		// （ジョブのExecutionContextはステップの終了後にSimpleStepHandlerが保存する）
+		stepExecution.getJobExecution().getExecutionContext().putString(FINGERPRINT_KEY + "." + getName(), fingerprint);
+	}
+
+	private String targetStateKey() {
+		return TARGET_STATE_KEY + "." + getName();
+	}
+
+	/**
+	 * このステップを含むジョブの直近の成功（COMPLETED）した実行から、同じ名前のステップの実行を返します
+	 */
+	private StepExecution findLastSuccessfulExecution() {
+		StepExecution result = null;
+		for(String jobName : jobExplorer.getJobNames()) {
+			StepExecution candidate = findLastSuccessfulExecution(jobName);
+			// ジョブの実行IDはジョブをまたいで採番順のため、大きいものを直近とする
+			if(candidate != null && (result == null || candidate.getJobExecutionId() > result.getJobExecutionId())) {
+				result = candidate;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 指定したジョブの直近の成功（COMPLETED）した実行から、同じ名前のステップの実行を返します
+	 *
+	 * ジョブインスタンスを新しい順に1件ずつ取得し、成功した実行が見つかった時点で検索を終える。
+	 * （ジョブの実行ごとにステップの実行とExecutionContextを読み込むため、全件は取得しない）
+	 * 直近の成功した実行にこのステップが無い場合は、このステップを含まないジョブとしてnullを返す。
+	 */
+	private StepExecution findLastSuccessfulExecution(String jobName) {
+		for(int start = 0; start < searchDepth; start++) {
+			List<JobInstance> instances = jobExplorer.getJobInstances(jobName, start, 1);
+			if(instances.isEmpty()) {
+				return null;
+			}
+
+			JobExecution lastCompleted = null;
+			for(JobExecution jobExecution : jobExplorer.getJobExecutions(instances.get(0))) {
+				if(jobExecution.getStatus() == BatchStatus.COMPLETED
+						&& (lastCompleted == null || jobExecution.getId() > lastCompleted.getId())) {
+					lastCompleted = jobExecution;
+				}
+			}
+			if(lastCompleted == null) {
+				continue;
+			}
+
+			for(StepExecution stepExecution : lastCompleted.getStepExecutions()) {
+				if(getName().equals(stepExecution.getStepName())
+						&& stepExecution.getStatus() == BatchStatus.COMPLETED) {
+					return stepExecution;
+				}
+			}
+			return null;
+		}
+		return null;
+	}
+
+	private String fingerprint() throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		byte[] buffer = new byte[64 * 1024];
+		try(InputStream in = input.getInputStream()) {
+			int n;
+			while((n = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, n);
+			}
+		}
+
+		StringBuilder sb = new StringBuilder(160);
+		sb.append("size=").append(input.contentLength());
+		sb.append(";mtime=").append(lastModified());
+		sb.append(";sha256=");
+		for(byte b : digest.digest()) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		sb.append(";config=").append(configKey);
+		return sb.toString();
+	}
+
+	private long lastModified() {
+		try {
+			return input.lastModified();
+		} catch(IOException e) {
+			// クラスパス内（jar内）のリソース等、更新日時を取得できない場合はサイズと内容で判定する
+			return -1;
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.example.demo.step;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.step.AbstractStep;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+
+/**
+ * 作成済みのステップにリスナーを登録する
+ *
+ * BeanPostProcessor等から、ステップの定義を変更せずにすべてのステップへ共通のリスナーを登録する場合に使用する。
+ * InputFingerprintStepで包んだステップは、委譲先のステップに登録する。
+ */
+public final class StepListeners {
+
+	private StepListeners() {
+	}
+
+	/**
+	 * ステップにリスナーを登録します（StepExecutionListener、ChunkListenerのうち、実装しているもの）
+	 *
+	 * @param step ステップ
+	 * @param listener リスナー
+	 */
+	public static void register(Step step, Object listener) {
+		if(step instanceof InputFingerprintStep) {
+			register(((InputFingerprintStep) step).getDelegate(), listener);
+			return;
+		}
+		if(step instanceof AbstractStep && listener instanceof StepExecutionListener) {
+			((AbstractStep) step).registerStepExecutionListener((StepExecutionListener) listener);
+		}
+		if(step instanceof TaskletStep && listener instanceof ChunkListener) {
+			((TaskletStep) step).registerChunkListener((ChunkListener) listener);
+		}
+	}
+
+}
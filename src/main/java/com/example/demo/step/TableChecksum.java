@@ -0,0 +1,83 @@
+package com.example.demo.step;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * テーブルの全行の内容から求めたチェックサムを返す関数（InputFingerprintStepの出力先の状態に使用する）
+ *
+ * 件数だけでは、削除と登録で件数が同じになった場合や、既存の行が更新された場合に変更を検出できないため、
+ * 指定したSELECT文の全行・全列の値をSHA-256で集約する。
+ * 行の順序で結果が変わるため、SELECT文には一意なキーでのORDER BYを指定すること。
+ *
+ * テーブルを全件読み込むため、取り込み（ステップの実行）よりも十分に軽い場合にのみ使用すること。
+ */
+public class TableChecksum implements Supplier<String> {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String sql;
+
+	/**
+	 * @param dataSource データソース
+	 * @param sql 全行を一意な順序で取得するSELECT文
+	 * @param fetchSize 1回の通信で取得する行数
+	 */
+	public TableChecksum(DataSource dataSource, String sql, int fetchSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(fetchSize);
+		this.sql = sql;
+	}
+
+	@Override
+	public String get() {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		long[] rows = new long[1];
+		jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+			update(digest, rs);
+			rows[0]++;
+		});
+
+		StringBuilder sb = new StringBuilder(96);
+		sb.append("rows=").append(rows[0]).append(";sha256=");
+		for(byte b : digest.digest()) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	private static void update(MessageDigest digest, ResultSet rs) throws SQLException {
+		int columns = rs.getMetaData().getColumnCount();
+		for(int i = 1; i <= columns; i++) {
+			String value = rs.getString(i);
+			// NULLと空文字、列の区切りを区別できるよう、NULLフラグと長さを値の前に付ける
+			if(value == null) {
+				digest.update((byte) 0);
+				continue;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			digest.update((byte) 1);
+			digest.update((byte) (bytes.length >>> 24));
+			digest.update((byte) (bytes.length >>> 16));
+			digest.update((byte) (bytes.length >>> 8));
+			digest.update((byte) bytes.length);
+			digest.update(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.example.demo.throttle;
+
+import java.util.Objects;
+
+/**
+ * ステップの流量の上限
+ *
+ * 0以下の項目は制限しない。両方を指定した場合は、より遅い方の上限に従う。
+ */
+public class StepThrottle {
+
+	public static final StepThrottle UNLIMITED = new StepThrottle(0, 0);
+
+	// 1秒あたりの件数（読み込み件数）の上限
+	private double itemsPerSecond;
+
+	// 1秒あたりのチャンク数（コミット回数）の上限
+	private double chunksPerSecond;
+
+	public StepThrottle() {
+	}
+
+	public StepThrottle(double itemsPerSecond, double chunksPerSecond) {
+		this.itemsPerSecond = itemsPerSecond;
+		this.chunksPerSecond = chunksPerSecond;
+	}
+
+	public double getItemsPerSecond() {
+		return itemsPerSecond;
+	}
+
+	public void setItemsPerSecond(double itemsPerSecond) {
+		this.itemsPerSecond = itemsPerSecond;
+	}
+
+	public double getChunksPerSecond() {
+		return chunksPerSecond;
+	}
+
+	public void setChunksPerSecond(double chunksPerSecond) {
+		this.chunksPerSecond = chunksPerSecond;
+	}
+
+	/**
+	 * @return 制限しない場合はtrue
+	 */
+	public boolean isUnlimited() {
+		return itemsPerSecond <= 0 && chunksPerSecond <= 0;
+	}
+
+	/**
+	 * 件数・チャンク数を処理するのに必要な最短の時間を返します
+	 *
+	 * @param items 件数
+	 * @param chunks チャンク数
+	 * @return 時間（ナノ秒）
+	 */
+	public long minimumNanos(long items, long chunks) {
+		double seconds = 0;
+		if(itemsPerSecond > 0) {
+			seconds = Math.max(seconds, items / itemsPerSecond);
+		}
+		if(chunksPerSecond > 0) {
+			seconds = Math.max(seconds, chunks / chunksPerSecond);
+		}
+		return (long) (seconds * 1_000_000_000L);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof StepThrottle)) {
+			return false;
+		}
+		StepThrottle other = (StepThrottle) obj;
+		return itemsPerSecond == other.itemsPerSecond && chunksPerSecond == other.chunksPerSecond;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(itemsPerSecond, chunksPerSecond);
+	}
+
+	@Override
+	public String toString() {
+		return "itemsPerSecond=" + itemsPerSecond + ", chunksPerSecond=" + chunksPerSecond;
+	}
+
+}
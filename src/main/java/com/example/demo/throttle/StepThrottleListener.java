@@ -0,0 +1,229 @@
+package com.example.demo.throttle;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.dao.DataAccessException;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * ステップの流量（件数/秒、チャンク数/秒）を上限以下に抑えるリスナー
+ *
+ * チャンクのコミット後（afterChunk）に、ステップの開始（または上限の変更）からの件数・チャンク数を上限で処理するのに
+ * 必要な時間と実際の経過時間を比べ、早すぎる場合はその差だけ待機する。
+ * 待機はトランザクションの外で行うため、ロックやコネクションを保持したまま待つことはない。
+ *
+ * 上限はstep_throttleテーブル（REST経由で変更する）、無い場合はプロパティ（batch.throttle.steps[ステップ名].*）の値とし、
+ * refreshIntervalごとにテーブルを読み直す。待機中も読み直し、上限が変わった場合はその時点から新しい上限で計測し直す。
+ * 上限を下回っていた期間の分は、最大 maxBurst の時間分までしか後で取り戻さない（一時的な集中を抑える）。
+ */
+public class StepThrottleListener implements StepExecutionListener, ChunkListener {
+
+	private static final Logger log = LoggerFactory.getLogger(StepThrottleListener.class);
+
+	public static final String METRIC_NAME = "batch.throttle.wait";
+
+	private static final long MAX_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final Supplier<StepThrottleRepository> repository;
+
+	private final Map<String, StepThrottle> defaults;
+
+	private final long refreshNanos;
+
+	private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+
+	private volatile Map<String, StepThrottle> throttles = Collections.emptyMap();
+
+	private volatile long refreshedAt;
+
+	private volatile boolean loaded;
+
+	private LongSupplier ticker = System::nanoTime;
+
+	private Sleeper sleeper = TimeUnit.NANOSECONDS::sleep;
+
+	/**
+	 * @param repository 上限を保存したテーブル（ステップの実行時に取得する）
+	 * @param defaults ステップ名ごとの上限（テーブルに無い場合に使用する）
+	 * @param refreshMillis テーブルを読み直す間隔（ミリ秒）
+	 */
+	public StepThrottleListener(Supplier<StepThrottleRepository> repository, Map<String, StepThrottle> defaults, long refreshMillis) {
+		this.repository = repository;
+		this.defaults = new HashMap<>(defaults);
+		this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(refreshMillis, 100));
+	}
+
+	/**
+	 * 経過時間の計測に使用する時刻（ナノ秒）の取得方法を設定します（テスト用）
+	 *
+	 * @param ticker 時刻を返す関数
+	 */
+	void setTicker(LongSupplier ticker) {
+		this.ticker = ticker;
+	}
+
+	/**
+	 * 待機の方法を設定します（テスト用）
+	 *
+	 * @param sleeper 指定した時間（ナノ秒）待機する関数
+	 */
+	void setSleeper(Sleeper sleeper) {
+		this.sleeper = sleeper;
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		windows.put(stepExecution.getId(),
+				new Window(throttleOf(stepExecution.getStepName()), stepExecution.getReadCount(), ticker.getAsLong()));
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		windows.remove(stepExecution.getId());
+		return null;
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		StepExecution stepExecution = context.getStepContext().getStepExecution();
+		Window window = windows.get(stepExecution.getId());
+		if(window == null) {
+			return;
+		}
+
+		String stepName = stepExecution.getStepName();
+		// マルチスレッドのステップでは、待機中のスレッドの後に続くスレッドも順に待機させる
+		synchronized(window) {
+			long readCount = stepExecution.getReadCount();
+			long items = readCount - window.lastReadCount;
+			window.lastReadCount = readCount;
+
+			StepThrottle throttle = throttleOf(stepName);
+			if(!throttle.equals(window.throttle)) {
+				log.info("Step throttle is changed. [step:{}, {}]", stepName, throttle);
+				window.reset(throttle, ticker.getAsLong());
+			}
+			window.items += items;
+			window.chunks++;
+			if(throttle.isUnlimited()) {
+				return;
+			}
+
+			long waitStart = ticker.getAsLong();
+			long remaining = window.remainingNanos(waitStart);
+			try {
+				while(remaining > 0 && !stepExecution.isTerminateOnly()) {
+					sleeper.sleep(Math.min(remaining, refreshNanos));
+					StepThrottle current = throttleOf(stepName);
+					if(!current.equals(window.throttle)) {
+						log.info("Step throttle is changed. [step:{}, {}]", stepName, current);
+						window.reset(current, ticker.getAsLong());
+						break;
+					}
+					remaining = window.remainingNanos(ticker.getAsLong());
+				}
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			Metrics.timer(METRIC_NAME, "step", stepName).record(ticker.getAsLong() - waitStart, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext context) {
+	}
+
+	/**
+	 * @return ステップの上限（テーブル、プロパティの順に探し、無い場合は制限しない）
+	 */
+	private StepThrottle throttleOf(String stepName) {
+		long now = ticker.getAsLong();
+		if(!loaded || now - refreshedAt >= refreshNanos) {
+			refresh(now);
+		}
+		StepThrottle throttle = throttles.get(stepName);
+		if(throttle == null) {
+			throttle = defaults.get(stepName);
+		}
+		return throttle != null ? throttle : StepThrottle.UNLIMITED;
+	}
+
+	private synchronized void refresh(long now) {
+		if(loaded && now - refreshedAt < refreshNanos) {
+			return;
+		}
+		try {
+			throttles = repository.get().findAll();
+		} catch(DataAccessException e) {
+			// テーブルを参照できない場合はプロパティの値で続行する
+			if(!loaded) {
+				log.warn("Failed to read step_throttle. The configured defaults are used.", e);
+			}
+			throttles = Collections.emptyMap();
+		}
+		loaded = true;
+		refreshedAt = now;
+	}
+
+	/**
+	 * 指定した時間待機する関数
+	 */
+	@FunctionalInterface
+	interface Sleeper {
+		void sleep(long nanos) throws InterruptedException;
+	}
+
+	/**
+	 * ステップ実行ごとの計測期間
+	 */
+	private static class Window {
+		private StepThrottle throttle;
+		private long start;
+		private long items;
+		private long chunks;
+		private long lastReadCount;
+
+		Window(StepThrottle throttle, long lastReadCount, long now) {
+			this.throttle = throttle;
+			this.lastReadCount = lastReadCount;
+			this.start = now;
+		}
+
+		void reset(StepThrottle throttle, long now) {
+			this.throttle = throttle;
+			this.start = now;
+			this.items = 0;
+			this.chunks = 0;
+		}
+
+		long remainingNanos(long now) {
+			long required = throttle.minimumNanos(items, chunks);
+			long elapsed = now - start;
+			if(elapsed - required > MAX_BURST_NANOS) {
+				// 上限を大きく下回っていた期間の分は取り戻さない
+				start = now - required - MAX_BURST_NANOS;
+				return 0;
+			}
+			return required - elapsed;
+		}
+	}
+
+}
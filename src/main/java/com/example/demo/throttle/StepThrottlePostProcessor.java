@@ -0,0 +1,32 @@
+package com.example.demo.throttle;
+
+import org.springframework.batch.core.Step;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import com.example.demo.step.StepListeners;
+
+/**
+ * すべてのステップにStepThrottleListenerを登録するBeanPostProcessor
+ *
+ * 流量の上限を設定していないステップは、チャンクごとに上限の有無を確認するだけで待機しない。
+ */
+public class StepThrottlePostProcessor implements BeanPostProcessor {
+
+	private final StepThrottleListener listener;
+
+	/**
+	 * @param listener 登録するリスナー（nullの場合は登録しない）
+	 */
+	public StepThrottlePostProcessor(StepThrottleListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if(listener != null && bean instanceof Step) {
+			StepListeners.register((Step) bean, listener);
+		}
+		return bean;
+	}
+
+}
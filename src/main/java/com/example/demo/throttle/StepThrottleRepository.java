@@ -0,0 +1,64 @@
+package com.example.demo.throttle;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * ステップの流量の上限をstep_throttleテーブルに保存する
+ *
+ * ジョブは別プロセスで実行するため（/runjob_ProcessBuilder）、REST経由の変更はテーブルを介して実行中のジョブに伝える。
+ */
+public class StepThrottleRepository {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public StepThrottleRepository(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * @return ステップ名ごとの流量の上限
+	 */
+	public Map<String, StepThrottle> findAll() {
+		Map<String, StepThrottle> throttles = new LinkedHashMap<>();
+		jdbcTemplate.query("SELECT step_name, items_per_second, chunks_per_second FROM step_throttle ORDER BY step_name",
+				rs -> {
+					throttles.put(rs.getString(1), new StepThrottle(rs.getDouble(2), rs.getDouble(3)));
+				});
+		return throttles;
+	}
+
+	/**
+	 * 流量の上限を登録・更新します
+	 *
+	 * @param stepName ステップ名
+	 * @param throttle 流量の上限
+	 */
+	public void save(String stepName, StepThrottle throttle) {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		int updated = jdbcTemplate.update(
+				"UPDATE step_throttle SET items_per_second = ?, chunks_per_second = ?, updated_at = ? WHERE step_name = ?",
+				throttle.getItemsPerSecond(), throttle.getChunksPerSecond(), now, stepName);
+		if(updated == 0) {
+			jdbcTemplate.update(
+					"INSERT INTO step_throttle (step_name, items_per_second, chunks_per_second, updated_at) VALUES (?, ?, ?, ?)",
+					stepName, throttle.getItemsPerSecond(), throttle.getChunksPerSecond(), now);
+		}
+	}
+
+	/**
+	 * 流量の上限を削除します（プロパティの設定値に戻る）
+	 *
+	 * @param stepName ステップ名
+	 * @return 削除した場合はtrue
+	 */
+	public boolean delete(String stepName) {
+		return jdbcTemplate.update("DELETE FROM step_throttle WHERE step_name = ?", stepName) > 0;
+	}
+
+}
@@ -2,10 +2,60 @@ DROP TABLE people IF EXISTS;
 DROP TABLE person IF EXISTS;
 
 CREATE TABLE person  (
+    id BIGINT NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+    first_name VARCHAR(100),
+    last_name VARCHAR(100),
+    PRIMARY KEY (id)
+);
+
+-- savePerson、MERGEの更新キー
+CREATE INDEX ix_person_last_name ON person (last_name);
+
+-- 差分取り込み（job07）で書き込み済みのデータのキーとハッシュ値
+-- personと同時に作り直すため、personを再作成した後の初回はすべて登録となる
+DROP TABLE person_delta_snapshot IF EXISTS;
+
+CREATE TABLE person_delta_snapshot  (
+    delta_key VARCHAR(100) NOT NULL,
+    hash BIGINT NOT NULL,
+    PRIMARY KEY (delta_key)
+);
+
+-- MERGEによる登録・更新用のステージングテーブル
+-- （チャンクごとのbatch_idで区別し、同じトランザクション内で削除する）
+DROP TABLE person_stage IF EXISTS;
+
+CREATE TABLE person_stage  (
+    batch_id VARCHAR(36) NOT NULL,
     first_name VARCHAR(100),
     last_name VARCHAR(100)
 );
 
+CREATE INDEX ix_person_stage_batch_id ON person_stage (batch_id);
+
+-- 書き込み前の検証で除外したデータ
+DROP TABLE item_reject IF EXISTS;
+
+CREATE TABLE item_reject  (
+    step_name VARCHAR(100),
+    table_name VARCHAR(100),
+    item VARCHAR(2500),
+    reason VARCHAR(1000),
+    rejected_at TIMESTAMP
+);
+
+-- ステップごとの流量の上限（REST経由で変更し、実行中のジョブがbatch.throttle.refresh-intervalごとに読み直す）
+-- 登録の無いステップは、プロパティ（batch.throttle.steps[ステップ名].*）の上限とする
+DROP TABLE step_throttle IF EXISTS;
+
+CREATE TABLE step_throttle  (
+    step_name VARCHAR(100) NOT NULL,
+    items_per_second DOUBLE,
+    chunks_per_second DOUBLE,
+    updated_at TIMESTAMP,
+    PRIMARY KEY (step_name)
+);
+
 
 
 -- Autogenerated: do not edit this file
@@ -105,3 +155,78 @@ CREATE SEQUENCE BATCH_STEP_EXECUTION_SEQ AS BIGINT MAXVALUE 9223372036854775807
 CREATE SEQUENCE BATCH_JOB_EXECUTION_SEQ AS BIGINT MAXVALUE 9223372036854775807 NO CYCLE;
 CREATE SEQUENCE BATCH_JOB_SEQ AS BIGINT MAXVALUE 9223372036854775807 NO CYCLE;
 
+-- JobRepository・JobExplorerの検索条件（外部キーの列）のインデックス
+-- DB2は外部キーにインデックスを自動で作成しないため、無い場合はメタデータの件数に比例してジョブの起動が遅くなる
+-- （job11のstep11_check_indexesで確認する）
+CREATE INDEX BATCH_JOB_EXEC_INST_IX ON BATCH_JOB_EXECUTION (JOB_INSTANCE_ID);
+CREATE INDEX BATCH_JOB_EXEC_PARAMS_IX ON BATCH_JOB_EXECUTION_PARAMS (JOB_EXECUTION_ID);
+CREATE INDEX BATCH_STEP_EXEC_JOB_EXEC_IX ON BATCH_STEP_EXECUTION (JOB_EXECUTION_ID, STEP_NAME);
+
+-- 保持期間を過ぎたメタデータのアーカイブ用テーブル（batch.housekeeping.archive=trueの場合にjob11が複写する）
+-- 起動時にメタデータを作り直しても（initialization-mode=always）アーカイブは残すため、削除せずに無い場合だけ作成する。
+-- 列の並びは複写元のテーブルと揃える（INSERT ... SELECT * で複写する）。
+-- メタデータを作り直すとIDの採番も戻り、同じIDの行を複数回複写し得るため、主キー・一意制約は付けない。
+CREATE TABLE IF NOT EXISTS BATCH_ARCHIVE_JOB_INSTANCE  (
+	JOB_INSTANCE_ID BIGINT NOT NULL,
+	VERSION BIGINT ,
+	JOB_NAME VARCHAR(100) NOT NULL,
+	JOB_KEY VARCHAR(32) NOT NULL
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_ARCHIVE_JOB_EXECUTION  (
+	JOB_EXECUTION_ID BIGINT NOT NULL,
+	VERSION BIGINT  ,
+	JOB_INSTANCE_ID BIGINT NOT NULL,
+	CREATE_TIME TIMESTAMP NOT NULL,
+	START_TIME TIMESTAMP DEFAULT NULL ,
+	END_TIME TIMESTAMP DEFAULT NULL ,
+	STATUS VARCHAR(10) ,
+	EXIT_CODE VARCHAR(2500) ,
+	EXIT_MESSAGE VARCHAR(2500) ,
+	LAST_UPDATED TIMESTAMP,
+	JOB_CONFIGURATION_LOCATION VARCHAR(2500) NULL
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_ARCHIVE_JOB_EXECUTION_PARAMS  (
+	JOB_EXECUTION_ID BIGINT NOT NULL ,
+	TYPE_CD VARCHAR(6) NOT NULL ,
+	KEY_NAME VARCHAR(100) NOT NULL ,
+	STRING_VAL VARCHAR(250) ,
+	DATE_VAL TIMESTAMP DEFAULT NULL ,
+	LONG_VAL BIGINT ,
+	DOUBLE_VAL DOUBLE PRECISION ,
+	IDENTIFYING CHAR(1) NOT NULL
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_ARCHIVE_STEP_EXECUTION  (
+	STEP_EXECUTION_ID BIGINT NOT NULL,
+	VERSION BIGINT NOT NULL,
+	STEP_NAME VARCHAR(100) NOT NULL,
+	JOB_EXECUTION_ID BIGINT NOT NULL,
+	START_TIME TIMESTAMP NOT NULL ,
+	END_TIME TIMESTAMP DEFAULT NULL ,
+	STATUS VARCHAR(10) ,
+	COMMIT_COUNT BIGINT ,
+	READ_COUNT BIGINT ,
+	FILTER_COUNT BIGINT ,
+	WRITE_COUNT BIGINT ,
+	READ_SKIP_COUNT BIGINT ,
+	WRITE_SKIP_COUNT BIGINT ,
+	PROCESS_SKIP_COUNT BIGINT ,
+	ROLLBACK_COUNT BIGINT ,
+	EXIT_CODE VARCHAR(2500) ,
+	EXIT_MESSAGE VARCHAR(2500) ,
+	LAST_UPDATED TIMESTAMP
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_ARCHIVE_STEP_EXECUTION_CONTEXT  (
+	STEP_EXECUTION_ID BIGINT NOT NULL,
+	SHORT_CONTEXT VARCHAR(2500) NOT NULL,
+	SERIALIZED_CONTEXT CLOB
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_ARCHIVE_JOB_EXECUTION_CONTEXT  (
+	JOB_EXECUTION_ID BIGINT NOT NULL,
+	SHORT_CONTEXT VARCHAR(2500) NOT NULL,
+	SERIALIZED_CONTEXT CLOB
+) ;
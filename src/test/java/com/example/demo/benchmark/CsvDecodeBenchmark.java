@@ -0,0 +1,79 @@
+package com.example.demo.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import com.example.demo.item.reader.CharsetDecodingReader;
+
+/**
+ * CSVの文字コード変換（バイト列 ⇒ char）の処理時間を測定するベンチマーク
+ *
+ * CsvFileItemReaderが使用するCharsetDecodingReaderと、従来のInputStreamReaderで、
+ * メモリ上のUTF-8のCSVデータを読み込み、1GBあたりの変換時間を算出する。
+ * 　　ascii : ASCIIだけのデータ（sample-data.csvの形式）
+ * 　　mixed : 各行に日本語（3バイトの文字）を含むデータ
+ *
+ * 　　<使用例>
+ * 　　java -cp ... com.example.demo.benchmark.CsvDecodeBenchmark [データサイズ（MB）] [繰り返し回数]
+ */
+public class CsvDecodeBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 128;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		byte[] ascii = generate(megabytes, "first_name_G1_%07d,last_name%07d\r\n");
+		byte[] mixed = generate(megabytes, "名前_G1_%07d,苗字%07d\r\n");
+
+		System.out.println("data,reader,bytes,bestMs,msPerGB,MBPerSec");
+		for(int i = 0; i < 2; i++) {
+			// 1巡目はウォームアップ
+			boolean print = i > 0;
+			measure("ascii", "InputStreamReader", ascii, iterations, print, false);
+			measure("ascii", "CharsetDecodingReader", ascii, iterations, print, true);
+			measure("mixed", "InputStreamReader", mixed, iterations, print, false);
+			measure("mixed", "CharsetDecodingReader", mixed, iterations, print, true);
+		}
+	}
+
+	private static byte[] generate(int megabytes, String format) {
+		long size = megabytes * 1024L * 1024L;
+		ByteArrayOutputStream out = new ByteArrayOutputStream((int) size + 64);
+		for(int i = 0; out.size() < size; i++) {
+			byte[] line = String.format(format, i, i).getBytes(StandardCharsets.UTF_8);
+			out.write(line, 0, line.length);
+		}
+		return out.toByteArray();
+	}
+
+	private static void measure(String data, String name, byte[] bytes, int iterations, boolean print, boolean fast) throws Exception {
+		long best = Long.MAX_VALUE;
+		long checksum = 0;
+		char[] buffer = new char[8192];
+		for(int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			try(Reader reader = fast
+					? CharsetDecodingReader.open(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)
+					: new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+				int n;
+				while((n = reader.read(buffer, 0, buffer.length)) != -1) {
+					checksum += n + buffer[n - 1];
+				}
+			}
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		if(print) {
+			double ms = best / 1_000_000.0;
+			double msPerGB = ms * (1024.0 * 1024.0 * 1024.0) / bytes.length;
+			double mbPerSec = bytes.length / (1024.0 * 1024.0) / (ms / 1000.0);
+			System.out.printf("%s,%s,%d,%.1f,%.1f,%.1f%n", data, name, bytes.length, ms, msPerGB, mbPerSec);
+		}
+		if(checksum == 42) {
+			System.out.println();
+		}
+	}
+
+}
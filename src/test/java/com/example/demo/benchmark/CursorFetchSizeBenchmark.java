@@ -0,0 +1,246 @@
+package com.example.demo.benchmark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hsqldb.server.Server;
+
+/**
+ * カーソル読み込みのfetchSizeごとの通信回数・処理時間を測定するベンチマーク
+ *
+ * step02ItemReader等と同じ条件（前方専用・読み取り専用のカーソル）でpersonテーブルを全件読み込み、
+ * 実行から読み込み終了までのDBとの通信回数（ラウンドトリップ数）を実測する。
+ * 通信回数は、JDBCドライバとDBの間に挟んだTCPのプロキシで、要求（クライアント⇒DB）と応答（DB⇒クライアント）が
+ * 入れ替わった回数を数える（JDBCドライバの種類によらず、実際の通信を数える）。
+ *
+ * 接続先を指定しない場合は、HSQLDBをサーバーモード（TCP）で起動して測定用データを作成する。
+ * 接続先を指定する場合は、JDBC URLの「//ホスト:ポート」をプロキシに置き換えて接続する。
+ *
+ * 　　<使用例>
+ * 　　java -cp ... com.example.demo.benchmark.CursorFetchSizeBenchmark [JDBC URL（空文字の場合はHSQLDB）] [ユーザー] [パスワード] [件数]
+ */
+public class CursorFetchSizeBenchmark {
+
+	private static final int[] FETCH_SIZES = {0, 10, 100, 1000, 5000, 10000};
+
+	private static final Pattern HOST_PORT = Pattern.compile("//([^/:;]+):(\\d+)");
+
+	public static void main(String[] args) throws Exception {
+		String url = args.length > 0 && !args[0].isEmpty() ? args[0] : null;
+		String user = args.length > 1 ? args[1] : "sa";
+		String password = args.length > 2 ? args[2] : "";
+		long rows = args.length > 3 ? Long.parseLong(args[3]) : 1_000_000L;
+
+		Server server = null;
+		if(url == null) {
+			server = startHsqldbServer();
+			url = "jdbc:hsqldb:hsql://127.0.0.1:" + server.getPort() + "/bench;sql.syntax_db2=true";
+		}
+		Matcher matcher = HOST_PORT.matcher(url);
+		if(!matcher.find()) {
+			throw new IllegalArgumentException("JDBC URL must contain //host:port: " + url);
+		}
+
+		try(CountingProxy proxy = new CountingProxy(matcher.group(1), Integer.parseInt(matcher.group(2)))) {
+			String proxiedUrl = url.substring(0, matcher.start()) + "//127.0.0.1:" + proxy.getPort() + url.substring(matcher.end());
+			try(Connection connection = DriverManager.getConnection(proxiedUrl, user, password)) {
+				if(server != null) {
+					createTestData(connection, rows);
+				}
+
+				connection.setReadOnly(true);
+				System.out.println("fetchSize(requested),fetchSize(driver),rows,elapsedMs,roundTrips,roundTripsPer1M");
+				for(int i = 0; i < 2; i++) {
+					// 1巡目はウォームアップ
+					for(int fetchSize : FETCH_SIZES) {
+						measure(connection, proxy, fetchSize, i > 0);
+					}
+				}
+			}
+		} finally {
+			if(server != null) {
+				server.stop();
+			}
+		}
+	}
+
+	private static void measure(Connection connection, CountingProxy proxy, int fetchSize, boolean print) throws Exception {
+		long count = 0;
+		int driverFetchSize;
+		long elapsedNanos;
+		long roundTrips;
+		try(PreparedStatement ps = connection.prepareStatement(
+				"SELECT first_name, last_name FROM person", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+			if(fetchSize > 0) {
+				ps.setFetchSize(fetchSize);
+			}
+			// 文の準備を除き、実行から全件の読み込みまでを測定する
+			long start = System.nanoTime();
+			long roundTripsBefore = proxy.getRoundTrips();
+			try(ResultSet rs = ps.executeQuery()) {
+				driverFetchSize = rs.getFetchSize();
+				while(rs.next()) {
+					rs.getString(1);
+					rs.getString(2);
+					count++;
+				}
+				elapsedNanos = System.nanoTime() - start;
+				roundTrips = proxy.getRoundTrips() - roundTripsBefore;
+			}
+		}
+
+		if(print) {
+			long per1M = count > 0 ? roundTrips * 1_000_000L / count : 0;
+			System.out.println((fetchSize > 0 ? String.valueOf(fetchSize) : "default") + ","
+					+ driverFetchSize + "," + count + "," + elapsedNanos / 1_000_000 + "," + roundTrips + "," + per1M);
+		}
+	}
+
+	private static Server startHsqldbServer() throws IOException {
+		Server server = new Server();
+		server.setLogWriter(null);
+		server.setErrWriter(null);
+		server.setSilent(true);
+		server.setNoSystemExit(true);
+		server.setDatabaseName(0, "bench");
+		server.setDatabasePath(0, "mem:bench");
+		server.setAddress("127.0.0.1");
+		server.setPort(freePort());
+		server.start();
+		return server;
+	}
+
+	private static int freePort() throws IOException {
+		try(ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static void createTestData(Connection connection, long rows) throws Exception {
+		try(Statement st = connection.createStatement()) {
+			st.execute("CREATE TABLE person (first_name VARCHAR(100), last_name VARCHAR(100))");
+		}
+		connection.setAutoCommit(false);
+		try(PreparedStatement ps = connection.prepareStatement("INSERT INTO person (first_name, last_name) VALUES (?, ?)")) {
+			for(long i = 1; i <= rows; i++) {
+				ps.setString(1, "first_name_G" + (i % 2 + 1) + "_" + i);
+				ps.setString(2, "last_name" + i);
+				ps.addBatch();
+				if(i % 10_000 == 0) {
+					ps.executeBatch();
+				}
+			}
+			if(rows % 10_000 != 0) {
+				ps.executeBatch();
+			}
+		}
+		connection.commit();
+		connection.setAutoCommit(true);
+	}
+
+	/**
+	 * 通信回数を数えるTCPのプロキシ（1接続ずつ中継する）
+	 *
+	 * クライアントからの送信が、DBからの送信の後（または最初）に始まった回数を、要求と応答の往復（ラウンドトリップ）として数える。
+	 * 1つの要求が複数のパケットに分かれても、続けて同じ方向に送信される間は1回と数える。
+	 */
+	private static class CountingProxy implements Closeable {
+
+		private final ServerSocket serverSocket;
+
+		private final String targetHost;
+
+		private final int targetPort;
+
+		private final AtomicLong roundTrips = new AtomicLong();
+
+		// 直前に送信した方向（true：クライアント⇒DB）
+		private final AtomicBoolean lastFromClient = new AtomicBoolean();
+
+		CountingProxy(String targetHost, int targetPort) throws IOException {
+			this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+			this.targetHost = targetHost;
+			this.targetPort = targetPort;
+			Thread acceptor = new Thread(this::accept, "proxy-accept");
+			acceptor.setDaemon(true);
+			acceptor.start();
+		}
+
+		int getPort() {
+			return serverSocket.getLocalPort();
+		}
+
+		long getRoundTrips() {
+			return roundTrips.get();
+		}
+
+		private void accept() {
+			while(!serverSocket.isClosed()) {
+				try {
+					Socket client = serverSocket.accept();
+					Socket target = new Socket(targetHost, targetPort);
+					client.setTcpNoDelay(true);
+					target.setTcpNoDelay(true);
+					pump(client, target, true);
+					pump(target, client, false);
+				} catch(IOException e) {
+					// 終了時（close）
+				}
+			}
+		}
+
+		private void pump(Socket from, Socket to, boolean fromClient) {
+			Thread thread = new Thread(() -> {
+				byte[] buffer = new byte[64 * 1024];
+				try(InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+					int n;
+					while((n = in.read(buffer)) != -1) {
+						// 応答の後（または最初）にクライアントが送信を始めた場合に1往復と数える
+						if(fromClient && !lastFromClient.getAndSet(true)) {
+							roundTrips.incrementAndGet();
+						} else if(!fromClient) {
+							lastFromClient.set(false);
+						}
+						out.write(buffer, 0, n);
+						out.flush();
+					}
+				} catch(IOException e) {
+					// 接続の終了
+				} finally {
+					closeQuietly(from);
+					closeQuietly(to);
+				}
+			}, fromClient ? "proxy-request" : "proxy-response");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private static void closeQuietly(Socket socket) {
+			try {
+				socket.close();
+			} catch(IOException e) {
+				// 無視する
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			serverSocket.close();
+		}
+	}
+
+}
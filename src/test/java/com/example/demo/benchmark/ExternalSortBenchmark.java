@@ -0,0 +1,81 @@
+package com.example.demo.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.example.demo.sort.ColumnComparator;
+import com.example.demo.sort.ExternalSorter;
+import com.example.demo.sort.StringArrayRecordCodec;
+
+/**
+ * ExternalSorterのランの並行書き出しの効果を測定するベンチマーク
+ *
+ * メモリ上に生成した行（id,firstName,lastName）を、メモリ上限を超えるようにして外部ソートし、
+ * 並行数（parallelism）ごとの処理時間を出力する。メモリ上限は並行数によらず同じとする。
+ *
+ * 　　<使用例>
+ * 　　java -cp ... com.example.demo.benchmark.ExternalSortBenchmark [行数] [メモリ上の件数の上限] [繰り返し回数]
+ */
+public class ExternalSortBenchmark {
+
+	private static final String[] HEADERS = {"id", "firstName", "lastName"};
+
+	public static void main(String[] args) throws Exception {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		int maxRecordsInMemory = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+		List<String[]> input = generate(rows);
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		System.out.println("parallelism,rows,bestMs,nsPerRow");
+		for(int i = 0; i < 2; i++) {
+			// 1巡目はウォームアップ
+			boolean print = i > 0;
+			measure(1, input, maxRecordsInMemory, iterations, print);
+			if(cores > 2) {
+				measure(cores / 2, input, maxRecordsInMemory, iterations, print);
+			}
+			if(cores > 1) {
+				measure(cores, input, maxRecordsInMemory, iterations, print);
+			}
+		}
+	}
+
+	private static List<String[]> generate(int rows) {
+		Random random = new Random(1);
+		List<String[]> input = new ArrayList<>(rows);
+		for(int i = 0; i < rows; i++) {
+			input.add(new String[] {String.valueOf(i), "first" + random.nextInt(1_000_000), "last" + random.nextInt(1_000_000)});
+		}
+		return input;
+	}
+
+	private static void measure(int parallelism, List<String[]> input, int maxRecordsInMemory, int iterations, boolean print) throws Exception {
+		File tempDirectory = Files.createTempDirectory("sort-benchmark").toFile();
+		File output = new File(tempDirectory, "sorted");
+		long best = Long.MAX_VALUE;
+		try {
+			for(int i = 0; i < iterations; i++) {
+				ExternalSorter<String[]> sorter = new ExternalSorter<>(new StringArrayRecordCodec(),
+						ColumnComparator.of(HEADERS, "lastName,firstName"));
+				sorter.setMaxRecordsInMemory(maxRecordsInMemory);
+				sorter.setParallelism(parallelism);
+				sorter.setTempDirectory(tempDirectory);
+				long start = System.nanoTime();
+				sorter.sort(input.iterator(), output);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+		} finally {
+			Files.deleteIfExists(output.toPath());
+			Files.deleteIfExists(tempDirectory.toPath());
+		}
+		if(print) {
+			System.out.printf("%d,%d,%.1f,%.1f%n", parallelism, input.size(), best / 1_000_000.0, best / (double) input.size());
+		}
+	}
+
+}
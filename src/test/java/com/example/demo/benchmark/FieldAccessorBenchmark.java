@@ -0,0 +1,93 @@
+package com.example.demo.benchmark;
+
+import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.batch.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
+import org.springframework.batch.item.file.transform.DefaultFieldSet;
+import org.springframework.batch.item.file.transform.FieldExtractor;
+import org.springframework.batch.item.file.transform.FieldSet;
+
+import com.example.demo.entity.Person;
+import com.example.demo.item.mapping.GeneratedFieldExtractor;
+import com.example.demo.item.mapping.GeneratedFieldSetMapper;
+
+/**
+ * Personのプロパティの取り出し（FieldExtractor）と設定（FieldSetMapper）の処理時間を測定するベンチマーク
+ *
+ * 　　extractor : BeanWrapperFieldExtractor（step03の従来の方法）とGeneratedFieldExtractor
+ * 　　mapper    : BeanWrapperFieldSetMapperとGeneratedFieldSetMapper
+ *
+ * 　　<使用例>
+ * 　　java -cp ... com.example.demo.benchmark.FieldAccessorBenchmark [件数] [繰り返し回数]
+ */
+public class FieldAccessorBenchmark {
+
+	private static final String[] NAMES = {"firstName", "lastName"};
+
+	public static void main(String[] args) throws Exception {
+		int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		Person[] persons = new Person[items];
+		String[][] lines = new String[items][];
+		for(int i = 0; i < items; i++) {
+			persons[i] = new Person("first_name_" + i, "last_name_" + i);
+			lines[i] = new String[] {"first_name_" + i, "last_name_" + i};
+		}
+
+		BeanWrapperFieldExtractor<Person> beanWrapperExtractor = new BeanWrapperFieldExtractor<>();
+		beanWrapperExtractor.setNames(NAMES);
+		beanWrapperExtractor.afterPropertiesSet();
+		BeanWrapperFieldSetMapper<Person> beanWrapperMapper = new BeanWrapperFieldSetMapper<>();
+		beanWrapperMapper.setTargetType(Person.class);
+		beanWrapperMapper.afterPropertiesSet();
+
+		System.out.println("operation,implementation,items,bestMs,nsPerItem");
+		for(int i = 0; i < 2; i++) {
+			// 1巡目はウォームアップ
+			boolean print = i > 0;
+			extract("BeanWrapperFieldExtractor", beanWrapperExtractor, persons, iterations, print);
+			extract("GeneratedFieldExtractor", new GeneratedFieldExtractor<>(Person.class, NAMES), persons, iterations, print);
+			map("BeanWrapperFieldSetMapper", beanWrapperMapper, lines, iterations, print);
+			map("GeneratedFieldSetMapper", new GeneratedFieldSetMapper<>(Person.class, NAMES), lines, iterations, print);
+		}
+	}
+
+	private static void extract(String name, FieldExtractor<Person> extractor, Person[] persons, int iterations, boolean print) {
+		long best = Long.MAX_VALUE;
+		long checksum = 0;
+		for(int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			for(Person person : persons) {
+				checksum += extractor.extract(person)[1].hashCode();
+			}
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		print("extractor", name, persons.length, best, print, checksum);
+	}
+
+	private static void map(String name, FieldSetMapper<Person> mapper, String[][] lines, int iterations, boolean print) throws Exception {
+		long best = Long.MAX_VALUE;
+		long checksum = 0;
+		for(int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			for(String[] line : lines) {
+				// CsvFileItemReaderと同様に1行ごとにFieldSetを作成する（作成時間は両方の実装に含まれる）
+				FieldSet fieldSet = new DefaultFieldSet(line, NAMES);
+				checksum += mapper.mapFieldSet(fieldSet).getLastName().length();
+			}
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		print("mapper", name, lines.length, best, print, checksum);
+	}
+
+	private static void print(String operation, String name, int items, long best, boolean print, long checksum) {
+		if(print) {
+			System.out.printf("%s,%s,%d,%.1f,%.1f%n", operation, name, items, best / 1_000_000.0, best / (double) items);
+		}
+		if(checksum == 42) {
+			System.out.println();
+		}
+	}
+
+}
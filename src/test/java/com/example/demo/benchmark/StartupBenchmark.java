@@ -0,0 +1,91 @@
+package com.example.demo.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ジョブの起動方法ごとに、JVMの起動から最初のデータを処理するまでの時間（time-to-first-item）を測定するベンチマーク
+ *
+ * 現在のクラスパスで子プロセスを起動し、FirstItemTimingListenerのログから時間を取得する。
+ * 　　full   : SpringBatchSampleApplication（すべてのBeanを作成する。Webサーバは起動しない）
+ * 　　single : SingleJobLauncher（指定したジョブのBeanだけを遅延初期化で作成する）
+ * DBはインメモリのHSQLDBとする。AppCDSの効果を測定する場合は、JVMオプション（例えば-XX:SharedArchiveFile=...）を
+ * システムプロパティ benchmark.jvm-options（空白区切り）で指定し、アーカイブ作成時と同じクラスパスで実行すること。
+ *
+ * 　　<使用例>
+ * 　　java -cp ... com.example.demo.benchmark.StartupBenchmark [ジョブ名] [繰り返し回数]
+ */
+public class StartupBenchmark {
+
+	private static final Pattern FIRST_ITEM = Pattern.compile("Time to first item: (\\d+) ms");
+
+	private static final String[] DATABASE = {
+			"--spring.datasource.url=jdbc:hsqldb:mem:startup;sql.syntax_db2=true",
+			"--spring.datasource.driver-class-name=org.hsqldb.jdbc.JDBCDriver",
+			"--spring.datasource.username=sa",
+			"--spring.datasource.password=",
+			"--spring.datasource.continue-on-error=true",
+			"--spring.batch.initialize-schema=always",
+			"--batch.first-item-timing.enabled=true"};
+
+	public static void main(String[] args) throws Exception {
+		String job = args.length > 0 ? args[0] : "job01";
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		System.out.println("launcher,job,bestMs,medianMs");
+		measure("full", "com.example.demo.SpringBatchSampleApplication", job, iterations,
+				"--spring.main.web-application-type=none", "--spring.batch.job.enabled=true");
+		measure("single", "com.example.demo.launch.SingleJobLauncher", job, iterations);
+	}
+
+	private static void measure(String name, String mainClass, String job, int iterations, String... options) throws Exception {
+		long[] millis = new long[iterations];
+		for(int i = 0; i < iterations; i++) {
+			millis[i] = run(mainClass, job, options);
+		}
+		Arrays.sort(millis);
+		System.out.printf("%s,%s,%d,%d%n", name, job, millis[0], millis[iterations / 2]);
+	}
+
+	private static long run(String mainClass, String job, String... options) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		String jvmOptions = System.getProperty("benchmark.jvm-options", "").trim();
+		if(!jvmOptions.isEmpty()) {
+			command.addAll(Arrays.asList(jvmOptions.split("\\s+")));
+		}
+		command.add("-classpath");
+		command.add(System.getProperty("java.class.path"));
+		command.add(mainClass);
+		command.addAll(Arrays.asList(DATABASE));
+		command.addAll(Arrays.asList(options));
+		command.add("--spring.batch.job.names=" + job);
+		command.add("run.id(long)=1");
+
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		long result = -1;
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				Matcher matcher = FIRST_ITEM.matcher(line);
+				if(matcher.find()) {
+					result = Long.parseLong(matcher.group(1));
+				}
+			}
+		}
+		process.waitFor();
+		if(result < 0) {
+			throw new IllegalStateException("No item was processed. [main:" + mainClass + ", job:" + job + "]");
+		}
+		return result;
+	}
+
+}
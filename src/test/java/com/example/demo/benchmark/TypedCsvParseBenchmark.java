@@ -0,0 +1,114 @@
+package com.example.demo.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.example.demo.item.reader.CsvFileItemReader;
+import com.example.demo.item.reader.TypedCsvFileItemReader;
+
+/**
+ * 数値・日付のカラムが中心のCSVの読み込み時間を測定するベンチマーク
+ *
+ * メモリ上のCSV（id,数量,金額,日付,コード）を次の2つの方法で読み込み、1行あたりの処理時間を算出する。
+ * 　　string : CsvFileItemReaderでStringの配列として読み込み、FieldSetMapperで変換する（従来の方法）
+ * 　　typed  : TypedCsvFileItemReaderでバッファから直接プリミティブ型に変換する
+ *
+ * 　　<使用例>
+ * 　　java -cp ... com.example.demo.benchmark.TypedCsvParseBenchmark [行数] [繰り返し回数]
+ */
+public class TypedCsvParseBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		byte[] csv = generate(rows);
+
+		System.out.println("reader,rows,bestMs,nsPerRow");
+		for(int i = 0; i < 2; i++) {
+			// 1巡目はウォームアップ
+			boolean print = i > 0;
+			measure("string", csv, rows, iterations, print, false);
+			measure("typed", csv, rows, iterations, print, true);
+		}
+	}
+
+	private static byte[] generate(int rows) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 48);
+		LocalDate base = LocalDate.of(2020, 1, 1);
+		for(int i = 0; i < rows; i++) {
+			String line = (1_000_000_000L + i) + "," + (i % 1000) + "," + (i % 100_000) + "." + (i % 100 / 10) + (i % 10)
+					+ "," + base.plusDays(i % 1000) + ",C" + (i % 10) + "\r\n";
+			byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+			out.write(bytes, 0, bytes.length);
+		}
+		return out.toByteArray();
+	}
+
+	private static ItemStreamReader<Order> stringReader(byte[] csv) throws Exception {
+		CsvFileItemReader<Order> reader = new CsvFileItemReader<>();
+		reader.setResource(new ByteArrayResource(csv));
+		reader.setCharset(StandardCharsets.UTF_8);
+		reader.setHeaders(new String[] {"id", "quantity", "amount", "date", "code"});
+		reader.setFieldSetMapper(fieldSet -> {
+			Order order = new Order();
+			order.id = fieldSet.readLong(0);
+			order.quantity = fieldSet.readInt(1);
+			order.amount = new BigDecimal(fieldSet.readString(2)).movePointRight(2).longValueExact();
+			order.epochDay = (int) LocalDate.parse(fieldSet.readString(3)).toEpochDay();
+			return order;
+		});
+		reader.afterPropertiesSet();
+		return reader;
+	}
+
+	private static ItemStreamReader<Order> typedReader(byte[] csv) throws Exception {
+		TypedCsvFileItemReader<Order> reader = new TypedCsvFileItemReader<>();
+		reader.setResource(new ByteArrayResource(csv));
+		reader.setCharset(StandardCharsets.UTF_8);
+		reader.setItemFactory(Order::new);
+		reader.addLongColumn((order, value) -> order.id = value)
+				.addIntColumn((order, value) -> order.quantity = value)
+				.addDecimalColumn(2, (order, value) -> order.amount = value)
+				.addDateColumn("yyyy-MM-dd", (order, value) -> order.epochDay = value);
+		reader.afterPropertiesSet();
+		return reader;
+	}
+
+	private static void measure(String name, byte[] csv, int rows, int iterations, boolean print, boolean typed) throws Exception {
+		long best = Long.MAX_VALUE;
+		long checksum = 0;
+		for(int i = 0; i < iterations; i++) {
+			ItemStreamReader<Order> reader = typed ? typedReader(csv) : stringReader(csv);
+			long start = System.nanoTime();
+			reader.open(new ExecutionContext());
+			Order order;
+			while((order = reader.read()) != null) {
+				checksum += order.id + order.quantity + order.amount + order.epochDay;
+			}
+			reader.close();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		if(print) {
+			double ms = best / 1_000_000.0;
+			System.out.printf("%s,%d,%.1f,%.1f%n", name, rows, ms, best / (double) rows);
+		}
+		if(checksum == 42) {
+			System.out.println();
+		}
+	}
+
+	private static class Order {
+		long id;
+		int quantity;
+		long amount;
+		int epochDay;
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.example.demo.channel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonRecordCodec;
+
+class ChannelItemWriterTest {
+
+	@TempDir
+	Path spillDirectory;
+
+	private final TransactionTemplate transactionTemplate = new TransactionTemplate(new ResourcelessTransactionManager());
+
+	@Test
+	void publishesOnCommitAndDiscardsOnRollback() throws Exception {
+		ChannelRegistry registry = new ChannelRegistry();
+		registry.setSpillDirectory(spillDirectory.toFile());
+		ChannelItemWriter<Person> writer = new ChannelItemWriter<>(registry, "test", new PersonRecordCodec());
+		StepExecution stepExecution = new StepExecution("producer", new JobExecution(1L));
+		writer.beforeStep(stepExecution);
+		RecordChannel<Person> channel = registry.get(1L, "test");
+
+		// 1つのトランザクションで複数回書き込んだデータは、コミット後にまとめて公開する
+		write(writer, false, "a1", "a2");
+		// ロールバックしたデータは公開しない
+		write(writer, true, "b1");
+
+		// 並行するトランザクションの公開待ちのデータは、それぞれのトランザクションの結果に従う
+		CyclicBarrier written = new CyclicBarrier(2);
+		CompletableFuture<Void> committed = CompletableFuture.runAsync(() -> write(writer, false, written, "c1"));
+		CompletableFuture<Void> rolledBack = CompletableFuture.runAsync(() -> write(writer, true, written, "d1"));
+		committed.get();
+		rolledBack.get();
+
+		stepExecution.setStatus(BatchStatus.COMPLETED);
+		writer.afterStep(stepExecution);
+		List<String> published = new ArrayList<>();
+		for(Person person = channel.take(); person != null; person = channel.take()) {
+			published.add(person.getLastName());
+		}
+		assertEquals(Arrays.asList("a1", "a2", "c1"), published);
+		channel.close();
+	}
+
+	private void write(ChannelItemWriter<Person> writer, boolean rollback, String... lastNames) {
+		write(writer, rollback, null, lastNames);
+	}
+
+	/**
+	 * 1件ずつ書き込み、トランザクションをコミットまたはロールバックします
+	 *
+	 * @param written すべての書き込みが終わるまで待ち合わせる場合に指定する（コミット・ロールバックの前に待つ）
+	 */
+	private void write(ChannelItemWriter<Person> writer, boolean rollback, CyclicBarrier written, String... lastNames) {
+		transactionTemplate.execute(status -> {
+			try {
+				for(String lastName : lastNames) {
+					writer.write(Arrays.asList(new Person(null, lastName)));
+				}
+				if(written != null) {
+					written.await();
+				}
+			} catch(Exception e) {
+				throw new IllegalStateException(e);
+			}
+			if(rollback) {
+				status.setRollbackOnly();
+			}
+			return null;
+		});
+	}
+
+}
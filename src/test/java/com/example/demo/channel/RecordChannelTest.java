@@ -0,0 +1,76 @@
+package com.example.demo.channel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonRecordCodec;
+
+class RecordChannelTest {
+
+	@TempDir
+	Path spillDirectory;
+
+	@Test
+	void keepsOrderAcrossMemoryAndSpillFiles() throws Exception {
+		// メモリ上に5件まで保持し、超えた分はファイルに書き出す
+		RecordChannel<Person> channel = new RecordChannel<>("test", new PersonRecordCodec(), 5, spillDirectory.toFile());
+
+		// 読み込み側は公開されるまで待機する
+		CompletableFuture<List<String>> consumer = CompletableFuture.supplyAsync(() -> {
+			List<String> result = new ArrayList<>();
+			try {
+				Person person;
+				while((person = channel.take()) != null) {
+					result.add(person.getLastName());
+				}
+			} catch(Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return result;
+		});
+
+		List<String> expected = new ArrayList<>();
+		for(int chunk = 0; chunk < 10; chunk++) {
+			List<Person> people = new ArrayList<>();
+			for(int i = 0; i < 3; i++) {
+				String lastName = "p" + (chunk * 3 + i);
+				people.add(new Person(null, lastName));
+				expected.add(lastName);
+			}
+			channel.publish(people);
+		}
+		channel.complete();
+
+		assertEquals(expected, consumer.get());
+		assertNull(channel.take());
+		channel.close();
+		try(Stream<Path> files = Files.list(spillDirectory)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	void propagatesUpstreamFailure() throws Exception {
+		RecordChannel<Person> channel = new RecordChannel<>("test", new PersonRecordCodec(), 5, spillDirectory.toFile());
+		channel.publish(Arrays.asList(new Person("Jill", "Doe")));
+		channel.fail(new IllegalArgumentException("upstream"));
+
+		assertEquals("Doe", channel.take().getLastName());
+		assertThrows(IllegalStateException.class, channel::take);
+		channel.close();
+	}
+
+}
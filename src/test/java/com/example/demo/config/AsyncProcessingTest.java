@@ -0,0 +1,143 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.example.demo.entity.Person;
+import com.example.demo.item.processor.PersonItemProcessor_ForErrorTest02;
+
+class AsyncProcessingTest {
+
+	private ThreadPoolTaskExecutor taskExecutor;
+
+	private AsyncProcessing asyncProcessing;
+
+	@BeforeEach
+	void setUp() {
+		taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setThreadNamePrefix("async-test-");
+		taskExecutor.setCorePoolSize(4);
+		taskExecutor.setMaxPoolSize(4);
+		taskExecutor.initialize();
+		asyncProcessing = new AsyncProcessing(true, taskExecutor);
+	}
+
+	@AfterEach
+	void tearDown() {
+		taskExecutor.shutdown();
+	}
+
+	@Test
+	void callsListenersOnWorkerThreadsAndWithUnwrappedItems() throws Exception {
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+		ItemProcessListener<String, String> processListener = new ItemProcessListener<String, String>() {
+			@Override
+			public void beforeProcess(String item) {
+			}
+
+			@Override
+			public void afterProcess(String item, String result) {
+				events.add(Thread.currentThread().getName().startsWith("async-test-") + ":" + item + "=" + result);
+			}
+
+			@Override
+			public void onProcessError(String item, Exception e) {
+			}
+		};
+		List<List<? extends String>> written = new ArrayList<>();
+		RecordingWriteListener writeListener = new RecordingWriteListener();
+
+		ItemProcessor<String, Future<String>> processor = asyncProcessing.processor(
+				item -> "skip".equals(item) ? null : item.toUpperCase(), Collections.singletonList(processListener));
+		ItemWriter<Future<String>> writer = asyncProcessing.writer(items -> written.add(new ArrayList<>(items)),
+				Collections.singletonList(writeListener));
+
+		List<Future<String>> chunk = new ArrayList<>();
+		for(String item : Arrays.asList("a", "skip", "b")) {
+			chunk.add(processor.process(item));
+		}
+		writer.write(chunk);
+
+		Collections.sort(events);
+		assertEquals(Arrays.asList("true:a=A", "true:b=B", "true:skip=null"), events);
+		// 除外したデータを除き、Futureから取り出したデータを読み込み順に渡す
+		assertEquals(Arrays.asList(Arrays.asList("A", "B")), written);
+		assertEquals(Arrays.asList(Arrays.asList("A", "B")), writeListener.before);
+		assertEquals(Arrays.asList(Arrays.asList("A", "B")), writeListener.after);
+	}
+
+	@Test
+	void passesUnwrappedItemsToOnWriteError() throws Exception {
+		RecordingWriteListener writeListener = new RecordingWriteListener();
+		IllegalStateException error = new IllegalStateException("write failed");
+		ItemProcessor<String, Future<String>> processor = asyncProcessing.processor(String::toUpperCase);
+		ItemWriter<Future<String>> writer = asyncProcessing.writer(items -> {
+			throw error;
+		}, Collections.singletonList(writeListener));
+
+		List<Future<String>> chunk = Arrays.asList(processor.process("a"), processor.process("b"));
+		assertSame(error, assertThrows(IllegalStateException.class, () -> writer.write(chunk)));
+		assertEquals(Arrays.asList(Arrays.asList("A", "B")), writeListener.errors);
+		assertTrue(writeListener.after.isEmpty());
+	}
+
+	@Test
+	void errorTestProcessorCountsItemsAcrossThreads() throws Exception {
+		ItemProcessor<Person, Future<Person>> processor = asyncProcessing.processor(new PersonItemProcessor_ForErrorTest02());
+		List<Future<Person>> results = new ArrayList<>();
+		for(int i = 0; i < 400; i++) {
+			results.add(processor.process(new Person("first" + i, "last" + i)));
+		}
+
+		// 複数のスレッドで加工しても、桁数を超えるlast_nameは1件だけ作られる
+		int oversized = 0;
+		for(Future<Person> result : results) {
+			if(result.get().getLastName().length() > 100) {
+				oversized++;
+			}
+		}
+		assertEquals(1, oversized);
+	}
+
+	private static class RecordingWriteListener implements ItemWriteListener<String> {
+
+		private final List<List<? extends String>> before = new ArrayList<>();
+
+		private final List<List<? extends String>> after = new ArrayList<>();
+
+		private final List<List<? extends String>> errors = new ArrayList<>();
+
+		@Override
+		public void beforeWrite(List<? extends String> items) {
+			before.add(new ArrayList<>(items));
+		}
+
+		@Override
+		public void afterWrite(List<? extends String> items) {
+			after.add(new ArrayList<>(items));
+		}
+
+		@Override
+		public void onWriteError(Exception exception, List<? extends String> items) {
+			errors.add(new ArrayList<>(items));
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.example.demo.item.delta;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+import com.example.demo.entity.Person;
+import com.example.demo.entity.PersonRecordCodec;
+import com.example.demo.item.processor.dedup.Fingerprints;
+import com.example.demo.sort.ExternalSorter;
+
+class DeltaItemReaderTest {
+
+	private final DeltaRecordType<Person> recordType = new DeltaRecordType<>(
+			new PersonRecordCodec(),
+			Person::getLastName,
+			person -> Fingerprints.of(person.getFirstName(), person.getLastName()),
+			key -> new Person(null, key));
+
+	@TempDir
+	Path workDir;
+
+	// DBのスナップショット（キーとハッシュ値）の代わり
+	private final Map<String, Long> snapshotTable = new TreeMap<>();
+
+	@Test
+	void readsInsertsUpdatesAndDeletes() throws Exception {
+		File sorted = new File(workDir.toFile(), "person.sorted");
+		File snapshot = new File(workDir.toFile(), "person.snapshot");
+
+		// 初回はスナップショットが無いため、すべて登録となる（同じキーは最初の1件だけ）
+		sort(sorted, new Person("Jill", "Doe"), new Person("Joe", "Roe"), new Person("Justin", "Doe"),
+				new Person("Jane", "Moe"), new Person("John", "Poe"));
+		assertEquals(Arrays.asList("INSERT Doe Jill", "INSERT Moe Jane", "INSERT Poe John", "INSERT Roe Joe"),
+				readAll(sorted, snapshot));
+		apply(sorted, snapshot);
+
+		// 変更の無いデータは読み飛ばす
+		sort(sorted, new Person("Joe", "Roe"), new Person("Jill", "Doe"), new Person("John", "Poe"),
+				new Person("Jane", "Moe"));
+		assertEquals(Arrays.asList(), readAll(sorted, snapshot));
+		apply(sorted, snapshot);
+
+		// Moeを更新、Poeを削除、Abe・Zoeを登録
+		sort(sorted, new Person("Zack", "Zoe"), new Person("Joe", "Roe"), new Person("Jill", "Doe"),
+				new Person("Janet", "Moe"), new Person("Al", "Abe"));
+		assertEquals(Arrays.asList("INSERT Abe Al", "UPDATE Moe Janet", "DELETE Poe null", "INSERT Zoe Zack"),
+				readAll(sorted, snapshot));
+		apply(sorted, snapshot);
+		assertEquals(Arrays.asList("Abe", "Doe", "Moe", "Roe", "Zoe"), new ArrayList<>(snapshotTable.keySet()));
+	}
+
+	@Test
+	void keepsRejectedDeltasOutOfSnapshot() throws Exception {
+		File sorted = new File(workDir.toFile(), "person.sorted");
+		File snapshot = new File(workDir.toFile(), "person.snapshot");
+
+		// 加工で除外した登録（Bad）はスナップショットに反映しないため、次回も登録となる
+		sort(sorted, new Person("Bad", "Doe"), new Person("Joe", "Roe"));
+		assertEquals(Arrays.asList("INSERT Doe Bad", "INSERT Roe Joe"), apply(sorted, snapshot));
+		assertEquals(Arrays.asList("Roe"), new ArrayList<>(snapshotTable.keySet()));
+		assertEquals(Arrays.asList("INSERT Doe Bad"), apply(sorted, snapshot));
+
+		// 除外した更新は前回のハッシュ値が残るため、元のデータに戻した場合は差分にならない
+		sort(sorted, new Person("Jill", "Doe"), new Person("Bad", "Roe"));
+		assertEquals(Arrays.asList("INSERT Doe Jill", "UPDATE Roe Bad"), apply(sorted, snapshot));
+		sort(sorted, new Person("Jill", "Doe"), new Person("Joe", "Roe"));
+		assertEquals(Arrays.asList(), apply(sorted, snapshot));
+	}
+
+	/**
+	 * 差分を読み込んでfirstNameが「Bad」のデータを除外し、書き込んだ差分をスナップショットに反映して書き出します
+	 *
+	 * @return 読み込んだ差分
+	 */
+	private List<String> apply(File sorted, File snapshot) throws Exception {
+		List<String> result = new ArrayList<>();
+		List<Delta<Person>> processed = new ArrayList<>();
+		DeltaItemProcessor<Person> processor = new DeltaItemProcessor<>(person -> "Bad".equals(person.getFirstName()) ? null : person);
+		for(Delta<Person> delta : read(sorted, snapshot)) {
+			result.add(format(delta));
+			Delta<Person> output = processor.process(delta);
+			if(output != null) {
+				processed.add(output);
+			}
+		}
+
+		DeltaItemWriter<Person> writer = new DeltaItemWriter<>();
+		writer.setInsertWriter(items -> {});
+		writer.setUpdateWriter(items -> {});
+		writer.setDeleteWriter(items -> {});
+		writer.setSnapshotDeleteWriter(items -> items.forEach(entry -> snapshotTable.remove(entry.getKey())));
+		writer.setSnapshotInsertWriter(items -> items.forEach(entry -> snapshotTable.put(entry.getKey(), entry.getHash())));
+		writer.write(processed);
+		exportSnapshot(snapshot);
+		return result;
+	}
+
+	private void exportSnapshot(File snapshot) throws Exception {
+		List<SnapshotEntry> entries = new ArrayList<>();
+		snapshotTable.forEach((key, hash) -> entries.add(new SnapshotEntry(key, hash)));
+		ExternalSorter<SnapshotEntry> sorter = new ExternalSorter<>(SnapshotEntry.CODEC, SnapshotEntry.KEY_ORDER);
+		sorter.setTempDirectory(workDir.toFile());
+		sorter.sort(entries.iterator(), snapshot);
+	}
+
+	private void sort(File output, Person... people) throws Exception {
+		ExternalSorter<Person> sorter = new ExternalSorter<>(recordType.getCodec(), recordType.comparator());
+		// 2件ごとにランを書き出し、2つずつマージする
+		sorter.setMaxRecordsInMemory(2);
+		sorter.setMaxFanIn(2);
+		sorter.setTempDirectory(workDir.toFile());
+		sorter.sort(Arrays.asList(people).iterator(), output);
+	}
+
+	private List<String> readAll(File sorted, File snapshot) throws Exception {
+		List<String> result = new ArrayList<>();
+		for(Delta<Person> delta : read(sorted, snapshot)) {
+			result.add(format(delta));
+		}
+		return result;
+	}
+
+	private List<Delta<Person>> read(File sorted, File snapshot) throws Exception {
+		DeltaItemReader<Person> reader = new DeltaItemReader<>();
+		reader.setRecordType(recordType);
+		reader.setCurrentFile(sorted);
+		reader.setSnapshotFile(snapshot);
+		reader.open(new ExecutionContext());
+		List<Delta<Person>> result = new ArrayList<>();
+		try {
+			Delta<Person> delta;
+			while((delta = reader.read()) != null) {
+				result.add(delta);
+			}
+		} finally {
+			reader.close();
+		}
+		return result;
+	}
+
+	private static String format(Delta<Person> delta) {
+		return delta.getOperation() + " " + delta.getKey() + " " + delta.getItem().getFirstName();
+	}
+
+}
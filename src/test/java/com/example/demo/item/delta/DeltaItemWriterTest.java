@@ -0,0 +1,145 @@
+package com.example.demo.item.delta;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.batch.MyBatisCursorItemReader;
+import org.mybatis.spring.batch.builder.MyBatisBatchItemWriterBuilder;
+import org.mybatis.spring.batch.builder.MyBatisCursorItemReaderBuilder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entity.Person;
+
+class DeltaItemWriterTest {
+
+	private static final String MAPPER = "com.example.demo.mapper.PersonMapper.";
+
+	private JdbcTemplate jdbcTemplate;
+
+	private SqlSessionFactory sqlSessionFactory;
+
+	private DeltaItemWriter<Person> writer;
+
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		SimpleDriverDataSource dataSource = new SimpleDriverDataSource(
+				new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:delta;sql.syntax_db2=true", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE person (id BIGINT NOT NULL GENERATED BY DEFAULT AS IDENTITY,"
+				+ " first_name VARCHAR(100), last_name VARCHAR(100), PRIMARY KEY (id))");
+		jdbcTemplate.execute("CREATE TABLE person_delta_snapshot (delta_key VARCHAR(100) NOT NULL, hash BIGINT NOT NULL,"
+				+ " PRIMARY KEY (delta_key))");
+
+		Properties properties = new Properties();
+		properties.setProperty("person.cursor.fetch-size", "100");
+		SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setConfigurationProperties(properties);
+		factoryBean.setMapperLocations(new ClassPathResource("com/example/demo/mapper/PersonMapper.xml"));
+		sqlSessionFactory = factoryBean.getObject();
+
+		// Step07Configurationと同じ構成
+		writer = new DeltaItemWriter<>();
+		writer.setInsertWriter(new MyBatisBatchItemWriterBuilder<Person>()
+				.sqlSessionFactory(sqlSessionFactory).statementId(MAPPER + "insertPerson").build());
+		writer.setUpdateWriter(new MyBatisBatchItemWriterBuilder<Person>()
+				.sqlSessionFactory(sqlSessionFactory).statementId(MAPPER + "savePerson").build());
+		writer.setDeleteWriter(new MyBatisBatchItemWriterBuilder<Person>()
+				.sqlSessionFactory(sqlSessionFactory).statementId(MAPPER + "deletePersonByLastName").assertUpdates(false).build());
+		writer.setSnapshotDeleteWriter(new MyBatisBatchItemWriterBuilder<SnapshotEntry>()
+				.sqlSessionFactory(sqlSessionFactory).statementId(MAPPER + "deletePersonDeltaSnapshot").assertUpdates(false).build());
+		writer.setSnapshotInsertWriter(new MyBatisBatchItemWriterBuilder<SnapshotEntry>()
+				.sqlSessionFactory(sqlSessionFactory).statementId(MAPPER + "insertPersonDeltaSnapshot").build());
+
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	@AfterEach
+	void shutdown() {
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Test
+	void writesDeltasAndSnapshotInSameTransaction() throws Exception {
+		write(Arrays.asList(
+				new Delta<>(DeltaOperation.INSERT, "", 1L, new Person("n1", null)),
+				new Delta<>(DeltaOperation.INSERT, "A", 2L, new Person("a1", "A")),
+				new Delta<>(DeltaOperation.INSERT, "B", 3L, new Person("b1", "B"))));
+		assertEquals(Arrays.asList("A=a1", "B=b1", "null=n1"), persons());
+		assertEquals(Arrays.asList("=1", "A=2", "B=3"), snapshot());
+
+		// last_nameがNULLの行も、空文字のキーで削除できる
+		write(Arrays.asList(
+				new Delta<>(DeltaOperation.DELETE, "", 1L, new Person(null, "")),
+				new Delta<>(DeltaOperation.UPDATE, "A", 4L, new Person("a2", "A")),
+				new Delta<>(DeltaOperation.DELETE, "B", 3L, new Person(null, "B"))));
+		assertEquals(Arrays.asList("A=a2"), persons());
+		assertEquals(Arrays.asList("A=4"), snapshot());
+
+		// 書き込みが失敗した場合（更新対象の行が無い）は、スナップショットも反映しない
+		assertThrows(RuntimeException.class, () -> write(Arrays.asList(
+				new Delta<>(DeltaOperation.INSERT, "C", 5L, new Person("c1", "C")),
+				new Delta<>(DeltaOperation.UPDATE, "D", 6L, new Person("d1", "D")))));
+		assertEquals(Arrays.asList("A=a2"), persons());
+		assertEquals(Arrays.asList("A=4"), snapshot());
+	}
+
+	private void write(List<Delta<Person>> items) {
+		transactionTemplate.execute(status -> {
+			try {
+				writer.write(items);
+			} catch(RuntimeException e) {
+				throw e;
+			} catch(Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return null;
+		});
+	}
+
+	private List<String> persons() {
+		return jdbcTemplate.query("SELECT first_name, last_name FROM person ORDER BY last_name NULLS LAST",
+				(rs, rowNum) -> rs.getString("last_name") + "=" + rs.getString("first_name"));
+	}
+
+	/**
+	 * step07_export_snapshotと同じ検索でスナップショットを読み込みます
+	 */
+	private List<String> snapshot() throws Exception {
+		MyBatisCursorItemReader<SnapshotEntry> reader = new MyBatisCursorItemReaderBuilder<SnapshotEntry>()
+				.sqlSessionFactory(sqlSessionFactory)
+				.queryId(MAPPER + "streamPersonDeltaSnapshot")
+				.saveState(false)
+				.build();
+		reader.open(new ExecutionContext());
+		List<String> result = new ArrayList<>();
+		try {
+			SnapshotEntry entry;
+			while((entry = reader.read()) != null) {
+				result.add(entry.getKey() + "=" + entry.getHash());
+			}
+		} finally {
+			reader.close();
+		}
+		result.sort(null);
+		return result;
+	}
+
+}
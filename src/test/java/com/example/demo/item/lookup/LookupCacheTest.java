@@ -0,0 +1,157 @@
+package com.example.demo.item.lookup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class LookupCacheTest {
+
+	/**
+	 * 呼び出しごとのキーを記録し、「missing」以外のキーを大文字にして返すloader
+	 */
+	private static class RecordingLoader implements LookupCache.BulkLoader<String, String> {
+
+		private final List<List<String>> calls = new ArrayList<>();
+
+		@Override
+		public synchronized Map<String, String> load(Collection<String> keys) {
+			calls.add(new ArrayList<>(keys));
+			Map<String, String> result = new HashMap<>();
+			for(String key : keys) {
+				if(!key.startsWith("missing")) {
+					result.put(key, key.toUpperCase());
+				}
+			}
+			return result;
+		}
+	}
+
+	@Test
+	void loadsMissesWithPrefetchedKeysInBatches() {
+		RecordingLoader loader = new RecordingLoader();
+		LookupCache<String, String> cache = new LookupCache<>("test", loader);
+		cache.setBatchSize(2);
+
+		cache.prefetch("b");
+		cache.prefetch("missing");
+		cache.prefetch("c");
+		cache.prefetch(null);
+		assertEquals("A", cache.get("a"));
+		// ミスしたキーと登録済みのキーを、batchSize件ずつまとめて検索する（登録済みのキーの順序は問わない）
+		assertEquals(2, loader.calls.size());
+		assertEquals("a", loader.calls.get(0).get(0));
+		assertEquals(2, loader.calls.get(0).size());
+		assertEquals(2, loader.calls.get(1).size());
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "missing")),
+				loader.calls.stream().flatMap(List::stream).collect(Collectors.toSet()));
+
+		// 検索済みのキーは、見つからなかったキーも含めて再検索しない
+		assertEquals("B", cache.get("b"));
+		assertEquals("C", cache.get("c"));
+		assertNull(cache.get("missing"));
+		assertNull(cache.get(null));
+		cache.prefetch("a");
+		assertEquals(2, loader.calls.size());
+		assertEquals(4, cache.size());
+
+		cache.destroy();
+		assertEquals(0, cache.size());
+		assertEquals("A", cache.get("a"));
+		assertEquals(Arrays.asList("a"), loader.calls.get(2));
+	}
+
+	@Test
+	void reloadsExpiredEntries() {
+		RecordingLoader loader = new RecordingLoader();
+		AtomicLong now = new AtomicLong();
+		LookupCache<String, String> cache = new LookupCache<>("test", loader);
+		cache.setTicker(now::get);
+		cache.setTimeToLive(Duration.ofSeconds(10));
+
+		assertEquals("A", cache.get("a"));
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+		assertEquals("A", cache.get("a"));
+		assertEquals(1, loader.calls.size());
+
+		now.incrementAndGet();
+		// 有効期間を過ぎたキーはprefetchでも検索対象とする
+		cache.prefetch("a");
+		assertEquals("A", cache.get("a"));
+		assertEquals(Arrays.asList("a"), loader.calls.get(1));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedEntries() {
+		RecordingLoader loader = new RecordingLoader();
+		LookupCache<String, String> cache = new LookupCache<>("test", loader);
+		cache.setMaximumSize(2);
+
+		cache.get("a");
+		cache.get("b");
+		// aを参照したため、cの登録時には最も長く参照されていないbを削除する
+		cache.get("a");
+		cache.get("c");
+		assertEquals(2, cache.size());
+		assertEquals(3, loader.calls.size());
+
+		cache.get("a");
+		cache.get("c");
+		assertEquals(3, loader.calls.size());
+		cache.get("b");
+		assertEquals(Arrays.asList("b"), loader.calls.get(3));
+	}
+
+	@Test
+	void loadsEachKeyOnceUnderConcurrentMisses() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingLoader recorder = new RecordingLoader();
+		LookupCache<String, String> cache = new LookupCache<>("test", keys -> {
+			loading.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return recorder.load(keys);
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			Future<String> first = executor.submit(() -> cache.get("a"));
+			assertEquals(true, loading.await(10, TimeUnit.SECONDS));
+			// 検索中のキーを参照したスレッドは結果を待ち、同じキーを重ねて検索しない
+			List<Future<String>> others = new ArrayList<>();
+			for(int i = 0; i < 7; i++) {
+				others.add(executor.submit(() -> cache.get("a")));
+			}
+			release.countDown();
+
+			assertEquals("A", first.get(10, TimeUnit.SECONDS));
+			for(Future<String> other : others) {
+				assertEquals("A", other.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(Arrays.asList(Arrays.asList("a")), recorder.calls);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
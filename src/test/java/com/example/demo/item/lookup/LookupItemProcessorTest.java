@@ -0,0 +1,93 @@
+package com.example.demo.item.lookup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import com.example.demo.entity.Person;
+
+class LookupItemProcessorTest {
+
+	private JdbcTemplate jdbcTemplate;
+
+	private SqlSessionFactory sqlSessionFactory;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		SimpleDriverDataSource dataSource = new SimpleDriverDataSource(
+				new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:lookup;sql.syntax_db2=true", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE person (id BIGINT NOT NULL GENERATED BY DEFAULT AS IDENTITY,"
+				+ " first_name VARCHAR(100), last_name VARCHAR(100), PRIMARY KEY (id))");
+		jdbcTemplate.update("INSERT INTO person (first_name, last_name) VALUES ('a', 'Smith'), ('b', 'Jones'), ('c', 'Smith')");
+
+		Properties properties = new Properties();
+		properties.setProperty("person.cursor.fetch-size", "100");
+		SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setConfigurationProperties(properties);
+		factoryBean.setMapperLocations(new ClassPathResource("com/example/demo/mapper/PersonMapper.xml"));
+		sqlSessionFactory = factoryBean.getObject();
+	}
+
+	@AfterEach
+	void shutdown() {
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Test
+	void loadsChunkKeysWithOneQueryAndFiltersExisting() throws Exception {
+		// step01（batch.step01.skip-existing=true）と同じ構成
+		MyBatisBulkLoader<String, Person> bulkLoader = new MyBatisBulkLoader<>(sqlSessionFactory,
+				"com.example.demo.mapper.PersonMapper.findPersonByLastNames", Person::getLastName);
+		List<Collection<String>> queries = new ArrayList<>();
+		LookupCache<String, Person> cache = new LookupCache<>("test", keys -> {
+			queries.add(new HashSet<>(keys));
+			return bulkLoader.load(keys);
+		});
+		LookupItemProcessor<Person, String, Person> processor = new LookupItemProcessor<>(null, cache, Person::getLastName,
+				(person, existing) -> existing != null ? null : person);
+
+		// チャンク内のデータをすべて読み込んでから加工する
+		List<Person> chunk = Arrays.asList(new Person("x", "Smith"), new Person("y", "Brown"), new Person("z", "Jones"));
+		chunk.forEach(processor::afterRead);
+		List<String> written = new ArrayList<>();
+		for(Person person : chunk) {
+			Person result = processor.process(person);
+			if(result != null) {
+				written.add(result.getFirstName());
+			}
+		}
+
+		// チャンク内のキーを1回のクエリで検索し、登録済みのlast_nameのデータを除外する
+		assertEquals(Arrays.asList(new HashSet<>(Arrays.asList("Smith", "Brown", "Jones"))), queries);
+		assertEquals(Arrays.asList("y"), written);
+		// 同じlast_nameの行が複数ある場合はidが最小の行
+		assertEquals("a", cache.get("Smith").getFirstName());
+
+		// 検索済みのキー（見つからなかったキーを含む）は次のチャンクで再検索しない
+		Person next = new Person("w", "Brown");
+		processor.afterRead(next);
+		assertEquals("w", processor.process(next).getFirstName());
+		processor.afterRead(new Person("v", "Smith"));
+		assertNull(processor.process(new Person("v", "Smith")));
+		assertEquals(1, queries.size());
+		cache.destroy();
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.example.demo.item.mapping;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
+import org.springframework.batch.item.file.transform.DefaultFieldSet;
+
+import com.example.demo.entity.Person;
+
+class GeneratedFieldSetMapperTest {
+
+	@Test
+	void mapsColumnsInOrder() throws Exception {
+		GeneratedFieldSetMapper<Item> mapper = new GeneratedFieldSetMapper<>(Item.class, "name", "count", "total", "boxedCount", "amount");
+		Item item = mapper.mapFieldSet(new DefaultFieldSet(new String[] {" a ", "1", "-2", "3", "4.50"}));
+		assertEquals("a", item.getName());
+		assertEquals(1, item.getCount());
+		assertEquals(-2L, item.getTotal());
+		assertEquals(Integer.valueOf(3), item.getBoxedCount());
+		assertEquals(new BigDecimal("4.50"), item.getAmount());
+
+		// 空のカラムはラッパー型・BigDecimalの場合null
+		item = mapper.mapFieldSet(new DefaultFieldSet(new String[] {"", "0", "0", "", ""}));
+		assertNull(item.getBoxedCount());
+		assertNull(item.getAmount());
+
+		assertThrows(IllegalArgumentException.class, () -> new GeneratedFieldSetMapper<>(Item.class, "unknown"));
+	}
+
+	@Test
+	void extractsSameAsBeanWrapper() throws Exception {
+		Person person = new Person("John", "Doe");
+		person.setId(7L);
+		BeanWrapperFieldExtractor<Person> expected = new BeanWrapperFieldExtractor<>();
+		expected.setNames(new String[] {"id", "firstName", "lastName"});
+		expected.afterPropertiesSet();
+		assertArrayEquals(expected.extract(person), new GeneratedFieldExtractor<>(Person.class, "id", "firstName", "lastName").extract(person));
+
+		Item item = new Item();
+		item.setCount(5);
+		assertArrayEquals(new Object[] {5, null}, new GeneratedFieldExtractor<>(Item.class, "count", "name").extract(item));
+	}
+
+	public static class Item {
+		private String name;
+		private int count;
+		private long total;
+		private Integer boxedCount;
+		private BigDecimal amount;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public void setTotal(long total) {
+			this.total = total;
+		}
+
+		public Integer getBoxedCount() {
+			return boxedCount;
+		}
+
+		public void setBoxedCount(Integer boxedCount) {
+			this.boxedCount = boxedCount;
+		}
+
+		public BigDecimal getAmount() {
+			return amount;
+		}
+
+		public void setAmount(BigDecimal amount) {
+			this.amount = amount;
+		}
+	}
+
+}
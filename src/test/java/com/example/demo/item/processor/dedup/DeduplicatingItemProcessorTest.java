@@ -0,0 +1,116 @@
+package com.example.demo.item.processor.dedup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entity.Person;
+
+class DeduplicatingItemProcessorTest {
+
+	@TempDir
+	Path spillDirectory;
+
+	@Test
+	void filtersDuplicateKeys() throws Exception {
+		DeduplicatingItemProcessor<Person> processor = new DeduplicatingItemProcessor<Person>()
+				.addKeyProperties(Person.class, "firstName", "lastName");
+
+		assertNotNull(processor.process(new Person("Jill", "Doe")));
+		assertNotNull(processor.process(new Person("Joe", "Doe")));
+		assertNull(processor.process(new Person("Jill", "Doe")));
+		// キー項目の区切りとnullを区別する
+		assertNotNull(processor.process(new Person("Jil", "lDoe")));
+		assertNotNull(processor.process(new Person(null, "Doe")));
+		assertNotNull(processor.process(new Person("", "Doe")));
+		assertNull(processor.process(new Person(null, "Doe")));
+
+		processor.destroy();
+		// 破棄後は判定状態を作り直す
+		assertNotNull(processor.process(new Person("Jill", "Doe")));
+	}
+
+	@Test
+	void rejectsReprocessingAfterRollback() throws Exception {
+		DeduplicatingItemProcessor<Person> processor = new DeduplicatingItemProcessor<Person>()
+				.addKeyProperties(Person.class, "lastName");
+		TransactionTemplate transactionTemplate = new TransactionTemplate(new ResourcelessTransactionManager());
+
+		// コミットしたチャンクの後は、通常どおり判定する
+		assertNotNull(transactionTemplate.execute(status -> process(processor, new Person("Jill", "Doe"))));
+		assertNull(transactionTemplate.execute(status -> process(processor, new Person("Joe", "Doe"))));
+
+		// ロールバックしたチャンクを処理し直すと、登録済みのキーで除外してしまうため失敗させる
+		transactionTemplate.execute(status -> {
+			process(processor, new Person("Jill", "Roe"));
+			status.setRollbackOnly();
+			return null;
+		});
+		assertThrows(IllegalStateException.class,
+				() -> transactionTemplate.execute(status -> process(processor, new Person("Jill", "Roe"))));
+
+		processor.destroy();
+		assertNotNull(transactionTemplate.execute(status -> process(processor, new Person("Jill", "Roe"))));
+	}
+
+	private static Person process(DeduplicatingItemProcessor<Person> processor, Person person) {
+		try {
+			return processor.process(person);
+		} catch(RuntimeException e) {
+			throw e;
+		} catch(Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	void spillsAndMergesWhenMemoryBudgetIsExceeded() throws Exception {
+		assertFiltersAllRepeats(0);
+	}
+
+	@Test
+	void spillsWithBloomFilter() throws Exception {
+		assertFiltersAllRepeats(10_000);
+	}
+
+	private void assertFiltersAllRepeats(long bloomFilterExpectedItems) throws Exception {
+		DeduplicatingItemProcessor<Person> processor = new DeduplicatingItemProcessor<Person>()
+				.addKey(Person::getLastName);
+		// 16スロット（12件）ごとにスピルし、ランが3つを超えたらマージする
+		processor.setMemoryBudget(16 * Long.BYTES);
+		processor.setMaxRuns(3);
+		processor.setBloomFilterExpectedItems(bloomFilterExpectedItems);
+		processor.setSpillDirectory(spillDirectory.toFile());
+
+		int passed = 0;
+		for(int round = 0; round < 3; round++) {
+			for(int i = 0; i < 1000; i++) {
+				if(processor.process(new Person("first", "last" + i)) != null) {
+					passed++;
+				}
+			}
+		}
+		assertEquals(1000, passed);
+
+		try(Stream<Path> files = Files.list(spillDirectory)) {
+			assertTrue(files.count() > 0);
+		}
+		// 破棄時にスピルファイルを削除する
+		processor.destroy();
+		try(Stream<Path> files = Files.list(spillDirectory)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.example.demo.item.processor.dedup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FingerprintStoreTest {
+
+	@TempDir
+	Path spillDirectory;
+
+	@Test
+	void comparesKeysWhenFingerprintsCollide() throws Exception {
+		try(FingerprintStore store = new FingerprintStore(0, null, spillDirectory.toFile(), 2)) {
+			// 異なるキーが同じフィンガープリント（42）になった場合も、両方を新しいキーとする
+			assertTrue(store.add(42, key("a")));
+			assertTrue(store.add(42, key("b")));
+			assertFalse(store.add(42, key("a")));
+			assertFalse(store.add(42, key("b")));
+			assertEquals(1, store.collisionCount());
+
+			// スピル・マージした後も、ファイルに書き出したキーと比較する
+			for(int i = 0; i < 100; i++) {
+				assertTrue(store.add(i, key("k" + i)));
+			}
+			assertTrue(store.runCount() > 0);
+			assertFalse(store.add(42, key("a")));
+			assertFalse(store.add(42, key("b")));
+			assertFalse(store.add(42, key("k42")));
+			assertTrue(store.add(42, key("c")));
+			for(int i = 0; i < 100; i++) {
+				assertFalse(store.add(i, key("k" + i)), "k" + i);
+				assertTrue(store.add(i, key("x" + i)), "x" + i);
+			}
+			assertEquals(203, store.size());
+		}
+	}
+
+	@Test
+	void readsRunsWithoutKeepingMergedFiles() throws Exception {
+		FingerprintStore store = new FingerprintStore(0, new BloomFilter(1000, 0.01), spillDirectory.toFile(), 2);
+		for(int round = 0; round < 2; round++) {
+			for(long i = 0; i < 5000; i++) {
+				long fingerprint = Fingerprints.mix(i);
+				assertEquals(round == 0, store.add(fingerprint, key(Long.toString(i))));
+			}
+		}
+		// マージ済みのランは削除している（キーログ + マージ後のランを含め、maxRuns + 2ファイル以下）
+		assertTrue(fileCount() <= 2 + 2, "files: " + fileCount());
+
+		store.close();
+		assertEquals(0, fileCount());
+	}
+
+	@Test
+	void distinguishesKeyValues() {
+		assertFalse(Arrays.equals(Fingerprints.keyBytes("ab", "c"), Fingerprints.keyBytes("a", "bc")));
+		assertFalse(Arrays.equals(Fingerprints.keyBytes((Object) null), Fingerprints.keyBytes("")));
+		assertTrue(Arrays.equals(Fingerprints.keyBytes("あ", 1), Fingerprints.keyBytes("あ", "1")));
+	}
+
+	private long fileCount() throws Exception {
+		try(Stream<Path> files = Files.list(spillDirectory)) {
+			return files.count();
+		}
+	}
+
+	private static byte[] key(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
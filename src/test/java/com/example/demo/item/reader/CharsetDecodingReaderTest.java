@@ -0,0 +1,83 @@
+package com.example.demo.item.reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CharsetDecodingReaderTest {
+
+	@Test
+	void skipsByteOrderMark() throws Exception {
+		byte[] utf8 = concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, "姓,名\r\n".getBytes(StandardCharsets.UTF_8));
+		assertEquals("姓,名\r\n", readAll(CharsetDecodingReader.open(new ByteArrayInputStream(utf8), StandardCharsets.UTF_8), 7));
+		// BOMは指定した文字コードより優先する
+		assertEquals("姓,名\r\n", readAll(CharsetDecodingReader.open(new ByteArrayInputStream(utf8), Charset.forName("MS932")), 7));
+
+		byte[] utf16 = concat(new byte[] {(byte) 0xFF, (byte) 0xFE}, "a,b".getBytes(StandardCharsets.UTF_16LE));
+		assertEquals("a,b", readAll(CharsetDecodingReader.open(new ByteArrayInputStream(utf16), StandardCharsets.UTF_8), 7));
+
+		assertEquals("ab", readAll(CharsetDecodingReader.open(new ByteArrayInputStream("ab".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8), 7));
+		assertEquals("", readAll(CharsetDecodingReader.open(new ByteArrayInputStream(new byte[0]), StandardCharsets.UTF_8), 7));
+	}
+
+	@Test
+	void decodesSameAsInputStreamReader() throws Exception {
+		// ASCII、2～4バイトの文字、不正なバイト列を含む入力を、小さいバッファと様々な読み込み単位で比較する
+		Random random = new Random(1);
+		String[] parts = {"abc", ",", "\r\n", "é", "日本語", "𠮷", "\"x\""};
+		for(int n = 0; n < 200; n++) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			int count = random.nextInt(100);
+			for(int i = 0; i < count; i++) {
+				if(random.nextInt(20) == 0) {
+					out.write(0x80 | random.nextInt(0x80));
+				} else {
+					out.write(parts[random.nextInt(parts.length)].getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			if(random.nextInt(5) == 0) {
+				// 途中で切れたバイト列で終わる
+				out.write(0xE6);
+				out.write(0x97);
+			}
+			byte[] bytes = out.toByteArray();
+
+			for(Charset charset : new Charset[] {StandardCharsets.UTF_8, StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1}) {
+				String expected = readAll(new InputStreamReader(new ByteArrayInputStream(bytes), charset), 1024);
+				int bufferSize = 16 + random.nextInt(16);
+				int chunk = 1 + random.nextInt(8);
+				assertEquals(expected, readAll(CharsetDecodingReader.open(new ByteArrayInputStream(bytes), charset, bufferSize), chunk),
+						charset + " bufferSize=" + bufferSize + " chunk=" + chunk);
+			}
+		}
+	}
+
+	private static String readAll(Reader reader, int chunk) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		char[] buffer = new char[chunk];
+		int n;
+		try(Reader r = reader) {
+			while((n = r.read(buffer, 0, chunk)) != -1) {
+				sb.append(buffer, 0, n);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static byte[] concat(byte[] a, byte[] b) {
+		byte[] result = new byte[a.length + b.length];
+		System.arraycopy(a, 0, result, 0, a.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+}
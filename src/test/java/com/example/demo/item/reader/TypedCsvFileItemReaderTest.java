@@ -0,0 +1,122 @@
+package com.example.demo.item.reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.example.demo.item.reader.CharParsers.DatePattern;
+
+class TypedCsvFileItemReaderTest {
+
+	@Test
+	void parsesTypedColumns() throws Exception {
+		String csv = "id,amount,date,name,memo\r\n"
+				+ "1,12.3,2020-02-29,\"Doe, \"\"J\"\"\",x\r\n"
+				+ "\n"
+				+ "-9223372036854775808,-0.05,1969-12-31,\"multi\nline\",\n"
+				+ ",,,,";
+		List<Row> rows = readAll(reader(csv, 7));
+
+		assertEquals(3, rows.size());
+		assertEquals(1L, rows.get(0).id);
+		assertEquals(1230L, rows.get(0).amount);
+		assertEquals(LocalDate.of(2020, 2, 29).toEpochDay(), rows.get(0).epochDay);
+		assertEquals("Doe, \"J\"", rows.get(0).name);
+		assertEquals(Long.MIN_VALUE, rows.get(1).id);
+		assertEquals(-5L, rows.get(1).amount);
+		assertEquals(-1, rows.get(1).epochDay);
+		assertEquals("multi\nline", rows.get(1).name);
+		// 空の数値・日付のカラムはsetterを呼び出さない
+		assertEquals(-1L, rows.get(2).id);
+		assertEquals("", rows.get(2).name);
+	}
+
+	@Test
+	void rejectsInvalidValues() throws Exception {
+		TypedCsvFileItemReader<Row> reader = reader("1,1.234,2020-01-01,a\r\n", 64);
+		reader.open(new ExecutionContext());
+		FlatFileParseException e = assertThrows(FlatFileParseException.class, reader::read);
+		assertEquals("1.234", e.getInput());
+		assertEquals(1, e.getLineNumber());
+		reader.close();
+
+		reader = reader("1,1,2019-02-29,a\r\n", 64);
+		reader.open(new ExecutionContext());
+		assertThrows(FlatFileParseException.class, reader::read);
+		reader.close();
+
+		reader = reader("1,1\r\n", 64);
+		reader.open(new ExecutionContext());
+		assertThrows(FlatFileParseException.class, reader::read);
+		reader.close();
+	}
+
+	@Test
+	void parsesSameAsJdk() {
+		Random random = new Random(1);
+		for(int n = 0; n < 10000; n++) {
+			long value = random.nextLong() >> random.nextInt(64);
+			char[] chars = Long.toString(value).toCharArray();
+			assertEquals(value, CharParsers.parseLong(chars, 0, chars.length));
+
+			LocalDate date = LocalDate.ofEpochDay(random.nextInt(200_000) - 100_000);
+			chars = date.toString().toCharArray();
+			if(date.getYear() >= 0 && date.getYear() <= 9999) {
+				assertEquals(date.toEpochDay(), CharParsers.parseDate(chars, 0, chars.length, DatePattern.of("yyyy-MM-dd")));
+			}
+		}
+		char[] overflow = "9223372036854775808".toCharArray();
+		assertThrows(NumberFormatException.class, () -> CharParsers.parseLong(overflow, 0, overflow.length));
+		char[] tooLarge = "2147483648".toCharArray();
+		assertThrows(NumberFormatException.class, () -> CharParsers.parseInt(tooLarge, 0, tooLarge.length));
+	}
+
+	private TypedCsvFileItemReader<Row> reader(String csv, int bufferSize) throws Exception {
+		TypedCsvFileItemReader<Row> reader = new TypedCsvFileItemReader<>();
+		reader.setResource(new ByteArrayResource(csv.getBytes(StandardCharsets.UTF_8)));
+		reader.setCharset(StandardCharsets.UTF_8);
+		reader.setBufferSize(bufferSize);
+		reader.setLinesToSkip(csv.startsWith("id,") ? 1 : 0);
+		reader.setItemFactory(Row::new);
+		reader.addLongColumn((row, value) -> row.id = value)
+				.addDecimalColumn(2, (row, value) -> row.amount = value)
+				.addDateColumn("yyyy-MM-dd", (row, value) -> row.epochDay = value)
+				.addStringColumn((row, value) -> row.name = value);
+		reader.afterPropertiesSet();
+		return reader;
+	}
+
+	private List<Row> readAll(TypedCsvFileItemReader<Row> reader) throws Exception {
+		List<Row> rows = new ArrayList<>();
+		reader.open(new ExecutionContext());
+		try {
+			Row row;
+			while((row = reader.read()) != null) {
+				rows.add(row);
+			}
+			assertNull(reader.read());
+		} finally {
+			reader.close();
+		}
+		return rows;
+	}
+
+	private static class Row {
+		long id = -1;
+		long amount;
+		int epochDay;
+		String name;
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.example.demo.item.validator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.validator.ValidationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import com.example.demo.entity.Person;
+import com.example.demo.item.validator.TableColumnValidator.LengthSemantics;
+
+class TableColumnValidatorTest {
+
+	// 「𠮷」はサロゲートペア（2文字、UTF-8で4バイト）
+	private static final String SURROGATE_PAIR = "𠮷";
+
+	private SimpleDriverDataSource dataSource;
+
+	@BeforeEach
+	void createTable() {
+		dataSource = new SimpleDriverDataSource(new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:validator", "sa", "");
+		new JdbcTemplate(dataSource).execute("CREATE TABLE person (first_name VARCHAR(6) NOT NULL, last_name VARCHAR(4))");
+	}
+
+	@AfterEach
+	void shutdown() {
+		new JdbcTemplate(dataSource).execute("SHUTDOWN");
+	}
+
+	@Test
+	void validatesNotNullAndCharacters() {
+		TableColumnValidator<Person> validator = validator(LengthSemantics.CHARACTERS);
+
+		validator.validate(new Person("abcdef", null));
+		// サロゲートペアは1文字と数える
+		validator.validate(new Person("あいうえお" + SURROGATE_PAIR, "abcd"));
+
+		assertEquals("FIRST_NAME must not be null",
+				assertThrows(ValidationException.class, () -> validator.validate(new Person(null, "a"))).getMessage());
+		assertEquals("LAST_NAME exceeds VARCHAR(4): length=5",
+				assertThrows(ValidationException.class, () -> validator.validate(new Person("a", "abcde"))).getMessage());
+	}
+
+	@Test
+	void validatesBytes() {
+		TableColumnValidator<Person> validator = validator(LengthSemantics.BYTES);
+
+		validator.validate(new Person("あい", SURROGATE_PAIR));
+
+		assertEquals("FIRST_NAME exceeds VARCHAR(6): length=9",
+				assertThrows(ValidationException.class, () -> validator.validate(new Person("あいう", null))).getMessage());
+		assertEquals("LAST_NAME exceeds VARCHAR(4): length=5",
+				assertThrows(ValidationException.class, () -> validator.validate(new Person("a", "a" + SURROGATE_PAIR))).getMessage());
+	}
+
+	@Test
+	void truncatesByUtf8BytesWithoutSplittingSurrogatePairs() {
+		assertEquals(0, TableColumnValidator.utf8Length(""));
+		assertEquals(1 + 2 + 3 + 4, TableColumnValidator.utf8Length("aéあ" + SURROGATE_PAIR));
+
+		assertNull(TableColumnValidator.truncateUtf8(null, 10));
+		assertEquals("abc", TableColumnValidator.truncateUtf8("abc", 3));
+		assertEquals("ab", TableColumnValidator.truncateUtf8("abc", 2));
+		assertEquals("あ", TableColumnValidator.truncateUtf8("あい", 5));
+		// 4バイトに満たない場合はサロゲートペアの前で切る（上位サロゲートだけを残さない）
+		assertEquals("a", TableColumnValidator.truncateUtf8("a" + SURROGATE_PAIR, 4));
+		assertEquals("a" + SURROGATE_PAIR, TableColumnValidator.truncateUtf8("a" + SURROGATE_PAIR + "b", 5));
+		assertEquals("", TableColumnValidator.truncateUtf8(SURROGATE_PAIR, 3));
+	}
+
+	private TableColumnValidator<Person> validator(LengthSemantics lengthSemantics) {
+		TableColumnValidator<Person> validator = new TableColumnValidator<Person>(dataSource, "person")
+				.addColumn("first_name", Person::getFirstName)
+				.addColumn("last_name", Person::getLastName);
+		validator.setLengthSemantics(lengthSemantics);
+		return validator;
+	}
+
+}
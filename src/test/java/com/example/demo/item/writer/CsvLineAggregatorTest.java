@@ -0,0 +1,131 @@
+package com.example.demo.item.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.entity.Person;
+
+class CsvLineAggregatorTest {
+
+	@Test
+	void appendsRowsWithLineSeparator() throws Exception {
+		CsvLineAggregator<Person> aggregator = aggregator();
+		StringBuilder out = new StringBuilder();
+		aggregator.aggregate(new Person("John", "Doe"), out);
+		aggregator.aggregate(new Person("Doe, \"J\"", null), out);
+		aggregator.aggregate(new Person("multi\nline", "crlf\r\nline"), out);
+
+		assertEquals("John,Doe\r\n"
+				+ "\"Doe, \"\"J\"\"\",\r\n"
+				+ "\"multi\nline\",\"crlf\r\nline\"\r\n", out.toString());
+		// 文字列を返す場合も同じ内容（改行コードを除く）。値に含まれる改行は、どちらの方式でも変換しない
+		assertEquals("\"multi\nline\",\"crlf\r\nline\"", aggregator.aggregate(new Person("multi\nline", "crlf\r\nline")));
+	}
+
+	@Test
+	void appendsToAnyAppendable() throws Exception {
+		CsvLineAggregator<Person> aggregator = aggregator();
+		aggregator.setLineSeparator("\n");
+		StringBuilder written = new StringBuilder();
+		Writer out = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				written.append(cbuf, off, len);
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		aggregator.aggregate(new Person("a", "b"), out);
+		assertEquals("a,b\n", written.toString());
+
+		IOException error = new IOException("disk full");
+		Appendable failing = new Appendable() {
+			@Override
+			public Appendable append(CharSequence csq) throws IOException {
+				throw error;
+			}
+
+			@Override
+			public Appendable append(CharSequence csq, int start, int end) throws IOException {
+				throw error;
+			}
+
+			@Override
+			public Appendable append(char c) throws IOException {
+				throw error;
+			}
+		};
+		assertSame(error, assertThrows(IOException.class, () -> aggregator.aggregate(new Person("a", "b"), failing)));
+		// 失敗後も同じスレッドで続けて使用できる
+		written.setLength(0);
+		aggregator.aggregate(new Person("c", "d"), out);
+		assertEquals("c,d\n", written.toString());
+	}
+
+	@Test
+	void aggregatesConcurrently() throws Exception {
+		CsvLineAggregator<Person> aggregator = aggregator();
+		int threads = 8;
+		int rows = 2000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<String>> futures = new ArrayList<>();
+			for(int t = 0; t < threads; t++) {
+				int thread = t;
+				Callable<String> task = () -> {
+					start.await();
+					StringBuilder out = new StringBuilder();
+					for(int i = 0; i < rows; i++) {
+						// 文字列を返す方式とAppendableへ追記する方式を交互に使用する
+						Person person = new Person("t" + thread + ",r" + i, "v" + i);
+						if(i % 2 == 0) {
+							out.append(aggregator.aggregate(person)).append("\r\n");
+						} else {
+							aggregator.aggregate(person, out);
+						}
+					}
+					return out.toString();
+				};
+				futures.add(executor.submit(task));
+			}
+			start.countDown();
+
+			for(int t = 0; t < threads; t++) {
+				StringBuilder expected = new StringBuilder();
+				for(int i = 0; i < rows; i++) {
+					expected.append("\"t").append(t).append(",r").append(i).append("\",v").append(i).append("\r\n");
+				}
+				assertEquals(expected.toString(), futures.get(t).get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static CsvLineAggregator<Person> aggregator() {
+		CsvLineAggregator<Person> aggregator = new CsvLineAggregator<>();
+		aggregator.setFieldExtractor(person -> new Object[] { person.getFirstName(), person.getLastName() });
+		return aggregator;
+	}
+
+}
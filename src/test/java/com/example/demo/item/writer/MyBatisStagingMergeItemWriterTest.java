@@ -0,0 +1,122 @@
+package com.example.demo.item.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entity.Person;
+
+class MyBatisStagingMergeItemWriterTest {
+
+	private SimpleDriverDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private MyBatisStagingMergeItemWriter<Person> writer;
+
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		dataSource = new SimpleDriverDataSource(new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:merge;sql.syntax_db2=true", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE person (id BIGINT NOT NULL GENERATED BY DEFAULT AS IDENTITY,"
+				+ " first_name VARCHAR(100), last_name VARCHAR(100), PRIMARY KEY (id))");
+		jdbcTemplate.execute("CREATE TABLE person_stage (batch_id VARCHAR(36) NOT NULL, first_name VARCHAR(100), last_name VARCHAR(100))");
+
+		Properties properties = new Properties();
+		properties.setProperty("person.cursor.fetch-size", "100");
+		SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setConfigurationProperties(properties);
+		factoryBean.setMapperLocations(new ClassPathResource("com/example/demo/mapper/PersonMapper.xml"));
+		SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+
+		writer = new MyBatisStagingMergeItemWriter<>();
+		writer.setSqlSessionFactory(sqlSessionFactory);
+		writer.setInsertStatementId("com.example.demo.mapper.PersonMapper.insertPersonStage");
+		writer.setMergeStatementId("com.example.demo.mapper.PersonMapper.mergePersonStage");
+		writer.setDeleteStatementId("com.example.demo.mapper.PersonMapper.deletePersonStage");
+		writer.setKeyExtractor(Person::getLastName);
+		writer.afterPropertiesSet();
+
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	@AfterEach
+	void shutdown() {
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Test
+	void mergesChunkByKeyAndIsIdempotent() {
+		List<Person> chunk = Arrays.asList(
+				new Person("a1", "A"),
+				new Person("b1", "B"),
+				// チャンク内で同じキーのデータは後のデータを反映する
+				new Person("a2", "A"),
+				new Person("n1", null),
+				new Person("n2", null));
+		write(chunk);
+		assertEquals(Arrays.asList("A=a2", "B=b1", "null=n2"), persons());
+
+		// 再実行しても重複登録しない（last_nameがNULLのデータを含む）
+		write(chunk);
+		assertEquals(Arrays.asList("A=a2", "B=b1", "null=n2"), persons());
+
+		write(Arrays.asList(new Person("b2", "B"), new Person("c1", "C"), new Person("n3", null)));
+		assertEquals(Arrays.asList("A=a2", "B=b2", "C=c1", "null=n3"), persons());
+
+		// ステージングテーブルには残らない
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM person_stage", Integer.class));
+	}
+
+	@Test
+	void rollsBackWithChunkTransaction() {
+		try {
+			transactionTemplate.execute(status -> {
+				try {
+					writer.write(Arrays.asList(new Person("a1", "A")));
+				} catch(Exception e) {
+					throw new IllegalStateException(e);
+				}
+				throw new IllegalStateException("rollback");
+			});
+		} catch(IllegalStateException e) {
+			assertEquals("rollback", e.getMessage());
+		}
+		assertEquals(Arrays.asList(), persons());
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM person_stage", Integer.class));
+	}
+
+	private void write(List<Person> items) {
+		transactionTemplate.execute(status -> {
+			try {
+				writer.write(items);
+			} catch(Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return null;
+		});
+	}
+
+	private List<String> persons() {
+		return jdbcTemplate.query("SELECT first_name, last_name FROM person ORDER BY last_name NULLS LAST",
+				(rs, rowNum) -> rs.getString("last_name") + "=" + rs.getString("first_name"));
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.example.demo.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+class InstrumentedDataSourceTest {
+
+	@Test
+	void countsStatementsBatchesAndFetches() throws Exception {
+		InstrumentedDataSource dataSource = new InstrumentedDataSource(new SimpleDriverDataSource(
+				new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:instrumented", "sa", ""));
+		JdbcStatistics statistics = new JdbcStatistics();
+		JdbcStatistics previous = JdbcStatistics.bind(statistics);
+		try(Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try(Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE t (id INT)");
+			}
+			try(PreparedStatement statement = connection.prepareStatement("INSERT INTO t VALUES (?)")) {
+				for(int i = 0; i < 25; i++) {
+					statement.setInt(1, i);
+					statement.addBatch();
+					if(i % 10 == 9) {
+						statement.executeBatch();
+					}
+				}
+				statement.executeBatch();
+			}
+			connection.commit();
+			try(PreparedStatement statement = connection.prepareStatement("SELECT id FROM t")) {
+				statement.setFetchSize(10);
+				try(ResultSet resultSet = statement.executeQuery()) {
+					while(resultSet.next()) {
+						// 読み込むだけ
+					}
+				}
+			}
+		} finally {
+			JdbcStatistics.bind(previous);
+		}
+
+		assertEquals(2, statistics.getStatements());
+		assertEquals(3, statistics.getBatches());
+		assertEquals(25, statistics.getBatchedStatements());
+		assertEquals(25, statistics.getRows());
+		// 10件ずつ取得する場合、11件目と21件目で追加の取得が発生する
+		assertEquals(2, statistics.getEstimatedFetches());
+		assertEquals(1, statistics.getTransactions());
+		assertTrue(statistics.isEstimated());
+		assertEquals(8, statistics.getEstimatedRoundTrips());
+		assertNull(JdbcStatistics.current());
+	}
+
+	@Test
+	void doesNotEstimateFetchesWithoutFetchSize() throws Exception {
+		InstrumentedDataSource dataSource = new InstrumentedDataSource(new SimpleDriverDataSource(
+				new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:instrumented-unknown", "sa", ""));
+		JdbcStatistics statistics = new JdbcStatistics();
+		JdbcStatistics previous = JdbcStatistics.bind(statistics);
+		try(Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			// fetchSizeを指定しない（DB2 JCCのデフォルトと同様、ドライバが取得件数を決める）
+			try(ResultSet resultSet = statement.executeQuery("SELECT * FROM (VALUES (1), (2), (3)) AS v(id)")) {
+				while(resultSet.next()) {
+					// 読み込むだけ
+				}
+			}
+		} finally {
+			JdbcStatistics.bind(previous);
+		}
+
+		assertEquals(3, statistics.getRows());
+		assertEquals(0, statistics.getEstimatedFetches());
+		assertEquals(1, statistics.getUnknownFetchSizeResultSets());
+		assertFalse(statistics.isEstimated());
+
+		ExecutionContext executionContext = new ExecutionContext();
+		statistics.putTo(executionContext);
+		assertEquals(1, executionContext.getLong(JdbcStatistics.KEY_PREFIX + "fetch-size-unknown-result-sets"));
+		assertFalse(executionContext.containsKey(JdbcStatistics.KEY_PREFIX + "estimated-round-trips"));
+	}
+
+}
@@ -0,0 +1,158 @@
+package com.example.demo.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import com.example.demo.step.StepListeners;
+
+class JdbcStatisticsListenerTest {
+
+	private JobRepository jobRepository;
+
+	private InstrumentedDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	// ステップの開始・終了時とチャンク内（writer）でbindしていた集計
+	private final List<JdbcStatistics> bound = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		MapJobRepositoryFactoryBean repositoryFactory = new MapJobRepositoryFactoryBean(new ResourcelessTransactionManager());
+		repositoryFactory.afterPropertiesSet();
+		jobRepository = repositoryFactory.getObject();
+		dataSource = new InstrumentedDataSource(new SimpleDriverDataSource(
+				new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:statistics-listener", "sa", ""));
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP TABLE t IF EXISTS");
+		jdbcTemplate.execute("CREATE TABLE t (id INT)");
+	}
+
+	@Test
+	void collectsStatisticsPerChunkAndRestoresStepBinding() throws Exception {
+		StepExecution stepExecution = run(5, -1);
+
+		assertEquals(BatchStatus.COMPLETED, stepExecution.getStatus());
+		assertEquals(3, stepExecution.getCommitCount());
+		ExecutionContext executionContext = stepExecution.getExecutionContext();
+		// チャンクごとに1回のexecuteBatchと1回のコミット
+		assertEquals(3, executionContext.getLong(JdbcStatistics.KEY_PREFIX + "batches"));
+		assertEquals(5, executionContext.getLong(JdbcStatistics.KEY_PREFIX + "batched-statements"));
+		assertEquals(3, executionContext.getLong(JdbcStatistics.KEY_PREFIX + "transactions"));
+		assertEquals(6, executionContext.getLong(JdbcStatistics.KEY_PREFIX + "estimated-round-trips"));
+		assertEquals(2, executionContext.getLong(JdbcStatistics.KEY_PREFIX + "chunk.max-estimated-round-trips"));
+		assertBindings(5);
+	}
+
+	@Test
+	void collectsStatisticsOfFailedChunk() throws Exception {
+		// 2番目のチャンクの書き込み後に失敗させる
+		StepExecution stepExecution = run(5, 3);
+
+		assertEquals(BatchStatus.FAILED, stepExecution.getStatus());
+		assertEquals(1, stepExecution.getCommitCount());
+		assertEquals(1, stepExecution.getRollbackCount());
+		ExecutionContext executionContext = stepExecution.getExecutionContext();
+		// 失敗したチャンクのexecuteBatchとロールバックも集計する（afterChunkError）
+		assertEquals(2, executionContext.getLong(JdbcStatistics.KEY_PREFIX + "batches"));
+		assertEquals(4, executionContext.getLong(JdbcStatistics.KEY_PREFIX + "batched-statements"));
+		assertEquals(2, executionContext.getLong(JdbcStatistics.KEY_PREFIX + "transactions"));
+		assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t", Integer.class));
+		assertBindings(4);
+	}
+
+	/**
+	 * 件数itemsをチャンクサイズ2で書き込むステップを実行します
+	 *
+	 * @param failAt この値を書き込んだチャンクで例外を発生させる（-1の場合は発生させない）
+	 */
+	private StepExecution run(int items, int failAt) throws Exception {
+		ItemWriter<Integer> writer = chunk -> {
+			bound.add(JdbcStatistics.current());
+			jdbcTemplate.batchUpdate("INSERT INTO t VALUES (?)",
+					chunk.stream().map(item -> new Object[] { item }).collect(Collectors.toList()));
+			if(chunk.contains(failAt)) {
+				throw new IllegalStateException("failed at " + failAt);
+			}
+		};
+		// 後に登録したリスナーは、beforeStepが後、afterStepが先に呼ばれる
+		StepExecutionListener afterListener = new StepExecutionListenerSupport() {
+			@Override
+			public void beforeStep(StepExecution stepExecution) {
+				bound.add(JdbcStatistics.current());
+			}
+
+			@Override
+			public ExitStatus afterStep(StepExecution stepExecution) {
+				bound.add(JdbcStatistics.current());
+				return null;
+			}
+		};
+		JdbcStatisticsListener listener = new JdbcStatisticsListener();
+		List<Integer> list = Arrays.asList(1, 2, 3, 4, 5).subList(0, items);
+		TaskletStep step = new StepBuilder("step")
+				.repository(jobRepository)
+				.transactionManager(new DataSourceTransactionManager(dataSource))
+				.<Integer, Integer>chunk(2)
+				.reader(new ListItemReader<>(list))
+				.writer(writer)
+				.build();
+		// JdbcMetricsPostProcessorと同様に登録する
+		StepListeners.register(step, listener);
+		StepListeners.register(step, afterListener);
+
+		JobExecution jobExecution = jobRepository.createJobExecution("job", new JobParameters());
+		StepExecution stepExecution = jobExecution.createStepExecution(step.getName());
+		jobRepository.add(stepExecution);
+		step.execute(stepExecution);
+		assertNull(JdbcStatistics.current());
+		return stepExecution;
+	}
+
+	/**
+	 * ステップの開始・終了時にはステップの集計、各チャンクではチャンクごとの集計をbindしていたことを確認します
+	 */
+	private void assertBindings(int expected) {
+		assertEquals(expected, bound.size());
+		JdbcStatistics outside = bound.get(0);
+		assertNotNull(outside);
+		assertSame(outside, bound.get(bound.size() - 1));
+		for(int i = 1; i < bound.size() - 1; i++) {
+			assertNotNull(bound.get(i));
+			assertNotSame(outside, bound.get(i));
+			for(int j = 1; j < i; j++) {
+				assertNotSame(bound.get(j), bound.get(i));
+			}
+		}
+	}
+
+}
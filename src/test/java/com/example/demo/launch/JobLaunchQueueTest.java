@@ -0,0 +1,106 @@
+package com.example.demo.launch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.launch.NoSuchJobException;
+
+class JobLaunchQueueTest {
+
+	private final List<String> started = new ArrayList<>();
+
+	private final Map<String, CompletableFuture<Void>> running = new HashMap<>();
+
+	@Test
+	void launchesByPriorityWithinLimits() throws Exception {
+		JobLaunchQueue queue = new JobLaunchQueue(2, 3);
+		queue.setMaxConcurrent("job02", 2);
+
+		assertTrue(queue.submit("job01", 0, launcher("job01#1")).isStarted());
+		// job01はジョブ名ごとの上限（1）に達しているため待たせる
+		assertFalse(queue.submit("job01", 0, launcher("job01#2")).isStarted());
+		assertTrue(queue.submit("job02", 0, launcher("job02#1")).isStarted());
+		// 全体の上限（2）に達しているため待たせる
+		assertEquals(2, queue.submit("job02", 0, launcher("job02#2")).getPosition());
+		assertEquals(1, queue.submit("job03", 5, launcher("job03#1")).getPosition());
+		assertThrows(JobLaunchRejectedException.class, () -> queue.submit("job04", 9, launcher("job04#1")));
+
+		// 優先度の高いjob03から起動する
+		finish("job01#1");
+		assertEquals(Arrays.asList("job01#1", "job02#1", "job03#1"), started);
+		// 同じ優先度のjob01#2、job02#2は受付順に起動する
+		finish("job02#1");
+		assertEquals(Arrays.asList("job01#1", "job02#1", "job03#1", "job01#2"), started);
+		finish("job03#1");
+		assertEquals(Arrays.asList("job01#1", "job02#1", "job03#1", "job01#2", "job02#2"), started);
+	}
+
+	@Test
+	void neverQueuesMoreThanCapacity() throws Exception {
+		JobLaunchQueue queue = new JobLaunchQueue(2, 1);
+
+		assertTrue(queue.submit("job01", 0, launcher("job01#1")).isStarted());
+		assertFalse(queue.submit("job01", 5, launcher("job01#2")).isStarted());
+		// 待っているjob01#2も起動できる状態にする（上限の変更では起動し直さない）
+		queue.setMaxConcurrent("job01", 2);
+
+		// キューは上限に達しているが、job02はすぐに起動できるため受け付ける。
+		// 優先度の高いjob01#2に枠を使われて、job02がキューに残ることはない
+		assertTrue(queue.submit("job02", 0, launcher("job02#1")).isStarted());
+		assertEquals(Arrays.asList("job01#1", "job02#1"), started);
+		assertEquals(Arrays.asList("job01 (priority:5)"), queue.status().get("queued"));
+		assertEquals(2, queue.status().get("running"));
+
+		finish("job02#1");
+		assertEquals(Arrays.asList("job01#1", "job02#1", "job01#2"), started);
+		assertEquals(Collections.emptyList(), queue.status().get("queued"));
+	}
+
+	@Test
+	void reportsLaunchFailureAndReleasesSlot() throws Exception {
+		JobLaunchQueue queue = new JobLaunchQueue(1, 10);
+		IllegalStateException cause = new IllegalStateException("launch failed");
+		JobLaunchFailedException e = assertThrows(JobLaunchFailedException.class, () -> queue.submit("job01", 0, () -> {
+			throw cause;
+		}));
+		assertSame(cause, e.getCause());
+		assertTrue(queue.submit("job02", 0, launcher("job02#1")).isStarted());
+	}
+
+	@Test
+	void rejectsUnknownJobNames() throws Exception {
+		JobLaunchQueue queue = new JobLaunchQueue(1, 10);
+		queue.setJobNames(Arrays.asList("job01"));
+
+		assertThrows(NoSuchJobException.class, () -> queue.submit("job01;rm", 0, launcher("job01;rm#1")));
+		assertTrue(started.isEmpty());
+		assertEquals(Collections.emptyMap(), queue.status().get("runningJobs"));
+		assertTrue(queue.submit("job01", 0, launcher("job01#1")).isStarted());
+	}
+
+	private JobLaunchQueue.Launcher launcher(String name) {
+		return () -> {
+			started.add(name);
+			CompletableFuture<Void> completion = new CompletableFuture<>();
+			running.put(name, completion);
+			return completion;
+		};
+	}
+
+	private void finish(String name) {
+		running.get(name).complete(null);
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.example.demo.launch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.job.SimpleJob;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+class SingleJobBeanFactoryPostProcessorTest {
+
+	@Test
+	void removesOtherJobDefinitions() {
+		DefaultListableBeanFactory beanFactory = beanFactory();
+
+		new SingleJobBeanFactoryPostProcessor("job02").postProcessBeanFactory(beanFactory);
+
+		assertArrayEquals(new String[] {"job02"}, beanFactory.getBeanNamesForType(Job.class, true, false));
+		assertTrue(beanFactory.containsBeanDefinition("other"));
+	}
+
+	@Test
+	void rejectsUnknownJob() {
+		DefaultListableBeanFactory beanFactory = beanFactory();
+
+		assertThrows(IllegalStateException.class,
+				() -> new SingleJobBeanFactoryPostProcessor("job99").postProcessBeanFactory(beanFactory));
+	}
+
+	private static DefaultListableBeanFactory beanFactory() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerBeanDefinition("job01", new RootBeanDefinition(SimpleJob.class));
+		beanFactory.registerBeanDefinition("job02", new RootBeanDefinition(SimpleJob.class));
+		beanFactory.registerBeanDefinition("job03", new RootBeanDefinition(SimpleJob.class));
+		beanFactory.registerBeanDefinition("other", new RootBeanDefinition(Object.class));
+		return beanFactory;
+	}
+
+}
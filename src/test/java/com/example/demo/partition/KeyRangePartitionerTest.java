@@ -0,0 +1,132 @@
+package com.example.demo.partition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.config.Step05Configuration;
+import com.example.demo.entity.Person;
+import com.example.demo.item.reader.MyBatisKeysetPagingItemReader;
+
+class KeyRangePartitionerTest {
+
+	@Test
+	void splitsRowsIntoDisjointKeyRanges() {
+		SimpleDriverDataSource dataSource = new SimpleDriverDataSource(
+				new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:partition", "sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE p (first_name VARCHAR(10), last_name VARCHAR(10))");
+		for(int i = 0; i < 100; i++) {
+			// 同じlast_nameが2件ずつ
+			jdbcTemplate.update("INSERT INTO p VALUES (?, ?)", i % 2 == 0 ? "G1" : "G2", String.format("L%03d", i / 2));
+		}
+		jdbcTemplate.update("INSERT INTO p VALUES ('G1', NULL)");
+		jdbcTemplate.update("INSERT INTO p VALUES ('X', 'L999')");
+
+		KeyRangePartitioner partitioner = new KeyRangePartitioner(dataSource, "p", "last_name");
+		partitioner.setCondition("first_name LIKE '%' || ? || '%' OR first_name LIKE '%' || ? || '%'", "G1", "G2");
+		Map<String, ExecutionContext> partitions = partitioner.partition(4);
+
+		assertEquals(4, partitions.size());
+		List<ExecutionContext> contexts = new ArrayList<>(partitions.values());
+		assertNull(contexts.get(0).get(KeyRangePartitioner.MIN_KEY));
+		assertNull(contexts.get(3).get(KeyRangePartitioner.MAX_KEY));
+
+		// すべての行がちょうど1つのパーティションに含まれ、件数はほぼ均等（同じlast_nameの行は同じパーティション）
+		int[] rows = new int[contexts.size()];
+		for(String lastName : jdbcTemplate.queryForList(
+				"SELECT last_name FROM p WHERE first_name LIKE '%G1%' OR first_name LIKE '%G2%'", String.class)) {
+			int matched = 0;
+			for(int i = 0; i < contexts.size(); i++) {
+				if(contains(contexts.get(i), lastName)) {
+					rows[i]++;
+					matched++;
+				}
+			}
+			assertEquals(1, matched, "last_name: " + lastName);
+		}
+		for(int count : rows) {
+			assertTrue(count >= 24 && count <= 27, "rows: " + count);
+		}
+		assertEquals(101, Arrays.stream(rows).sum());
+		jdbcTemplate.execute("DROP TABLE p");
+	}
+
+	@Test
+	void keysetReaderReadsEachPartitionOnce() throws Exception {
+		SimpleDriverDataSource dataSource = new SimpleDriverDataSource(
+				new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:partition-keyset;sql.syntax_db2=true", "sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE person (id BIGINT NOT NULL GENERATED BY DEFAULT AS IDENTITY,"
+				+ " first_name VARCHAR(100), last_name VARCHAR(100), PRIMARY KEY (id))");
+		for(int i = 0; i < 40; i++) {
+			// last_nameの順とidの順が一致しないようにする
+			jdbcTemplate.update("INSERT INTO person (first_name, last_name) VALUES (?, ?)",
+					i % 2 == 0 ? "G1" : "G2", String.format("L%03d", (i * 7) % 20));
+		}
+		jdbcTemplate.update("INSERT INTO person (first_name, last_name) VALUES ('G2', NULL)");
+		jdbcTemplate.update("INSERT INTO person (first_name, last_name) VALUES ('X', 'L005')");
+
+		Properties properties = new Properties();
+		properties.setProperty("person.cursor.fetch-size", "100");
+		SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setConfigurationProperties(properties);
+		factoryBean.setMapperLocations(new ClassPathResource("com/example/demo/mapper/PersonMapper.xml"));
+		Step05Configuration configuration = new Step05Configuration();
+		configuration.sqlSessionFactory = factoryBean.getObject();
+		ReflectionTestUtils.setField(configuration, "readerType", "keyset");
+		ReflectionTestUtils.setField(configuration, "pageSize", 3);
+
+		KeyRangePartitioner partitioner = new KeyRangePartitioner(dataSource, "person", "last_name");
+		partitioner.setCondition("first_name LIKE '%' || ? || '%' OR first_name LIKE '%' || ? || '%'", "G1", "G2");
+		List<Long> ids = new ArrayList<>();
+		for(ExecutionContext context : partitioner.partition(3).values()) {
+			ItemStreamReader<Person> reader = configuration.step05PartitionItemReader(
+					(String) context.get(KeyRangePartitioner.MIN_KEY), (String) context.get(KeyRangePartitioner.MAX_KEY), null);
+			assertTrue(reader instanceof MyBatisKeysetPagingItemReader);
+			((MyBatisKeysetPagingItemReader<Person>) reader).afterPropertiesSet();
+			reader.open(new ExecutionContext());
+			for(Person person = reader.read(); person != null; person = reader.read()) {
+				assertTrue(contains(context, person.getLastName()), "last_name: " + person.getLastName());
+				ids.add(person.getId());
+			}
+			reader.close();
+		}
+
+		// G1・G2を含むすべての行を、いずれか1つのパーティションで1回だけ読み込む
+		Collections.sort(ids);
+		assertEquals(jdbcTemplate.queryForList(
+				"SELECT id FROM person WHERE first_name LIKE '%G1%' OR first_name LIKE '%G2%' ORDER BY id", Long.class), ids);
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	/**
+	 * streamPersonByKeyRangeと同じ条件で、パーティションに含まれるかどうかを判定する
+	 */
+	private static boolean contains(ExecutionContext context, String key) {
+		String min = (String) context.get(KeyRangePartitioner.MIN_KEY);
+		String max = (String) context.get(KeyRangePartitioner.MAX_KEY);
+		if(key == null) {
+			return min == null;
+		}
+		return (min == null || key.compareTo(min) >= 0) && (max == null || key.compareTo(max) < 0);
+	}
+
+}
@@ -0,0 +1,244 @@
+package com.example.demo.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.Step09Configuration;
+import com.example.demo.entity.Person;
+
+class PipelinedKeysetItemReaderTest {
+
+	private SimpleDriverDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private SqlSessionFactory sqlSessionFactory;
+
+	private final WatermarkRegistry registry = new WatermarkRegistry();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+	@BeforeEach
+	void setUp() throws Exception {
+		dataSource = new SimpleDriverDataSource(
+				new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:pipeline;sql.syntax_db2=true", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE person (id BIGINT NOT NULL GENERATED BY DEFAULT AS IDENTITY (START WITH 1),"
+				+ " first_name VARCHAR(100), last_name VARCHAR(100), PRIMARY KEY (id))");
+
+		Properties properties = new Properties();
+		properties.setProperty("person.cursor.fetch-size", "100");
+		SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setConfigurationProperties(properties);
+		factoryBean.setMapperLocations(new ClassPathResource("com/example/demo/mapper/PersonMapper.xml"));
+		sqlSessionFactory = factoryBean.getObject();
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Test
+	void readsCommittedKeysInOrderWhileUpstreamWrites() throws Exception {
+		Watermark watermark = registry.get(1L, "upstream");
+		PipelinedKeysetItemReader<Person> reader = reader();
+		Future<List<Long>> consumer = executor.submit(() -> readAll(reader));
+
+		// 上流：2件ずつ登録（自動コミット）してからウォーターマークを進める
+		Future<?> producer = executor.submit(() -> {
+			for(int i = 1; i <= 20; i++) {
+				insert(i);
+				if(i % 2 == 0) {
+					watermark.advance(i);
+				}
+			}
+			watermark.complete();
+			return null;
+		});
+		producer.get(30, TimeUnit.SECONDS);
+
+		List<Long> expected = new ArrayList<>();
+		for(long id = 1; id <= 20; id++) {
+			expected.add(id);
+		}
+		// 終了の通知後、最終的なウォーターマークまで読み込んでから終了（null）とする
+		assertEquals(expected, consumer.get(30, TimeUnit.SECONDS));
+		assertEquals(20, reader.getLastKey());
+	}
+
+	@Test
+	void doesNotReadPastWatermark() throws Exception {
+		Watermark watermark = registry.get(1L, "upstream");
+		for(int i = 1; i <= 5; i++) {
+			insert(i);
+		}
+		watermark.advance(2);
+
+		PipelinedKeysetItemReader<Person> reader = reader();
+		assertEquals(1L, reader.read().getId());
+		assertEquals(2L, reader.read().getId());
+
+		// 登録済みでもウォーターマークより大きいキーは読み込まず、上流のコミットを待つ
+		Future<Person> next = executor.submit(reader::read);
+		assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+		assertFalse(next.isDone());
+
+		watermark.advance(5);
+		assertEquals(3L, next.get(10, TimeUnit.SECONDS).getId());
+		assertEquals(4L, reader.read().getId());
+		assertEquals(5L, reader.read().getId());
+		watermark.complete();
+		assertNull(reader.read());
+		reader.close();
+	}
+
+	@Test
+	void failsWhenUpstreamFails() throws Exception {
+		Watermark watermark = registry.get(1L, "upstream");
+		insert(1);
+		watermark.advance(1);
+
+		PipelinedKeysetItemReader<Person> reader = reader();
+		assertEquals(1L, reader.read().getId());
+
+		RuntimeException cause = new RuntimeException("upstream failed");
+		watermark.fail(cause);
+		IllegalStateException e = assertThrows(IllegalStateException.class, reader::read);
+		assertSame(cause, e.getCause());
+		reader.close();
+	}
+
+	@Test
+	void restartsAfterLastReadKey() throws Exception {
+		Watermark watermark = registry.get(1L, "upstream");
+		for(int i = 1; i <= 4; i++) {
+			insert(i);
+		}
+		watermark.advance(4);
+		watermark.complete();
+
+		PipelinedKeysetItemReader<Person> reader = reader();
+		ExecutionContext executionContext = new ExecutionContext();
+		reader.read();
+		reader.read();
+		reader.update(executionContext);
+		reader.close();
+
+		// 最後に読み込んだキーの続きから読み込む
+		PipelinedKeysetItemReader<Person> restarted = newReader();
+		restarted.beforeStep(new StepExecution("downstream", new JobExecution(1L)));
+		restarted.open(executionContext);
+		assertEquals(3L, restarted.read().getId());
+		assertEquals(4L, restarted.read().getId());
+		assertNull(restarted.read());
+		restarted.close();
+	}
+
+	@Test
+	void upstreamWriterNeverRewritesRowsBelowWatermark() throws Exception {
+		Step09Configuration configuration = new Step09Configuration();
+		configuration.sqlSessionFactory = sqlSessionFactory;
+		ItemWriter<Person> upstream = configuration.step09PersonItemWriter();
+		TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		Watermark watermark = registry.get(1L, "upstream");
+
+		// 上流：チャンクごとに書き込み、コミットした行のidの上限をウォーターマークとする（step09_CSV_to_DBと同じ）
+		List<List<Person>> chunks = Arrays.asList(
+				Arrays.asList(new Person("a", "Smith"), new Person("b", "Jones")),
+				Arrays.asList(new Person("c", "Smith"), new Person("d", "Jones")));
+		PipelinedKeysetItemReader<Person> reader = reader();
+		List<String> read = new ArrayList<>();
+		for(List<Person> chunk : chunks) {
+			transactionTemplate.execute(status -> {
+				try {
+					upstream.write(chunk);
+				} catch(Exception e) {
+					throw new IllegalStateException(e);
+				}
+				return null;
+			});
+			watermark.advance(jdbcTemplate.queryForObject("SELECT MAX(id) FROM person", Long.class));
+			for(int i = 0; i < chunk.size(); i++) {
+				Person person = reader.read();
+				read.add(person.getId() + ":" + person.getFirstName() + " " + person.getLastName());
+			}
+		}
+		watermark.complete();
+		assertNull(reader.read());
+		reader.close();
+
+		// last_nameが同じデータも別の行として登録し、読み込み済みの行は書き換えない
+		assertEquals(Arrays.asList("1:a Smith", "2:b Jones", "3:c Smith", "4:d Jones"), read);
+		assertEquals(read, jdbcTemplate.queryForList("SELECT id || ':' || first_name || ' ' || last_name FROM person ORDER BY id", String.class));
+	}
+
+	private PipelinedKeysetItemReader<Person> reader() throws Exception {
+		PipelinedKeysetItemReader<Person> reader = newReader();
+		reader.beforeStep(new StepExecution("downstream", new JobExecution(1L)));
+		reader.open(new ExecutionContext());
+		return reader;
+	}
+
+	private PipelinedKeysetItemReader<Person> newReader() throws Exception {
+		PipelinedKeysetItemReader<Person> reader = new PipelinedKeysetItemReader<>();
+		reader.setSqlSessionFactory(sqlSessionFactory);
+		reader.setQueryId("com.example.demo.mapper.PersonMapper.findPersonPageUpTo");
+		// ページの境界をまたいで読み込むよう、ページの件数は小さくする
+		reader.setPageSize(3);
+		reader.setKeyExtractor(Person::getId);
+		reader.setRegistry(registry);
+		reader.setUpstreamStepName("upstream");
+		reader.setPollInterval(50);
+		reader.afterPropertiesSet();
+		return reader;
+	}
+
+	private static List<Long> readAll(PipelinedKeysetItemReader<Person> reader) throws Exception {
+		List<Long> ids = new ArrayList<>();
+		try {
+			Person person;
+			while((person = reader.read()) != null) {
+				ids.add(person.getId());
+			}
+		} finally {
+			reader.close();
+		}
+		return ids;
+	}
+
+	private void insert(int i) {
+		jdbcTemplate.update("INSERT INTO person (first_name, last_name) VALUES (?, ?)", "first" + i, "last" + i);
+	}
+
+}
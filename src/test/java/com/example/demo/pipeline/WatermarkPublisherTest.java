@@ -0,0 +1,103 @@
+package com.example.demo.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+class WatermarkPublisherTest {
+
+	private final WatermarkRegistry registry = new WatermarkRegistry();
+
+	// 書き込み済みのキーの上限
+	private final AtomicLong source = new AtomicLong(Watermark.NONE);
+
+	private final WatermarkPublisher<String> publisher = new WatermarkPublisher<>(registry, source::get);
+
+	@Test
+	void publishesOnlyCommittedChunks() {
+		StepExecution stepExecution = stepExecution();
+		publisher.beforeStep(stepExecution);
+		Watermark watermark = registry.get(1L, "upstream");
+
+		// 書き込み後はExecutionContextにだけ保存し、コミット後に公開する
+		source.set(4);
+		publisher.afterWrite(Collections.singletonList("a"));
+		assertEquals(4, stepExecution.getExecutionContext().getLong(WatermarkPublisher.WATERMARK_KEY));
+		assertEquals(Watermark.NONE, watermark.get());
+		publisher.afterChunk(null);
+		assertEquals(4, watermark.get());
+
+		// ロールバックしたチャンクの上限は公開せず、ExecutionContextも戻す
+		source.set(8);
+		publisher.afterWrite(Collections.singletonList("b"));
+		publisher.afterChunkError(null);
+		assertEquals(4, stepExecution.getExecutionContext().getLong(WatermarkPublisher.WATERMARK_KEY));
+		assertEquals(4, watermark.get());
+
+		// 再実行時は前回コミットした上限から始める
+		WatermarkRegistry restarted = new WatermarkRegistry();
+		StepExecution restart = stepExecution();
+		restart.getExecutionContext().putLong(WatermarkPublisher.WATERMARK_KEY, 4);
+		new WatermarkPublisher<String>(restarted, source::get).beforeStep(restart);
+		assertEquals(4, restarted.get(1L, "upstream").get());
+	}
+
+	@Test
+	void signalsEndOfStream() throws Exception {
+		StepExecution stepExecution = stepExecution();
+		publisher.beforeStep(stepExecution);
+
+		stepExecution.setStatus(BatchStatus.COMPLETED);
+		publisher.afterStep(stepExecution);
+		Watermark watermark = registry.get(1L, "upstream");
+		assertTrue(watermark.isCompleted());
+		watermark.await(Watermark.NONE, TimeUnit.SECONDS.toMillis(10));
+	}
+
+	@Test
+	void signalsUpstreamFailure() {
+		StepExecution stepExecution = stepExecution();
+		publisher.beforeStep(stepExecution);
+
+		RuntimeException cause = new RuntimeException("write failed");
+		stepExecution.setStatus(BatchStatus.FAILED);
+		stepExecution.addFailureException(cause);
+		publisher.afterStep(stepExecution);
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> registry.get(1L, "upstream").await(Watermark.NONE, TimeUnit.SECONDS.toMillis(10)));
+		assertSame(cause, e.getCause());
+	}
+
+	@Test
+	void rejectsWritesFromOtherThreads() throws Exception {
+		publisher.beforeStep(stepExecution());
+
+		// マルチスレッドのステップではキーがコミット順に増加しないため、例外とする
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> write = executor.submit(() -> publisher.afterWrite(Collections.singletonList("a")));
+			Exception e = assertThrows(Exception.class, () -> write.get(5, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IllegalStateException, String.valueOf(e.getCause()));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static StepExecution stepExecution() {
+		return new StepExecution("upstream", new JobExecution(1L), 1L);
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.example.demo.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class WatermarkTest {
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void advancesOnlyForward() {
+		Watermark watermark = new Watermark();
+		assertEquals(Watermark.NONE, watermark.get());
+
+		watermark.advance(5);
+		// 現在の上限以下の値は無視する（コミットの通知が前後しても戻らない）
+		watermark.advance(3);
+		watermark.advance(5);
+		assertEquals(5, watermark.get());
+		watermark.advance(6);
+		assertEquals(6, watermark.get());
+		assertFalse(watermark.isCompleted());
+	}
+
+	@Test
+	void wakesWaitingReaderOnAdvanceAndCompletion() throws Exception {
+		Watermark watermark = new Watermark();
+		watermark.advance(5);
+
+		// 上限が読み込み済みの値より大きい場合は待機しない
+		watermark.await(4, TimeUnit.SECONDS.toMillis(10));
+
+		Future<?> waiting = executor.submit(() -> {
+			watermark.await(5, TimeUnit.SECONDS.toMillis(10));
+			return null;
+		});
+		watermark.advance(6);
+		waiting.get(5, TimeUnit.SECONDS);
+
+		waiting = executor.submit(() -> {
+			watermark.await(6, TimeUnit.SECONDS.toMillis(10));
+			return null;
+		});
+		watermark.complete();
+		waiting.get(5, TimeUnit.SECONDS);
+		assertTrue(watermark.isCompleted());
+		assertEquals(6, watermark.get());
+	}
+
+	@Test
+	void returnsAfterTimeoutWithoutChange() throws Exception {
+		Watermark watermark = new Watermark();
+		watermark.await(Watermark.NONE, 10);
+		assertEquals(Watermark.NONE, watermark.get());
+		assertFalse(watermark.isCompleted());
+	}
+
+	@Test
+	void throwsUpstreamFailureToWaitingReader() throws Exception {
+		Watermark watermark = new Watermark();
+		watermark.advance(1);
+		Future<?> waiting = executor.submit(() -> {
+			watermark.await(1, TimeUnit.SECONDS.toMillis(10));
+			return null;
+		});
+
+		RuntimeException cause = new RuntimeException("upstream failed");
+		watermark.fail(cause);
+		Exception e = assertThrows(Exception.class, () -> waiting.get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof IllegalStateException, String.valueOf(e.getCause()));
+		assertSame(cause, e.getCause().getCause());
+
+		// 以降の待機も異常終了とする（未読み込みのデータがあっても待機しない）
+		IllegalStateException again = assertThrows(IllegalStateException.class, () -> watermark.await(0, 10));
+		assertSame(cause, again.getCause());
+	}
+
+}
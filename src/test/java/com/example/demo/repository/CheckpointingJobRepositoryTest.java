@@ -0,0 +1,138 @@
+package com.example.demo.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+
+class CheckpointingJobRepositoryTest {
+
+	// 委譲先へ渡した更新（メソッド名:ステップ実行ID または job）
+	private final List<String> calls = new ArrayList<>();
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	private CheckpointingJobRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		JobRepository delegate = (JobRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {JobRepository.class}, (proxy, method, args) -> {
+					Object target = args != null && args.length > 0 ? args[0] : null;
+					calls.add(method.getName() + ":" + (target instanceof StepExecution ? ((StepExecution) target).getId() : "job"));
+					return null;
+				});
+		// 3チャンクごと、または10秒ごとに更新する
+		repository = new CheckpointingJobRepository(delegate, 3, 10_000);
+		repository.setClock(now::get);
+	}
+
+	@Test
+	void skipsRunningStepUpdatesBetweenCheckpoints() {
+		StepExecution step = stepExecution(1L);
+
+		// ステップの開始時は更新する
+		repository.update(step);
+		assertEquals(Arrays.asList("update:1"), calls);
+
+		// 最初のチャンクは更新し、以降は3チャンクごとに更新する
+		List<String> expected = new ArrayList<>(calls);
+		for(int chunk = 1; chunk <= 7; chunk++) {
+			commit(step);
+			if(chunk == 1 || chunk == 4 || chunk == 7) {
+				expected.add("updateExecutionContext:1");
+				expected.add("update:1");
+			}
+			assertEquals(expected, calls, "chunk " + chunk);
+		}
+	}
+
+	@Test
+	void passesUpdateWhenIntervalElapsed() {
+		StepExecution step = stepExecution(1L);
+		repository.update(step);
+		commit(step);
+		int flushed = calls.size();
+
+		now.addAndGet(9_999);
+		commit(step);
+		assertEquals(flushed, calls.size());
+
+		now.addAndGet(1);
+		commit(step);
+		assertEquals(Arrays.asList("updateExecutionContext:1", "update:1"), calls.subList(flushed, calls.size()));
+	}
+
+	@Test
+	void alwaysPassesFinishedStepsAndJobUpdates() {
+		StepExecution step = stepExecution(1L);
+		repository.update(step);
+		commit(step);
+		commit(step);
+		int flushed = calls.size();
+
+		// ステップの終了時（STARTED以外）は間引かずに更新する
+		step.setStatus(BatchStatus.COMPLETED);
+		commit(step);
+		assertEquals(Arrays.asList("updateExecutionContext:1", "update:1"), calls.subList(flushed, calls.size()));
+
+		// 同じステップ実行IDで再度開始しても、前回の状態を引き継がない
+		step.setStatus(BatchStatus.STARTED);
+		calls.clear();
+		repository.update(step);
+		commit(step);
+		assertEquals(Arrays.asList("update:1", "updateExecutionContext:1", "update:1"), calls);
+
+		// IDの無いステップ実行、ジョブの更新は常に委譲する
+		calls.clear();
+		StepExecution unsaved = new StepExecution("step", new JobExecution(1L));
+		unsaved.setStatus(BatchStatus.STARTED);
+		commit(unsaved);
+		commit(unsaved);
+		JobExecution jobExecution = new JobExecution(1L);
+		repository.update(jobExecution);
+		repository.updateExecutionContext(jobExecution);
+		assertEquals(Arrays.asList("updateExecutionContext:null", "update:null", "updateExecutionContext:null", "update:null",
+				"update:job", "updateExecutionContext:job"), calls);
+	}
+
+	@Test
+	void tracksStepExecutionsSeparately() {
+		StepExecution first = stepExecution(1L);
+		StepExecution second = stepExecution(2L);
+		repository.update(first);
+		repository.update(second);
+		commit(first);
+		commit(second);
+		calls.clear();
+
+		commit(first);
+		commit(first);
+		commit(second);
+		commit(first);
+		assertEquals(Arrays.asList("updateExecutionContext:1", "update:1"), calls);
+	}
+
+	private void commit(StepExecution stepExecution) {
+		// チャンクのコミット時と同じ順序で呼び出す
+		repository.updateExecutionContext(stepExecution);
+		repository.update(stepExecution);
+	}
+
+	private static StepExecution stepExecution(Long id) {
+		StepExecution stepExecution = new StepExecution("step" + id, new JobExecution(1L), id);
+		stepExecution.setStatus(BatchStatus.STARTED);
+		return stepExecution;
+	}
+
+}
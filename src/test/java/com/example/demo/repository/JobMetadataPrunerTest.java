@@ -0,0 +1,143 @@
+package com.example.demo.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+class JobMetadataPrunerTest {
+
+	private static final String[] TABLES = {
+		"JOB_INSTANCE", "JOB_EXECUTION", "JOB_EXECUTION_PARAMS", "JOB_EXECUTION_CONTEXT", "STEP_EXECUTION", "STEP_EXECUTION_CONTEXT"
+	};
+
+	@Test
+	void prunesInstancesFinishedBeforeCutoffInBatches() throws Exception {
+		SimpleDriverDataSource dataSource = dataSource("pruner");
+		initializeSchema(dataSource);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+		JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+		factory.setDataSource(dataSource);
+		// schema-all.sqlのシーケンス（DB2の構文）で採番する
+		factory.setDatabaseType("DB2");
+		factory.setTransactionManager(new DataSourceTransactionManager(dataSource));
+		factory.afterPropertiesSet();
+		JobRepository jobRepository = factory.getObject();
+
+		Instant cutoff = Instant.now().minus(Duration.ofDays(30));
+		Date old = Date.from(cutoff.minus(Duration.ofDays(1)));
+		Date recent = Date.from(cutoff.plus(Duration.ofDays(1)));
+		JobExecution old1 = execute(jobRepository, 1, BatchStatus.COMPLETED, old);
+		JobExecution old2 = execute(jobRepository, 2, BatchStatus.FAILED, old);
+		execute(jobRepository, 3, BatchStatus.COMPLETED, recent);
+		// 実行中（終了していない）
+		execute(jobRepository, 4, BatchStatus.STARTED, null);
+		// 古い実行が失敗し、再実行が保持期間内に終了したインスタンス
+		execute(jobRepository, 5, BatchStatus.FAILED, old);
+		execute(jobRepository, 5, BatchStatus.COMPLETED, recent);
+
+		assertEquals(Arrays.asList(), new JobRepositoryIndexes(dataSource, null).findMissing());
+
+		JobMetadataPruner pruner = new JobMetadataPruner(dataSource, null);
+		pruner.setArchiveTablePrefix("BATCH_ARCHIVE_");
+
+		List<Long> first = pruner.findPrunableInstances(cutoff, -1, 1);
+		assertEquals(Arrays.asList(old1.getJobId()), first);
+		Map<String, Integer> deleted = pruner.prune(first);
+		for(String table : TABLES) {
+			// インスタンス、実行、パラメータ（run.id）、ステップ、それぞれのExecutionContextが1行ずつ
+			assertEquals(1, deleted.get(table), table);
+		}
+
+		List<Long> second = pruner.findPrunableInstances(cutoff, first.get(0), 10);
+		assertEquals(Arrays.asList(old2.getJobId()), second);
+		pruner.prune(second);
+		assertEquals(Arrays.asList(), pruner.findPrunableInstances(cutoff, second.get(0), 10));
+
+		assertEquals(3, count(jdbcTemplate, "BATCH_JOB_INSTANCE"));
+		assertEquals(4, count(jdbcTemplate, "BATCH_JOB_EXECUTION"));
+		assertEquals(4, count(jdbcTemplate, "BATCH_STEP_EXECUTION"));
+		for(String table : TABLES) {
+			// 削除した2件のインスタンスの行をアーカイブ用テーブルに複写している
+			assertEquals(2, count(jdbcTemplate, "BATCH_ARCHIVE_" + table), table);
+		}
+
+		// 起動時にメタデータを作り直しても、アーカイブ用テーブルは作り直さない
+		initializeSchema(dataSource);
+		assertEquals(0, count(jdbcTemplate, "BATCH_JOB_INSTANCE"));
+		for(String table : TABLES) {
+			assertEquals(2, count(jdbcTemplate, "BATCH_ARCHIVE_" + table), table);
+		}
+
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Test
+	void reportsMissingIndexes() {
+		SimpleDriverDataSource dataSource = dataSource("indexes");
+		initializeSchema(dataSource);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		JobRepositoryIndexes indexes = new JobRepositoryIndexes(dataSource, null);
+		assertEquals(Arrays.asList(), indexes.findMissing());
+
+		// HSQLDBは外部キーにインデックスを作成するため、外部キーも削除してインデックスの無いDB（DB2）と同じ状態にする
+		jdbcTemplate.execute("ALTER TABLE BATCH_STEP_EXECUTION DROP CONSTRAINT JOB_EXEC_STEP_FK");
+		jdbcTemplate.execute("DROP INDEX BATCH_STEP_EXEC_JOB_EXEC_IX");
+		assertEquals(Arrays.asList("BATCH_STEP_EXECUTION(JOB_EXECUTION_ID)"), indexes.findMissing());
+
+		// 列を先頭に含むインデックスであれば、他の列を含んでいてもよい
+		jdbcTemplate.execute("CREATE INDEX BATCH_STEP_EXEC_TEST_IX ON BATCH_STEP_EXECUTION (JOB_EXECUTION_ID, STATUS)");
+		assertEquals(Arrays.asList(), indexes.findMissing());
+
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	private static SimpleDriverDataSource dataSource(String name) {
+		return new SimpleDriverDataSource(new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:" + name + ";sql.syntax_db2=true", "sa", "");
+	}
+
+	/**
+	 * アプリケーションの起動時と同じスクリプトでテーブルを作成します（初回は存在しないテーブル・シーケンスの削除に失敗する）
+	 */
+	private static void initializeSchema(SimpleDriverDataSource dataSource) {
+		ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema-all.sql"));
+		populator.setContinueOnError(true);
+		populator.execute(dataSource);
+	}
+
+	private static JobExecution execute(JobRepository jobRepository, long runId, BatchStatus status, Date endTime) throws Exception {
+		JobExecution jobExecution = jobRepository.createJobExecution("job",
+				new JobParametersBuilder().addLong("run.id", runId).toJobParameters());
+		jobExecution.setStartTime(new Date(0));
+		StepExecution stepExecution = jobExecution.createStepExecution("step");
+		jobRepository.add(stepExecution);
+		jobExecution.setStatus(status);
+		jobExecution.setEndTime(endTime);
+		jobRepository.update(jobExecution);
+		jobRepository.updateExecutionContext(jobExecution);
+		return jobExecution;
+	}
+
+	private static int count(JdbcTemplate jdbcTemplate, String table) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.example.demo.retry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.retry.support.RetryTemplate;
+
+class SqlStateRetryPolicyTest {
+
+	private final SqlStateRetryPolicy policy = new SqlStateRetryPolicy(3, Arrays.asList("40001", "57033"));
+
+	@Test
+	void retriesDeadlockFoundInTheNextExceptionChain() throws Exception {
+		RetryTemplate template = new RetryTemplate();
+		template.setRetryPolicy(policy);
+		AtomicInteger attempts = new AtomicInteger();
+
+		String result = template.execute(context -> {
+			if(attempts.incrementAndGet() < 3) {
+				BatchUpdateException batch = new BatchUpdateException("batch failure", "XX000", new int[0]);
+				batch.setNextException(new SQLException("deadlock", "40001", -911));
+				throw new RuntimeException(batch);
+			}
+			return "written";
+		});
+
+		assertEquals("written", result);
+		assertEquals(3, attempts.get());
+	}
+
+	@Test
+	void doesNotRetryOtherFailures() {
+		RetryTemplate template = new RetryTemplate();
+		template.setRetryPolicy(policy);
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThrows(DataIntegrityViolationException.class, () -> template.execute(context -> {
+			attempts.incrementAndGet();
+			throw new DataIntegrityViolationException("duplicate", new SQLException("duplicate", "23505", -803));
+		}));
+		assertEquals(1, attempts.get());
+	}
+
+}
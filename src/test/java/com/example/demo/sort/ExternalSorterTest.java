@@ -0,0 +1,90 @@
+package com.example.demo.sort;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExternalSorterTest {
+
+	private static final String[] HEADERS = {"id", "firstName", "lastName"};
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void sortsRunsInParallelAndKeepsInputOrderForEqualKeys() throws Exception {
+		Random random = new Random(1);
+		List<String[]> input = new ArrayList<>();
+		for(int i = 0; i < 10_000; i++) {
+			input.add(new String[] {String.valueOf(i), "first" + i, "last" + random.nextInt(100)});
+		}
+
+		ExternalSorter<String[]> sorter = new ExternalSorter<>(new StringArrayRecordCodec(), ColumnComparator.of(HEADERS, "lastName"));
+		sorter.setMaxRecordsInMemory(1_000);
+		sorter.setMaxFanIn(4);
+		sorter.setParallelism(4);
+		sorter.setTempDirectory(tempDir.toFile());
+		File output = tempDir.resolve("sorted").toFile();
+
+		assertEquals(10_000, sorter.sort(input.iterator(), output));
+
+		List<String[]> sorted = read(output);
+		assertEquals(10_000, sorted.size());
+		for(int i = 1; i < sorted.size(); i++) {
+			String[] previous = sorted.get(i - 1);
+			String[] current = sorted.get(i);
+			int cmp = previous[2].compareTo(current[2]);
+			assertEquals(true, cmp < 0 || (cmp == 0 && Integer.parseInt(previous[0]) < Integer.parseInt(current[0])),
+					"Out of order at " + i);
+		}
+		// ランの一時ファイルは削除されている
+		assertArrayEquals(new String[] {"sorted"}, tempDir.toFile().list());
+	}
+
+	@Test
+	void spillsWhenTheMemoryBudgetIsReached() throws Exception {
+		List<String[]> input = new ArrayList<>();
+		for(int i = 0; i < 500; i++) {
+			input.add(new String[] {String.valueOf(500 - i), null, ""});
+		}
+
+		ExternalSorter<String[]> sorter = new ExternalSorter<>(new StringArrayRecordCodec(), ColumnComparator.of(HEADERS, "id:numeric:desc"));
+		sorter.setMaxBytesInMemory(10_000, StringArrayRecordCodec::estimateSize);
+		sorter.setTempDirectory(tempDir.toFile());
+		File output = tempDir.resolve("sorted").toFile();
+
+		sorter.sort(input.iterator(), output);
+
+		List<String[]> sorted = read(output);
+		assertEquals(500, sorted.size());
+		assertArrayEquals(new String[] {"500", null, ""}, sorted.get(0));
+		assertArrayEquals(new String[] {"1", null, ""}, sorted.get(499));
+	}
+
+	@Test
+	void rejectsUnknownColumns() {
+		assertThrows(IllegalArgumentException.class, () -> ColumnComparator.of(HEADERS, "middleName"));
+		assertThrows(IllegalArgumentException.class, () -> ColumnComparator.of(HEADERS, "lastName:random"));
+	}
+
+	private static List<String[]> read(File file) throws Exception {
+		List<String[]> records = new ArrayList<>();
+		try(RecordFileReader<String[]> reader = new RecordFileReader<>(file, new StringArrayRecordCodec())) {
+			String[] record;
+			while((record = reader.read()) != null) {
+				records.add(record);
+			}
+		}
+		return records;
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.example.demo.step;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.MapJobExplorerFactoryBean;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.core.io.FileSystemResource;
+
+class InputFingerprintStepTest {
+
+	@TempDir
+	Path tempDir;
+
+	private JobRepository jobRepository;
+
+	private JobExplorer jobExplorer;
+
+	private Path input;
+
+	// 委譲先のステップを実行した回数
+	private final AtomicInteger executions = new AtomicInteger();
+
+	// 委譲先のステップの終了ステータス
+	private BatchStatus delegateStatus = BatchStatus.COMPLETED;
+
+	// 出力先の状態
+	private final AtomicReference<String> targetState = new AtomicReference<>("rows=1");
+
+	private long runId;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		MapJobRepositoryFactoryBean repositoryFactory = new MapJobRepositoryFactoryBean(new ResourcelessTransactionManager());
+		repositoryFactory.afterPropertiesSet();
+		jobRepository = repositoryFactory.getObject();
+		jobExplorer = new MapJobExplorerFactoryBean(repositoryFactory).getObject();
+		input = Files.write(tempDir.resolve("input.csv"), "a,b\n".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void reusesStepWhenInputAndTargetStateAreUnchanged() throws Exception {
+		assertEquals(ExitStatus.COMPLETED, run("job01").getExitStatus());
+		assertEquals(1, executions.get());
+
+		StepExecution reused = run("job01");
+		assertEquals(1, executions.get());
+		assertEquals(BatchStatus.COMPLETED, reused.getStatus());
+		assertTrue(reused.getExitStatus().getExitDescription().contains(InputFingerprintStep.REUSED));
+	}
+
+	@Test
+	void runsStepWhenTargetStateOrInputChanged() throws Exception {
+		run("job01");
+
+		// 件数が同じでも、出力先の内容が変わった場合は実行する
+		targetState.set("rows=1;changed");
+		run("job01");
+		assertEquals(2, executions.get());
+
+		Files.write(input, "a,c\n".getBytes(StandardCharsets.UTF_8));
+		run("job01");
+		assertEquals(3, executions.get());
+
+		run("job01");
+		assertEquals(3, executions.get());
+	}
+
+	@Test
+	void comparesWithLastCompletedExecutionOfAnyJob() throws Exception {
+		run("job01");
+
+		// step01を含む他のジョブの実行とも比較する
+		run("job02");
+		assertEquals(1, executions.get());
+
+		// 失敗したジョブの実行は比較せず、それより前の成功した実行と比較する
+		targetState.set("rows=2");
+		delegateStatus = BatchStatus.FAILED;
+		assertEquals(BatchStatus.FAILED, run("job01").getStatus());
+		assertEquals(2, executions.get());
+
+		delegateStatus = BatchStatus.COMPLETED;
+		targetState.set("rows=1");
+		run("job01");
+		assertEquals(2, executions.get());
+	}
+
+	@Test
+	void comparesWithTargetStateAtEndOfJob() throws Exception {
+		// 後続のステップが出力先を加工するジョブ（step02で更新するjob02等）
+		Runnable transform = () -> targetState.set("rows=1;transformed");
+		run("job02", transform);
+		assertEquals(1, executions.get());
+
+		// ステップの終了時ではなくジョブの終了時の状態と比較するため、加工後の状態のままであれば省略する
+		StepExecution reused = run("job02", transform);
+		assertEquals(1, executions.get());
+		assertTrue(reused.getExitStatus().getExitDescription().contains(InputFingerprintStep.REUSED));
+		run("job01");
+		assertEquals(1, executions.get());
+
+		// ジョブの終了後に出力先が変更された場合は実行する
+		targetState.set("rows=0");
+		run("job02", transform);
+		assertEquals(2, executions.get());
+	}
+
+	private StepExecution run(String jobName) throws Exception {
+		return run(jobName, () -> {});
+	}
+
+	/**
+	 * ステップを実行し、後続のステップ（laterSteps）の後にジョブを終了します
+	 */
+	private StepExecution run(String jobName, Runnable laterSteps) throws Exception {
+		JobExecution jobExecution = jobRepository.createJobExecution(jobName,
+				new JobParametersBuilder().addLong("run.id", ++runId).toJobParameters());
+		StepExecution stepExecution = jobExecution.createStepExecution("step01");
+		jobRepository.add(stepExecution);
+
+		InputFingerprintStep step = new InputFingerprintStep(delegate(), jobRepository, jobExplorer,
+				new FileSystemResource(input), "config");
+		step.setTargetState(targetState::get);
+		step.execute(stepExecution);
+		if(stepExecution.getStatus() == BatchStatus.COMPLETED) {
+			laterSteps.run();
+		}
+
+		jobExecution.setStatus(stepExecution.getStatus());
+		jobExecution.setExitStatus(stepExecution.getExitStatus());
+		jobExecution.setEndTime(new Date());
+		step.afterJob(jobExecution);
+		jobRepository.update(jobExecution);
+		return stepExecution;
+	}
+
+	private Step delegate() {
+		return new Step() {
+			@Override
+			public String getName() {
+				return "step01";
+			}
+
+			@Override
+			public boolean isAllowStartIfComplete() {
+				return false;
+			}
+
+			@Override
+			public int getStartLimit() {
+				return Integer.MAX_VALUE;
+			}
+
+			@Override
+			public void execute(StepExecution stepExecution) {
+				executions.incrementAndGet();
+				stepExecution.setStatus(delegateStatus);
+				stepExecution.setExitStatus(new ExitStatus(delegateStatus.name()));
+				stepExecution.setEndTime(new Date());
+				jobRepository.update(stepExecution);
+			}
+		};
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.example.demo.step;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+class TableChecksumTest {
+
+	@Test
+	void detectsChangesThatKeepRowCount() {
+		SimpleDriverDataSource dataSource = new SimpleDriverDataSource(
+				new org.hsqldb.jdbc.JDBCDriver(), "jdbc:hsqldb:mem:checksum", "sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE person (id BIGINT NOT NULL GENERATED BY DEFAULT AS IDENTITY, "
+				+ "first_name VARCHAR(100), last_name VARCHAR(100), PRIMARY KEY (id))");
+		jdbcTemplate.update("INSERT INTO person (first_name, last_name) VALUES ('a', 'A'), ('b', 'B')");
+
+		TableChecksum checksum = new TableChecksum(dataSource, "SELECT id, first_name, last_name FROM person ORDER BY id", 100);
+		String initial = checksum.get();
+		assertTrue(initial.startsWith("rows=2;sha256="), initial);
+		assertEquals(initial, checksum.get());
+
+		// 削除と登録で件数が同じ場合
+		jdbcTemplate.update("DELETE FROM person WHERE first_name = 'b'");
+		jdbcTemplate.update("INSERT INTO person (first_name, last_name) VALUES ('b', 'B')");
+		String replaced = checksum.get();
+		assertTrue(replaced.startsWith("rows=2;"), replaced);
+		assertNotEquals(initial, replaced);
+
+		// 既存の行の更新（NULLと空文字も区別する）
+		jdbcTemplate.update("UPDATE person SET last_name = NULL WHERE first_name = 'a'");
+		String nulled = checksum.get();
+		assertNotEquals(replaced, nulled);
+		jdbcTemplate.update("UPDATE person SET last_name = '' WHERE first_name = 'a'");
+		assertNotEquals(nulled, checksum.get());
+
+		jdbcTemplate.execute("DROP TABLE person");
+	}
+
+}
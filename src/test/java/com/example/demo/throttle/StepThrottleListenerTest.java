@@ -0,0 +1,129 @@
+package com.example.demo.throttle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+class StepThrottleListenerTest {
+
+	private final Map<String, StepThrottle> table = new HashMap<>();
+
+	private final StepThrottleRepository repository = new StepThrottleRepository(new SimpleDriverDataSource()) {
+		@Override
+		public Map<String, StepThrottle> findAll() {
+			return new HashMap<>(table);
+		}
+	};
+
+	// 待機した時間だけ進む時刻（ナノ秒）
+	private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+	// 待機した時間（ミリ秒）
+	private final List<Long> sleeps = new ArrayList<>();
+
+	private StepThrottleListener listener;
+
+	private StepExecution stepExecution;
+
+	private ChunkContext chunkContext;
+
+	@BeforeEach
+	void setUp() {
+		// テーブルは100ミリ秒ごとに読み直す
+		listener = new StepThrottleListener(() -> repository,
+				Collections.singletonMap("step02", new StepThrottle(100, 0)), 100);
+		listener.setTicker(now::get);
+		listener.setSleeper(nanos -> {
+			sleeps.add(TimeUnit.NANOSECONDS.toMillis(nanos));
+			now.addAndGet(nanos);
+		});
+		stepExecution = new StepExecution("step02", new JobExecution(1L), 1L);
+		chunkContext = new ChunkContext(new StepContext(stepExecution));
+		listener.beforeStep(stepExecution);
+	}
+
+	@Test
+	void waitsUntilRateIsBelowLimit() {
+		// 10件を100件/秒で処理するには0.1秒かかるため、チャンクごとに処理時間との差を待機する
+		chunk(10, 0);
+		assertEquals(Arrays.asList(100L), sleeps);
+		chunk(10, 40);
+		assertEquals(Arrays.asList(100L, 60L), sleeps);
+
+		// 上限より遅い場合は待機しない
+		chunk(10, 150);
+		assertEquals(2, sleeps.size());
+
+		// 待機はテーブルを読み直す間隔ごとに分ける
+		sleeps.clear();
+		chunk(30, 0);
+		assertEquals(Arrays.asList(100L, 100L, 50L), sleeps);
+	}
+
+	@Test
+	void limitsBurstAfterIdlePeriod() {
+		chunk(10, 0);
+		sleeps.clear();
+
+		// 上限を下回っていた期間の分は、1秒分（100件）までしか取り戻さない
+		chunk(100, 5_000);
+		chunk(100, 0);
+		assertEquals(Collections.emptyList(), sleeps);
+		chunk(100, 0);
+		assertEquals(Arrays.asList(100L, 100L, 100L, 100L, 100L, 100L, 100L, 100L, 100L, 100L), sleeps);
+	}
+
+	@Test
+	void appliesTableChangesWhileRunning() {
+		chunk(10, 0);
+		sleeps.clear();
+
+		// テーブルの上限（制限なし）はプロパティの上限より優先し、読み直した時点で反映する
+		table.put("step02", StepThrottle.UNLIMITED);
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		for(int i = 0; i < 5; i++) {
+			chunk(1000, 0);
+		}
+		assertEquals(Collections.emptyList(), sleeps);
+
+		// 待機中に上限が変わった場合は、その時点から新しい上限で計測し直す
+		table.put("step02", new StepThrottle(10, 0));
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		chunk(1, 0);
+		assertEquals(Arrays.asList(100L), sleeps);
+		table.put("step02", new StepThrottle(0, 2));
+		chunk(1, 0);
+		// 待機中に読み直した上限が変わったため、残りの待機を打ち切る
+		assertEquals(Arrays.asList(100L, 100L), sleeps);
+		sleeps.clear();
+		// 2チャンク/秒では、変更後の1チャンク目で0.5秒待機する
+		chunk(1, 0);
+		assertEquals(Arrays.asList(100L, 100L, 100L, 100L, 100L), sleeps);
+		listener.afterStep(stepExecution);
+	}
+
+	/**
+	 * items件を処理してelapsedMillis経過した後に、チャンクをコミットします
+	 */
+	private void chunk(int items, long elapsedMillis) {
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(elapsedMillis));
+		stepExecution.setReadCount(stepExecution.getReadCount() + items);
+		listener.afterChunk(chunkContext);
+	}
+
+}